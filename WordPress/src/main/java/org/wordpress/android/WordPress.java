@@ -63,6 +63,7 @@ import org.wordpress.android.ui.notifications.NotificationsListFragment;
 import org.wordpress.android.ui.notifications.services.NotificationsUpdateService;
 import org.wordpress.android.ui.notifications.utils.NotificationsUtils;
 import org.wordpress.android.ui.prefs.AppPrefs;
+import org.wordpress.android.ui.reader.ReaderRenderedHtmlCache;
 import org.wordpress.android.ui.stats.StatsWidgetProvider;
 import org.wordpress.android.ui.stats.datasets.StatsDatabaseHelper;
 import org.wordpress.android.ui.stats.datasets.StatsTable;
@@ -72,15 +73,15 @@ import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.AppLogListener;
 import org.wordpress.android.util.AppLog.LogLevel;
 import org.wordpress.android.util.AppLog.T;
-import org.wordpress.android.util.BitmapLruCache;
+import org.wordpress.android.util.BitmapCache;
 import org.wordpress.android.util.CrashlyticsUtils;
 import org.wordpress.android.util.DateTimeUtils;
 import org.wordpress.android.util.FluxCUtils;
 import org.wordpress.android.util.HelpshiftHelper;
 import org.wordpress.android.util.NetworkUtils;
 import org.wordpress.android.util.PackageUtils;
-import org.wordpress.android.util.ProfilingUtils;
 import org.wordpress.android.util.RateLimitedTask;
+import org.wordpress.android.util.Tracer;
 import org.wordpress.android.util.VolleyUtils;
 import org.wordpress.android.util.WPActivityUtils;
 import org.wordpress.passcodelock.AbstractAppLock;
@@ -103,6 +104,7 @@ import io.fabric.sdk.android.Fabric;
 
 public class WordPress extends MultiDexApplication {
     public static final String SITE = "SITE";
+    public static final String STARTUP_TRACE = "App Startup";
     public static String versionName;
     public static WordPressDB wpDB;
     public static boolean sAppIsInTheBackground;
@@ -117,8 +119,11 @@ public class WordPress extends MultiDexApplication {
     private static final int SECONDS_BETWEEN_BLOGLIST_UPDATE = 15 * 60; // 15 minutes
     private static final int SECONDS_BETWEEN_DELETE_STATS = 5 * 60; // 5 minutes
 
+    private static final String BITMAP_CACHE_DIR_NAME = "thumbnails";
+    private static final long BITMAP_CACHE_MAX_DISK_BYTES = 10 * 1024 * 1024;
+
     private static Context mContext;
-    private static BitmapLruCache mBitmapCache;
+    private static BitmapCache mBitmapCache;
 
     private static GoogleApiClient mCredentialsClient;
 
@@ -173,8 +178,8 @@ public class WordPress extends MultiDexApplication {
             // Offload to a separate thread. We don't want to slown down the app on startup/resume.
             new Thread(new Runnable() {
                 public void run() {
-                    // subtracts to the current time the cache TTL
-                    long timeToDelete = System.currentTimeMillis() - (StatsTable.CACHE_TTL_MINUTES * 60 * 1000);
+                    // subtracts to the current time the max age of stale stats
+                    long timeToDelete = System.currentTimeMillis() - (StatsTable.CACHE_MAX_STALE_MINUTES * 60 * 1000);
                     StatsTable.deleteOldStats(WordPress.getContext(), timeToDelete);
                 }
             }).start();
@@ -182,13 +187,15 @@ public class WordPress extends MultiDexApplication {
         }
     };
 
-    public static BitmapLruCache getBitmapCache() {
+    public static BitmapCache getBitmapCache() {
         if (mBitmapCache == null) {
-            // The cache size will be measured in kilobytes rather than
-            // number of items. See http://developer.android.com/training/displaying-bitmaps/cache-bitmap.html
-            int maxMemory = (int) (Runtime.getRuntime().maxMemory() / 1024);
-            int cacheSize = maxMemory / 4;  //Use 1/4th of the available memory for this memory cache.
-            mBitmapCache = new BitmapLruCache(cacheSize);
+            // the cache size is measured in bytes, using 1/4th of the available memory for the
+            // memory tier
+            // See http://developer.android.com/training/displaying-bitmaps/cache-bitmap.html
+            long maxMemory = Runtime.getRuntime().maxMemory();
+            int cacheSize = (int) Math.min(maxMemory / 4, Integer.MAX_VALUE);
+            File diskDir = new File(getContext().getCacheDir(), BITMAP_CACHE_DIR_NAME);
+            mBitmapCache = new BitmapCache(cacheSize, diskDir, BITMAP_CACHE_MAX_DISK_BYTES);
         }
         return mBitmapCache;
     }
@@ -196,6 +203,7 @@ public class WordPress extends MultiDexApplication {
     @Override
     public void onCreate() {
         super.onCreate();
+        Tracer.Span startupTrace = Tracer.startTrace(T.MAIN, STARTUP_TRACE);
         mContext = this;
         long startDate = SystemClock.elapsedRealtime();
 
@@ -208,6 +216,7 @@ public class WordPress extends MultiDexApplication {
                 .build();
         component().inject(this);
         mDispatcher.register(this);
+        startupTrace.split("WordPress.onCreate injected");
 
         // Init static fields from dagger injected singletons, for legacy Actions/Utils
         sRequestQueue = mRequestQueue;
@@ -218,16 +227,20 @@ public class WordPress extends MultiDexApplication {
             Fabric.with(this, new Crashlytics());
         }
 
-        ProfilingUtils.start("App Startup");
         // Enable log recording
         AppLog.enableRecording(true);
         AppLog.addListener(new AppLogListener() {
+            // "level/WordPress-TAG: " prefix for each level and tag, built when first used
+            private final String[][] mPrefixes = new String[LogLevel.values().length][T.values().length];
+
             @Override
             public void onLog(T tag, LogLevel logLevel, String message) {
-                StringBuffer sb = new StringBuffer();
-                sb.append(logLevel.toString()).append("/").append(AppLog.TAG).append("-")
-                        .append(tag.toString()).append(": ").append(message);
-                CrashlyticsUtils.log(sb.toString());
+                String prefix = mPrefixes[logLevel.ordinal()][tag.ordinal()];
+                if (prefix == null) {
+                    prefix = logLevel.toString() + "/" + AppLog.TAG + "-" + tag.toString() + ": ";
+                    mPrefixes[logLevel.ordinal()][tag.ordinal()] = prefix;
+                }
+                CrashlyticsUtils.log(prefix + message);
             }
         });
         AppLog.i(T.UTILS, "WordPress.onCreate");
@@ -287,6 +300,8 @@ public class WordPress extends MultiDexApplication {
                 .addApi(Auth.CREDENTIALS_API)
                 .build();
         mCredentialsClient.connect();
+
+        startupTrace.split("WordPress.onCreate");
     }
 
     private void sanitizeMediaUploadStateForSite() {
@@ -507,6 +522,7 @@ public class WordPress extends MultiDexApplication {
         // reset all reader-related prefs & data
         AppPrefs.reset();
         ReaderDatabase.reset();
+        ReaderRenderedHtmlCache.getInstance(context).clear();
 
         // Reset Stats Data
         StatsDatabaseHelper.getDatabase(context).reset();
@@ -21,7 +21,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 
 public class WordPressDB {
-    private static final int DATABASE_VERSION = 63;
+    private static final int DATABASE_VERSION = 64;
 
     // Warning if you rename DATABASE_NAME, that could break previous App backups (see: xml/backup_scheme.xml)
     private static final String DATABASE_NAME = "wordpress";
@@ -215,6 +215,11 @@ public class WordPressDB {
                 db.execSQL(SiteSettingsModel.ADD_AMP_SUPPORTED);
                 db.execSQL(SiteSettingsModel.ADD_AMP_ENABLED);
                 currentVersion++;
+            case 63:
+                // recreate notifications table with columns for the fields shown in the list - notes
+                // are cached copies of the server data, so they're fetched again on the next update
+                NotificationsTable.reset(db);
+                currentVersion++;
         }
         db.setVersion(DATABASE_VERSION);
     }
@@ -9,6 +9,7 @@ import android.text.TextUtils;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.wordpress.android.WordPress;
+import org.wordpress.android.fluxc.model.CommentStatus;
 import org.wordpress.android.models.Note;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.SqlUtils;
@@ -31,7 +32,15 @@ public class NotificationsTable {
                 + "note_id                  TEXT,"
                 + "type                     TEXT,"
                 + "raw_note_data            TEXT,"
-                + "timestamp                INTEGER," +
+                + "timestamp                INTEGER,"
+                + "is_read                  INTEGER DEFAULT 0,"
+                + "is_comment               INTEGER DEFAULT 0,"
+                + "subject                  TEXT,"
+                + "comment_subject          TEXT,"
+                + "comment_subject_noticon  TEXT,"
+                + "icon_url                 TEXT,"
+                + "noticon                  TEXT,"
+                + "comment_status           TEXT," +
                 " UNIQUE (note_id) ON CONFLICT REPLACE"
                 + ")");
     }
@@ -44,21 +53,35 @@ public class NotificationsTable {
         return getLatestNotes(NOTES_TO_RETRIEVE);
     }
 
+    /*
+     * the list is shown using the columns alone - the raw JSON is read but only parsed if the
+     * note is shown in detail
+     */
     public static ArrayList<Note> getLatestNotes(int limit) {
-        Cursor cursor = getDb().query(NOTIFICATIONS_TABLE, new String[] {"note_id", "raw_note_data"},
+        Cursor cursor = getDb().query(NOTIFICATIONS_TABLE, new String[] {"note_id", "raw_note_data", "type",
+                        "timestamp", "is_read", "is_comment", "subject", "comment_subject",
+                        "comment_subject_noticon", "icon_url", "noticon", "comment_status"},
                 null, null, null, null, "timestamp DESC", "" + limit);
-        ArrayList<Note> notes = new ArrayList<Note>();
-        while (cursor.moveToNext()) {
-            String note_id = cursor.getString(0);
-            String raw_note_data = cursor.getString(1);
-            try {
-                Note note = new Note(note_id, new JSONObject(raw_note_data));
-                notes.add(note);
-            } catch (JSONException e) {
-                AppLog.e(AppLog.T.DB, "Can't parse notification with note_id:" + note_id + ", exception:" + e);
+        ArrayList<Note> notes = new ArrayList<Note>(cursor.getCount());
+        try {
+            while (cursor.moveToNext()) {
+                notes.add(new Note(
+                        cursor.getString(0),
+                        cursor.getString(1),
+                        cursor.getString(2),
+                        cursor.getLong(3),
+                        SqlUtils.sqlToBool(cursor.getInt(4)),
+                        SqlUtils.sqlToBool(cursor.getInt(5)),
+                        cursor.getString(6),
+                        cursor.getString(7),
+                        cursor.getString(8),
+                        cursor.getString(9),
+                        cursor.getString(10),
+                        CommentStatus.fromString(cursor.getString(11))));
             }
+        } finally {
+            SqlUtils.closeCursor(cursor);
         }
-        cursor.close();
         return notes;
     }
 
@@ -67,6 +90,14 @@ public class NotificationsTable {
         values.put("type", note.getType());
         values.put("timestamp", note.getTimestamp());
         values.put("raw_note_data", note.getJSON().toString());
+        values.put("is_read", SqlUtils.boolToSql(!note.isUnread()));
+        values.put("is_comment", SqlUtils.boolToSql(note.isCommentType()));
+        values.put("subject", note.getSubjectString());
+        values.put("comment_subject", note.getCommentSubject());
+        values.put("comment_subject_noticon", note.getCommentSubjectNoticon());
+        values.put("icon_url", note.getIconURL());
+        values.put("noticon", note.getNoticonCharacter());
+        values.put("comment_status", note.getCommentStatus().toString());
 
         long result;
         if(checkBeforeInsert && isNoteAvailable(note.getId())) {
@@ -180,7 +211,10 @@ public class NotificationsTable {
      * drop & recreate notifications table
      */
     public static void reset() {
-        SQLiteDatabase db = getDb();
+        reset(getDb());
+    }
+
+    public static void reset(SQLiteDatabase db) {
         db.beginTransaction();
         try {
             dropTables(db);
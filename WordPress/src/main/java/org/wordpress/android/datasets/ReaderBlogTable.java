@@ -4,6 +4,8 @@ import android.database.Cursor;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteStatement;
+import android.support.annotation.NonNull;
+import android.support.v4.util.LruCache;
 import android.text.TextUtils;
 
 import org.wordpress.android.models.ReaderBlog;
@@ -15,9 +17,14 @@ import org.wordpress.android.ui.reader.ReaderConstants;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.DateTimeUtils;
 import org.wordpress.android.util.SqlUtils;
+import org.wordpress.android.util.StringUtils;
 import org.wordpress.android.util.UrlUtils;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * tbl_blog_info contains information about blogs viewed in the reader, and blogs the
@@ -30,8 +37,22 @@ import java.util.Date;
  *  to get the full list of blogs the user is following
  */
 public class ReaderBlogTable {
+    /*
+     * in-memory index of the followed rows in tbl_blog_info, so follow checks (which are made
+     * while binding reader cards) don't query the db - loaded from the db when it's first
+     * needed, then updated whenever the follow state is written. the db is never accessed while
+     * holding the lock, since a writer may be holding a transaction while it waits for the lock
+     */
+    private static final Object FOLLOWED_INDEX_LOCK = new Object();
+    private static FollowedIndex sFollowedIndex; // guarded by FOLLOWED_INDEX_LOCK
+    // incremented by every write so an index loaded before a write isn't used afterwards
+    private static int sFollowedIndexGeneration; // guarded by FOLLOWED_INDEX_LOCK
+
+    // normalizing a url isn't cheap, and the same urls are checked repeatedly
+    private static final LruCache<String, String> NORMALIZED_URLS = new LruCache<>(256);
 
     protected static void createTables(SQLiteDatabase db) {
+        invalidateFollowedIndex();
         db.execSQL("CREATE TABLE tbl_blog_info ("
                  + "    blog_id       INTEGER DEFAULT 0,"   // will be same as feedId for feeds
                  + "    feed_id       INTEGER DEFAULT 0,"   // will be 0 for blogs
@@ -63,6 +84,7 @@ public class ReaderBlogTable {
     protected static void dropTables(SQLiteDatabase db) {
         db.execSQL("DROP TABLE IF EXISTS tbl_blog_info");
         db.execSQL("DROP TABLE IF EXISTS tbl_recommended_blogs");
+        invalidateFollowedIndex();
     }
 
     public static ReaderBlog getBlogInfo(long blogId) {
@@ -153,6 +175,18 @@ public class ReaderBlogTable {
         } finally {
             SqlUtils.closeStatement(stmt);
         }
+
+        synchronized (FOLLOWED_INDEX_LOCK) {
+            sFollowedIndexGeneration++;
+            if (sFollowedIndex != null) {
+                if (blogInfo.isFollowing) {
+                    sFollowedIndex.put(new FollowedRow(
+                            blogInfo.blogId, blogInfo.feedId, blogInfo.getUrl(), blogInfo.getFeedUrl()));
+                } else {
+                    sFollowedIndex.remove(blogInfo.blogId);
+                }
+            }
+        }
     }
 
     /*
@@ -197,6 +231,9 @@ public class ReaderBlogTable {
 
         } finally {
             db.endTransaction();
+            // reload the index from the db rather than updating it, since the transaction may
+            // have been rolled back
+            invalidateFollowedIndex();
         }
     }
 
@@ -222,54 +259,152 @@ public class ReaderBlogTable {
      * sets the follow state for passed blog without creating a record for it if it doesn't exist
      */
     public static void setIsFollowedBlogId(long blogId, boolean isFollowed) {
+        String[] args = {Long.toString(blogId)};
         ReaderDatabase.getWritableDb().execSQL(
                 "UPDATE tbl_blog_info SET is_following="
                         + SqlUtils.boolToSql(isFollowed)
                         + " WHERE blog_id=?",
-                new String[]{Long.toString(blogId)});
+                args);
+        updateFollowedIndex("blog_id=?", args, isFollowed);
     }
 
     public static void setIsFollowedFeedId(long feedId, boolean isFollowed) {
+        String[] args = {Long.toString(feedId)};
         ReaderDatabase.getWritableDb().execSQL(
                 "UPDATE tbl_blog_info SET is_following="
                         + SqlUtils.boolToSql(isFollowed)
                         + " WHERE feed_id=?",
-                new String[]{Long.toString(feedId)});
+                args);
+        updateFollowedIndex("feed_id=?", args, isFollowed);
     }
 
     public static boolean hasFollowedBlogs() {
-        String sql = "SELECT 1 FROM tbl_blog_info WHERE is_following!=0 LIMIT 1";
-        return SqlUtils.boolForQuery(ReaderDatabase.getReadableDb(), sql, null);
+        FollowedIndex index = getFollowedIndex();
+        synchronized (FOLLOWED_INDEX_LOCK) {
+            return !index.isEmpty();
+        }
     }
 
     public static boolean isFollowedBlogUrl(String blogUrl) {
         if (TextUtils.isEmpty(blogUrl)) {
             return false;
         }
-        String sql = "SELECT 1 FROM tbl_blog_info WHERE is_following!=0 AND blog_url=?";
-        String[] args = {UrlUtils.normalizeUrl(blogUrl)};
-        return SqlUtils.boolForQuery(ReaderDatabase.getReadableDb(), sql, args);
+        String key = FollowedIndex.getBlogUrlKey(getNormalizedUrl(blogUrl));
+        FollowedIndex index = getFollowedIndex();
+        synchronized (FOLLOWED_INDEX_LOCK) {
+            return index.mBlogUrls.containsKey(key);
+        }
     }
 
     public static boolean isFollowedBlog(long blogId) {
-        String sql = "SELECT 1 FROM tbl_blog_info WHERE is_following!=0 AND blog_id=?";
-        String[] args = {Long.toString(blogId)};
-        return SqlUtils.boolForQuery(ReaderDatabase.getReadableDb(), sql, args);
+        FollowedIndex index = getFollowedIndex();
+        synchronized (FOLLOWED_INDEX_LOCK) {
+            return index.mRows.containsKey(blogId);
+        }
     }
 
     public static boolean isFollowedFeedUrl(String feedUrl) {
         if (TextUtils.isEmpty(feedUrl)) {
             return false;
         }
-        String sql = "SELECT 1 FROM tbl_blog_info WHERE is_following!=0 AND feed_url=?";
-        String[] args = {UrlUtils.normalizeUrl(feedUrl)};
-        return SqlUtils.boolForQuery(ReaderDatabase.getReadableDb(), sql, args);
+        String url = getNormalizedUrl(feedUrl);
+        FollowedIndex index = getFollowedIndex();
+        synchronized (FOLLOWED_INDEX_LOCK) {
+            return index.mFeedUrls.containsKey(url);
+        }
     }
 
     public static boolean isFollowedFeed(long feedId) {
-        String sql = "SELECT 1 FROM tbl_blog_info WHERE is_following!=0 AND feed_id=?";
-        String[] args = {Long.toString(feedId)};
-        return SqlUtils.boolForQuery(ReaderDatabase.getReadableDb(), sql, args);
+        FollowedIndex index = getFollowedIndex();
+        synchronized (FOLLOWED_INDEX_LOCK) {
+            return index.mFeedIds.containsKey(feedId);
+        }
+    }
+
+    private static String getNormalizedUrl(@NonNull String url) {
+        String normalizedUrl = NORMALIZED_URLS.get(url);
+        if (normalizedUrl == null) {
+            normalizedUrl = UrlUtils.normalizeUrl(url);
+            NORMALIZED_URLS.put(url, normalizedUrl);
+        }
+        return normalizedUrl;
+    }
+
+    /*
+     * returns the index of followed rows, loading it from the db if it hasn't been loaded - the
+     * returned index must only be read while holding FOLLOWED_INDEX_LOCK
+     */
+    private static FollowedIndex getFollowedIndex() {
+        int generation;
+        synchronized (FOLLOWED_INDEX_LOCK) {
+            if (sFollowedIndex != null) {
+                return sFollowedIndex;
+            }
+            generation = sFollowedIndexGeneration;
+        }
+
+        FollowedIndex index = new FollowedIndex();
+        for (FollowedRow row : getFollowedRows("is_following!=0", null)) {
+            index.put(row);
+        }
+
+        synchronized (FOLLOWED_INDEX_LOCK) {
+            // if the follow state was written while loading, this index is only used by this
+            // caller and the next one will load it again
+            if (sFollowedIndex == null && generation == sFollowedIndexGeneration) {
+                sFollowedIndex = index;
+            }
+        }
+        return index;
+    }
+
+    private static void invalidateFollowedIndex() {
+        synchronized (FOLLOWED_INDEX_LOCK) {
+            sFollowedIndexGeneration++;
+            sFollowedIndex = null;
+        }
+    }
+
+    /*
+     * updates the index after the follow state of the rows matching the passed where clause
+     * was set in the db
+     */
+    private static void updateFollowedIndex(String where, String[] args, boolean isFollowed) {
+        synchronized (FOLLOWED_INDEX_LOCK) {
+            sFollowedIndexGeneration++;
+            if (sFollowedIndex == null) {
+                return;
+            }
+        }
+
+        List<FollowedRow> rows = getFollowedRows(where, args);
+
+        synchronized (FOLLOWED_INDEX_LOCK) {
+            if (sFollowedIndex == null) {
+                return;
+            }
+            for (FollowedRow row : rows) {
+                if (isFollowed) {
+                    sFollowedIndex.put(row);
+                } else {
+                    sFollowedIndex.remove(row.mBlogId);
+                }
+            }
+        }
+    }
+
+    private static List<FollowedRow> getFollowedRows(String where, String[] args) {
+        Cursor c = ReaderDatabase.getReadableDb().rawQuery(
+                "SELECT blog_id, feed_id, blog_url, feed_url FROM tbl_blog_info WHERE " + where, args);
+        try {
+            List<FollowedRow> rows = new ArrayList<>(c.getCount());
+            while (c.moveToNext()) {
+                rows.add(new FollowedRow(c.getLong(0), c.getLong(1), c.getString(2), c.getString(3)));
+            }
+            return rows;
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
     }
 
     public static String getBlogName(long blogId) {
@@ -400,4 +535,71 @@ public class ReaderBlogTable {
         Date dtNow = new Date();
         return DateTimeUtils.minutesBetween(dtUpdated, dtNow);
     }
+
+    static class FollowedRow {
+        private final long mBlogId;
+        private final long mFeedId;
+        private final String mBlogUrlKey;
+        private final String mFeedUrl;
+
+        FollowedRow(long blogId, long feedId, String blogUrl, String feedUrl) {
+            mBlogId = blogId;
+            mFeedId = feedId;
+            mBlogUrlKey = FollowedIndex.getBlogUrlKey(StringUtils.notNullStr(blogUrl));
+            mFeedUrl = StringUtils.notNullStr(feedUrl);
+        }
+    }
+
+    /*
+     * followed rows keyed by blog_id (the table's primary key), along with how many followed
+     * rows have each feed_id and url since those aren't unique
+     */
+    static class FollowedIndex {
+        final HashMap<Long, FollowedRow> mRows = new HashMap<>();
+        final HashMap<Long, Integer> mFeedIds = new HashMap<>();
+        final HashMap<String, Integer> mBlogUrls = new HashMap<>();
+        final HashMap<String, Integer> mFeedUrls = new HashMap<>();
+
+        boolean isEmpty() {
+            return mRows.isEmpty();
+        }
+
+        void put(FollowedRow row) {
+            remove(row.mBlogId);
+            mRows.put(row.mBlogId, row);
+            increment(mFeedIds, row.mFeedId);
+            increment(mBlogUrls, row.mBlogUrlKey);
+            increment(mFeedUrls, row.mFeedUrl);
+        }
+
+        void remove(long blogId) {
+            FollowedRow row = mRows.remove(blogId);
+            if (row != null) {
+                decrement(mFeedIds, row.mFeedId);
+                decrement(mBlogUrls, row.mBlogUrlKey);
+                decrement(mFeedUrls, row.mFeedUrl);
+            }
+        }
+
+        /*
+         * blog_url is COLLATE NOCASE
+         */
+        static String getBlogUrlKey(@NonNull String blogUrl) {
+            return blogUrl.toLowerCase(Locale.ROOT);
+        }
+
+        private static <K> void increment(HashMap<K, Integer> counts, K key) {
+            Integer count = counts.get(key);
+            counts.put(key, count != null ? count + 1 : 1);
+        }
+
+        private static <K> void decrement(HashMap<K, Integer> counts, K key) {
+            Integer count = counts.get(key);
+            if (count == null || count <= 1) {
+                counts.remove(key);
+            } else {
+                counts.put(key, count - 1);
+            }
+        }
+    }
 }
@@ -10,6 +10,9 @@ import org.wordpress.android.models.ReaderCommentList;
 import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.util.SqlUtils;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * stores comments on reader posts
  */
@@ -64,14 +67,13 @@ public class ReaderCommentTable {
         createTables(db);
     }
 
-    protected static int purge(SQLiteDatabase db) {
-        // purge comments attached to posts that no longer exist
-        int numDeleted = db.delete("tbl_comments", "post_id NOT IN (SELECT DISTINCT post_id FROM tbl_posts)", null);
-
-        // purge all but the first page of comments
-        numDeleted += db.delete("tbl_comments", "page_number != 1", null);
-
-        return numDeleted;
+    protected static List<ReaderDatabasePurge.Step> getPurgeSteps() {
+        return Arrays.asList(
+                // purge comments attached to posts that no longer exist
+                new ReaderDatabasePurge.Step("tbl_comments",
+                        "post_id NOT IN (SELECT DISTINCT post_id FROM tbl_posts)", null),
+                // purge all but the first page of comments
+                new ReaderDatabasePurge.Step("tbl_comments", "page_number != 1", null));
     }
 
     public static boolean isEmpty() {
@@ -19,7 +19,7 @@ import java.io.OutputStream;
  */
 public class ReaderDatabase extends SQLiteOpenHelper {
     protected static final String DB_NAME = "wpreader.db";
-    private static final int DB_VERSION = 133;
+    private static final int DB_VERSION = 135;
 
     /*
      * version history
@@ -85,6 +85,8 @@ public class ReaderDatabase extends SQLiteOpenHelper {
      *  131 - added tbl_posts.card_type
      *  132 - no schema changes, simply clearing to accommodate gallery card_type
      *  133 - no schema changes, simply clearing to accommodate video card_type
+     *  134 - added tbl_posts.fingerprint
+     *  135 - moved tbl_posts.text to tbl_post_text
      */
 
     /*
@@ -112,13 +114,34 @@ public class ReaderDatabase extends SQLiteOpenHelper {
         return getDatabase().getWritableDatabase();
     }
 
+    // set by onUpgrade() so the upgraded db is converted to incremental vacuum once it's open
+    private static volatile boolean sIsVacuumNeeded;
+
     @Override
     public void onOpen(SQLiteDatabase db) {
         super.onOpen(db);
+        if (sIsVacuumNeeded) {
+            sIsVacuumNeeded = false;
+            enableIncrementalVacuumAsync();
+        }
         //copyDatabase(db);
         //getDatabase().reset(db);
     }
 
+    /*
+     * onUpgrade() runs inside a transaction, which VACUUM can't, and a full vacuum rewrites the
+     * entire file - so the conversion is queued on the reader sync writer lane rather than run on
+     * whichever thread happened to open the db
+     */
+    private static void enableIncrementalVacuumAsync() {
+        ReaderSyncExecutor.getInstance().executeWrite("enable incremental vacuum", "vacuum", new Runnable() {
+            @Override
+            public void run() {
+                ReaderDatabasePurge.enableIncrementalVacuum(getWritableDb());
+            }
+        });
+    }
+
     /*
      * resets (clears) the reader database
      */
@@ -133,6 +156,14 @@ public class ReaderDatabase extends SQLiteOpenHelper {
         super(context, DB_NAME, null, DB_VERSION);
     }
 
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        // enables incremental vacuum for new dbs - existing dbs are vacuumed once after they're
+        // upgraded to enable it (see enableIncrementalVacuumAsync)
+        db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+    }
+
     @Override
     public void onCreate(SQLiteDatabase db) {
         createAllTables(db);
@@ -140,10 +171,22 @@ public class ReaderDatabase extends SQLiteOpenHelper {
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // for now just reset the db when upgrading, future versions may want to avoid this
-        // and modify table structures, etc., on upgrade while preserving data
+        // migrate from the previous version when possible so existing posts survive the upgrade,
+        // otherwise reset the db
         AppLog.i(T.READER, "Upgrading database from version " + oldVersion + " to version " + newVersion);
-        reset(db);
+        int currentVersion = oldVersion;
+        if (currentVersion == 133) {
+            ReaderPostTable.addFingerprintColumn(db);
+            currentVersion++;
+        }
+        if (currentVersion == 134) {
+            ReaderPostTable.moveTextToTextTable(db);
+            currentVersion++;
+        }
+        if (currentVersion != newVersion) {
+            reset(db);
+        }
+        sIsVacuumNeeded = true;
     }
 
     @Override
@@ -190,49 +233,40 @@ public class ReaderDatabase extends SQLiteOpenHelper {
     }
 
     /*
-     * purge older/unattached data - use purgeAsync() to do this in the background
+     * purge older/unattached data in the background - the purge runs in short slices on the reader
+     * sync writer lane so that it never holds up writes from the reader services for long, and
+     * stops once PURGE_BUDGET_MS is reached (anything left is purged the next time)
      */
-    private static void purge() {
-        SQLiteDatabase db = getWritableDb();
-        db.beginTransaction();
-        try {
-            int numPostsDeleted = ReaderPostTable.purge(db);
-
-            // don't bother purging other data unless posts were purged
-            if (numPostsDeleted > 0) {
-                AppLog.i(T.READER, String.format("%d total posts purged", numPostsDeleted));
+    private static final long PURGE_BUDGET_MS = 2000;
+    private static final long PURGE_SLICE_MS = 100;
+    private static ReaderDatabasePurge.Stats sLastPurgeStats;
 
-                // purge unattached comments
-                int numCommentsDeleted = ReaderCommentTable.purge(db);
-                if (numCommentsDeleted > 0) {
-                    AppLog.i(T.READER, String.format("%d comments purged", numCommentsDeleted));
-                }
+    public static void purgeAsync() {
+        ReaderSyncExecutor.getInstance().executeWrite("purge reader db", "purge", new Runnable() {
+            // created on the first slice so the db is never opened on the caller's thread
+            private ReaderDatabasePurge mPurge;
 
-                // purge unattached likes
-                int numLikesDeleted = ReaderLikeTable.purge(db);
-                if (numLikesDeleted > 0) {
-                    AppLog.i(T.READER, String.format("%d likes purged", numLikesDeleted));
+            @Override
+            public void run() {
+                if (mPurge == null) {
+                    mPurge = new ReaderDatabasePurge(getWritableDb(), PURGE_BUDGET_MS);
                 }
-
-                // purge unattached thumbnails
-                int numThumbsPurged = ReaderThumbnailTable.purge(db);
-                if (numThumbsPurged > 0) {
-                    AppLog.i(T.READER, String.format("%d thumbnails purged", numThumbsPurged));
+                if (mPurge.runSlice(PURGE_SLICE_MS)) {
+                    // let other writes run before continuing
+                    ReaderSyncExecutor.getInstance().executeWrite("purge reader db", "purge", this);
+                } else {
+                    sLastPurgeStats = mPurge.getStats();
+                    AppLog.i(T.READER, "reader db purge > " + sLastPurgeStats.toString());
                 }
             }
-            db.setTransactionSuccessful();
-        } finally {
-            db.endTransaction();
-        }
+        });
     }
 
-    public static void purgeAsync() {
-        new Thread() {
-            @Override
-            public void run() {
-                purge();
-            }
-        }.start();
+    /*
+     * returns the stats from the most recent purge, or null if the db hasn't been purged
+     */
+    public static ReaderDatabasePurge.Stats getLastPurgeStats() {
+        return sLastPurgeStats;
     }
 
     /*
@@ -0,0 +1,240 @@
+package org.wordpress.android.datasets;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.SqlUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * incremental purge of older/unattached data from the reader db - rather than deleting everything
+ * in a single transaction, rows are deleted in small chunks with each chunk in its own transaction,
+ * and work stops once a time budget is reached. this keeps each transaction short so writes from
+ * the reader services are never blocked for long. once rows have been deleted, free pages are
+ * returned to the file system a chunk at a time with PRAGMA incremental_vacuum, which shares the
+ * purge's time budget.
+ */
+public class ReaderDatabasePurge {
+    private static final int CHUNK_SIZE = 250;
+
+    // # free pages returned to the file system by each incremental_vacuum, and the max per purge
+    private static final int VACUUM_CHUNK_PAGES = 128;
+    private static final int MAX_VACUUM_PAGES = 1024;
+
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    /*
+     * a single delete performed by the purge - table purge() methods return a list of these
+     */
+    static class Step {
+        private final String mTable;
+        private final String mWhere;
+        private final String[] mArgs;
+
+        Step(String table, String where, String[] args) {
+            mTable = table;
+            mWhere = where;
+            mArgs = args;
+        }
+    }
+
+    public static class Stats {
+        private int mNumRowsDeleted;
+        private int mNumChunks;
+        private long mNumPagesFreed;
+        private long mDurationMs;
+        private boolean mIsComplete;
+
+        public int getNumRowsDeleted() {
+            return mNumRowsDeleted;
+        }
+
+        public int getNumChunks() {
+            return mNumChunks;
+        }
+
+        public long getNumPagesFreed() {
+            return mNumPagesFreed;
+        }
+
+        public long getDurationMs() {
+            return mDurationMs;
+        }
+
+        /*
+         * false if the purge stopped because it ran out of time - the remaining rows will be
+         * deleted by the next purge
+         */
+        public boolean isComplete() {
+            return mIsComplete;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%d rows deleted in %d chunks, %d pages freed, %d ms%s",
+                    mNumRowsDeleted, mNumChunks, mNumPagesFreed, mDurationMs,
+                    mIsComplete ? "" : " (incomplete)");
+        }
+    }
+
+    private final SQLiteDatabase mDb;
+    private final long mTotalBudgetMs;
+    private final Stats mStats = new Stats();
+    private List<Step> mSteps;
+    private int mStepIndex;
+    private Boolean mIsIncrementalVacuumEnabled;
+    private boolean mIsVacuumDone;
+
+    ReaderDatabasePurge(SQLiteDatabase db, long totalBudgetMs) {
+        mDb = db;
+        mTotalBudgetMs = totalBudgetMs;
+    }
+
+    Stats getStats() {
+        return mStats;
+    }
+
+    /*
+     * the steps are determined when the purge starts rather than when it's created since they
+     * depend on the current data (ex: which tags have too many posts) - note that order matters,
+     * since later steps delete data attached to rows deleted by earlier steps
+     */
+    private List<Step> getSteps() {
+        List<Step> steps = new ArrayList<>();
+        steps.addAll(ReaderPostTable.getPurgeSteps(mDb));
+        steps.addAll(ReaderCommentTable.getPurgeSteps());
+        steps.addAll(ReaderLikeTable.getPurgeSteps());
+        steps.addAll(ReaderThumbnailTable.getPurgeSteps());
+        return steps;
+    }
+
+    /*
+     * deletes chunks and then vacuums free pages until either everything has been purged, the
+     * passed slice budget has been used, or the total budget has been used - returns true if
+     * there's more to purge and there's still time to purge it, in which case this should be
+     * called again (which lets the caller release the db between slices). must be called
+     * outside of a transaction
+     */
+    boolean runSlice(long sliceBudgetMs) {
+        long sliceStart = System.currentTimeMillis();
+        if (mSteps == null) {
+            mSteps = getSteps();
+        }
+
+        while (mStepIndex < mSteps.size() || isVacuumNeeded()) {
+            if (mStats.mDurationMs >= mTotalBudgetMs) {
+                return false;
+            }
+            if (System.currentTimeMillis() - sliceStart >= sliceBudgetMs) {
+                return true;
+            }
+
+            long chunkStart = System.currentTimeMillis();
+            if (mStepIndex < mSteps.size()) {
+                int numDeleted = deleteChunk(mSteps.get(mStepIndex));
+                mStats.mNumChunks++;
+                mStats.mNumRowsDeleted += numDeleted;
+                if (numDeleted < CHUNK_SIZE) {
+                    mStepIndex++;
+                }
+            } else {
+                long numFreed = vacuumChunk();
+                mStats.mNumPagesFreed += numFreed;
+                if (numFreed < VACUUM_CHUNK_PAGES) {
+                    mIsVacuumDone = true;
+                }
+            }
+            mStats.mDurationMs += System.currentTimeMillis() - chunkStart;
+        }
+
+        mStats.mIsComplete = true;
+        return false;
+    }
+
+    private int deleteChunk(Step step) {
+        String where = "rowid IN (SELECT rowid FROM " + step.mTable
+                + " WHERE " + step.mWhere + " LIMIT " + CHUNK_SIZE + ")";
+        mDb.beginTransaction();
+        try {
+            int numDeleted = mDb.delete(step.mTable, where, step.mArgs);
+            mDb.setTransactionSuccessful();
+            return numDeleted;
+        } finally {
+            mDb.endTransaction();
+        }
+    }
+
+    private boolean isVacuumNeeded() {
+        return !mIsVacuumDone
+                && mStats.mNumRowsDeleted > 0
+                && mStats.mNumPagesFreed < MAX_VACUUM_PAGES
+                && isIncrementalVacuumEnabled(mDb);
+    }
+
+    private boolean isIncrementalVacuumEnabled(SQLiteDatabase db) {
+        if (mIsIncrementalVacuumEnabled == null) {
+            mIsIncrementalVacuumEnabled = isIncrementalVacuumEnabledForDb(db);
+        }
+        return mIsIncrementalVacuumEnabled;
+    }
+
+    private static boolean isIncrementalVacuumEnabledForDb(SQLiteDatabase db) {
+        try {
+            return DatabaseUtils.longForQuery(db, "PRAGMA auto_vacuum", null) == AUTO_VACUUM_INCREMENTAL;
+        } catch (SQLException e) {
+            AppLog.e(AppLog.T.READER, e);
+            return false;
+        }
+    }
+
+    /*
+     * returns up to VACUUM_CHUNK_PAGES free pages to the file system and returns the number freed
+     */
+    private long vacuumChunk() {
+        try {
+            long numFreeBefore = DatabaseUtils.longForQuery(mDb, "PRAGMA freelist_count", null);
+            // incremental_vacuum returns a row for each page it frees, and only frees them as the
+            // rows are stepped through
+            Cursor c = mDb.rawQuery("PRAGMA incremental_vacuum(" + VACUUM_CHUNK_PAGES + ")", null);
+            try {
+                c.getCount();
+            } finally {
+                SqlUtils.closeCursor(c);
+            }
+            long numFreeAfter = DatabaseUtils.longForQuery(mDb, "PRAGMA freelist_count", null);
+            return numFreeBefore - numFreeAfter;
+        } catch (SQLException e) {
+            AppLog.e(AppLog.T.READER, e);
+            mIsVacuumDone = true;
+            return 0;
+        }
+    }
+
+    /*
+     * dbs created before incremental vacuum was enabled (see ReaderDatabase.onConfigure) keep
+     * their old auto_vacuum mode until they're fully vacuumed - this does that once, and is
+     * queued on the reader sync writer lane after an upgrade rather than run by a purge, since a
+     * full vacuum rewrites the entire file. must be called outside of a transaction
+     */
+    static void enableIncrementalVacuum(SQLiteDatabase db) {
+        if (isIncrementalVacuumEnabledForDb(db)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+            db.execSQL("VACUUM");
+            AppLog.i(AppLog.T.READER, "reader db > enabled incremental vacuum in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (SQLException e) {
+            AppLog.e(AppLog.T.READER, e);
+        }
+    }
+}
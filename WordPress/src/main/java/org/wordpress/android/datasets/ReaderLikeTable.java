@@ -10,6 +10,9 @@ import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.models.ReaderUserIdList;
 import org.wordpress.android.util.SqlUtils;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * stores likes for Reader posts and comments
  */
@@ -41,10 +44,12 @@ public class ReaderLikeTable {
     /*
      * purge likes attached to posts/comments that no longer exist
      */
-    protected static int purge(SQLiteDatabase db) {
-        int numDeleted = db.delete("tbl_post_likes", "post_id NOT IN (SELECT DISTINCT post_id FROM tbl_posts)", null);
-        numDeleted += db.delete("tbl_comment_likes", "comment_id NOT IN (SELECT DISTINCT comment_id FROM tbl_comments)", null);
-        return numDeleted;
+    protected static List<ReaderDatabasePurge.Step> getPurgeSteps() {
+        return Arrays.asList(
+                new ReaderDatabasePurge.Step("tbl_post_likes",
+                        "post_id NOT IN (SELECT DISTINCT post_id FROM tbl_posts)", null),
+                new ReaderDatabasePurge.Step("tbl_comment_likes",
+                        "comment_id NOT IN (SELECT DISTINCT comment_id FROM tbl_comments)", null));
     }
 
     /*
@@ -2,7 +2,10 @@ package org.wordpress.android.datasets;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteCursorDriver;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQuery;
 import android.database.sqlite.SQLiteStatement;
 import android.support.annotation.NonNull;
 import android.text.TextUtils;
@@ -19,9 +22,22 @@ import org.wordpress.android.ui.reader.ReaderConstants;
 import org.wordpress.android.ui.reader.actions.ReaderActions;
 import org.wordpress.android.ui.reader.models.ReaderBlogIdPostId;
 import org.wordpress.android.ui.reader.models.ReaderBlogIdPostIdList;
+import org.wordpress.android.ui.reader.models.ReaderPostDiff;
+import org.wordpress.android.ui.reader.models.ReaderPostKey;
+import org.wordpress.android.ui.reader.models.ReaderPostKeyList;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.CrashlyticsUtils;
 import org.wordpress.android.util.SqlUtils;
+import org.wordpress.android.util.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /**
  * tbl_posts contains all reader posts - the primary key is pseudo_id + tag_name + tag_type,
@@ -40,44 +56,45 @@ public class ReaderPostTable {
           + "author_first_name,"    // 7
           + "author_id,"            // 8
           + "title,"                // 9
-          + "text,"                 // 10
-          + "excerpt,"              // 11
-          + "format,"               // 12
-          + "url,"                  // 13
-          + "short_url,"            // 14
-          + "blog_name,"            // 15
-          + "blog_url,"             // 16
-          + "blog_image_url,"       // 17
-          + "featured_image,"       // 18
-          + "featured_video,"       // 19
-          + "post_avatar,"          // 20
-          + "score,"                // 21
-          + "date_published,"       // 22
-          + "date_liked,"           // 23
-          + "date_tagged,"          // 24
-          + "num_replies,"          // 25
-          + "num_likes,"            // 26
-          + "is_liked,"             // 27
-          + "is_followed,"          // 28
-          + "is_comments_open,"     // 29
-          + "is_external,"          // 30
-          + "is_private,"           // 31
-          + "is_videopress,"        // 32
-          + "is_jetpack,"           // 33
-          + "primary_tag,"          // 34
-          + "secondary_tag,"        // 35
-          + "attachments_json,"     // 36
-          + "discover_json,"        // 37
-          + "xpost_post_id,"        // 38
-          + "xpost_blog_id,"        // 39
-          + "railcar_json,"         // 40
-          + "tag_name,"             // 41
-          + "tag_type,"             // 42
-          + "has_gap_marker,"       // 43
-          + "card_type";            // 44
-
-    // used when querying multiple rows and skipping text column
-    private static final String COLUMN_NAMES_NO_TEXT =
+          + "excerpt,"              // 10
+          + "format,"               // 11
+          + "url,"                  // 12
+          + "short_url,"            // 13
+          + "blog_name,"            // 14
+          + "blog_url,"             // 15
+          + "blog_image_url,"       // 16
+          + "featured_image,"       // 17
+          + "featured_video,"       // 18
+          + "post_avatar,"          // 19
+          + "score,"                // 20
+          + "date_published,"       // 21
+          + "date_liked,"           // 22
+          + "date_tagged,"          // 23
+          + "num_replies,"          // 24
+          + "num_likes,"            // 25
+          + "is_liked,"             // 26
+          + "is_followed,"          // 27
+          + "is_comments_open,"     // 28
+          + "is_external,"          // 29
+          + "is_private,"           // 30
+          + "is_videopress,"        // 31
+          + "is_jetpack,"           // 32
+          + "primary_tag,"          // 33
+          + "secondary_tag,"        // 34
+          + "attachments_json,"     // 35
+          + "discover_json,"        // 36
+          + "xpost_post_id,"        // 37
+          + "xpost_blog_id,"        // 38
+          + "railcar_json,"         // 39
+          + "tag_name,"             // 40
+          + "tag_type,"             // 41
+          + "has_gap_marker,"       // 42
+          + "card_type,"            // 43
+          + "fingerprint";          // 44
+
+    // used when querying posts - note that the text is stored separately in tbl_post_text
+    // and is only retrieved by joining with it (see getColumnsAndTables)
+    static final String COLUMN_NAMES_NO_TEXT =
             "post_id,"              // 1
           + "blog_id,"              // 2
           + "feed_id,"              // 3
@@ -122,6 +139,19 @@ public class ReaderPostTable {
           + "has_gap_marker,"       // 42
           + "card_type";            // 43
 
+    /*
+     * returns the columns and tables to select posts from - text is only included when it's
+     * needed (ex: when displaying post detail) since it may be large and is never needed when
+     * displaying lists of posts
+     */
+    private static String getColumnsAndTables(boolean excludeTextColumn) {
+        if (excludeTextColumn) {
+            return COLUMN_NAMES_NO_TEXT + " FROM tbl_posts";
+        }
+        return COLUMN_NAMES_NO_TEXT + ", text, text_compressed"
+                + " FROM tbl_posts LEFT JOIN tbl_post_text USING (pseudo_id)";
+    }
+
     protected static void createTables(SQLiteDatabase db) {
         db.execSQL("CREATE TABLE tbl_posts ("
                 + "	post_id		        INTEGER DEFAULT 0,"
@@ -133,7 +163,6 @@ public class ReaderPostTable {
                 + "	author_first_name	TEXT,"
                 + " author_id           INTEGER DEFAULT 0,"
                 + "	title	            TEXT,"
-                + "	text                TEXT,"
                 + "	excerpt             TEXT,"
                 + "	format              TEXT,"
                 + " url                 TEXT,"
@@ -168,6 +197,7 @@ public class ReaderPostTable {
                 + " tag_type            INTEGER DEFAULT 0,"
                 + " has_gap_marker      INTEGER DEFAULT 0,"
                 + " card_type           TEXT,"
+                + " fingerprint         INTEGER DEFAULT 0,"
                 + " PRIMARY KEY (pseudo_id, tag_name, tag_type)"
                 + ")");
 
@@ -175,10 +205,62 @@ public class ReaderPostTable {
         db.execSQL("CREATE INDEX idx_posts_date_published ON tbl_posts(date_published)");
         db.execSQL("CREATE INDEX idx_posts_date_tagged ON tbl_posts(date_tagged)");
         db.execSQL("CREATE INDEX idx_posts_tag_name ON tbl_posts(tag_name)");
+
+        createTextTable(db);
+    }
+
+    /*
+     * tbl_post_text contains the text (content) of each post, keyed by pseudo_id - this is kept
+     * separate from tbl_posts so list queries don't have to read past large text values, and so
+     * the text is stored only once no matter how many streams the post appears in. text longer
+     * than MIN_COMPRESS_LEN is stored deflated in text_compressed rather than in text
+     */
+    private static void createTextTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE tbl_post_text ("
+                + " pseudo_id           TEXT PRIMARY KEY,"
+                + " text                TEXT,"
+                + " text_compressed     BLOB"
+                + ")");
     }
 
     protected static void dropTables(SQLiteDatabase db) {
         db.execSQL("DROP TABLE IF EXISTS tbl_posts");
+        db.execSQL("DROP TABLE IF EXISTS tbl_post_text");
+    }
+
+    /*
+     * adds the fingerprint column to a tbl_posts created before db version 134 - existing rows get a
+     * fingerprint of zero, so they're fully rewritten the next time they're synced
+     */
+    protected static void addFingerprintColumn(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE tbl_posts ADD COLUMN fingerprint INTEGER DEFAULT 0");
+    }
+
+    /*
+     * moves the text of existing posts from tbl_posts.text to tbl_post_text (db version 135) -
+     * tbl_posts is recreated without the text column since older versions of SQLite don't
+     * support dropping columns. existing text is copied uncompressed, it will be compressed
+     * the next time each post is updated
+     */
+    protected static void moveTextToTextTable(SQLiteDatabase db) {
+        db.beginTransaction();
+        try {
+            db.execSQL("DROP INDEX IF EXISTS idx_posts_post_id_blog_id");
+            db.execSQL("DROP INDEX IF EXISTS idx_posts_date_published");
+            db.execSQL("DROP INDEX IF EXISTS idx_posts_date_tagged");
+            db.execSQL("DROP INDEX IF EXISTS idx_posts_tag_name");
+            db.execSQL("ALTER TABLE tbl_posts RENAME TO tbl_posts_with_text");
+            createTables(db);
+            db.execSQL("INSERT INTO tbl_post_text (pseudo_id, text)"
+                    + " SELECT pseudo_id, text FROM tbl_posts_with_text GROUP BY pseudo_id");
+            db.execSQL("INSERT INTO tbl_posts (" + COLUMN_NAMES + ")"
+                    + " SELECT " + COLUMN_NAMES + " FROM tbl_posts_with_text");
+            db.execSQL("DROP TABLE tbl_posts_with_text");
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
     }
 
     protected static void reset(SQLiteDatabase db) {
@@ -187,49 +269,56 @@ public class ReaderPostTable {
     }
 
     /*
-     * purge table of unattached/older posts - no need to wrap this in a transaction since it's
-     * only called from ReaderDatabase.purge() which already creates a transaction
+     * returns the steps to purge unattached/older posts - see ReaderDatabasePurge
      */
-    protected static int purge(SQLiteDatabase db) {
+    protected static List<ReaderDatabasePurge.Step> getPurgeSteps(SQLiteDatabase db) {
+        List<ReaderDatabasePurge.Step> steps = new ArrayList<>();
+
         // delete posts attached to tags that no longer exist
-        int numDeleted = db.delete("tbl_posts", "tag_name NOT IN (SELECT DISTINCT tag_name FROM tbl_tags)", null);
+        steps.add(new ReaderDatabasePurge.Step("tbl_posts",
+                "tag_name NOT IN (SELECT DISTINCT tag_name FROM tbl_tags)", null));
 
         // delete excess posts on a per-tag basis
-        ReaderTagList tags = ReaderTagTable.getAllTags();
-        for (ReaderTag tag: tags) {
-            numDeleted += purgePostsForTag(db, tag);
+        for (ReaderTag tag: ReaderTagTable.getAllTags(db)) {
+            ReaderDatabasePurge.Step step = getPurgeStepForTag(db, tag);
+            if (step != null) {
+                steps.add(step);
+            }
         }
 
         // delete search results
-        numDeleted += purgeSearchResults(db);
+        steps.add(new ReaderDatabasePurge.Step("tbl_posts", "tag_type=?",
+                new String[]{Integer.toString(ReaderTagType.SEARCH.toInt())}));
 
-        return numDeleted;
+        // delete text that isn't attached to any post - the text is shared by every stream the
+        // post appears in, so deleting a post (ex: deleteBlogPosts) leaves its text behind until here
+        steps.add(new ReaderDatabasePurge.Step("tbl_post_text",
+                "pseudo_id NOT IN (SELECT DISTINCT pseudo_id FROM tbl_posts)", null));
+
+        return steps;
     }
 
     /*
-     * purge excess posts in the passed tag
+     * returns the step to purge excess posts in the passed tag, or null if it doesn't have
+     * too many posts
      */
     private static final int MAX_POSTS_PER_TAG = ReaderConstants.READER_MAX_POSTS_TO_DISPLAY;
-    private static int purgePostsForTag(SQLiteDatabase db, ReaderTag tag) {
-        int numPosts = getNumPostsWithTag(tag);
+    private static ReaderDatabasePurge.Step getPurgeStepForTag(SQLiteDatabase db, ReaderTag tag) {
+        String tagSlug = tag.getTagSlug();
+        String tagType = Integer.toString(tag.tagType.toInt());
+        int numPosts = SqlUtils.intForQuery(db,
+                "SELECT count(*) FROM tbl_posts WHERE tag_name=? AND tag_type=?",
+                new String[]{tagSlug, tagType});
         if (numPosts <= MAX_POSTS_PER_TAG) {
-            return 0;
+            return null;
         }
 
-        String[] args = {tag.getTagSlug(), Integer.toString(tag.tagType.toInt()), Integer.toString(MAX_POSTS_PER_TAG)};
-        String where = "pseudo_id NOT IN (SELECT DISTINCT pseudo_id FROM tbl_posts WHERE tag_name=? AND "
-                       + "tag_type=? ORDER BY " + getSortColumnForTag(tag) + " DESC LIMIT ?)";
-        int numDeleted = db.delete("tbl_posts", where, args);
-        AppLog.d(AppLog.T.READER, String.format("reader post table > purged %d posts in tag %s", numDeleted, tag.getTagNameForLog()));
-        return numDeleted;
-    }
-
-    /*
-     * purge all posts that were retained from previous searches
-     */
-    private static int purgeSearchResults(SQLiteDatabase db) {
-        String[] args = {Integer.toString(ReaderTagType.SEARCH.toInt())};
-        return db.delete("tbl_posts", "tag_type=?", args);
+        AppLog.d(AppLog.T.READER, String.format("reader post table > purging %d posts in tag %s",
+                numPosts - MAX_POSTS_PER_TAG, tag.getTagNameForLog()));
+        String[] args = {tagSlug, tagType, tagSlug, tagType, Integer.toString(MAX_POSTS_PER_TAG)};
+        String where = "tag_name=? AND tag_type=? AND pseudo_id NOT IN (SELECT pseudo_id FROM tbl_posts"
+                       + " WHERE tag_name=? AND tag_type=? ORDER BY " + getSortColumnForTag(tag) + " DESC LIMIT ?)";
+        return new ReaderDatabasePurge.Step("tbl_posts", where, args);
     }
 
     public static int getNumPostsInBlog(long blogId) {
@@ -265,15 +354,17 @@ public class ReaderPostTable {
         // necessary because a post can exist multiple times in the table with different tags
         ContentValues values = new ContentValues();
         values.put("title", post.getTitle());
-        values.put("text", post.getText());
         values.put("num_replies", post.numReplies);
         values.put("num_likes", post.numLikes);
         values.put("is_liked", post.isLikedByCurrentUser);
         values.put("is_followed", post.isFollowedByCurrentUser);
         values.put("is_comments_open", post.isCommentsOpen);
-        ReaderDatabase.getWritableDb().update(
-                "tbl_posts", values, "pseudo_id=?", new String[]{ post.getPseudoId() });
+        SQLiteDatabase db = ReaderDatabase.getWritableDb();
+        db.update("tbl_posts", values, "pseudo_id=?", new String[]{ post.getPseudoId() });
 
+        // the fingerprint isn't updated above since the rest of those rows haven't been rewritten,
+        // so the row without a tag is fully rewritten here if its content has changed, and rows
+        // with other tags are rewritten the next time their tag is synced
         ReaderPostList posts = new ReaderPostList();
         posts.add(post);
         addOrUpdatePosts(null, posts);
@@ -301,8 +392,7 @@ public class ReaderPostTable {
     }
 
     private static ReaderPost getPost(String where, String[] args, boolean excludeTextColumn) {
-        String columns = (excludeTextColumn ? COLUMN_NAMES_NO_TEXT : "*");
-        String sql = "SELECT " + columns + " FROM tbl_posts WHERE " + where + " LIMIT 1";
+        String sql = "SELECT " + getColumnsAndTables(excludeTextColumn) + " WHERE " + where + " LIMIT 1";
 
         Cursor c = ReaderDatabase.getReadableDb().rawQuery(sql, args);
         try {
@@ -331,9 +421,88 @@ public class ReaderPostTable {
 
     public static String getPostText(long blogId, long postId) {
         String[] args = {Long.toString(blogId), Long.toString(postId)};
-        return SqlUtils.stringForQuery(ReaderDatabase.getReadableDb(),
-                "SELECT text FROM tbl_posts WHERE blog_id=? AND post_id=?",
+        Cursor c = ReaderDatabase.getReadableDb().rawQuery(
+                "SELECT text, text_compressed FROM tbl_posts LEFT JOIN tbl_post_text USING (pseudo_id)"
+                + " WHERE blog_id=? AND post_id=? LIMIT 1",
                 args);
+        try {
+            if (!c.moveToFirst()) {
+                return "";
+            }
+            return getTextFromCursor(c, 0, 1);
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    static String getTextFromCursor(Cursor c, int idxText, int idxTextCompressed) {
+        if (!c.isNull(idxTextCompressed)) {
+            return inflateText(c.getBlob(idxTextCompressed));
+        }
+        return StringUtils.notNullStr(c.getString(idxText));
+    }
+
+    /*
+     * text longer than this is compressed before it's stored - shorter text isn't worth the
+     * cost of compressing since it's unlikely to span more than a single page
+     */
+    private static final int MIN_COMPRESS_LEN = 2048;
+    static boolean sCompressText = true;
+
+    private static SQLiteStatement compileTextStatement(SQLiteDatabase db) {
+        return db.compileStatement(
+                "INSERT OR REPLACE INTO tbl_post_text (pseudo_id, text, text_compressed) VALUES (?1,?2,?3)");
+    }
+
+    private static void bindText(SQLiteStatement stmt, ReaderPost post) {
+        String text = maxText(post);
+        stmt.bindString(1, post.getPseudoId());
+        if (sCompressText && text.length() > MIN_COMPRESS_LEN) {
+            stmt.bindNull(2);
+            stmt.bindBlob(3, deflateText(text));
+        } else {
+            stmt.bindString(2, text);
+            stmt.bindNull(3);
+        }
+    }
+
+    private static byte[] deflateText(String text) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(text.getBytes(Charset.forName("UTF-8")));
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(text.length() / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                output.write(buffer, 0, count);
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String inflateText(byte[] compressed) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(compressed.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && inflater.needsInput()) {
+                    break;
+                }
+                output.write(buffer, 0, count);
+            }
+            return new String(output.toByteArray(), Charset.forName("UTF-8"));
+        } catch (DataFormatException e) {
+            AppLog.e(AppLog.T.READER, "reader post table > failed to inflate post text", e);
+            return "";
+        } finally {
+            inflater.end();
+        }
     }
 
     public static boolean postExists(long blogId, long postId) {
@@ -346,34 +515,75 @@ public class ReaderPostTable {
     /*
      * returns whether any of the passed posts are new or changed - used after posts are retrieved
      */
-    public static ReaderActions.UpdateResult comparePosts(ReaderPostList posts) {
+    public static ReaderActions.UpdateResult comparePosts(ReaderTag tag, ReaderPostList posts) {
+        return diffPosts(tag, posts).getUpdateResult();
+    }
+
+    /*
+     * returns true if any posts in the passed list exist in this list
+     */
+    public static boolean hasOverlap(ReaderTag tag, ReaderPostList posts) {
+        return diffPosts(tag, posts).hasOverlap();
+    }
+
+    /*
+     * compares the passed server posts with existing local posts with the passed tag (or without
+     * a tag when it's null) and returns the state (new, changed or unchanged) of each one -
+     * existing posts are loaded with a single query for the whole list rather than one query per
+     * post, and only the stored content fingerprint and the counts/state columns are read
+     */
+    public static ReaderPostDiff diffPosts(ReaderTag tag, ReaderPostList posts) {
+        return diffPosts(ReaderDatabase.getReadableDb(), tag, posts);
+    }
+
+    static ReaderPostDiff diffPosts(SQLiteDatabase db, ReaderTag tag, ReaderPostList posts) {
+        ReaderPostDiff diff = new ReaderPostDiff();
         if (posts == null || posts.size() == 0) {
-            return ReaderActions.UpdateResult.UNCHANGED;
+            return diff;
         }
 
-        boolean hasChanges = false;
+        // assume every post is new until it's found locally
+        HashMap<ReaderBlogIdPostId, ReaderPost> serverPosts = new HashMap<>(posts.size());
+        StringBuilder sbIds = new StringBuilder();
         for (ReaderPost post: posts) {
-            ReaderPost existingPost = getBlogPost(post.blogId, post.postId, true);
-            if (existingPost == null) {
-                return ReaderActions.UpdateResult.HAS_NEW;
-            } else if (!hasChanges && !post.isSamePost(existingPost)) {
-                hasChanges = true;
+            serverPosts.put(new ReaderBlogIdPostId(post.blogId, post.postId), post);
+            diff.setState(post.blogId, post.postId, ReaderPostDiff.PostState.NEW);
+            if (sbIds.length() > 0) {
+                sbIds.append(",");
             }
+            sbIds.append(post.postId);
         }
 
-        return (hasChanges ? ReaderActions.UpdateResult.CHANGED : ReaderActions.UpdateResult.UNCHANGED);
-    }
-
-    /*
-     * returns true if any posts in the passed list exist in this list
-     */
-    public static boolean hasOverlap(ReaderPostList posts) {
-        for (ReaderPost post: posts) {
-            if (postExists(post.blogId, post.postId)) {
-                return true;
+        // the same post may exist more than once (once per tag), and rows with other tags may not
+        // have been rewritten since the post changed, so only rows with this tag are compared
+        String[] args = {tag != null ? tag.getTagSlug() : "",
+                         Integer.toString(tag != null ? tag.tagType.toInt() : 0)};
+        String sql = "SELECT blog_id, post_id, fingerprint, num_likes, num_replies,"
+                   + " is_followed, is_liked, is_comments_open"
+                   + " FROM tbl_posts WHERE tag_name=? AND tag_type=?"
+                   + " AND post_id IN (" + sbIds.toString() + ")";
+        Cursor c = db.rawQuery(sql, args);
+        try {
+            while (c.moveToNext()) {
+                ReaderPost post = serverPosts.remove(new ReaderBlogIdPostId(c.getLong(0), c.getLong(1)));
+                if (post == null) {
+                    // post_id matched but blog_id didn't, or this post has already been compared
+                    continue;
+                }
+                boolean isSame = post.getContentFingerprint() == c.getLong(2)
+                        && post.numLikes == c.getInt(3)
+                        && post.numReplies == c.getInt(4)
+                        && SqlUtils.boolToSql(post.isFollowedByCurrentUser) == c.getInt(5)
+                        && SqlUtils.boolToSql(post.isLikedByCurrentUser) == c.getInt(6)
+                        && SqlUtils.boolToSql(post.isCommentsOpen) == c.getInt(7);
+                diff.setState(post.blogId, post.postId,
+                        isSame ? ReaderPostDiff.PostState.UNCHANGED : ReaderPostDiff.PostState.CHANGED);
             }
+        } finally {
+            SqlUtils.closeCursor(c);
         }
-        return false;
+
+        return diff;
     }
 
     /*
@@ -496,7 +706,7 @@ public class ReaderPostTable {
         SQLiteStatement statement = ReaderDatabase.getWritableDb().compileStatement(
                   "UPDATE tbl_posts SET is_followed = 0"
                 + " WHERE is_followed != 0"
-                + " AND blog_id NOT IN (SELECT DISTINCT blog_id FROM tbl_blog_info WHERE is_followed != 0)");
+                + " AND blog_id NOT IN (SELECT DISTINCT blog_id FROM tbl_blog_info WHERE is_following != 0)");
         try {
             int count = statement.executeUpdateDelete();
             if (count > 0) {
@@ -707,26 +917,69 @@ public class ReaderPostTable {
     }
 
     public static void addOrUpdatePosts(final ReaderTag tag, ReaderPostList posts) {
+        addOrUpdatePosts(ReaderDatabase.getWritableDb(), tag, posts);
+    }
+
+    /*
+     * posts whose stored fingerprint matches their current fingerprint only need their counts,
+     * like/follow state and stream fields updated rather than having the entire row (including the potentially
+     * large text column) rewritten - and the update is skipped entirely if those haven't changed
+     */
+    static void addOrUpdatePosts(SQLiteDatabase db, final ReaderTag tag, ReaderPostList posts) {
         if (posts == null || posts.size() == 0) {
             return;
         }
 
-        SQLiteDatabase db = ReaderDatabase.getWritableDb();
+        String tagName = (tag != null ? tag.getTagSlug() : "");
+        int tagType = (tag != null ? tag.tagType.toInt() : 0);
+
         SQLiteStatement stmtPosts = db.compileStatement(
                 "INSERT OR REPLACE INTO tbl_posts ("
                         + COLUMN_NAMES
                         + ") VALUES (?1,?2,?3,?4,?5,?6,?7,?8,?9,?10,?11,?12,?13,?14,?15,?16,?17,?18,?19,?20,?21,?22,?23,?24,?25,?26,?27,?28,?29,?30,?31,?32,?33,?34,?35,?36,?37,?38,?39,?40,?41,?42,?43,?44)");
+        SQLiteStatement stmtText = compileTextStatement(db);
+        // the fields which depend on the stream aren't part of the fingerprint, so they're updated
+        // along with the counts
+        SQLiteStatement stmtCounts = db.compileStatement(
+                "UPDATE tbl_posts"
+                        + " SET num_replies=?1, num_likes=?2, is_liked=?3, is_followed=?4, is_comments_open=?5,"
+                        + " score=?6, date_liked=?7, date_tagged=?8, primary_tag=?9, secondary_tag=?10"
+                        + " WHERE pseudo_id=?11 AND tag_name=?12 AND tag_type=?13"
+                        + " AND (num_replies!=?1 OR num_likes!=?2 OR is_liked!=?3"
+                        + " OR is_followed!=?4 OR is_comments_open!=?5 OR score!=?6 OR date_liked!=?7"
+                        + " OR date_tagged!=?8 OR primary_tag!=?9 OR secondary_tag!=?10)");
 
         db.beginTransaction();
         try {
-            String tagName = (tag != null ? tag.getTagSlug() : "");
-            int tagType = (tag != null ? tag.tagType.toInt() : 0);
+            HashMap<String, Long> existingFingerprints = getFingerprints(db, tagName, tagType, posts);
+            int numReplaced = 0;
+            int numUpdated = 0;
 
             // we can safely assume there's no gap marker because any existing gap marker is
             // already removed before posts are updated
             boolean hasGapMarker = false;
 
             for (ReaderPost post: posts) {
+                long fingerprint = post.getContentFingerprint();
+                Long existingFingerprint = existingFingerprints.get(post.getPseudoId());
+                if (existingFingerprint != null && existingFingerprint == fingerprint) {
+                    stmtCounts.bindLong  (1, post.numReplies);
+                    stmtCounts.bindLong  (2, post.numLikes);
+                    stmtCounts.bindLong  (3, SqlUtils.boolToSql(post.isLikedByCurrentUser));
+                    stmtCounts.bindLong  (4, SqlUtils.boolToSql(post.isFollowedByCurrentUser));
+                    stmtCounts.bindLong  (5, SqlUtils.boolToSql(post.isCommentsOpen));
+                    stmtCounts.bindDouble(6, post.score);
+                    stmtCounts.bindString(7, post.getDateLiked());
+                    stmtCounts.bindString(8, post.getDateTagged());
+                    stmtCounts.bindString(9, post.getPrimaryTag());
+                    stmtCounts.bindString(10, post.getSecondaryTag());
+                    stmtCounts.bindString(11, post.getPseudoId());
+                    stmtCounts.bindString(12, tagName);
+                    stmtCounts.bindLong  (13, tagType);
+                    numUpdated += stmtCounts.executeUpdateDelete();
+                    continue;
+                }
+
                 stmtPosts.bindLong  (1,  post.postId);
                 stmtPosts.bindLong  (2,  post.blogId);
                 stmtPosts.bindLong  (3,  post.feedId);
@@ -736,71 +989,102 @@ public class ReaderPostTable {
                 stmtPosts.bindString(7,  post.getAuthorFirstName());
                 stmtPosts.bindLong  (8,  post.authorId);
                 stmtPosts.bindString(9,  post.getTitle());
-                stmtPosts.bindString(10, maxText(post));
-                stmtPosts.bindString(11, post.getExcerpt());
-                stmtPosts.bindString(12, post.getFormat());
-                stmtPosts.bindString(13, post.getUrl());
-                stmtPosts.bindString(14, post.getShortUrl());
-                stmtPosts.bindString(15, post.getBlogName());
-                stmtPosts.bindString(16, post.getBlogUrl());
-                stmtPosts.bindString(17, post.getBlogImageUrl());
-                stmtPosts.bindString(18, post.getFeaturedImage());
-                stmtPosts.bindString(19, post.getFeaturedVideo());
-                stmtPosts.bindString(20, post.getPostAvatar());
-                stmtPosts.bindDouble(21, post.score);
-                stmtPosts.bindString(22, post.getDatePublished());
-                stmtPosts.bindString(23, post.getDateLiked());
-                stmtPosts.bindString(24, post.getDateTagged());
-                stmtPosts.bindLong  (25, post.numReplies);
-                stmtPosts.bindLong  (26, post.numLikes);
-                stmtPosts.bindLong  (27, SqlUtils.boolToSql(post.isLikedByCurrentUser));
-                stmtPosts.bindLong  (28, SqlUtils.boolToSql(post.isFollowedByCurrentUser));
-                stmtPosts.bindLong  (29, SqlUtils.boolToSql(post.isCommentsOpen));
-                stmtPosts.bindLong  (30, SqlUtils.boolToSql(post.isExternal));
-                stmtPosts.bindLong  (31, SqlUtils.boolToSql(post.isPrivate));
-                stmtPosts.bindLong  (32, SqlUtils.boolToSql(post.isVideoPress));
-                stmtPosts.bindLong  (33, SqlUtils.boolToSql(post.isJetpack));
-                stmtPosts.bindString(34, post.getPrimaryTag());
-                stmtPosts.bindString(35, post.getSecondaryTag());
-                stmtPosts.bindString(36, post.getAttachmentsJson());
-                stmtPosts.bindString(37, post.getDiscoverJson());
-                stmtPosts.bindLong  (38, post.xpostPostId);
-                stmtPosts.bindLong  (39, post.xpostBlogId);
-                stmtPosts.bindString(40, post.getRailcarJson());
-                stmtPosts.bindString(41, tagName);
-                stmtPosts.bindLong  (42, tagType);
-                stmtPosts.bindLong  (43, SqlUtils.boolToSql(hasGapMarker));
-                stmtPosts.bindString(44, ReaderCardType.toString(post.getCardType()));
+                stmtPosts.bindString(10, post.getExcerpt());
+                stmtPosts.bindString(11, post.getFormat());
+                stmtPosts.bindString(12, post.getUrl());
+                stmtPosts.bindString(13, post.getShortUrl());
+                stmtPosts.bindString(14, post.getBlogName());
+                stmtPosts.bindString(15, post.getBlogUrl());
+                stmtPosts.bindString(16, post.getBlogImageUrl());
+                stmtPosts.bindString(17, post.getFeaturedImage());
+                stmtPosts.bindString(18, post.getFeaturedVideo());
+                stmtPosts.bindString(19, post.getPostAvatar());
+                stmtPosts.bindDouble(20, post.score);
+                stmtPosts.bindString(21, post.getDatePublished());
+                stmtPosts.bindString(22, post.getDateLiked());
+                stmtPosts.bindString(23, post.getDateTagged());
+                stmtPosts.bindLong  (24, post.numReplies);
+                stmtPosts.bindLong  (25, post.numLikes);
+                stmtPosts.bindLong  (26, SqlUtils.boolToSql(post.isLikedByCurrentUser));
+                stmtPosts.bindLong  (27, SqlUtils.boolToSql(post.isFollowedByCurrentUser));
+                stmtPosts.bindLong  (28, SqlUtils.boolToSql(post.isCommentsOpen));
+                stmtPosts.bindLong  (29, SqlUtils.boolToSql(post.isExternal));
+                stmtPosts.bindLong  (30, SqlUtils.boolToSql(post.isPrivate));
+                stmtPosts.bindLong  (31, SqlUtils.boolToSql(post.isVideoPress));
+                stmtPosts.bindLong  (32, SqlUtils.boolToSql(post.isJetpack));
+                stmtPosts.bindString(33, post.getPrimaryTag());
+                stmtPosts.bindString(34, post.getSecondaryTag());
+                stmtPosts.bindString(35, post.getAttachmentsJson());
+                stmtPosts.bindString(36, post.getDiscoverJson());
+                stmtPosts.bindLong  (37, post.xpostPostId);
+                stmtPosts.bindLong  (38, post.xpostBlogId);
+                stmtPosts.bindString(39, post.getRailcarJson());
+                stmtPosts.bindString(40, tagName);
+                stmtPosts.bindLong  (41, tagType);
+                stmtPosts.bindLong  (42, SqlUtils.boolToSql(hasGapMarker));
+                stmtPosts.bindString(43, ReaderCardType.toString(post.getCardType()));
+                stmtPosts.bindLong  (44, fingerprint);
                 stmtPosts.execute();
+
+                bindText(stmtText, post);
+                stmtText.execute();
+                numReplaced++;
             }
 
             db.setTransactionSuccessful();
 
+            AppLog.d(AppLog.T.READER, String.format(
+                    "reader post table > %d posts replaced, %d updated, %d unchanged",
+                    numReplaced, numUpdated, posts.size() - numReplaced - numUpdated));
         } finally {
             db.endTransaction();
             SqlUtils.closeStatement(stmtPosts);
+            SqlUtils.closeStatement(stmtText);
+            SqlUtils.closeStatement(stmtCounts);
         }
     }
 
+    /*
+     * returns the stored fingerprints of the passed posts with the passed tag, keyed by pseudo_id -
+     * posts are queried in batches to stay under SQLite's limit on the number of bound args
+     */
+    private static final int MAX_FINGERPRINTS_PER_QUERY = 500;
+    private static HashMap<String, Long> getFingerprints(SQLiteDatabase db,
+                                                         String tagName,
+                                                         int tagType,
+                                                         ReaderPostList posts) {
+        HashMap<String, Long> fingerprints = new HashMap<>(posts.size());
+        for (int start = 0; start < posts.size(); start += MAX_FINGERPRINTS_PER_QUERY) {
+            int end = Math.min(start + MAX_FINGERPRINTS_PER_QUERY, posts.size());
+            String[] args = new String[(end - start) + 2];
+            args[0] = tagName;
+            args[1] = Integer.toString(tagType);
+            StringBuilder sbPlaceholders = new StringBuilder();
+            for (int i = start; i < end; i++) {
+                args[(i - start) + 2] = posts.get(i).getPseudoId();
+                sbPlaceholders.append(i > start ? ",?" : "?");
+            }
+            String sql = "SELECT pseudo_id, fingerprint FROM tbl_posts WHERE tag_name=? AND tag_type=?"
+                       + " AND pseudo_id IN (" + sbPlaceholders.toString() + ")";
+            Cursor c = db.rawQuery(sql, args);
+            try {
+                while (c.moveToNext()) {
+                    fingerprints.put(c.getString(0), c.getLong(1));
+                }
+            } finally {
+                SqlUtils.closeCursor(c);
+            }
+        }
+        return fingerprints;
+    }
+
     public static ReaderPostList getPostsWithTag(ReaderTag tag, int maxPosts, boolean excludeTextColumn) {
         if (tag == null) {
             return new ReaderPostList();
         }
 
-        String columns = (excludeTextColumn ? COLUMN_NAMES_NO_TEXT : "*");
-        String sql = "SELECT " + columns + " FROM tbl_posts WHERE tag_name=? AND tag_type=?";
-
-        if (tag.tagType == ReaderTagType.DEFAULT) {
-            // skip posts that are no longer liked if this is "Posts I Like", skip posts that are no
-            // longer followed if this is "Followed Sites"
-            if (tag.isPostsILike()) {
-                sql += " AND is_liked != 0";
-            } else if (tag.isFollowedSites()) {
-                sql += " AND is_followed != 0";
-            }
-        }
-
-        sql += " ORDER BY " + getSortColumnForTag(tag) + " DESC";
+        String sql = "SELECT " + getColumnsAndTables(excludeTextColumn) + " WHERE " + getWhereForTag(tag)
+                   + " ORDER BY " + getSortColumnForTag(tag) + " DESC, pseudo_id DESC";
 
         if (maxPosts > 0) {
             sql += " LIMIT " + Integer.toString(maxPosts);
@@ -815,9 +1099,26 @@ public class ReaderPostTable {
         }
     }
 
+    /*
+     * returns the where clause for posts with the passed tag - args are the tag slug and type
+     */
+    private static String getWhereForTag(@NonNull ReaderTag tag) {
+        String where = "tag_name=? AND tag_type=?";
+        if (tag.tagType == ReaderTagType.DEFAULT) {
+            // skip posts that are no longer liked if this is "Posts I Like", skip posts that are no
+            // longer followed if this is "Followed Sites"
+            if (tag.isPostsILike()) {
+                where += " AND is_liked != 0";
+            } else if (tag.isFollowedSites()) {
+                where += " AND is_followed != 0";
+            }
+        }
+        return where;
+    }
+
     public static ReaderPostList getPostsInBlog(long blogId, int maxPosts, boolean excludeTextColumn) {
-        String columns = (excludeTextColumn ? COLUMN_NAMES_NO_TEXT : "*");
-        String sql = "SELECT " + columns + " FROM tbl_posts WHERE blog_id=? AND tag_name='' ORDER BY date_published DESC";
+        String sql = "SELECT " + getColumnsAndTables(excludeTextColumn) + " WHERE blog_id=? AND tag_name=''"
+                   + " ORDER BY date_published DESC, pseudo_id DESC";
 
         if (maxPosts > 0) {
             sql += " LIMIT " + Integer.toString(maxPosts);
@@ -832,8 +1133,8 @@ public class ReaderPostTable {
     }
 
     public static ReaderPostList getPostsInFeed(long feedId, int maxPosts, boolean excludeTextColumn) {
-        String columns = (excludeTextColumn ? COLUMN_NAMES_NO_TEXT : "*");
-        String sql = "SELECT " + columns + " FROM tbl_posts WHERE feed_id=? AND tag_name='' ORDER BY date_published DESC";
+        String sql = "SELECT " + getColumnsAndTables(excludeTextColumn) + " WHERE feed_id=? AND tag_name=''"
+                   + " ORDER BY date_published DESC, pseudo_id DESC";
 
         if (maxPosts > 0) {
             sql += " LIMIT " + Integer.toString(maxPosts);
@@ -856,17 +1157,8 @@ public class ReaderPostTable {
             return idList;
         }
 
-        String sql = "SELECT blog_id, post_id FROM tbl_posts WHERE tag_name=? AND tag_type=?";
-
-        if (tag.tagType == ReaderTagType.DEFAULT) {
-            if (tag.isPostsILike()) {
-                sql += " AND is_liked != 0";
-            } else if (tag.isFollowedSites()) {
-                sql += " AND is_followed != 0";
-            }
-        }
-
-        sql += " ORDER BY " + getSortColumnForTag(tag) + " DESC";
+        String sql = "SELECT blog_id, post_id FROM tbl_posts WHERE " + getWhereForTag(tag)
+                   + " ORDER BY " + getSortColumnForTag(tag) + " DESC, pseudo_id DESC";
 
         if (maxPosts > 0) {
             sql += " LIMIT " + Integer.toString(maxPosts);
@@ -890,7 +1182,8 @@ public class ReaderPostTable {
      * same as getPostsInBlog() but only returns the blogId/postId pairs
      */
     public static ReaderBlogIdPostIdList getBlogIdPostIdsInBlog(long blogId, int maxPosts) {
-        String sql = "SELECT post_id FROM tbl_posts WHERE blog_id=? AND tag_name='' ORDER BY date_published DESC";
+        String sql = "SELECT post_id FROM tbl_posts WHERE blog_id=? AND tag_name=''"
+                   + " ORDER BY date_published DESC, pseudo_id DESC";
 
         if (maxPosts > 0) {
             sql += " LIMIT " + Integer.toString(maxPosts);
@@ -911,78 +1204,330 @@ public class ReaderPostTable {
         }
     }
 
-    private static ReaderPost getPostFromCursor(Cursor c) {
+    /*
+     * returns the ordered keys of posts with the passed tag or in the passed blog/feed - these
+     * are used by ReaderPostPagedList to load pages of posts on demand rather than loading
+     * every post in the list up front
+     */
+    public static ReaderPostKeyList getPostKeysWithTag(ReaderTag tag, int maxPosts) {
+        ReaderPostKeyList keys = new ReaderPostKeyList(tag, 0, 0);
+        if (tag == null) {
+            return keys;
+        }
+        String[] args = {tag.getTagSlug(), Integer.toString(tag.tagType.toInt())};
+        return getPostKeys(keys, args, maxPosts);
+    }
+
+    public static ReaderPostKeyList getPostKeysInBlog(long blogId, int maxPosts) {
+        ReaderPostKeyList keys = new ReaderPostKeyList(null, blogId, 0);
+        return getPostKeys(keys, new String[]{Long.toString(blogId)}, maxPosts);
+    }
+
+    public static ReaderPostKeyList getPostKeysInFeed(long feedId, int maxPosts) {
+        ReaderPostKeyList keys = new ReaderPostKeyList(null, 0, feedId);
+        return getPostKeys(keys, new String[]{Long.toString(feedId)}, maxPosts);
+    }
+
+    private static ReaderPostKeyList getPostKeys(ReaderPostKeyList keys, String[] args, int maxPosts) {
+        String sortColumn = getSortColumnForKeys(keys);
+        String sql = "SELECT blog_id, post_id, pseudo_id, " + sortColumn + " FROM tbl_posts"
+                   + " WHERE " + getWhereForKeys(keys)
+                   + " ORDER BY " + sortColumn + " DESC, pseudo_id DESC";
+        if (maxPosts > 0) {
+            sql += " LIMIT " + Integer.toString(maxPosts);
+        }
+
+        Cursor cursor = ReaderDatabase.getReadableDb().rawQuery(sql, args);
+        try {
+            while (cursor.moveToNext()) {
+                keys.add(new ReaderPostKey(
+                        cursor.getLong(0),
+                        cursor.getLong(1),
+                        cursor.getString(2),
+                        getSortValue(cursor, 3)));
+            }
+            return keys;
+        } finally {
+            SqlUtils.closeCursor(cursor);
+        }
+    }
+
+    /*
+     * returns the sort value in the passed column with its sqlite type intact - search results
+     * are sorted by score, a REAL, and reading it as a string would round it to 15 digits so it
+     * would no longer equal the stored value when it's used as a key boundary
+     */
+    private static Object getSortValue(Cursor cursor, int index) {
+        switch (cursor.getType(index)) {
+            case Cursor.FIELD_TYPE_INTEGER:
+                return cursor.getLong(index);
+            case Cursor.FIELD_TYPE_FLOAT:
+                return cursor.getDouble(index);
+            default:
+                return StringUtils.notNullStr(cursor.getString(index));
+        }
+    }
+
+    /*
+     * returns the posts (without the text column) whose keys are between the passed indexes
+     * (inclusive) in the passed key list - this is a keyset query on the sort column, so it uses
+     * the sort index and doesn't need to skip past the rows before fromIndex. note that the
+     * returned list may not exactly match the keys if posts were added or removed after the keys
+     * were loaded
+     */
+    public static ReaderPostList getPostsInKeyRange(ReaderPostKeyList keys, int fromIndex, int toIndex) {
+        if (keys == null || fromIndex < 0 || toIndex >= keys.size() || fromIndex > toIndex) {
+            return new ReaderPostList();
+        }
+
+        ReaderPostKey firstKey = keys.get(fromIndex);
+        ReaderPostKey lastKey = keys.get(toIndex);
+        String sortColumn = getSortColumnForKeys(keys);
+
+        String sql = "SELECT " + COLUMN_NAMES_NO_TEXT + " FROM tbl_posts"
+                   + " WHERE " + getWhereForKeys(keys)
+                   + " AND (" + sortColumn + " < ? OR (" + sortColumn + " = ? AND pseudo_id <= ?))"
+                   + " AND (" + sortColumn + " > ? OR (" + sortColumn + " = ? AND pseudo_id >= ?))"
+                   + " ORDER BY " + sortColumn + " DESC, pseudo_id DESC";
+
+        Object[] args;
+        if (keys.getTag() != null) {
+            args = new Object[]{
+                    keys.getTag().getTagSlug(),
+                    keys.getTag().tagType.toInt(),
+                    firstKey.getSortValue(), firstKey.getSortValue(), firstKey.getPseudoId(),
+                    lastKey.getSortValue(), lastKey.getSortValue(), lastKey.getPseudoId()};
+        } else {
+            long id = keys.getFeedId() != 0 ? keys.getFeedId() : keys.getBlogId();
+            args = new Object[]{
+                    id,
+                    firstKey.getSortValue(), firstKey.getSortValue(), firstKey.getPseudoId(),
+                    lastKey.getSortValue(), lastKey.getSortValue(), lastKey.getPseudoId()};
+        }
+
+        Cursor cursor = rawQueryWithTypedArgs(ReaderDatabase.getReadableDb(), sql, args);
+        try {
+            return getPostListFromCursor(cursor);
+        } finally {
+            SqlUtils.closeCursor(cursor);
+        }
+    }
+
+    /*
+     * same as rawQuery() but binds numeric arguments as numbers - rawQuery() only binds strings,
+     * and comparing a REAL column with a string means comparing it with a rounded value
+     */
+    private static Cursor rawQueryWithTypedArgs(SQLiteDatabase db, String sql, final Object[] args) {
+        SQLiteDatabase.CursorFactory factory = new SQLiteDatabase.CursorFactory() {
+            @Override
+            public Cursor newCursor(SQLiteDatabase db,
+                                    SQLiteCursorDriver driver,
+                                    String editTable,
+                                    SQLiteQuery query) {
+                for (int i = 0; i < args.length; i++) {
+                    Object arg = args[i];
+                    if (arg == null) {
+                        query.bindNull(i + 1);
+                    } else if (arg instanceof Double || arg instanceof Float) {
+                        query.bindDouble(i + 1, ((Number) arg).doubleValue());
+                    } else if (arg instanceof Number) {
+                        query.bindLong(i + 1, ((Number) arg).longValue());
+                    } else {
+                        query.bindString(i + 1, arg.toString());
+                    }
+                }
+                return new SQLiteCursor(driver, editTable, query);
+            }
+        };
+        return db.rawQueryWithFactory(factory, sql, null, null);
+    }
+
+    private static String getWhereForKeys(@NonNull ReaderPostKeyList keys) {
+        if (keys.getTag() != null) {
+            return getWhereForTag(keys.getTag());
+        } else if (keys.getFeedId() != 0) {
+            return "feed_id=? AND tag_name=''";
+        } else {
+            return "blog_id=? AND tag_name=''";
+        }
+    }
+
+    private static String getSortColumnForKeys(@NonNull ReaderPostKeyList keys) {
+        return keys.getTag() != null ? getSortColumnForTag(keys.getTag()) : "date_published";
+    }
+
+    /*
+     * column indexes for the post columns in a cursor - resolved once per cursor rather than once
+     * per row, since getColumnIndex() is a linear search of the cursor's column names. the text
+     * columns are only present when the query joins with tbl_post_text, otherwise their indexes
+     * are -1
+     */
+    private static class PostColumnIndexes {
+        private final int idxText;
+        private final int idxTextCompressed;
+        private final int idxPostId;
+        private final int idxBlogId;
+        private final int idxFeedId;
+        private final int idxFeedItemId;
+        private final int idxAuthorId;
+        private final int idxPseudoId;
+        private final int idxAuthorName;
+        private final int idxAuthorFirstName;
+        private final int idxBlogName;
+        private final int idxBlogUrl;
+        private final int idxBlogImageUrl;
+        private final int idxExcerpt;
+        private final int idxFormat;
+        private final int idxFeaturedImage;
+        private final int idxFeaturedVideo;
+        private final int idxTitle;
+        private final int idxUrl;
+        private final int idxShortUrl;
+        private final int idxPostAvatar;
+        private final int idxDatePublished;
+        private final int idxDateLiked;
+        private final int idxDateTagged;
+        private final int idxScore;
+        private final int idxNumReplies;
+        private final int idxNumLikes;
+        private final int idxIsLiked;
+        private final int idxIsFollowed;
+        private final int idxIsCommentsOpen;
+        private final int idxIsExternal;
+        private final int idxIsPrivate;
+        private final int idxIsVideoPress;
+        private final int idxIsJetpack;
+        private final int idxPrimaryTag;
+        private final int idxSecondaryTag;
+        private final int idxAttachmentsJson;
+        private final int idxDiscoverJson;
+        private final int idxXpostPostId;
+        private final int idxXpostBlogId;
+        private final int idxRailcarJson;
+        private final int idxCardType;
+
+        PostColumnIndexes(Cursor c) {
+            idxText = c.getColumnIndex("text");
+            idxTextCompressed = c.getColumnIndex("text_compressed");
+            idxPostId = c.getColumnIndex("post_id");
+            idxBlogId = c.getColumnIndex("blog_id");
+            idxFeedId = c.getColumnIndex("feed_id");
+            idxFeedItemId = c.getColumnIndex("feed_item_id");
+            idxAuthorId = c.getColumnIndex("author_id");
+            idxPseudoId = c.getColumnIndex("pseudo_id");
+            idxAuthorName = c.getColumnIndex("author_name");
+            idxAuthorFirstName = c.getColumnIndex("author_first_name");
+            idxBlogName = c.getColumnIndex("blog_name");
+            idxBlogUrl = c.getColumnIndex("blog_url");
+            idxBlogImageUrl = c.getColumnIndex("blog_image_url");
+            idxExcerpt = c.getColumnIndex("excerpt");
+            idxFormat = c.getColumnIndex("format");
+            idxFeaturedImage = c.getColumnIndex("featured_image");
+            idxFeaturedVideo = c.getColumnIndex("featured_video");
+            idxTitle = c.getColumnIndex("title");
+            idxUrl = c.getColumnIndex("url");
+            idxShortUrl = c.getColumnIndex("short_url");
+            idxPostAvatar = c.getColumnIndex("post_avatar");
+            idxDatePublished = c.getColumnIndex("date_published");
+            idxDateLiked = c.getColumnIndex("date_liked");
+            idxDateTagged = c.getColumnIndex("date_tagged");
+            idxScore = c.getColumnIndex("score");
+            idxNumReplies = c.getColumnIndex("num_replies");
+            idxNumLikes = c.getColumnIndex("num_likes");
+            idxIsLiked = c.getColumnIndex("is_liked");
+            idxIsFollowed = c.getColumnIndex("is_followed");
+            idxIsCommentsOpen = c.getColumnIndex("is_comments_open");
+            idxIsExternal = c.getColumnIndex("is_external");
+            idxIsPrivate = c.getColumnIndex("is_private");
+            idxIsVideoPress = c.getColumnIndex("is_videopress");
+            idxIsJetpack = c.getColumnIndex("is_jetpack");
+            idxPrimaryTag = c.getColumnIndex("primary_tag");
+            idxSecondaryTag = c.getColumnIndex("secondary_tag");
+            idxAttachmentsJson = c.getColumnIndex("attachments_json");
+            idxDiscoverJson = c.getColumnIndex("discover_json");
+            idxXpostPostId = c.getColumnIndex("xpost_post_id");
+            idxXpostBlogId = c.getColumnIndex("xpost_blog_id");
+            idxRailcarJson = c.getColumnIndex("railcar_json");
+            idxCardType = c.getColumnIndex("card_type");
+        }
+    }
+
+    static ReaderPost getPostFromCursor(Cursor c) {
         if (c == null) {
             throw new IllegalArgumentException("getPostFromCursor > null cursor");
         }
+        return getPostFromCursor(c, new PostColumnIndexes(c));
+    }
 
+    private static ReaderPost getPostFromCursor(Cursor c, PostColumnIndexes idx) {
         ReaderPost post = new ReaderPost();
 
-        // text column is skipped when retrieving multiple rows
-        int idxText = c.getColumnIndex("text");
-        if (idxText > -1) {
-            post.setText(c.getString(idxText));
-        }
-
-        post.postId = c.getLong(c.getColumnIndex("post_id"));
-        post.blogId = c.getLong(c.getColumnIndex("blog_id"));
-        post.feedId = c.getLong(c.getColumnIndex("feed_id"));
-        post.feedItemId = c.getLong(c.getColumnIndex("feed_item_id"));
-        post.authorId = c.getLong(c.getColumnIndex("author_id"));
-        post.setPseudoId(c.getString(c.getColumnIndex("pseudo_id")));
-
-        post.setAuthorName(c.getString(c.getColumnIndex("author_name")));
-        post.setAuthorFirstName(c.getString(c.getColumnIndex("author_first_name")));
-        post.setBlogName(c.getString(c.getColumnIndex("blog_name")));
-        post.setBlogUrl(c.getString(c.getColumnIndex("blog_url")));
-        post.setBlogImageUrl(c.getString(c.getColumnIndex("blog_image_url")));
-        post.setExcerpt(c.getString(c.getColumnIndex("excerpt")));
-        post.setFormat(c.getString(c.getColumnIndex("format")));
-        post.setFeaturedImage(c.getString(c.getColumnIndex("featured_image")));
-        post.setFeaturedVideo(c.getString(c.getColumnIndex("featured_video")));
-
-        post.setTitle(c.getString(c.getColumnIndex("title")));
-        post.setUrl(c.getString(c.getColumnIndex("url")));
-        post.setShortUrl(c.getString(c.getColumnIndex("short_url")));
-        post.setPostAvatar(c.getString(c.getColumnIndex("post_avatar")));
-
-        post.setDatePublished(c.getString(c.getColumnIndex("date_published")));
-        post.setDateLiked(c.getString(c.getColumnIndex("date_liked")));
-        post.setDateTagged(c.getString(c.getColumnIndex("date_tagged")));
-
-        post.score = c.getDouble(c.getColumnIndex("score"));
-        post.numReplies = c.getInt(c.getColumnIndex("num_replies"));
-        post.numLikes = c.getInt(c.getColumnIndex("num_likes"));
-
-        post.isLikedByCurrentUser = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_liked")));
-        post.isFollowedByCurrentUser = SqlUtils.sqlToBool(c.getInt( c.getColumnIndex("is_followed")));
-        post.isCommentsOpen = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_comments_open")));
-        post.isExternal = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_external")));
-        post.isPrivate = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_private")));
-        post.isVideoPress = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_videopress")));
-        post.isJetpack = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_jetpack")));
-
-        post.setPrimaryTag(c.getString(c.getColumnIndex("primary_tag")));
-        post.setSecondaryTag(c.getString(c.getColumnIndex("secondary_tag")));
-
-        post.setAttachmentsJson(c.getString(c.getColumnIndex("attachments_json")));
-        post.setDiscoverJson(c.getString(c.getColumnIndex("discover_json")));
-
-        post.xpostPostId = c.getLong(c.getColumnIndex("xpost_post_id"));
-        post.xpostBlogId = c.getLong(c.getColumnIndex("xpost_blog_id"));
-
-        post.setRailcarJson(c.getString(c.getColumnIndex("railcar_json")));
-        post.setCardType(ReaderCardType.fromString(c.getString(c.getColumnIndex("card_type"))));
+        // text columns are skipped unless the text was requested
+        if (idx.idxText > -1 && idx.idxTextCompressed > -1) {
+            post.setText(getTextFromCursor(c, idx.idxText, idx.idxTextCompressed));
+        }
+
+        post.postId = c.getLong(idx.idxPostId);
+        post.blogId = c.getLong(idx.idxBlogId);
+        post.feedId = c.getLong(idx.idxFeedId);
+        post.feedItemId = c.getLong(idx.idxFeedItemId);
+        post.authorId = c.getLong(idx.idxAuthorId);
+        post.setPseudoId(c.getString(idx.idxPseudoId));
+
+        post.setAuthorName(c.getString(idx.idxAuthorName));
+        post.setAuthorFirstName(c.getString(idx.idxAuthorFirstName));
+        post.setBlogName(c.getString(idx.idxBlogName));
+        post.setBlogUrl(c.getString(idx.idxBlogUrl));
+        post.setBlogImageUrl(c.getString(idx.idxBlogImageUrl));
+        post.setExcerpt(c.getString(idx.idxExcerpt));
+        post.setFormat(c.getString(idx.idxFormat));
+        post.setFeaturedImage(c.getString(idx.idxFeaturedImage));
+        post.setFeaturedVideo(c.getString(idx.idxFeaturedVideo));
+
+        post.setTitle(c.getString(idx.idxTitle));
+        post.setUrl(c.getString(idx.idxUrl));
+        post.setShortUrl(c.getString(idx.idxShortUrl));
+        post.setPostAvatar(c.getString(idx.idxPostAvatar));
+
+        post.setDatePublished(c.getString(idx.idxDatePublished));
+        post.setDateLiked(c.getString(idx.idxDateLiked));
+        post.setDateTagged(c.getString(idx.idxDateTagged));
+
+        post.score = c.getDouble(idx.idxScore);
+        post.numReplies = c.getInt(idx.idxNumReplies);
+        post.numLikes = c.getInt(idx.idxNumLikes);
+
+        post.isLikedByCurrentUser = SqlUtils.sqlToBool(c.getInt(idx.idxIsLiked));
+        post.isFollowedByCurrentUser = SqlUtils.sqlToBool(c.getInt(idx.idxIsFollowed));
+        post.isCommentsOpen = SqlUtils.sqlToBool(c.getInt(idx.idxIsCommentsOpen));
+        post.isExternal = SqlUtils.sqlToBool(c.getInt(idx.idxIsExternal));
+        post.isPrivate = SqlUtils.sqlToBool(c.getInt(idx.idxIsPrivate));
+        post.isVideoPress = SqlUtils.sqlToBool(c.getInt(idx.idxIsVideoPress));
+        post.isJetpack = SqlUtils.sqlToBool(c.getInt(idx.idxIsJetpack));
+
+        post.setPrimaryTag(c.getString(idx.idxPrimaryTag));
+        post.setSecondaryTag(c.getString(idx.idxSecondaryTag));
+
+        post.setAttachmentsJson(c.getString(idx.idxAttachmentsJson));
+        post.setDiscoverJson(c.getString(idx.idxDiscoverJson));
+
+        post.xpostPostId = c.getLong(idx.idxXpostPostId);
+        post.xpostBlogId = c.getLong(idx.idxXpostBlogId);
+
+        post.setRailcarJson(c.getString(idx.idxRailcarJson));
+        post.setCardType(ReaderCardType.fromString(c.getString(idx.idxCardType)));
 
         return post;
     }
 
-    private static ReaderPostList getPostListFromCursor(Cursor cursor) {
+    static ReaderPostList getPostListFromCursor(Cursor cursor) {
         ReaderPostList posts = new ReaderPostList();
         try {
             if (cursor != null && cursor.moveToFirst()) {
+                // resolve the column indexes once and reuse them for every row
+                PostColumnIndexes idx = new PostColumnIndexes(cursor);
                 do {
-                    posts.add(getPostFromCursor(cursor));
+                    posts.add(getPostFromCursor(cursor, idx));
                 } while (cursor.moveToNext());
             }
         } catch (IllegalStateException e) {
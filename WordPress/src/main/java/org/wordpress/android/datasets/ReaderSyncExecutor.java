@@ -0,0 +1,271 @@
+package org.wordpress.android.datasets;
+
+import android.os.Process;
+import android.support.annotation.NonNull;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.Tracer;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * executor shared by the reader services for handling server responses - replaces creating a
+ * new thread for every response, which meant bursts of responses (ex: when rapidly switching
+ * tags) resulted in many threads competing for the writable reader db.
+ *
+ * work that doesn't write to the db (ex: parsing) runs on a small bounded pool, while
+ * work that writes to the db runs on a single writer lane so writes are serialized. writes may
+ * be given a key (ex: "posts:tag:discover:REQUEST_NEWER") so that a write which is still waiting
+ * to run is replaced by a newer write with the same key rather than both being performed.
+ */
+public class ReaderSyncExecutor {
+    private static final int MAX_POOL_THREADS = 3;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    // tasks which wait or run longer than this are logged
+    private static final long SLOW_TASK_MS = 1000;
+
+    private static final ReaderSyncExecutor INSTANCE = new ReaderSyncExecutor();
+
+    public static ReaderSyncExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    /*
+     * task which can be passed to executeWrite() with a key - onCoalesced() is called instead of
+     * run() when the task is replaced by a newer one with the same key before it starts. it's
+     * called before the newer task can start, so it may hand state (ex: listeners waiting for
+     * the result) to the newer task, but it must be quick since the executor is locked
+     */
+    public abstract static class SyncTask implements Runnable {
+        public void onCoalesced(@NonNull Runnable replacement) {
+            // noop
+        }
+    }
+
+    private final ThreadPoolExecutor mPool;
+    private final ThreadPoolExecutor mWriter;
+    private final LaneStats mPoolStats = new LaneStats("pool");
+    private final LaneStats mWriterStats = new LaneStats("writer");
+
+    // keyed writes which haven't started yet
+    private final HashMap<String, TrackedTask> mPendingWrites = new HashMap<>();
+
+    ReaderSyncExecutor() {
+        int numThreads = Math.max(1, Math.min(MAX_POOL_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+        mPool = createExecutor("reader-sync", numThreads);
+        mWriter = createExecutor("reader-sync-writer", 1);
+    }
+
+    private static ThreadPoolExecutor createExecutor(final String name, int numThreads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                numThreads,
+                numThreads,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger mCount = new AtomicInteger();
+                    @Override
+                    public Thread newThread(@NonNull final Runnable runnable) {
+                        return new Thread(name + "-" + mCount.incrementAndGet()) {
+                            @Override
+                            public void run() {
+                                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                runnable.run();
+                            }
+                        };
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /*
+     * runs the passed task on the bounded pool - the task must not write to the reader db
+     */
+    public void execute(@NonNull String name, @NonNull Runnable task) {
+        TrackedTask tracked = new TrackedTask(name, null, task, mPoolStats);
+        mPoolStats.onQueued();
+        mPool.execute(tracked);
+    }
+
+    /*
+     * runs the passed task on the writer lane after all previously queued writes
+     */
+    public void executeWrite(@NonNull String name, @NonNull Runnable task) {
+        executeWrite(name, null, task);
+    }
+
+    /*
+     * runs the passed task on the writer lane - if a write with the same key is still waiting
+     * to run, it's replaced by this one (keeping its place in the queue) and its onCoalesced()
+     * is called with this one
+     */
+    public void executeWrite(@NonNull String name, String key, @NonNull Runnable task) {
+        TrackedTask tracked = null;
+        synchronized (mPendingWrites) {
+            TrackedTask pending = (key != null ? mPendingWrites.get(key) : null);
+            if (pending != null) {
+                Runnable replaced = pending.replaceTask(task);
+                if (replaced instanceof SyncTask) {
+                    ((SyncTask) replaced).onCoalesced(task);
+                }
+            } else {
+                tracked = new TrackedTask(name, key, task, mWriterStats);
+                if (key != null) {
+                    mPendingWrites.put(key, tracked);
+                }
+            }
+        }
+
+        if (tracked != null) {
+            mWriterStats.onQueued();
+            mWriter.execute(tracked);
+        } else {
+            mWriterStats.onCoalesced();
+            AppLog.d(AppLog.T.READER, "reader sync > coalesced " + name);
+        }
+    }
+
+    /*
+     * wraps a queued task to record how long it waited and how long it ran - the wrapped task
+     * may be replaced while it's waiting, but not once it has started
+     */
+    private class TrackedTask implements Runnable {
+        private final String mName;
+        private final String mKey;
+        private final LaneStats mStats;
+        private final long mQueuedAt = System.nanoTime();
+        private Runnable mTask;  // guarded by mPendingWrites
+
+        TrackedTask(String name, String key, Runnable task, LaneStats stats) {
+            mName = name;
+            mKey = key;
+            mTask = task;
+            mStats = stats;
+        }
+
+        /*
+         * replaces the wrapped task and returns the previous one - must be called while holding
+         * the mPendingWrites lock, and only while this task is still in mPendingWrites
+         */
+        Runnable replaceTask(Runnable task) {
+            Runnable previous = mTask;
+            mTask = task;
+            return previous;
+        }
+
+        @Override
+        public void run() {
+            long startedAt = System.nanoTime();
+
+            // once a keyed task is removed from the pending writes it can no longer be replaced
+            Runnable task;
+            synchronized (mPendingWrites) {
+                if (mKey != null && mPendingWrites.get(mKey) == this) {
+                    mPendingWrites.remove(mKey);
+                }
+                task = mTask;
+            }
+
+            Tracer.Span span = Tracer.begin(AppLog.T.READER, mName);
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                AppLog.e(AppLog.T.READER, "reader sync > " + mName + " failed", e);
+                throw e;
+            } finally {
+                span.end();
+                long finishedAt = System.nanoTime();
+                long waitMs = TimeUnit.NANOSECONDS.toMillis(startedAt - mQueuedAt);
+                long runMs = TimeUnit.NANOSECONDS.toMillis(finishedAt - startedAt);
+                mStats.onCompleted(waitMs, runMs);
+                if (waitMs >= SLOW_TASK_MS || runMs >= SLOW_TASK_MS) {
+                    AppLog.w(AppLog.T.READER, String.format(Locale.US,
+                            "reader sync > slow %s (%s), waited %d ms, ran %d ms",
+                            mName, mStats.mName, waitMs, runMs));
+                }
+            }
+        }
+    }
+
+    /*
+     * returns a snapshot of the current metrics for debugging
+     */
+    public String getStats() {
+        return mPoolStats.toString() + "\n" + mWriterStats.toString();
+    }
+
+    public void logStats() {
+        AppLog.i(AppLog.T.READER, "reader sync > " + mPoolStats.toString());
+        AppLog.i(AppLog.T.READER, "reader sync > " + mWriterStats.toString());
+    }
+
+    private static class LaneStats {
+        private final String mName;
+        private final AtomicInteger mQueueDepth = new AtomicInteger();
+        private final AtomicInteger mMaxQueueDepth = new AtomicInteger();
+        private final AtomicLong mNumCompleted = new AtomicLong();
+        private final AtomicLong mNumCoalesced = new AtomicLong();
+        private final AtomicLong mTotalWaitMs = new AtomicLong();
+        private final AtomicLong mMaxWaitMs = new AtomicLong();
+        private final AtomicLong mTotalRunMs = new AtomicLong();
+        private final AtomicLong mMaxRunMs = new AtomicLong();
+
+        LaneStats(String name) {
+            mName = name;
+        }
+
+        void onQueued() {
+            int depth = mQueueDepth.incrementAndGet();
+            updateMax(mMaxQueueDepth, depth);
+        }
+
+        void onCoalesced() {
+            mNumCoalesced.incrementAndGet();
+        }
+
+        void onCompleted(long waitMs, long runMs) {
+            mQueueDepth.decrementAndGet();
+            mNumCompleted.incrementAndGet();
+            mTotalWaitMs.addAndGet(waitMs);
+            mTotalRunMs.addAndGet(runMs);
+            updateMax(mMaxWaitMs, waitMs);
+            updateMax(mMaxRunMs, runMs);
+        }
+
+        private static void updateMax(AtomicInteger max, int value) {
+            int current;
+            while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+                // retry
+            }
+        }
+
+        private static void updateMax(AtomicLong max, long value) {
+            long current;
+            while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+                // retry
+            }
+        }
+
+        @Override
+        public String toString() {
+            long numCompleted = mNumCompleted.get();
+            long avgWaitMs = numCompleted > 0 ? mTotalWaitMs.get() / numCompleted : 0;
+            long avgRunMs = numCompleted > 0 ? mTotalRunMs.get() / numCompleted : 0;
+            return String.format(Locale.US,
+                    "%s: queued %d (max %d), completed %d, coalesced %d,"
+                    + " wait avg %d ms (max %d ms), run avg %d ms (max %d ms)",
+                    mName, mQueueDepth.get(), mMaxQueueDepth.get(), numCompleted, mNumCoalesced.get(),
+                    avgWaitMs, mMaxWaitMs.get(), avgRunMs, mMaxRunMs.get());
+        }
+    }
+}
@@ -238,8 +238,8 @@ public class ReaderTagTable {
         }
     }
 
-    static ReaderTagList getAllTags() {
-        Cursor c = ReaderDatabase.getReadableDb().rawQuery("SELECT * FROM tbl_tags ORDER BY tag_slug", null);
+    static ReaderTagList getAllTags(SQLiteDatabase db) {
+        Cursor c = db.rawQuery("SELECT * FROM tbl_tags ORDER BY tag_slug", null);
         try {
             ReaderTagList tagList = new ReaderTagList();
             if (c.moveToFirst()) {
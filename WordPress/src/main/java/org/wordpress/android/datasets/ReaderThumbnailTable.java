@@ -6,6 +6,9 @@ import android.text.TextUtils;
 
 import org.wordpress.android.util.SqlUtils;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * stores thumbnail urls for videos embedded in Reader posts
  */
@@ -24,8 +27,9 @@ public class ReaderThumbnailTable {
     /*
      * purge table of thumbnails attached to posts that no longer exist
      */
-    protected static int purge(SQLiteDatabase db) {
-        return db.delete("tbl_thumbnails", "post_id NOT IN (SELECT DISTINCT post_id FROM tbl_posts)", null);
+    protected static List<ReaderDatabasePurge.Step> getPurgeSteps() {
+        return Collections.singletonList(new ReaderDatabasePurge.Step("tbl_thumbnails",
+                "post_id NOT IN (SELECT DISTINCT post_id FROM tbl_posts)", null));
     }
 
     public static void addThumbnail(long postId, String fullUrl, String thumbnailUrl) {
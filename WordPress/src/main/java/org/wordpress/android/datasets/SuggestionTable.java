@@ -7,6 +7,7 @@ import android.database.sqlite.SQLiteDatabase;
 import org.wordpress.android.WordPress;
 import org.wordpress.android.models.Suggestion;
 import org.wordpress.android.models.Tag;
+import org.wordpress.android.ui.suggestion.util.SuggestionIndex;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.SqlUtils;
 
@@ -95,6 +96,13 @@ public class SuggestionTable {
         }
     }
 
+    /*
+     * returns the suggestions for the passed site along with the prefix index used to filter them
+     */
+    public static SuggestionIndex<Suggestion> getSuggestionIndexForSite(long siteId) {
+        return SuggestionIndex.forSuggestions(getSuggestionsForSite(siteId));
+    }
+
     public static int deleteSuggestionsForSite(long siteId) {
         return getWritableDb().delete(SUGGESTIONS_TABLE, "site_id=?", new String[]{Long.toString(siteId)});
     }
@@ -48,11 +48,30 @@ public class Note {
     private static final String ACTION_KEY_SPAM = "spam-comment";
     private static final String ACTION_KEY_LIKE = "like-comment";
 
-    private JSONObject mActions;
-    private JSONObject mNoteJSON;
     private final String mKey;
 
+    // the fields needed to show the note in the notifications list - these are read from the JSON
+    // once, or from the columns of NotificationsTable, so the list never has to walk the JSON
+    private final String mType;
+    private final String mTimestampString;
+    private final long mTimestamp;
+    private final boolean mIsCommentType;
+    private final String mSubjectString;
+    private final String mCommentSubject;
+    private final String mCommentSubjectNoticon;
+    private final String mIconUrl;
+    private final String mNoticon;
+    private final CommentStatus mCommentStatus;
+    private volatile boolean mIsRead;
+
+    // the full JSON is only needed when the note is shown in detail, so for notes read from the
+    // list columns it's kept as a string and parsed the first time it's needed
     private final Object mSyncLock = new Object();
+    private String mRawJSON;       // guarded by mSyncLock
+    private JSONObject mNoteJSON;  // guarded by mSyncLock
+    private Details mDetails;      // guarded by mSyncLock
+    private JSONObject mSubject;   // guarded by mSyncLock
+
     private String mLocalStatus;
 
     public enum EnabledActions {
@@ -71,18 +90,160 @@ public class Note {
         GROUP_OLDER_MONTH
     }
 
+    /*
+     * fields which are only needed by the detail view - extracted from the JSON once, the first
+     * time one of them is requested
+     */
+    private static class Details {
+        private final String mTitle;
+        private final String mUrl;
+        private final int mSiteId;
+        private final int mPostId;
+        private final long mCommentId;
+        private final long mParentCommentId;
+        private final long mCommentReplyId;
+        private final JSONArray mBody;
+        private final JSONArray mHeader;
+        private final JSONObject mActions;
+        private final EnumSet<EnabledActions> mEnabledActions;
+        private final String mCommentText;
+        private final String mCommentAuthorName;
+        private final String mCommentAuthorUrl;
+
+        Details(JSONObject noteJSON) {
+            mTitle = JSONUtils.queryJSON(noteJSON, "title", "");
+            mUrl = JSONUtils.queryJSON(noteJSON, "url", "");
+            mSiteId = JSONUtils.queryJSON(noteJSON, "meta.ids.site", 0);
+            mPostId = JSONUtils.queryJSON(noteJSON, "meta.ids.post", 0);
+            mCommentId = JSONUtils.queryJSON(noteJSON, "meta.ids.comment", 0);
+            mParentCommentId = JSONUtils.queryJSON(noteJSON, "meta.ids.parent_comment", 0);
+            mCommentReplyId = JSONUtils.queryJSON(noteJSON, "meta.ids.reply_comment", 0);
+            mHeader = noteJSON.optJSONArray("header");
+            mCommentText = JSONUtils.queryJSON(noteJSON, "body[last].text", "");
+
+            JSONArray body = noteJSON.optJSONArray("body");
+            mBody = body != null ? body : new JSONArray();
+
+            JSONObject actions = null;
+            String authorName = null;
+            String authorUrl = null;
+            for (int i = 0; i < mBody.length(); i++) {
+                JSONObject bodyItem = mBody.optJSONObject(i);
+                if (bodyItem == null) {
+                    break;
+                }
+                String type = bodyItem.optString("type");
+                if (actions == null && type.equals("comment")
+                        && mCommentId == JSONUtils.queryJSON(bodyItem, "meta.ids.comment", 0)) {
+                    // comment block that matches the root note comment id
+                    actions = JSONUtils.queryJSON(bodyItem, "actions", new JSONObject());
+                } else if (authorName == null && type.equals("user")) {
+                    authorName = bodyItem.optString("text");
+                    authorUrl = JSONUtils.queryJSON(bodyItem, "meta.links.home", "");
+                }
+            }
+            mActions = actions != null ? actions : new JSONObject();
+            mEnabledActions = getEnabledActions(mActions);
+            mCommentAuthorName = StringUtils.notNullStr(authorName);
+            mCommentAuthorUrl = StringUtils.notNullStr(authorUrl);
+        }
+
+        private static EnumSet<EnabledActions> getEnabledActions(JSONObject jsonActions) {
+            EnumSet<EnabledActions> actions = EnumSet.noneOf(EnabledActions.class);
+            if (jsonActions.length() == 0) {
+                return actions;
+            }
+
+            if (jsonActions.has(ACTION_KEY_REPLY)) {
+                actions.add(EnabledActions.ACTION_REPLY);
+            }
+            if (jsonActions.has(ACTION_KEY_APPROVE) && jsonActions.optBoolean(ACTION_KEY_APPROVE, false)) {
+                actions.add(EnabledActions.ACTION_UNAPPROVE);
+            }
+            if (jsonActions.has(ACTION_KEY_APPROVE) && !jsonActions.optBoolean(ACTION_KEY_APPROVE, false)) {
+                actions.add(EnabledActions.ACTION_APPROVE);
+            }
+            if (jsonActions.has(ACTION_KEY_SPAM)) {
+                actions.add(EnabledActions.ACTION_SPAM);
+            }
+            if (jsonActions.has(ACTION_KEY_LIKE)) {
+                actions.add(EnabledActions.ACTION_LIKE);
+            }
+
+            return actions;
+        }
+    }
+
     public Note(String key, JSONObject noteJSON) {
         mKey = key;
-        mNoteJSON = noteJSON;
+        mNoteJSON = noteJSON != null ? noteJSON : new JSONObject();
+        mDetails = new Details(mNoteJSON);
+
+        mType = JSONUtils.queryJSON(mNoteJSON, "type", NOTE_UNKNOWN_TYPE);
+        mTimestampString = JSONUtils.queryJSON(mNoteJSON, "timestamp", "");
+        mTimestamp = DateTimeUtils.timestampFromIso8601(mTimestampString);
+        mIsRead = JSONUtils.queryJSON(mNoteJSON, "read", 0) == 1;
+        mIconUrl = JSONUtils.queryJSON(mNoteJSON, "icon", "");
+        mNoticon = JSONUtils.queryJSON(mNoteJSON, "noticon", "");
+        mIsCommentType = mType.equals(NOTE_COMMENT_TYPE)
+                || (mType.equals(NOTE_MATCHER_TYPE) && JSONUtils.queryJSON(mNoteJSON, "meta.ids.comment", -1) != -1);
+        mCommentStatus = getCommentStatus(mDetails.mEnabledActions);
+
+        JSONArray subjectArray = mNoteJSON.optJSONArray("subject");
+        mSubject = subjectArray != null ? subjectArray.optJSONObject(0) : null;
+        mSubjectString = mSubject != null ? mSubject.toString() : null;
+        mCommentSubject = getCommentSubject(subjectArray);
+        mCommentSubjectNoticon = getCommentSubjectNoticon(mSubject);
     }
 
     public Note(JSONObject noteJSON){
-        mNoteJSON = noteJSON;
-        mKey = mNoteJSON.optString("id", "");
+        this(noteJSON.optString("id", ""), noteJSON);
+    }
+
+    /**
+     * Creates a note from the values stored in the NotificationsTable columns - the raw JSON is
+     * only parsed if something other than these values is requested
+     */
+    public Note(String key, String rawJSON, String type, long timestamp, boolean isRead, boolean isCommentType,
+                String subject, String commentSubject, String commentSubjectNoticon, String iconUrl,
+                String noticon, CommentStatus commentStatus) {
+        mKey = key;
+        mRawJSON = rawJSON;
+        mType = StringUtils.notNullStr(type);
+        mTimestampString = DateTimeUtils.iso8601UTCFromTimestamp(timestamp);
+        mTimestamp = timestamp;
+        mIsRead = isRead;
+        mIsCommentType = isCommentType;
+        mSubjectString = subject;
+        mCommentSubject = StringUtils.notNullStr(commentSubject);
+        mCommentSubjectNoticon = StringUtils.notNullStr(commentSubjectNoticon);
+        mIconUrl = StringUtils.notNullStr(iconUrl);
+        mNoticon = StringUtils.notNullStr(noticon);
+        mCommentStatus = commentStatus != null ? commentStatus : CommentStatus.ALL;
     }
 
     public JSONObject getJSON() {
-        return mNoteJSON != null ? mNoteJSON : new JSONObject();
+        synchronized (mSyncLock) {
+            if (mNoteJSON == null) {
+                try {
+                    mNoteJSON = new JSONObject(mRawJSON);
+                } catch (JSONException | NullPointerException e) {
+                    AppLog.e(AppLog.T.NOTIFS, "Can't parse JSON for note " + mKey, e);
+                    mNoteJSON = new JSONObject();
+                }
+                mRawJSON = null;
+            }
+            return mNoteJSON;
+        }
+    }
+
+    private Details getDetails() {
+        synchronized (mSyncLock) {
+            if (mDetails == null) {
+                mDetails = new Details(getJSON());
+            }
+            return mDetails;
+        }
     }
 
     public String getId() {
@@ -90,7 +251,7 @@ public class Note {
     }
 
     public String getType() {
-        return queryJSON("type", NOTE_UNKNOWN_TYPE);
+        return mType;
     }
 
     private Boolean isType(String type) {
@@ -98,10 +259,7 @@ public class Note {
     }
 
     public Boolean isCommentType() {
-        synchronized (mSyncLock) {
-            return (isAutomattcherType() && JSONUtils.queryJSON(mNoteJSON, "meta.ids.comment", -1) != -1) ||
-                    isType(NOTE_COMMENT_TYPE);
-        }
+        return mIsCommentType;
     }
 
     public Boolean isAutomattcherType() {
@@ -177,18 +335,24 @@ public class Note {
     }
 
     public JSONObject getSubject() {
-        try {
-            synchronized (mSyncLock) {
-                JSONArray subjectArray = mNoteJSON.getJSONArray("subject");
-                if (subjectArray.length() > 0) {
-                    return subjectArray.getJSONObject(0);
+        synchronized (mSyncLock) {
+            if (mSubject == null && mSubjectString != null) {
+                try {
+                    mSubject = new JSONObject(mSubjectString);
+                } catch (JSONException e) {
+                    return null;
                 }
             }
-        } catch (JSONException e) {
-            return null;
+            return mSubject;
         }
+    }
 
-        return null;
+    /*
+     * returns the first subject block as a JSON string (null if there isn't one) so it can be
+     * stored and shown without the rest of the note
+     */
+    public String getSubjectString() {
+        return mSubjectString;
     }
 
     public Spannable getFormattedSubject() {
@@ -196,34 +360,38 @@ public class Note {
     }
 
     public String getTitle() {
-        return queryJSON("title", "");
+        return getDetails().mTitle;
     }
 
     public String getIconURL() {
-        return queryJSON("icon", "");
+        return mIconUrl;
     }
 
     public String getCommentSubject() {
-        synchronized (mSyncLock) {
-            JSONArray subjectArray = mNoteJSON.optJSONArray("subject");
-            if (subjectArray != null) {
-                String commentSubject = JSONUtils.queryJSON(subjectArray, "subject[1].text", "");
+        return mCommentSubject;
+    }
 
-                // Trim down the comment preview if the comment text is too large.
-                if (commentSubject != null && commentSubject.length() > MAX_COMMENT_PREVIEW_LENGTH) {
-                    commentSubject = commentSubject.substring(0, MAX_COMMENT_PREVIEW_LENGTH - 1);
-                }
+    private static String getCommentSubject(JSONArray subjectArray) {
+        if (subjectArray == null) {
+            return "";
+        }
 
-                return commentSubject;
-            }
+        String commentSubject = JSONUtils.queryJSON(subjectArray, "subject[1].text", "");
 
+        // Trim down the comment preview if the comment text is too large.
+        if (commentSubject != null && commentSubject.length() > MAX_COMMENT_PREVIEW_LENGTH) {
+            commentSubject = commentSubject.substring(0, MAX_COMMENT_PREVIEW_LENGTH - 1);
         }
 
-        return "";
+        return commentSubject;
     }
 
     public String getCommentSubjectNoticon() {
-        JSONArray subjectRanges = queryJSON("subject[0].ranges", new JSONArray());
+        return mCommentSubjectNoticon;
+    }
+
+    private static String getCommentSubjectNoticon(JSONObject subject) {
+        JSONArray subjectRanges = subject != null ? subject.optJSONArray("ranges") : null;
         if (subjectRanges != null) {
             for (int i=0; i < subjectRanges.length(); i++) {
                 try {
@@ -241,7 +409,7 @@ public class Note {
     }
 
     public long getCommentReplyId() {
-        return queryJSON("meta.ids.reply_comment", 0);
+        return getDetails().mCommentReplyId;
     }
 
     /**
@@ -268,7 +436,9 @@ public class Note {
     public static class TimeStampComparator implements Comparator<Note> {
         @Override
         public int compare(Note a, Note b) {
-            return b.getTimestampString().compareTo(a.getTimestampString());
+            long timestampA = a.getTimestamp();
+            long timestampB = b.getTimestamp();
+            return timestampB < timestampA ? -1 : (timestampB == timestampA ? 0 : 1);
         }
     }
 
@@ -280,12 +450,13 @@ public class Note {
     }
 
     private Boolean isRead() {
-        return queryJSON("read", 0) == 1;
+        return mIsRead;
     }
 
     public void setRead(){
+        mIsRead = true;
         try {
-            mNoteJSON.putOpt("read", 1);
+            getJSON().putOpt("read", 1);
         } catch (JSONException e){
             AppLog.e(AppLog.T.NOTIFS, "Failed to set 'read' property", e);
         }
@@ -295,107 +466,43 @@ public class Note {
      * Get the timestamp provided by the API for the note
      */
     public long getTimestamp() {
-        return DateTimeUtils.timestampFromIso8601(getTimestampString());
+        return mTimestamp;
     }
 
     public String getTimestampString() {
-        return queryJSON("timestamp", "");
+        return mTimestampString;
     }
 
     public JSONArray getBody() {
-        try {
-            synchronized (mSyncLock) {
-                return mNoteJSON.getJSONArray("body");
-            }
-        } catch (JSONException e) {
-            return new JSONArray();
-        }
+        return getDetails().mBody;
     }
 
     // returns character code for notification font
     public String getNoticonCharacter() {
-        return queryJSON("noticon", "");
-    }
-
-    private JSONObject getCommentActions() {
-        if (mActions == null) {
-            // Find comment block that matches the root note comment id
-            long commentId = getCommentId();
-            JSONArray bodyArray = getBody();
-            for (int i = 0; i < bodyArray.length(); i++) {
-                try {
-                    JSONObject bodyItem = bodyArray.getJSONObject(i);
-                    if (bodyItem.has("type") && bodyItem.optString("type").equals("comment")
-                            && commentId == JSONUtils.queryJSON(bodyItem, "meta.ids.comment", 0)) {
-                        mActions = JSONUtils.queryJSON(bodyItem, "actions", new JSONObject());
-                        break;
-                    }
-                } catch (JSONException e) {
-                    break;
-                }
-            }
-
-            if (mActions == null) {
-                mActions = new JSONObject();
-            }
-        }
-
-        return mActions;
+        return mNoticon;
     }
 
     /*
      * returns the actions allowed on this note, assumes it's a comment notification
      */
     public EnumSet<EnabledActions> getEnabledActions() {
-        EnumSet<EnabledActions> actions = EnumSet.noneOf(EnabledActions.class);
-        JSONObject jsonActions = getCommentActions();
-        if (jsonActions == null || jsonActions.length() == 0) {
-            return actions;
-        }
-
-        if (jsonActions.has(ACTION_KEY_REPLY)) {
-            actions.add(EnabledActions.ACTION_REPLY);
-        }
-        if (jsonActions.has(ACTION_KEY_APPROVE) && jsonActions.optBoolean(ACTION_KEY_APPROVE, false)) {
-            actions.add(EnabledActions.ACTION_UNAPPROVE);
-        }
-        if (jsonActions.has(ACTION_KEY_APPROVE) && !jsonActions.optBoolean(ACTION_KEY_APPROVE, false)) {
-            actions.add(EnabledActions.ACTION_APPROVE);
-        }
-        if (jsonActions.has(ACTION_KEY_SPAM)) {
-            actions.add(EnabledActions.ACTION_SPAM);
-        }
-        if (jsonActions.has(ACTION_KEY_LIKE)) {
-            actions.add(EnabledActions.ACTION_LIKE);
-        }
-
-        return actions;
+        return EnumSet.copyOf(getDetails().mEnabledActions);
     }
 
     public int getSiteId() {
-        return queryJSON("meta.ids.site", 0);
+        return getDetails().mSiteId;
     }
 
     public int getPostId() {
-        return queryJSON("meta.ids.post", 0);
+        return getDetails().mPostId;
     }
 
     public long getCommentId() {
-        return queryJSON("meta.ids.comment", 0);
+        return getDetails().mCommentId;
     }
 
     public long getParentCommentId() {
-        return queryJSON("meta.ids.parent_comment", 0);
-    }
-
-    /**
-     * Rudimentary system for pulling an item out of a JSON object hierarchy
-     */
-    private <U> U queryJSON(String query, U defaultObject) {
-        synchronized (mSyncLock) {
-            if (mNoteJSON == null) return defaultObject;
-            return JSONUtils.queryJSON(mNoteJSON, query, defaultObject);
-        }
+        return getDetails().mParentCommentId;
     }
 
     /**
@@ -418,46 +525,22 @@ public class Note {
     }
 
     public String getCommentAuthorName() {
-        JSONArray bodyArray = getBody();
-
-        for (int i=0; i < bodyArray.length(); i++) {
-            try {
-                JSONObject bodyItem = bodyArray.getJSONObject(i);
-                if (bodyItem.has("type") && bodyItem.optString("type").equals("user")) {
-                    return bodyItem.optString("text");
-                }
-            } catch (JSONException e) {
-                return "";
-            }
-        }
-
-        return "";
+        return getDetails().mCommentAuthorName;
     }
 
     private String getCommentText() {
-        return queryJSON("body[last].text", "");
+        return getDetails().mCommentText;
     }
 
     private String getCommentAuthorUrl() {
-        JSONArray bodyArray = getBody();
-
-        for (int i=0; i < bodyArray.length(); i++) {
-            try {
-                JSONObject bodyItem = bodyArray.getJSONObject(i);
-                if (bodyItem.has("type") && bodyItem.optString("type").equals("user")) {
-                    return JSONUtils.queryJSON(bodyItem, "meta.links.home", "");
-                }
-            } catch (JSONException e) {
-                return "";
-            }
-        }
-
-        return "";
+        return getDetails().mCommentAuthorUrl;
     }
 
     public CommentStatus getCommentStatus() {
-        EnumSet<EnabledActions> enabledActions = getEnabledActions();
+        return mCommentStatus;
+    }
 
+    private static CommentStatus getCommentStatus(EnumSet<EnabledActions> enabledActions) {
         if (enabledActions.contains(EnabledActions.ACTION_UNAPPROVE)) {
             return CommentStatus.APPROVED;
         } else if (enabledActions.contains(EnabledActions.ACTION_APPROVE)) {
@@ -468,18 +551,16 @@ public class Note {
     }
 
     public boolean hasLikedComment() {
-        JSONObject jsonActions = getCommentActions();
-        return !(jsonActions == null || jsonActions.length() == 0) && jsonActions.optBoolean(ACTION_KEY_LIKE);
+        JSONObject jsonActions = getDetails().mActions;
+        return jsonActions.length() != 0 && jsonActions.optBoolean(ACTION_KEY_LIKE);
     }
 
     public String getUrl() {
-        return queryJSON("url", "");
+        return getDetails().mUrl;
     }
 
     public JSONArray getHeader() {
-        synchronized (mSyncLock) {
-            return mNoteJSON.optJSONArray("header");
-        }
+        return getDetails().mHeader;
     }
 
     // this method is used to compare two Notes: as it's potentially a very processing intensive operation,
@@ -490,7 +571,7 @@ public class Note {
             return false;
         }
 
-        if (this.getTimestampString().equalsIgnoreCase(note.getTimestampString())
+        if (this.getTimestamp() == note.getTimestamp()
                 && this.getJSON().length() == note.getJSON().length()) {
             return true;
         }
@@ -81,6 +81,32 @@ public class ReaderComment {
         return comment;
     }
 
+    /*
+     * returns a copy of this comment, so it can be re-leveled without changing the level of a
+     * comment which is still being displayed
+     */
+    public ReaderComment copy() {
+        ReaderComment comment = new ReaderComment();
+        comment.commentId = commentId;
+        comment.blogId = blogId;
+        comment.postId = postId;
+        comment.parentId = parentId;
+        comment.authorName = authorName;
+        comment.authorAvatar = authorAvatar;
+        comment.authorUrl = authorUrl;
+        comment.status = status;
+        comment.text = text;
+        comment.published = published;
+        comment.timestamp = timestamp;
+        comment.authorId = authorId;
+        comment.authorBlogId = authorBlogId;
+        comment.numLikes = numLikes;
+        comment.isLikedByCurrentUser = isLikedByCurrentUser;
+        comment.pageNumber = pageNumber;
+        comment.level = level;
+        return comment;
+    }
+
     public String getAuthorName() {
         return StringUtils.notNullStr(authorName);
     }
@@ -1,6 +1,7 @@
 package org.wordpress.android.models;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 public class ReaderCommentList extends ArrayList<ReaderComment> {
 
@@ -19,13 +20,36 @@ public class ReaderCommentList extends ArrayList<ReaderComment> {
         if (comments==null || comments.size()!=this.size())
             return false;
 
+        return getAddedComments(comments) != null;
+    }
+
+    /*
+     * returns the comments in the passed list that aren't in this one, or null if any of the
+     * comments in this list are missing from or have changed in the passed list
+     */
+    public ReaderCommentList getAddedComments(ReaderCommentList comments) {
+        if (comments==null)
+            return null;
+
+        HashMap<Long, ReaderComment> passedComments = new HashMap<>(comments.size());
         for (ReaderComment comment: comments) {
-            if (indexOf(comment) == -1) {
-                return false;
+            passedComments.put(comment.commentId, comment);
+        }
+
+        for (ReaderComment comment: this) {
+            ReaderComment passedComment = passedComments.remove(comment.commentId);
+            if (passedComment == null || !passedComment.equals(comment)) {
+                return null;
             }
         }
 
-        return true;
+        ReaderCommentList added = new ReaderCommentList();
+        for (ReaderComment comment: comments) {
+            if (passedComments.containsKey(comment.commentId)) {
+                added.add(comment);
+            }
+        }
+        return added;
     }
 
     public boolean replaceComment(long commentId, ReaderComment newComment) {
@@ -2,6 +2,9 @@ package org.wordpress.android.models;
 
 import android.text.TextUtils;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -14,9 +17,11 @@ import org.wordpress.android.util.DateTimeUtils;
 import org.wordpress.android.util.GravatarUtils;
 import org.wordpress.android.util.HtmlUtils;
 import org.wordpress.android.util.JSONUtils;
+import org.wordpress.android.util.JsonReaderUtils;
 import org.wordpress.android.util.StringUtils;
 import org.wordpress.android.util.UrlUtils;
 
+import java.io.IOException;
 import java.text.BreakIterator;
 import java.util.Iterator;
 
@@ -129,16 +134,6 @@ public class ReaderPost {
         // "score" only exists for search results
         post.score = json.optDouble("score");
 
-        // if the post is untitled, make up a title from the excerpt
-        if (!post.hasTitle() && post.hasExcerpt()) {
-            post.title = extractTitle(post.excerpt, 50);
-        }
-
-        // remove html from title (rare, but does happen)
-        if (post.hasTitle() && post.title.contains("<") && post.title.contains(">")) {
-            post.title = HtmlUtils.stripHtml(post.title);
-        }
-
         // parse the tags section
         assignTagsFromJson(post, json.optJSONObject("tags"));
 
@@ -172,6 +167,236 @@ public class ReaderPost {
         // xpost info
         assignXpostIdsFromJson(post, json.optJSONArray("metadata"));
 
+        // "railcar" data - currently used in search streams, used by TrainTracks
+        JSONObject jsonRailcar = json.optJSONObject("railcar");
+        if (jsonRailcar != null) {
+            post.setRailcarJson(jsonRailcar.toString());
+        }
+
+        finishParsing(post);
+
+        return post;
+    }
+
+    /*
+     * same as fromJson() but reads the post from a streaming reader positioned at the start of
+     * the post object, so a feed can be parsed without first building a JSONObject tree for the
+     * whole response. fields the post doesn't use are skipped, and nested objects which are
+     * stored as JSON (attachments, discover, railcar) are copied straight to strings. fields
+     * which override each other in fromJson() are held until the whole object has been read
+     * since the order of fields in the stream isn't fixed
+     */
+    public static ReaderPost fromJsonReader(JsonReader reader) throws IOException {
+        ReaderPost post = new ReaderPost();
+
+        // fromJson() sets these whether or not the field exists
+        post.excerpt = "";
+        post.text = "";
+        post.title = "";
+        post.format = "";
+        post.url = "";
+        post.shortUrl = "";
+        post.featuredImage = "";
+        post.blogName = "";
+        post.datePublished = "";
+        post.dateLiked = "";
+        post.dateTagged = "";
+        post.score = Double.NaN;
+
+        String pseudoId = null;
+        String globalId = "";
+        String siteUrl = "";
+        boolean isCommentsOpen = false;
+        int numReplies = 0;
+        boolean hasDiscussion = false;
+        boolean isDiscussionCommentsOpen = false;
+        int numDiscussionReplies = 0;
+        StreamedAuthor author = null;
+        StreamedSite site = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "ID":
+                    post.postId = JsonReaderUtils.nextLong(reader);
+                    break;
+                case "site_ID":
+                    post.blogId = JsonReaderUtils.nextLong(reader);
+                    break;
+                case "feed_ID":
+                    post.feedId = JsonReaderUtils.nextLong(reader);
+                    break;
+                case "feed_item_ID":
+                    post.feedItemId = JsonReaderUtils.nextLong(reader);
+                    break;
+                case "pseudo_ID":
+                    pseudoId = JsonReaderUtils.nextString(reader);
+                    break;
+                case "global_ID":
+                    globalId = JsonReaderUtils.nextString(reader);
+                    break;
+                case "excerpt":
+                    post.excerpt = HtmlUtils.fastStripHtml(JsonReaderUtils.nextString(reader)).trim();
+                    break;
+                case "content":
+                    post.text = JsonReaderUtils.nextString(reader);
+                    break;
+                case "title":
+                    post.title = JsonReaderUtils.nextStringDecoded(reader);
+                    break;
+                case "format":
+                    post.format = JsonReaderUtils.nextString(reader);
+                    break;
+                case "URL":
+                    post.url = JsonReaderUtils.nextString(reader);
+                    break;
+                case "short_URL":
+                    post.shortUrl = JsonReaderUtils.nextString(reader);
+                    break;
+                case "site_URL":
+                    siteUrl = JsonReaderUtils.nextString(reader);
+                    break;
+                case "like_count":
+                    post.numLikes = JsonReaderUtils.nextInt(reader);
+                    break;
+                case "i_like":
+                    post.isLikedByCurrentUser = JsonReaderUtils.nextBool(reader);
+                    break;
+                case "is_following":
+                    post.isFollowedByCurrentUser = JsonReaderUtils.nextBool(reader);
+                    break;
+                case "is_external":
+                    post.isExternal = JsonReaderUtils.nextBool(reader);
+                    break;
+                case "site_is_private":
+                    post.isPrivate = JsonReaderUtils.nextBool(reader);
+                    break;
+                case "is_jetpack":
+                    post.isJetpack = JsonReaderUtils.nextBool(reader);
+                    break;
+                case "comments_open":
+                    isCommentsOpen = JsonReaderUtils.nextBool(reader);
+                    break;
+                case "comment_count":
+                    numReplies = JsonReaderUtils.nextInt(reader);
+                    break;
+                case "discussion":
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                        reader.skipValue();
+                        break;
+                    }
+                    hasDiscussion = true;
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String discussionName = reader.nextName();
+                        if (discussionName.equals("comments_open")) {
+                            isDiscussionCommentsOpen = JsonReaderUtils.nextBool(reader);
+                        } else if (discussionName.equals("comment_count")) {
+                            numDiscussionReplies = JsonReaderUtils.nextInt(reader);
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                case "author":
+                    author = StreamedAuthor.fromJsonReader(reader);
+                    break;
+                case "featured_image":
+                    post.featuredImage = JsonReaderUtils.nextString(reader);
+                    break;
+                case "site_name":
+                    post.blogName = JsonReaderUtils.nextStringDecoded(reader);
+                    break;
+                case "date":
+                    post.datePublished = JsonReaderUtils.nextString(reader);
+                    break;
+                case "date_liked":
+                    post.dateLiked = JsonReaderUtils.nextString(reader);
+                    break;
+                case "tagged_on":
+                    post.dateTagged = JsonReaderUtils.nextString(reader);
+                    break;
+                case "score":
+                    post.score = JsonReaderUtils.nextDouble(reader);
+                    break;
+                case "tags":
+                    assignTagsFromJsonReader(post, reader);
+                    break;
+                case "attachments":
+                    if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        String attachments = JsonReaderUtils.nextJson(reader);
+                        if (!JsonReaderUtils.isEmptyJson(attachments)) {
+                            post.attachmentsJson = attachments;
+                        }
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                case "meta":
+                    site = StreamedSite.fromMetaJsonReader(reader);
+                    break;
+                case "discover_metadata":
+                    if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        post.setDiscoverJson(JsonReaderUtils.nextJson(reader));
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                case "metadata":
+                    assignXpostIdsFromJsonReader(post, reader);
+                    break;
+                case "railcar":
+                    if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        post.setRailcarJson(JsonReaderUtils.nextJson(reader));
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        // apply the fields which depend on each other in the same order as fromJson()
+        post.pseudoId = pseudoId != null ? pseudoId : globalId;
+        post.setBlogUrl(siteUrl);
+        if (hasDiscussion) {
+            post.isCommentsOpen = isDiscussionCommentsOpen;
+            post.numReplies = numDiscussionReplies;
+        } else {
+            post.isCommentsOpen = isCommentsOpen;
+            post.numReplies = numReplies;
+        }
+        if (author != null) {
+            author.assignTo(post);
+        }
+        if (site != null) {
+            site.assignTo(post);
+        }
+
+        finishParsing(post);
+
+        return post;
+    }
+
+    /*
+     * fills in what's derived from the parsed fields - shared by fromJson() and fromJsonReader()
+     */
+    private static void finishParsing(ReaderPost post) {
+        // if the post is untitled, make up a title from the excerpt
+        if (!post.hasTitle() && post.hasExcerpt()) {
+            post.title = extractTitle(post.excerpt, 50);
+        }
+
+        // remove html from title (rare, but does happen)
+        if (post.hasTitle() && post.title.contains("<") && post.title.contains(">")) {
+            post.title = HtmlUtils.stripHtml(post.title);
+        }
+
         // if the post doesn't have a featured image but it contains an IMG tag, check whether
         // we can find a suitable image from the content
         if (!post.hasFeaturedImage() && post.hasImages()) {
@@ -187,17 +412,9 @@ public class ReaderPost {
             post.setFeaturedVideo(new ReaderIframeScanner(post.getText()).getFirstUsableVideo());
         }
 
-        // "railcar" data - currently used in search streams, used by TrainTracks
-        JSONObject jsonRailcar = json.optJSONObject("railcar");
-        if (jsonRailcar != null) {
-            post.setRailcarJson(jsonRailcar.toString());
-        }
-
         // set the card type last since it depends on information contained in the post - note
         // that this is stored in the post table rather than calculated on-the-fly
         post.setCardType(ReaderCardType.fromReaderPost(post));
-
-        return post;
     }
 
     public boolean hasImages() {
@@ -219,19 +436,61 @@ public class ReaderPost {
 
         for (int i = 0; i < jsonMetadata.length(); i++) {
             JSONObject jsonMetaItem = jsonMetadata.optJSONObject(i);
-            String metaKey = jsonMetaItem.optString("key");
-            if (!TextUtils.isEmpty(metaKey) && metaKey.equals("xpost_origin")) {
-                String value = jsonMetaItem.optString("value");
-                if (!TextUtils.isEmpty(value) && value.contains(":")) {
-                    String[] valuePair = value.split(":");
-                    if (valuePair.length == 2) {
-                        post.xpostBlogId = StringUtils.stringToLong(valuePair[0]);
-                        post.xpostPostId = StringUtils.stringToLong(valuePair[1]);
-                        return;
-                    }
+            if (assignXpostIds(post, jsonMetaItem.optString("key"), jsonMetaItem.optString("value"))) {
+                return;
+            }
+        }
+    }
+
+    private static void assignXpostIdsFromJsonReader(ReaderPost post, JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return;
+        }
+
+        boolean isAssigned = false;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            String metaKey = "";
+            String value = "";
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("key")) {
+                    metaKey = JsonReaderUtils.nextString(reader);
+                } else if (name.equals("value")) {
+                    value = JsonReaderUtils.nextString(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if (!isAssigned) {
+                isAssigned = assignXpostIds(post, metaKey, value);
+            }
+        }
+        reader.endArray();
+    }
+
+    /*
+     * assigns the cross post IDs from a single metadata item, returns true if they were assigned
+     */
+    private static boolean assignXpostIds(ReaderPost post, String metaKey, String value) {
+        if (!TextUtils.isEmpty(metaKey) && metaKey.equals("xpost_origin")) {
+            if (!TextUtils.isEmpty(value) && value.contains(":")) {
+                String[] valuePair = value.split(":");
+                if (valuePair.length == 2) {
+                    post.xpostBlogId = StringUtils.stringToLong(valuePair[0]);
+                    post.xpostPostId = StringUtils.stringToLong(valuePair[1]);
+                    return true;
                 }
             }
         }
+        return false;
     }
 
      /*
@@ -276,33 +535,253 @@ public class ReaderPost {
             return;
         }
 
-        // most popular tag & second most popular tag, based on usage count on this blog
-        String mostPopularTag = null;
-        String nextMostPopularTag = null;
-        int popularCount = 0;
-
+        PopularTags popularTags = new PopularTags();
         while (it.hasNext()) {
             JSONObject jsonThisTag = jsonTags.optJSONObject(it.next());
-            String thisTagName = UrlUtils.urlDecode(JSONUtils.getString(jsonThisTag, "slug"));
+            popularTags.add(JSONUtils.getString(jsonThisTag, "slug"), jsonThisTag.optInt("post_count"));
+        }
+        popularTags.assignTo(post);
+    }
+
+    private static void assignTagsFromJsonReader(ReaderPost post, JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return;
+        }
+
+        PopularTags popularTags = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            reader.nextName();
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            String slug = "";
+            int postCount = 0;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("slug")) {
+                    slug = JsonReaderUtils.nextString(reader);
+                } else if (name.equals("post_count")) {
+                    postCount = JsonReaderUtils.nextInt(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if (popularTags == null) {
+                popularTags = new PopularTags();
+            }
+            popularTags.add(slug, postCount);
+        }
+        reader.endObject();
+
+        if (popularTags != null) {
+            popularTags.assignTo(post);
+        }
+    }
+
+    /*
+     * most popular tag & second most popular tag, based on usage count on this blog
+     */
+    private static class PopularTags {
+        private String mMostPopularTag;
+        private String mNextMostPopularTag;
+        private int mPopularCount;
+
+        void add(String slug, int postCount) {
+            String thisTagName = UrlUtils.urlDecode(slug);
 
             // if the number of posts on this blog that use this tag is higher than previous,
             // set this as the most popular tag, and set the second most popular tag to
             // the current most popular tag
-            int postCount = jsonThisTag.optInt("post_count");
-            if (postCount > popularCount) {
-                nextMostPopularTag = mostPopularTag;
-                mostPopularTag = thisTagName;
-                popularCount = postCount;
-            } else if (nextMostPopularTag == null) {
-                nextMostPopularTag = thisTagName;
+            if (postCount > mPopularCount) {
+                mNextMostPopularTag = mMostPopularTag;
+                mMostPopularTag = thisTagName;
+                mPopularCount = postCount;
+            } else if (mNextMostPopularTag == null) {
+                mNextMostPopularTag = thisTagName;
+            }
+        }
+
+        void assignTo(ReaderPost post) {
+            // don't set primary tag if one is already set
+            if (!post.hasPrimaryTag()) {
+                post.setPrimaryTag(mMostPopularTag);
+            }
+            post.setSecondaryTag(mNextMostPopularTag);
+        }
+    }
+
+    /*
+     * "author" section read from a stream, held until the whole post has been read since it
+     * falls back to the author's URL when the post has no site_URL
+     */
+    private static class StreamedAuthor {
+        private String mName = "";
+        private String mFirstName = "";
+        private long mId;
+        private boolean mHasAvatar = true;
+        private String mAvatarUrl = "";
+        private String mUrl = "";
+
+        static StreamedAuthor fromJsonReader(JsonReader reader) throws IOException {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                return null;
+            }
+            StreamedAuthor author = new StreamedAuthor();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "name":
+                        author.mName = JsonReaderUtils.nextStringDecoded(reader);
+                        break;
+                    case "first_name":
+                        author.mFirstName = JsonReaderUtils.nextStringDecoded(reader);
+                        break;
+                    case "ID":
+                        author.mId = JsonReaderUtils.nextLong(reader);
+                        break;
+                    case "has_avatar":
+                        author.mHasAvatar = JsonReaderUtils.nextOptBoolean(reader);
+                        break;
+                    case "avatar_URL":
+                        author.mAvatarUrl = JsonReaderUtils.nextString(reader);
+                        break;
+                    case "URL":
+                        author.mUrl = JsonReaderUtils.nextString(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            return author;
+        }
+
+        void assignTo(ReaderPost post) {
+            post.authorName = mName;
+            post.authorFirstName = mFirstName;
+            post.authorId = mId;
+            if (mHasAvatar) {
+                post.postAvatar = mAvatarUrl;
+            }
+            if (TextUtils.isEmpty(post.blogUrl)) {
+                post.setBlogUrl(mUrl);
+            }
+        }
+    }
+
+    /*
+     * site metadata ("meta/data/site") read from a stream, held until the whole post has been
+     * read since it overrides the post's own site fields
+     */
+    private static class StreamedSite {
+        private int mId;
+        private String mName = "";
+        private String mUrl = "";
+        private boolean mIsPrivate;
+        private String mIconUrl;
+        private boolean mIsJetpack;
+
+        static StreamedSite fromMetaJsonReader(JsonReader reader) throws IOException {
+            StreamedSite site = null;
+            if (!beginChildObject(reader, "data")) {
+                return null;
+            }
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("site") || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+                site = new StreamedSite();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                        case "ID":
+                            site.mId = JsonReaderUtils.nextInt(reader);
+                            break;
+                        case "name":
+                            site.mName = JsonReaderUtils.nextString(reader);
+                            break;
+                        case "URL":
+                            site.mUrl = JsonReaderUtils.nextString(reader);
+                            break;
+                        case "is_private":
+                            site.mIsPrivate = JsonReaderUtils.nextBool(reader);
+                            break;
+                        case "jetpack":
+                            site.mIsJetpack = JsonReaderUtils.nextBool(reader);
+                            break;
+                        case "icon":
+                            site.mIconUrl = readIconUrl(reader, site.mIconUrl);
+                            break;
+                        default:
+                            reader.skipValue();
+                            break;
+                    }
+                }
+                reader.endObject();
+            }
+            reader.endObject(); // data
+            reader.endObject(); // meta
+            return site;
+        }
+
+        /*
+         * reads the "meta" object up to the start of its "data" child, skipping the other fields
+         * of both - returns false (with the meta object consumed) if there's no data object
+         */
+        private static boolean beginChildObject(JsonReader reader, String childName) throws IOException {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                return false;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals(childName) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    reader.beginObject();
+                    return true;
+                }
+                reader.skipValue();
             }
+            reader.endObject();
+            return false;
         }
 
-        // don't set primary tag if one is already set
-        if (!post.hasPrimaryTag()) {
-            post.setPrimaryTag(mostPopularTag);
+        private static String readIconUrl(JsonReader reader, String iconUrl) throws IOException {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                return iconUrl;
+            }
+            iconUrl = "";
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("img")) {
+                    iconUrl = JsonReaderUtils.nextString(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return iconUrl;
+        }
+
+        void assignTo(ReaderPost post) {
+            post.blogId = mId;
+            post.blogName = mName;
+            post.setBlogUrl(mUrl);
+            post.isPrivate = mIsPrivate;
+            if (mIconUrl != null) {
+                post.blogImageUrl = mIconUrl;
+            }
+            // TODO: as of 29-Sept-2014, this is broken - endpoint returns false when it should be true
+            post.isJetpack = mIsJetpack;
         }
-        post.setSecondaryTag(nextMostPopularTag);
     }
 
     /*
@@ -621,6 +1100,69 @@ public class ReaderPost {
                 && post.getText().equals(this.getText());
     }
 
+    /*
+     * returns a 64-bit FNV-1a hash of the server fields that are stored for this post, excluding
+     * the counts and like/follow state (which change frequently and are cheap to update) - this
+     * is stored with the post so we can tell whether a post has changed without reading it.
+     * fields which depend on the stream the post was retrieved from (score, date tagged/liked,
+     * primary/secondary tag) are also excluded so the fingerprint is the same in every stream
+     */
+    public long getContentFingerprint() {
+        long hash = FNV_OFFSET_BASIS;
+        hash = fnvHash(hash, postId);
+        hash = fnvHash(hash, blogId);
+        hash = fnvHash(hash, feedId);
+        hash = fnvHash(hash, feedItemId);
+        hash = fnvHash(hash, authorId);
+        hash = fnvHash(hash, xpostPostId);
+        hash = fnvHash(hash, xpostBlogId);
+        hash = fnvHash(hash, (isExternal ? 1 : 0) | (isPrivate ? 2 : 0) | (isVideoPress ? 4 : 0) | (isJetpack ? 8 : 0));
+        hash = fnvHash(hash, getPseudoId());
+        hash = fnvHash(hash, getAuthorName());
+        hash = fnvHash(hash, getAuthorFirstName());
+        hash = fnvHash(hash, getTitle());
+        hash = fnvHash(hash, getText());
+        hash = fnvHash(hash, getExcerpt());
+        hash = fnvHash(hash, getFormat());
+        hash = fnvHash(hash, getUrl());
+        hash = fnvHash(hash, getShortUrl());
+        hash = fnvHash(hash, getBlogName());
+        hash = fnvHash(hash, getBlogUrl());
+        hash = fnvHash(hash, getBlogImageUrl());
+        hash = fnvHash(hash, getFeaturedImage());
+        hash = fnvHash(hash, getFeaturedVideo());
+        hash = fnvHash(hash, getPostAvatar());
+        hash = fnvHash(hash, getDatePublished());
+        hash = fnvHash(hash, getAttachmentsJson());
+        hash = fnvHash(hash, getDiscoverJson());
+        hash = fnvHash(hash, getRailcarJson());
+        hash = fnvHash(hash, ReaderCardType.toString(getCardType()));
+        return hash;
+    }
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static long fnvHash(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long fnvHash(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            hash ^= ch & 0xff;
+            hash *= FNV_PRIME;
+            hash ^= ch >>> 8;
+            hash *= FNV_PRIME;
+        }
+        // separate consecutive strings so "ab"+"c" doesn't hash the same as "a"+"bc"
+        return fnvHash(hash, value.length());
+    }
+
     public boolean hasIds(ReaderBlogIdPostId ids) {
         return ids != null
                 && ids.getBlogId() == this.blogId
@@ -1,9 +1,13 @@
 package org.wordpress.android.models;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.wordpress.android.ui.reader.models.ReaderBlogIdPostId;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
 public class ReaderPostList extends ArrayList<ReaderPost> {
@@ -24,6 +28,33 @@ public class ReaderPostList extends ArrayList<ReaderPost> {
         return posts;
     }
 
+    /*
+     * same as fromJson() but streams the posts from the passed reader, which must be positioned
+     * at the start of the response object - only one post is held in the reader at a time, so
+     * the whole response never has to be parsed into a JSONObject tree
+     */
+    public static ReaderPostList fromJsonReader(JsonReader reader) throws IOException {
+        ReaderPostList posts = new ReaderPostList();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("posts") || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    posts.add(ReaderPost.fromJsonReader(reader));
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+        return posts;
+    }
+
     @Override
     public Object clone() {
         return super.clone();
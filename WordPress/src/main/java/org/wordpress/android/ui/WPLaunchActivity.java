@@ -7,8 +7,8 @@ import android.support.v7.app.AppCompatActivity;
 import org.wordpress.android.R;
 import org.wordpress.android.WordPress;
 import org.wordpress.android.ui.main.WPMainActivity;
-import org.wordpress.android.util.ProfilingUtils;
 import org.wordpress.android.util.ToastUtils;
+import org.wordpress.android.util.Tracer;
 
 public class WPLaunchActivity extends AppCompatActivity {
     /*
@@ -20,7 +20,7 @@ public class WPLaunchActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        ProfilingUtils.split("WPLaunchActivity.onCreate");
+        Tracer.getTrace(WordPress.STARTUP_TRACE).split("WPLaunchActivity.onCreate");
         launchWPMainActivity();
     }
 
@@ -289,7 +289,7 @@ public class MeFragment extends Fragment {
         if (injectFilePath != null && !injectFilePath.isEmpty()) {
             // invalidate the specific gravatar entry from the bitmap cache. It will be updated via the injected
             // request cache.
-            WordPress.getBitmapCache().removeSimilar(avatarUrl);
+            WordPress.getBitmapCache().removeForUrl(avatarUrl);
 
             try {
                 // fool the network requests cache by injecting the new image. The Gravatar backend (plus CDNs)
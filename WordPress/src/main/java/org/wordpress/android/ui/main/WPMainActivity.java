@@ -67,8 +67,8 @@ import org.wordpress.android.util.AuthenticationDialogUtils;
 import org.wordpress.android.util.CoreEvents.MainViewPagerScrolled;
 import org.wordpress.android.util.FluxCUtils;
 import org.wordpress.android.util.NetworkUtils;
-import org.wordpress.android.util.ProfilingUtils;
 import org.wordpress.android.util.ToastUtils;
+import org.wordpress.android.util.Tracer;
 import org.wordpress.android.util.WPActivityUtils;
 import org.wordpress.android.widgets.WPViewPager;
 
@@ -117,7 +117,7 @@ public class WPMainActivity extends AppCompatActivity {
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
-        ProfilingUtils.split("WPMainActivity.onCreate");
+        Tracer.getTrace(WordPress.STARTUP_TRACE).split("WPMainActivity.onCreate");
         ((WordPress) getApplication()).component().inject(this);
 
         super.onCreate(savedInstanceState);
@@ -465,9 +465,8 @@ public class WPMainActivity extends AppCompatActivity {
             mDispatcher.dispatch(AccountActionBuilder.newFetchAccountAction());
         }
 
-        ProfilingUtils.split("WPMainActivity.onResume");
-        ProfilingUtils.dump();
-        ProfilingUtils.stop();
+        Tracer.getTrace(WordPress.STARTUP_TRACE).split("WPMainActivity.onResume");
+        Tracer.endTrace(WordPress.STARTUP_TRACE).dumpToLog();
     }
 
     @Override
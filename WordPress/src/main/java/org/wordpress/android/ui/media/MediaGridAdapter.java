@@ -24,6 +24,7 @@ import org.wordpress.android.fluxc.model.MediaModel.MediaUploadState;
 import org.wordpress.android.fluxc.model.SiteModel;
 import org.wordpress.android.util.AniUtils;
 import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.BitmapCacheKey;
 import org.wordpress.android.util.DisplayUtils;
 import org.wordpress.android.util.ImageUtils;
 import org.wordpress.android.util.ImageUtils.BitmapWorkerCallback;
@@ -422,7 +423,8 @@ public class MediaGridAdapter extends RecyclerView.Adapter<MediaGridAdapter.Grid
     private void loadLocalImage(final String filePath, ImageView imageView) {
         imageView.setTag(filePath);
 
-        Bitmap bitmap = WordPress.getBitmapCache().get(filePath);
+        final BitmapCacheKey cacheKey = new BitmapCacheKey(filePath, mThumbWidth, mThumbHeight);
+        Bitmap bitmap = WordPress.getBitmapCache().get(cacheKey);
         if (bitmap != null) {
             imageView.setImageBitmap(bitmap);
         } else {
@@ -434,7 +436,7 @@ public class MediaGridAdapter extends RecyclerView.Adapter<MediaGridAdapter.Grid
                         mHandler.post(new Runnable() {
                             @Override
                             public void run() {
-                                WordPress.getBitmapCache().put(path, bitmap);
+                                WordPress.getBitmapCache().put(cacheKey, bitmap);
                                 if (imageView != null
                                         && imageView.getTag() instanceof String
                                         && ((String) imageView.getTag()).equalsIgnoreCase(path)) {
@@ -479,7 +481,8 @@ public class MediaGridAdapter extends RecyclerView.Adapter<MediaGridAdapter.Grid
         }
 
         // see if we have a cached thumbnail before retrieving it
-        Bitmap bitmap = WordPress.getBitmapCache().get(filePath);
+        final BitmapCacheKey cacheKey = new BitmapCacheKey(filePath, mThumbWidth, 0);
+        Bitmap bitmap = WordPress.getBitmapCache().get(cacheKey);
         if (bitmap != null) {
             imageView.setImageBitmap(bitmap);
             return;
@@ -488,12 +491,18 @@ public class MediaGridAdapter extends RecyclerView.Adapter<MediaGridAdapter.Grid
         new Thread() {
             @Override
             public void run() {
-                final Bitmap thumb = ImageUtils.getVideoFrameFromVideo(filePath, mThumbWidth);
+                // retrieving the frame is slow (especially for network videos) so the thumbnail
+                // is also kept in the disk cache
+                Bitmap cachedThumb = WordPress.getBitmapCache().getThumbnail(cacheKey);
+                if (cachedThumb == null) {
+                    cachedThumb = ImageUtils.getVideoFrameFromVideo(filePath, mThumbWidth);
+                    WordPress.getBitmapCache().putThumbnail(cacheKey, cachedThumb);
+                }
+                final Bitmap thumb = cachedThumb;
                 if (thumb != null) {
                     mHandler.post(new Runnable() {
                         @Override
                         public void run() {
-                            WordPress.getBitmapCache().put(filePath, thumb);
                             if (imageView.getTag() instanceof String
                                     && (imageView.getTag()).equals(filePath)) {
                                 imageView.setImageBitmap(thumb);
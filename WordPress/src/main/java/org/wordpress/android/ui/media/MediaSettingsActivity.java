@@ -67,6 +67,7 @@ import org.wordpress.android.ui.RequestCodes;
 import org.wordpress.android.ui.media.MediaPreviewActivity.MediaPreviewSwiped;
 import org.wordpress.android.util.AniUtils;
 import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.BitmapCacheKey;
 import org.wordpress.android.util.DateTimeUtils;
 import org.wordpress.android.util.DisplayUtils;
 import org.wordpress.android.util.EditTextUtils;
@@ -770,13 +771,18 @@ public class MediaSettingsActivity extends AppCompatActivity implements Activity
             @Override
             public void run() {
                 int width = DisplayUtils.getDisplayPixelWidth(MediaSettingsActivity.this);
-                final Bitmap thumb = ImageUtils.getVideoFrameFromVideo(mMedia.getUrl(), width);
+                BitmapCacheKey cacheKey = new BitmapCacheKey(mMedia.getUrl(), width, 0);
+                Bitmap cachedThumb = WordPress.getBitmapCache().getThumbnail(cacheKey);
+                if (cachedThumb == null) {
+                    cachedThumb = ImageUtils.getVideoFrameFromVideo(mMedia.getUrl(), width);
+                    WordPress.getBitmapCache().putThumbnail(cacheKey, cachedThumb);
+                }
+                final Bitmap thumb = cachedThumb;
                 if (thumb != null) {
                     runOnUiThread(new Runnable() {
                         @Override
                         public void run() {
                             if (!isFinishing()) {
-                                WordPress.getBitmapCache().put(mMedia.getUrl(), thumb);
                                 mImageView.setImageBitmap(thumb);
                             }
                         }
@@ -0,0 +1,335 @@
+package org.wordpress.android.ui.photopicker;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.MediaStore;
+import android.support.annotation.NonNull;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.SqlUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.wordpress.android.ui.photopicker.PhotoPickerFragment.NUM_COLUMNS;
+
+/**
+ * index of the images and videos on the device, newest first, shared by the photo pickers so
+ * the device's media only has to be fully queried once per process.
+ *
+ * media store ids are never reused, so after the first load the index is updated by querying
+ * for rows newer than the newest indexed id, and deleted rows are found by comparing the number
+ * of indexed rows in a range of ids with the number on the device - only ranges whose counts
+ * differ are split and queried. changes are merged into the list rather than resorting it.
+ */
+class DeviceMediaIndex {
+    // the first page of a full load is passed to the listener so it can be shown while the
+    // rest of the media is read
+    static final int FIRST_PAGE_SIZE = NUM_COLUMNS * 40;
+
+    // ranges with at most this many indexed rows are queried rather than split
+    static final int MAX_RANGE_SIZE = 250;
+
+    private static final String ID_COL = MediaStore.Images.Media._ID;
+
+    static class Item {
+        final long id;
+        final boolean isVideo;
+
+        Item(long id, boolean isVideo) {
+            this.id = id;
+            this.isVideo = isVideo;
+        }
+    }
+
+    interface MediaQuery {
+        /*
+         * returns the ids of the images or videos whose ids are in the passed (inclusive) range,
+         * newest first, or null if they can't be queried
+         */
+        Cursor query(boolean isVideo, long minId, long maxId);
+    }
+
+    interface FirstPageListener {
+        void onFirstPage(@NonNull List<Item> items);
+    }
+
+    private static DeviceMediaIndex sInstance;
+
+    static synchronized DeviceMediaIndex getInstance() {
+        if (sInstance == null) {
+            sInstance = new DeviceMediaIndex();
+        }
+        return sInstance;
+    }
+
+    private final ArrayList<Item> mItems = new ArrayList<>();
+    private boolean mIsLoaded;
+    private String mVersion;
+    private int mGeneration;
+
+    // newest ids ever indexed - not lowered when media is deleted since ids aren't reused
+    private long mMaxImageId;
+    private long mMaxVideoId;
+
+    /*
+     * brings the index up to date with the device's media - must be called from a background
+     * thread, and the listener is only called when the full list has to be read
+     */
+    void update(@NonNull final Context context, FirstPageListener listener) {
+        MediaQuery query = new MediaQuery() {
+            @Override
+            public Cursor query(boolean isVideo, long minId, long maxId) {
+                Uri uri = isVideo
+                        ? MediaStore.Video.Media.EXTERNAL_CONTENT_URI
+                        : MediaStore.Images.Media.EXTERNAL_CONTENT_URI;
+                String[] projection = { ID_COL };
+                String selection = ID_COL + " >= ? AND " + ID_COL + " <= ?";
+                String[] args = { Long.toString(minId), Long.toString(maxId) };
+                try {
+                    return context.getContentResolver().query(uri, projection, selection, args, ID_COL + " DESC");
+                } catch (SecurityException e) {
+                    AppLog.e(AppLog.T.MEDIA, e);
+                    return null;
+                }
+            }
+        };
+        update(query, MediaStore.getVersion(context), listener);
+    }
+
+    synchronized void update(@NonNull MediaQuery query, String version, FirstPageListener listener) {
+        // the version changes when the media store is recreated, in which case ids may be reused
+        if (!mIsLoaded || version == null || !version.equals(mVersion)) {
+            load(query, listener);
+            mVersion = version;
+            return;
+        }
+
+        List<Item> added = new ArrayList<>();
+        Set<Long> deletedImages = new HashSet<>();
+        Set<Long> deletedVideos = new HashSet<>();
+        findChanges(query, false, added, deletedImages);
+        findChanges(query, true, added, deletedVideos);
+        if (added.isEmpty() && deletedImages.isEmpty() && deletedVideos.isEmpty()) {
+            return;
+        }
+
+        AppLog.d(AppLog.T.MEDIA, "device media index > " + added.size() + " added, "
+                + (deletedImages.size() + deletedVideos.size()) + " deleted");
+
+        ArrayList<Item> remaining = new ArrayList<>(mItems.size());
+        for (Item item : mItems) {
+            Set<Long> deleted = item.isVideo ? deletedVideos : deletedImages;
+            if (!deleted.contains(item.id)) {
+                remaining.add(item);
+            }
+        }
+        sortNewestFirst(added);
+        mItems.clear();
+        mItems.addAll(merge(added, remaining));
+        for (Item item : added) {
+            updateMaxId(item);
+        }
+        mGeneration++;
+    }
+
+    /*
+     * reads every image and video, merging the two newest-first cursors
+     */
+    private void load(@NonNull MediaQuery query, FirstPageListener listener) {
+        ArrayList<Item> items = new ArrayList<>();
+        Cursor images = query.query(false, 0, Long.MAX_VALUE);
+        Cursor videos = query.query(true, 0, Long.MAX_VALUE);
+        try {
+            boolean hasImage = images != null && images.moveToFirst();
+            boolean hasVideo = videos != null && videos.moveToFirst();
+            while (hasImage || hasVideo) {
+                if (hasImage && (!hasVideo || images.getLong(0) >= videos.getLong(0))) {
+                    items.add(new Item(images.getLong(0), false));
+                    hasImage = images.moveToNext();
+                } else {
+                    items.add(new Item(videos.getLong(0), true));
+                    hasVideo = videos.moveToNext();
+                }
+                if (items.size() == FIRST_PAGE_SIZE && listener != null) {
+                    listener.onFirstPage(new ArrayList<>(items));
+                }
+            }
+        } finally {
+            SqlUtils.closeCursor(images);
+            SqlUtils.closeCursor(videos);
+        }
+
+        mItems.clear();
+        mItems.addAll(items);
+        mMaxImageId = 0;
+        mMaxVideoId = 0;
+        for (Item item : mItems) {
+            updateMaxId(item);
+        }
+        mIsLoaded = true;
+        mGeneration++;
+    }
+
+    /*
+     * finds the images or videos which were added or deleted since the index was updated
+     */
+    private void findChanges(@NonNull MediaQuery query, boolean isVideo, List<Item> added, Set<Long> deleted) {
+        long maxId = isVideo ? mMaxVideoId : mMaxImageId;
+        List<Item> newItems = readItems(query.query(isVideo, maxId + 1, Long.MAX_VALUE), isVideo);
+        if (newItems != null) {
+            added.addAll(newItems);
+        }
+
+        // ids of this type of media, oldest first
+        int count = 0;
+        for (Item item : mItems) {
+            if (item.isVideo == isVideo) {
+                count++;
+            }
+        }
+        long[] ids = new long[count];
+        for (Item item : mItems) {
+            if (item.isVideo == isVideo) {
+                ids[--count] = item.id;
+            }
+        }
+
+        findChangesInRange(query, isVideo, ids, 0, ids.length, 0, maxId, added, deleted);
+    }
+
+    /*
+     * compares the indexed ids at [start, end) - which are all the indexed ids in the range
+     * [minId, maxId] - with the device, splitting the range when the counts differ
+     */
+    private static void findChangesInRange(@NonNull MediaQuery query,
+                                           boolean isVideo,
+                                           long[] ids,
+                                           int start,
+                                           int end,
+                                           long minId,
+                                           long maxId,
+                                           List<Item> added,
+                                           Set<Long> deleted) {
+        if (minId > maxId) {
+            return;
+        }
+
+        int indexedCount = end - start;
+        if (indexedCount > MAX_RANGE_SIZE) {
+            Cursor cursor = query.query(isVideo, minId, maxId);
+            int deviceCount;
+            try {
+                if (cursor == null) {
+                    return;
+                }
+                deviceCount = cursor.getCount();
+            } finally {
+                SqlUtils.closeCursor(cursor);
+            }
+            if (deviceCount == indexedCount) {
+                return;
+            }
+            int mid = (start + end) >>> 1;
+            findChangesInRange(query, isVideo, ids, start, mid, minId, ids[mid] - 1, added, deleted);
+            findChangesInRange(query, isVideo, ids, mid, end, ids[mid], maxId, added, deleted);
+            return;
+        }
+
+        List<Item> deviceItems = readItems(query.query(isVideo, minId, maxId), isVideo);
+        if (deviceItems == null) {
+            return;
+        }
+        Set<Long> deviceIds = new HashSet<>(deviceItems.size() * 2);
+        for (Item item : deviceItems) {
+            deviceIds.add(item.id);
+        }
+        Set<Long> indexedIds = new HashSet<>(indexedCount * 2);
+        for (int i = start; i < end; i++) {
+            indexedIds.add(ids[i]);
+            if (!deviceIds.contains(ids[i])) {
+                deleted.add(ids[i]);
+            }
+        }
+        for (Item item : deviceItems) {
+            if (!indexedIds.contains(item.id)) {
+                added.add(item);
+            }
+        }
+    }
+
+    /*
+     * returns the items in the passed cursor and closes it, or null if the cursor is null
+     */
+    private static List<Item> readItems(Cursor cursor, boolean isVideo) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            List<Item> items = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                items.add(new Item(cursor.getLong(0), isVideo));
+            }
+            return items;
+        } finally {
+            SqlUtils.closeCursor(cursor);
+        }
+    }
+
+    /*
+     * merges two lists which are both sorted newest first
+     */
+    static List<Item> merge(@NonNull List<Item> list1, @NonNull List<Item> list2) {
+        List<Item> merged = new ArrayList<>(list1.size() + list2.size());
+        int index1 = 0;
+        int index2 = 0;
+        while (index1 < list1.size() || index2 < list2.size()) {
+            if (index2 == list2.size()
+                    || (index1 < list1.size() && list1.get(index1).id >= list2.get(index2).id)) {
+                merged.add(list1.get(index1++));
+            } else {
+                merged.add(list2.get(index2++));
+            }
+        }
+        return merged;
+    }
+
+    private static void sortNewestFirst(List<Item> items) {
+        Collections.sort(items, new Comparator<Item>() {
+            @Override
+            public int compare(Item item1, Item item2) {
+                return (item2.id < item1.id) ? -1 : ((item1.id == item2.id) ? 0 : 1);
+            }
+        });
+    }
+
+    private void updateMaxId(@NonNull Item item) {
+        if (item.isVideo) {
+            mMaxVideoId = Math.max(mMaxVideoId, item.id);
+        } else {
+            mMaxImageId = Math.max(mMaxImageId, item.id);
+        }
+    }
+
+    /*
+     * incremented whenever the indexed media changes
+     */
+    synchronized int getGeneration() {
+        return mGeneration;
+    }
+
+    synchronized List<Item> getItems(boolean includeVideos) {
+        List<Item> items = new ArrayList<>(mItems.size());
+        for (Item item : mItems) {
+            if (includeVideos || !item.isVideo) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+}
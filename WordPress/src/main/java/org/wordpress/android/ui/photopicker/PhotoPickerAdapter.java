@@ -1,7 +1,6 @@
 package org.wordpress.android.ui.photopicker;
 
 import android.content.Context;
-import android.database.Cursor;
 import android.net.Uri;
 import android.os.AsyncTask;
 import android.os.Handler;
@@ -22,12 +21,10 @@ import org.wordpress.android.util.AnalyticsUtils;
 import org.wordpress.android.util.AniUtils;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.DisplayUtils;
-import org.wordpress.android.util.SqlUtils;
 import org.wordpress.android.util.ViewUtils;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 
 import static android.support.v7.widget.RecyclerView.NO_POSITION;
@@ -74,6 +71,8 @@ class PhotoPickerAdapter extends RecyclerView.Adapter<PhotoPickerAdapter.Thumbna
     private boolean mIsListTaskRunning;
     private boolean mDisableImageReset;
     private boolean mLoadThumbnails = true;
+    private int mPrefetchStart = NO_POSITION;
+    private int mIndexGeneration;
 
     private final ThumbnailLoader mThumbnailLoader;
     private final PhotoPickerAdapterListener mListener;
@@ -145,6 +144,10 @@ class PhotoPickerAdapter extends RecyclerView.Adapter<PhotoPickerAdapter.Thumbna
             AppLog.d(AppLog.T.MEDIA, "PhotoPickerAdapter > loadThumbnails = " + loadThumbnails);
             if (mLoadThumbnails) {
                 notifyDataSetChangedInternal();
+            } else {
+                // the cells these were requested for are being flung past
+                mThumbnailLoader.cancelPending();
+                mPrefetchStart = NO_POSITION;
             }
         }
     }
@@ -189,6 +192,8 @@ class PhotoPickerAdapter extends RecyclerView.Adapter<PhotoPickerAdapter.Thumbna
                     item.isVideo,
                     animate,
                     mThumbWidth);
+        } else {
+            mThumbnailLoader.cancel(holder.imgThumbnail);
         }
     }
 
@@ -196,7 +201,41 @@ class PhotoPickerAdapter extends RecyclerView.Adapter<PhotoPickerAdapter.Thumbna
     public void onViewRecycled(ThumbnailViewHolder holder) {
         super.onViewRecycled(holder);
         holder.imgThumbnail.setImageDrawable(null);
-        holder.imgThumbnail.setTag(null);
+        mThumbnailLoader.cancel(holder.imgThumbnail);
+    }
+
+    /*
+     * called while the grid is scrolled to prefetch thumbnails for the screen after (or before,
+     * when scrolling up) the visible items
+     */
+    void prefetchThumbnails(int firstVisible, int lastVisible, boolean isScrollingDown) {
+        if (!mLoadThumbnails || !isValidPosition(firstVisible) || !isValidPosition(lastVisible)) {
+            return;
+        }
+
+        int count = lastVisible - firstVisible + 1;
+        int start = isScrollingDown ? lastVisible + 1 : Math.max(0, firstVisible - count);
+        int end = isScrollingDown ? Math.min(mMediaList.size(), start + count) : firstVisible;
+        if (start >= end || start == mPrefetchStart) {
+            return;
+        }
+        mPrefetchStart = start;
+
+        mThumbnailLoader.clearPrefetches();
+        if (isScrollingDown) {
+            for (int i = start; i < end; i++) {
+                prefetchThumbnail(i);
+            }
+        } else {
+            for (int i = end - 1; i >= start; i--) {
+                prefetchThumbnail(i);
+            }
+        }
+    }
+
+    private void prefetchThumbnail(int position) {
+        PhotoPickerItem item = mMediaList.get(position);
+        mThumbnailLoader.prefetchThumbnail(item._id, item.isVideo, mThumbWidth);
     }
 
     private PhotoPickerItem getItemAtPosition(int position) {
@@ -375,88 +414,61 @@ class PhotoPickerAdapter extends RecyclerView.Adapter<PhotoPickerAdapter.Thumbna
         }).start();
     }
 
+    private PhotoPickerItem createItem(@NonNull DeviceMediaIndex.Item indexItem) {
+        PhotoPickerItem item = new PhotoPickerItem();
+        item._id = indexItem.id;
+        item.isVideo = indexItem.isVideo;
+        Uri baseUri = indexItem.isVideo
+                ? MediaStore.Video.Media.EXTERNAL_CONTENT_URI
+                : MediaStore.Images.Media.EXTERNAL_CONTENT_URI;
+        item.uri = Uri.withAppendedPath(baseUri, "" + item._id);
+        return item;
+    }
+
     /*
-     * builds the list of media items from the device
+     * builds the list of media items from the index of the device's media, which only queries
+     * the device for changes once it's loaded - when the index has to be fully loaded the first
+     * page is shown while the rest is read
      */
     private class BuildDeviceMediaListTask extends AsyncTask<Void, Void, Boolean> {
         private final ArrayList<PhotoPickerItem> tmpList = new ArrayList<>();
+        private final ArrayList<PhotoPickerItem> firstPage = new ArrayList<>();
         private final boolean reload;
-        private static final String ID_COL = MediaStore.Images.Media._ID;
+        private final boolean includeVideos;
+        private boolean showedFirstPage;
+        private int generation;
 
         BuildDeviceMediaListTask(boolean mustReload) {
             super();
             reload = mustReload;
+            includeVideos = !mBrowserType.isSingleImagePicker();
         }
 
         @Override
         protected Boolean doInBackground(Void... params) {
-            // images
-            addMedia(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, false);
-
-            // videos
-            if (!mBrowserType.isSingleImagePicker()) {
-                addMedia(MediaStore.Video.Media.EXTERNAL_CONTENT_URI, true);
-            }
-
-            // sort by id in reverse (newest first)
-            Collections.sort(tmpList, new Comparator<PhotoPickerItem>() {
+            DeviceMediaIndex index = DeviceMediaIndex.getInstance();
+            index.update(mContext, new DeviceMediaIndex.FirstPageListener() {
                 @Override
-                public int compare(PhotoPickerItem o1, PhotoPickerItem o2) {
-                    long id1 = o1._id;
-                    long id2 = o2._id;
-                    return (id2 < id1) ? -1 : ((id1 == id2) ? 0 : 1);
+                public void onFirstPage(@NonNull List<DeviceMediaIndex.Item> items) {
+                    synchronized (firstPage) {
+                        for (DeviceMediaIndex.Item item : items) {
+                            if (includeVideos || !item.isVideo) {
+                                firstPage.add(createItem(item));
+                            }
+                        }
+                    }
+                    publishProgress();
                 }
             });
 
             // if we're reloading then return true so the adapter is updated, otherwise only
-            // return true if changes are detected
-            return reload || !isSameMediaList();
-        }
-
-        private void addMedia(Uri baseUri, boolean isVideo) {
-            String[] projection = { ID_COL };
-            Cursor cursor = null;
-            try {
-                cursor = mContext.getContentResolver().query(
-                        baseUri,
-                        projection,
-                        null,
-                        null,
-                        null);
-            } catch (SecurityException e) {
-                AppLog.e(AppLog.T.MEDIA, e);
-            }
-
-            if (cursor == null) {
-                return;
-            }
-
-            try {
-                int idIndex = cursor.getColumnIndexOrThrow(ID_COL);
-                while (cursor.moveToNext()) {
-                    PhotoPickerItem item = new PhotoPickerItem();
-                    item._id = cursor.getLong(idIndex);
-                    item.uri = Uri.withAppendedPath(baseUri, "" + item._id);
-                    item.isVideo = isVideo;
-                    tmpList.add(item);
-                }
-            } finally {
-                SqlUtils.closeCursor(cursor);
-            }
-        }
-
-        // returns true if the media list built here is the same as the existing one
-        private boolean isSameMediaList() {
-            if (tmpList.size() != mMediaList.size()) {
+            // return true if the index changed since it was last shown
+            generation = index.getGeneration();
+            if (!reload && generation == mIndexGeneration) {
                 return false;
             }
-            for (int i = 0; i < tmpList.size(); i++) {
-                if (!isValidPosition(i)) {
-                    return false;
-                }
-                if (tmpList.get(i)._id != mMediaList.get(i)._id) {
-                    return false;
-                }
+            for (DeviceMediaIndex.Item item : index.getItems(includeVideos)) {
+                tmpList.add(createItem(item));
             }
             return true;
         }
@@ -473,12 +485,34 @@ class PhotoPickerAdapter extends RecyclerView.Adapter<PhotoPickerAdapter.Thumbna
             mIsListTaskRunning = false;
         }
 
+        @Override
+        protected void onProgressUpdate(Void... values) {
+            // only show the first page when nothing is showing yet
+            synchronized (firstPage) {
+                if (mMediaList.isEmpty() && !firstPage.isEmpty()) {
+                    mMediaList.addAll(firstPage);
+                    mPrefetchStart = NO_POSITION;
+                    showedFirstPage = true;
+                    notifyDataSetChanged();
+                }
+            }
+        }
+
         @Override
         protected void onPostExecute(Boolean result) {
             if (result) {
-                mMediaList.clear();
-                mMediaList.addAll(tmpList);
-                notifyDataSetChanged();
+                int numShowing = mMediaList.size();
+                if (showedFirstPage && numShowing <= tmpList.size()) {
+                    // the full list starts with the first page, so only the rest is added
+                    mMediaList.addAll(tmpList.subList(numShowing, tmpList.size()));
+                    notifyItemRangeInserted(numShowing, tmpList.size() - numShowing);
+                } else {
+                    mMediaList.clear();
+                    mMediaList.addAll(tmpList);
+                    mPrefetchStart = NO_POSITION;
+                    notifyDataSetChanged();
+                }
+                mIndexGeneration = generation;
             }
             if (mListener != null) {
                 mListener.onAdapterLoaded(isEmpty());
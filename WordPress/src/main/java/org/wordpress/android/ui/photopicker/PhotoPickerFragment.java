@@ -125,6 +125,17 @@ public class PhotoPickerFragment extends Fragment {
                     getAdapter().setLoadThumbnails(true);
                 }
             }
+
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                super.onScrolled(recyclerView, dx, dy);
+                if (dy != 0 && mGridManager != null) {
+                    getAdapter().prefetchThumbnails(
+                            mGridManager.findFirstVisibleItemPosition(),
+                            mGridManager.findLastVisibleItemPosition(),
+                            dy > 0);
+                }
+            }
         });
 
         mBottomBar = view.findViewById(R.id.bottom_bar);
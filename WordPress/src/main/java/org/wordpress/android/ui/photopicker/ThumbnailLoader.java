@@ -5,119 +5,383 @@ import android.content.Context;
 import android.graphics.Bitmap;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.Process;
 import android.provider.MediaStore;
+import android.support.annotation.NonNull;
+import android.support.v4.util.LruCache;
 import android.view.View;
 import android.widget.ImageView;
 
+import org.wordpress.android.util.BitmapCache;
 import org.wordpress.android.util.ImageUtils;
 
 import java.lang.ref.WeakReference;
-import java.util.concurrent.Executors;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.wordpress.android.ui.photopicker.PhotoPickerFragment.NUM_COLUMNS;
+
+/**
+ * loads device thumbnails for the photo picker.
+ *
+ * requests for visible cells are serviced newest first, since when scrolling quickly the cells
+ * which were bound most recently are the ones still on screen, and only the most recent requests
+ * are kept so a fast scroll through a large gallery doesn't queue thousands of decodes whose
+ * cells are long gone. a request is cancelled when its ImageView is recycled or rebound to a
+ * different image, decoded thumbnails are kept in a memory cache so scrolling back is immediate,
+ * and the adapter may prefetch thumbnails for the next screen, which are only decoded when no
+ * visible cell is waiting.
+ */
 class ThumbnailLoader {
+    // requests for visible cells beyond this many are dropped oldest first - a screen of the
+    // picker holds around eight rows
+    static final int MAX_PENDING_REQUESTS = NUM_COLUMNS * 16;
+    static final int MAX_PENDING_PREFETCHES = NUM_COLUMNS * 10;
+
+    private static final long FADE_TRANSITION = 250;
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 30;
 
     private final Context mContext;
     private final ThreadPoolExecutor mExecutor;
     private final Handler mHandler;
+    private final int mMaxWorkers;
 
-    private static final long FADE_TRANSITION = 250;
+    // guarded by itself
+    private final RequestQueue mQueue = new RequestQueue();
+    private int mNumWorkers;
+
+    private final LruCache<Long, Bitmap> mCache;
+    private volatile int mCacheMaxSize;
 
     ThumbnailLoader(Context context) {
-        mContext = context;
-        int numCores = Runtime.getRuntime().availableProcessors();
-        int maxThreads = numCores > 1 ? numCores / 2 : 1;
-        mExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(maxThreads);
-        mExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardOldestPolicy());
+        mContext = context.getApplicationContext();
         mHandler = new Handler(Looper.getMainLooper());
+
+        int numCores = Runtime.getRuntime().availableProcessors();
+        mMaxWorkers = numCores > 1 ? numCores / 2 : 1;
+        mExecutor = new ThreadPoolExecutor(
+                mMaxWorkers,
+                mMaxWorkers,
+                THREAD_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger mCount = new AtomicInteger();
+                    @Override
+                    public Thread newThread(@NonNull final Runnable runnable) {
+                        return new Thread("ThumbnailLoader-" + mCount.incrementAndGet()) {
+                            @Override
+                            public void run() {
+                                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                runnable.run();
+                            }
+                        };
+                    }
+                });
+        mExecutor.allowCoreThreadTimeOut(true);
+
+        // the cache size is measured in bytes, using 1/8th of the available memory
+        int cacheSize = (int) Math.min(Runtime.getRuntime().maxMemory() / 8, Integer.MAX_VALUE);
+        mCache = new LruCache<Long, Bitmap>(cacheSize) {
+            @Override
+            protected int sizeOf(Long key, Bitmap bitmap) {
+                return BitmapCache.getByteCount(bitmap);
+            }
+        };
     }
 
+    /*
+     * a single thumbnail to load - requests without an ImageView are prefetches
+     */
+    static class Request {
+        final long imageId;
+        final boolean isVideo;
+        final boolean animate;
+        final int maxSize;
+        final WeakReference<ImageView> weakImageView;
+
+        Request(ImageView imageView, long imageId, boolean isVideo, boolean animate, int maxSize) {
+            this.imageId = imageId;
+            this.isVideo = isVideo;
+            this.animate = animate;
+            this.maxSize = maxSize;
+            this.weakImageView = imageView != null ? new WeakReference<>(imageView) : null;
+        }
+
+        boolean isPrefetch() {
+            return weakImageView == null;
+        }
+
+        boolean isForImageView(@NonNull ImageView imageView) {
+            return weakImageView != null && weakImageView.get() == imageView;
+        }
+    }
+
+    /*
+     * pending requests keyed by image id - requests for visible cells are taken newest first
+     * and are always taken before prefetches, which are taken in the order they were made (ie:
+     * nearest to the visible cells first). not thread-safe.
+     */
+    static class RequestQueue {
+        final LinkedHashMap<Long, Request> mRequests = new LinkedHashMap<>();
+        final LinkedHashMap<Long, Request> mPrefetches = new LinkedHashMap<>();
+
+        /*
+         * adds a request for a visible cell, replacing any earlier request or prefetch for the
+         * same image - returns the oldest request if it was dropped to make room
+         */
+        Request add(@NonNull Request request) {
+            mPrefetches.remove(request.imageId);
+            mRequests.remove(request.imageId);
+            mRequests.put(request.imageId, request);
+            if (mRequests.size() > MAX_PENDING_REQUESTS) {
+                Iterator<Request> iterator = mRequests.values().iterator();
+                Request oldest = iterator.next();
+                iterator.remove();
+                return oldest;
+            }
+            return null;
+        }
+
+        /*
+         * adds a prefetch unless the image is already pending or too many prefetches are
+         * waiting - returns true if it was added
+         */
+        boolean addPrefetch(@NonNull Request request) {
+            if (mRequests.containsKey(request.imageId)
+                    || mPrefetches.containsKey(request.imageId)
+                    || mPrefetches.size() >= MAX_PENDING_PREFETCHES) {
+                return false;
+            }
+            mPrefetches.put(request.imageId, request);
+            return true;
+        }
+
+        /*
+         * removes the pending request for the passed image if it's for the passed ImageView
+         */
+        void remove(long imageId, @NonNull ImageView imageView) {
+            Request request = mRequests.get(imageId);
+            if (request != null && request.isForImageView(imageView)) {
+                mRequests.remove(imageId);
+            }
+        }
+
+        void clearPrefetches() {
+            mPrefetches.clear();
+        }
+
+        void clear() {
+            mRequests.clear();
+            mPrefetches.clear();
+        }
+
+        boolean isEmpty() {
+            return mRequests.isEmpty() && mPrefetches.isEmpty();
+        }
+
+        Request take() {
+            if (!mRequests.isEmpty()) {
+                Request newest = null;
+                for (Request request : mRequests.values()) {
+                    newest = request;
+                }
+                mRequests.remove(newest.imageId);
+                return newest;
+            }
+            if (!mPrefetches.isEmpty()) {
+                Iterator<Request> iterator = mPrefetches.values().iterator();
+                Request oldest = iterator.next();
+                iterator.remove();
+                return oldest;
+            }
+            return null;
+        }
+    }
+
+    /*
+     * shows the thumbnail for the passed image in the passed ImageView, immediately if it's
+     * cached - must be called from the main thread
+     */
     void loadThumbnail(ImageView imageView,
                        long imageId,
                        boolean isVideo,
                        boolean animate,
                        int maxSize) {
-        Runnable task = new ThumbnailLoaderRunnable(imageView, imageId, isVideo, animate, maxSize);
-        mExecutor.submit(task);
+        cancel(imageView);
+        imageView.setTag(Long.toString(imageId));
+
+        Bitmap cached = getCachedThumbnail(imageId, maxSize);
+        if (cached != null) {
+            imageView.setImageBitmap(cached);
+            return;
+        }
+
+        synchronized (mQueue) {
+            mQueue.add(new Request(imageView, imageId, isVideo, animate, maxSize));
+            startWorkerLocked();
+        }
     }
 
     /*
-     * task to load a device thumbnail and display it in an ImageView
+     * decodes the thumbnail for the passed image into the cache so it's available when its cell
+     * is bound - prefetches never delay thumbnails for visible cells
      */
-    class ThumbnailLoaderRunnable implements Runnable {
-        private final WeakReference<ImageView> mWeakImageView;
-        private final long mImageId;
-        private final String mTag;
-        private final boolean mIsVideo;
-        private final boolean mAnimate;
-        private final int mMaxSize;
-        private Bitmap mThumbnail;
-
-        ThumbnailLoaderRunnable(ImageView imageView,
-                                long imageId,
-                                boolean isVideo,
-                                boolean animate,
-                                int maxSize) {
-            mWeakImageView = new WeakReference<>(imageView);
-            mImageId = imageId;
-            mIsVideo = isVideo;
-            mAnimate = animate;
-            mMaxSize = maxSize;
-
-            mTag = Long.toString(mImageId);
-            imageView.setTag(mTag);
-        }
-
-        private boolean isImageViewValid() {
-            ImageView imageView = mWeakImageView.get();
-            if (imageView != null && imageView.getTag() instanceof String) {
-                // make sure this imageView has the original tag - it may
-                // be different if the view was recycled
-                String currentTag = (String) imageView.getTag();
-                return mTag.equals(currentTag);
-            } else {
-                return false;
+    void prefetchThumbnail(long imageId, boolean isVideo, int maxSize) {
+        if (getCachedThumbnail(imageId, maxSize) != null) {
+            return;
+        }
+        synchronized (mQueue) {
+            if (mQueue.addPrefetch(new Request(null, imageId, isVideo, false, maxSize))) {
+                startWorkerLocked();
             }
         }
+    }
 
+    /*
+     * drops prefetches which haven't started yet, called before prefetching a different range
+     */
+    void clearPrefetches() {
+        synchronized (mQueue) {
+            mQueue.clearPrefetches();
+        }
+    }
+
+    /*
+     * drops all requests which haven't started yet
+     */
+    void cancelPending() {
+        synchronized (mQueue) {
+            mQueue.clear();
+        }
+    }
+
+    /*
+     * cancels the pending request for the passed ImageView, called when it's recycled
+     */
+    void cancel(ImageView imageView) {
+        Object tag = imageView.getTag();
+        if (tag instanceof String) {
+            try {
+                long imageId = Long.parseLong((String) tag);
+                synchronized (mQueue) {
+                    mQueue.remove(imageId, imageView);
+                }
+            } catch (NumberFormatException e) {
+                // not set by this loader
+            }
+        }
+        imageView.setTag(null);
+    }
+
+    private Bitmap getCachedThumbnail(long imageId, int maxSize) {
+        // the thumbnail size only changes when the device is rotated
+        if (maxSize != mCacheMaxSize) {
+            synchronized (mCache) {
+                if (maxSize != mCacheMaxSize) {
+                    mCache.evictAll();
+                    mCacheMaxSize = maxSize;
+                }
+            }
+            return null;
+        }
+        return mCache.get(imageId);
+    }
+
+    private void startWorkerLocked() {
+        if (mNumWorkers < mMaxWorkers) {
+            mNumWorkers++;
+            mExecutor.execute(mWorker);
+        }
+    }
+
+    private final Runnable mWorker = new Runnable() {
         @Override
         public void run() {
-            Bitmap media;
-            if (mIsVideo) {
-                media = MediaStore.Video.Thumbnails.getThumbnail(
-                        mContext.getContentResolver(),
-                        mImageId,
-                        MediaStore.Video.Thumbnails.MINI_KIND,
-                        null);
-            } else {
-                media = ImageUtils.getThumbnail(
-                        mContext.getContentResolver(),
-                        mImageId,
-                        MediaStore.Images.Thumbnails.MINI_KIND);
+            while (true) {
+                Request request;
+                synchronized (mQueue) {
+                    request = mQueue.take();
+                    if (request == null) {
+                        mNumWorkers--;
+                        return;
+                    }
+                }
+                loadRequest(request);
             }
+        }
+    };
 
-            if (media != null && media.getWidth() > mMaxSize) {
-                mThumbnail = ImageUtils.getScaledBitmapAtLongestSide(media, mMaxSize);
-            } else {
-                mThumbnail = media;
+    private void loadRequest(final Request request) {
+        // another request for the same image may have been loaded while this one was waiting
+        Bitmap thumbnail = mCache.get(request.imageId);
+        if (thumbnail == null) {
+            if (!request.isPrefetch() && !isImageViewValid(request)) {
+                return;
             }
+            thumbnail = decodeThumbnail(request);
+            if (thumbnail == null) {
+                return;
+            }
+            if (request.maxSize == mCacheMaxSize) {
+                mCache.put(request.imageId, thumbnail);
+            }
+        }
 
-            mHandler.post(new Runnable() {
-                @Override
-                public void run() {
-                    if (mThumbnail != null && isImageViewValid()) {
-                        mWeakImageView.get().setImageBitmap(mThumbnail);
-                        if (mAnimate) {
-                            ObjectAnimator alpha = ObjectAnimator.ofFloat(
-                                    mWeakImageView.get(), View.ALPHA, 0.25f, 1f);
-                            alpha.setDuration(FADE_TRANSITION);
-                            alpha.start();
-
-                        }
+        if (request.isPrefetch()) {
+            return;
+        }
+
+        final Bitmap bitmap = thumbnail;
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                ImageView imageView = request.weakImageView.get();
+                if (imageView != null && isImageViewValid(request)) {
+                    imageView.setImageBitmap(bitmap);
+                    if (request.animate) {
+                        ObjectAnimator alpha = ObjectAnimator.ofFloat(imageView, View.ALPHA, 0.25f, 1f);
+                        alpha.setDuration(FADE_TRANSITION);
+                        alpha.start();
                     }
                 }
-            });
-        }
+            }
+        });
+    }
+
+    /*
+     * make sure the request's ImageView still has the original tag - it may be different if the
+     * view was recycled
+     */
+    private static boolean isImageViewValid(@NonNull Request request) {
+        ImageView imageView = request.weakImageView.get();
+        return imageView != null && Long.toString(request.imageId).equals(imageView.getTag());
     }
 
+    private Bitmap decodeThumbnail(@NonNull Request request) {
+        Bitmap media;
+        if (request.isVideo) {
+            media = MediaStore.Video.Thumbnails.getThumbnail(
+                    mContext.getContentResolver(),
+                    request.imageId,
+                    MediaStore.Video.Thumbnails.MINI_KIND,
+                    null);
+        } else {
+            media = ImageUtils.getThumbnail(
+                    mContext.getContentResolver(),
+                    request.imageId,
+                    MediaStore.Images.Thumbnails.MINI_KIND);
+        }
+
+        if (media != null && media.getWidth() > request.maxSize) {
+            return ImageUtils.getScaledBitmapAtLongestSide(media, request.maxSize);
+        } else {
+            return media;
+        }
+    }
 }
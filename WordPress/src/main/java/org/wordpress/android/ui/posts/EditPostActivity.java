@@ -1962,6 +1962,7 @@ public class EditPostActivity extends AppCompatActivity implements
                 showProgressDialog(true);
             }
             try {
+                optimizeImages();
                 for (Uri mediaUri : uriList) {
                     if (isInterrupted()) {
                         return;
@@ -1992,6 +1993,22 @@ public class EditPostActivity extends AppCompatActivity implements
             });
         }
 
+        /*
+         * optimize all the images at once so processMedia() doesn't wait for each of them in turn
+         */
+        private void optimizeImages() {
+            List<String> imagePaths = new ArrayList<>();
+            for (Uri mediaUri : uriList) {
+                if (mediaUri != null && !MediaUtils.isVideo(mediaUri.toString())) {
+                    String path = MediaUtils.getRealPathFromURI(EditPostActivity.this, mediaUri);
+                    if (path != null) {
+                        imagePaths.add(path);
+                    }
+                }
+            }
+            WPMediaUtils.optimizeImages(EditPostActivity.this, imagePaths);
+        }
+
         private boolean processMedia(Uri mediaUri) {
             if (mediaUri == null) {
                 return false;
@@ -11,6 +11,7 @@ import com.android.volley.VolleyError;
 import com.android.volley.toolbox.ImageLoader;
 
 import org.wordpress.android.WordPress;
+import org.wordpress.android.util.BitmapCacheKey;
 import org.wordpress.android.util.ImageUtils;
 import org.wordpress.aztec.Html;
 
@@ -37,7 +38,7 @@ public class AztecImageLoader implements Html.ImageGetter {
         // Ignore the maxWidth passed from Aztec, since it's the MAX of screen width/height
         final int maxWidthForEditor = ImageUtils.getMaximumThumbnailWidthForEditor(context);
 
-        final String cacheKey = url + maxWidthForEditor;
+        final BitmapCacheKey cacheKey = new BitmapCacheKey(url, maxWidthForEditor, 0);
         Bitmap cachedBitmap = WordPress.getBitmapCache().get(cacheKey);
         if (cachedBitmap != null) {
             callbacks.onImageLoaded(new BitmapDrawable(context.getResources(), cachedBitmap));
@@ -51,7 +52,7 @@ public class AztecImageLoader implements Html.ImageGetter {
             if (bytes != null) {
                 Bitmap bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
                 if (bitmap != null) {
-                    WordPress.getBitmapCache().putBitmap(cacheKey, bitmap);
+                    WordPress.getBitmapCache().put(cacheKey, bitmap);
                 }
                 BitmapDrawable bitmapDrawable = new BitmapDrawable(context.getResources(), bitmap);
                 callbacks.onImageLoaded(bitmapDrawable);
@@ -72,8 +73,7 @@ public class AztecImageLoader implements Html.ImageGetter {
                     // isImmediate is true as soon as the request starts.
                     callbacks.onImageFailed();
                 } else if (bitmap != null) {
-                    final String cacheKey = url + maxWidthForEditor;
-                    WordPress.getBitmapCache().putBitmap(cacheKey, bitmap);
+                    WordPress.getBitmapCache().put(cacheKey, bitmap);
                     BitmapDrawable bitmapDrawable = new BitmapDrawable(context.getResources(), bitmap);
                     callbacks.onImageLoaded(bitmapDrawable);
                 }
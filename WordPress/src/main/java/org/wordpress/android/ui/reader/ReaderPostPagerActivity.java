@@ -3,6 +3,7 @@ package org.wordpress.android.ui.reader;
 import android.app.Activity;
 import android.app.Fragment;
 import android.app.FragmentManager;
+import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
@@ -49,6 +50,7 @@ import org.wordpress.android.widgets.WPViewPagerTransformer;
 import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -93,6 +95,9 @@ public class ReaderPostPagerActivity extends AppCompatActivity
         POST_LIKE,
     }
 
+    // how many pages on either side of the current one are rendered ahead of time
+    private static final int PRERENDER_DISTANCE = 2;
+
     private WPViewPager mViewPager;
     private ProgressBar mProgress;
     private Toolbar mToolbar;
@@ -221,6 +226,7 @@ public class ReaderPostPagerActivity extends AppCompatActivity
 
                 mLastSelectedPosition = position;
                 updateTitle(position);
+                prerenderAdjacentPosts(position);
             }
         });
 
@@ -640,6 +646,43 @@ public class ReaderPostPagerActivity extends AppCompatActivity
                 ReaderPostTable.getBlogPost(blogId, postId, true));
     }
 
+    /*
+     * renders the posts near the passed position ahead of time so they're already in the rendered
+     * html cache when the user pages to them - note that the pager creates the fragments on either
+     * side of the current one, so this reaches one page beyond them
+     */
+    private void prerenderAdjacentPosts(int position) {
+        if (!hasPagerAdapter()) return;
+
+        final List<ReaderBlogIdPostId> idPairs = new ArrayList<>();
+        for (int distance = 1; distance <= PRERENDER_DISTANCE; distance++) {
+            for (int adjacent : new int[]{position + distance, position - distance}) {
+                ReaderBlogIdPostId idPair = getAdapterBlogIdPostIdAtPosition(adjacent);
+                if (idPair != null) {
+                    idPairs.add(idPair);
+                }
+            }
+        }
+        if (idPairs.isEmpty()) return;
+
+        final Context context = getApplicationContext();
+        final boolean isFeed = mIsFeed;
+        // each post is prerendered separately so the visible post can be rendered between them
+        for (final ReaderBlogIdPostId idPair : idPairs) {
+            ReaderRenderExecutor.getInstance().prerender("prerender post", new Runnable() {
+                @Override
+                public void run() {
+                    ReaderPost post = isFeed
+                            ? ReaderPostTable.getFeedPost(idPair.getBlogId(), idPair.getPostId(), false)
+                            : ReaderPostTable.getBlogPost(idPair.getBlogId(), idPair.getPostId(), false);
+                    if (post != null) {
+                        ReaderPostRenderer.prerender(context, post);
+                    }
+                }
+            });
+        }
+    }
+
     /*
      * loads the blogId/postId pairs used to populate the pager adapter - passed blogId/postId will
      * be made active after loading unless gotoNext=true, in which case the post after the passed
@@ -684,10 +727,12 @@ public class ReaderPostPagerActivity extends AppCompatActivity
                             mViewPager.setCurrentItem(newPosition);
                             trackPostAtPositionIfNeeded(newPosition);
                             updateTitle(newPosition);
+                            prerenderAdjacentPosts(newPosition);
                         } else if (adapter.isValidPosition(currentPosition)) {
                             mViewPager.setCurrentItem(currentPosition);
                             trackPostAtPositionIfNeeded(currentPosition);
                             updateTitle(currentPosition);
+                            prerenderAdjacentPosts(currentPosition);
                         }
 
                         // let the user know they can swipe between posts
@@ -1,8 +1,10 @@
 package org.wordpress.android.ui.reader;
 
 import android.annotation.SuppressLint;
+import android.content.Context;
 import android.net.Uri;
 import android.os.Handler;
+import android.support.annotation.NonNull;
 
 import org.wordpress.android.R;
 import org.wordpress.android.WordPress;
@@ -10,10 +12,9 @@ import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.models.ReaderPostDiscoverData;
 import org.wordpress.android.ui.reader.utils.ImageSizeMap;
 import org.wordpress.android.ui.reader.utils.ImageSizeMap.ImageSize;
-import org.wordpress.android.ui.reader.utils.ReaderEmbedScanner;
-import org.wordpress.android.ui.reader.utils.ReaderHtmlUtils;
-import org.wordpress.android.ui.reader.utils.ReaderIframeScanner;
-import org.wordpress.android.ui.reader.utils.ReaderImageScanner;
+import org.wordpress.android.ui.reader.utils.ReaderHtmlTagScanner;
+import org.wordpress.android.ui.reader.utils.ReaderHtmlTagScanner.HtmlTag;
+import org.wordpress.android.ui.reader.utils.ReaderHtmlTagScanner.TagType;
 import org.wordpress.android.ui.reader.utils.ReaderUtils;
 import org.wordpress.android.ui.reader.views.ReaderWebView;
 import org.wordpress.android.util.AppLog;
@@ -22,12 +23,8 @@ import org.wordpress.android.util.PhotonUtils;
 import org.wordpress.android.util.StringUtils;
 
 import java.lang.ref.WeakReference;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Random;
 import java.util.Set;
-import java.util.regex.Pattern;
 
 /**
  * generates and displays the HTML for post detail content - main purpose is to assign the
@@ -45,15 +42,24 @@ class ReaderPostRenderer {
     private final int mMinFullSizeWidthDp;
     private final int mMinMidSizeWidthDp;
     private final WeakReference<ReaderWebView> mWeakWebView;
+    private final ReaderRenderedHtmlCache mCache;
+    private final String mCacheKey;
 
-    private StringBuilder mRenderBuilder;
     private String mRenderedHtml;
     private ImageSizeMap mAttachmentSizes;
 
     @SuppressLint("SetJavaScriptEnabled")
     ReaderPostRenderer(ReaderWebView webView, ReaderPost post) {
-        if (webView == null) {
-            throw new IllegalArgumentException("ReaderPostRenderer requires a webView");
+        this(webView, webView != null ? webView.getContext() : null, post);
+
+        // enable JavaScript in the webView, otherwise videos and other embedded content won't
+        // work - note that the content is scrubbed on the backend so this is considered safe
+        webView.getSettings().setJavaScriptEnabled(true);
+    }
+
+    private ReaderPostRenderer(ReaderWebView webView, Context context, ReaderPost post) {
+        if (context == null) {
+            throw new IllegalArgumentException("ReaderPostRenderer requires a context");
         }
         if (post == null) {
             throw new IllegalArgumentException("ReaderPostRenderer requires a post");
@@ -61,37 +67,45 @@ class ReaderPostRenderer {
 
         mPost = post;
         mWeakWebView = new WeakReference<>(webView);
-        mResourceVars = new ReaderResourceVars(webView.getContext());
+        mResourceVars = new ReaderResourceVars(context);
+        mCache = ReaderRenderedHtmlCache.getInstance(context);
+        mCacheKey = ReaderRenderedHtmlCache.makeKey(post, mResourceVars.fullSizeImageWidthPx);
 
         mMinFullSizeWidthDp = pxToDp(mResourceVars.fullSizeImageWidthPx / 3);
         mMinMidSizeWidthDp = mMinFullSizeWidthDp / 2;
+    }
 
-        // enable JavaScript in the webView, otherwise videos and other embedded content won't
-        // work - note that the content is scrubbed on the backend so this is considered safe
-        webView.getSettings().setJavaScriptEnabled(true);
+    /*
+     * renders the passed post and adds it to the rendered html cache without displaying it, so
+     * it can be shown without rendering when the user pages to it - must be called from a
+     * background thread
+     */
+    static void prerender(Context context, ReaderPost post) {
+        ReaderPostRenderer renderer = new ReaderPostRenderer(null, context, post);
+        if (renderer.mCache.contains(renderer.mCacheKey)) {
+            return;
+        }
+        renderer.mCache.put(renderer.mCacheKey, renderer.renderHtml());
     }
 
     void beginRender() {
-        final Handler handler = new Handler();
-        mRenderBuilder = new StringBuilder(getPostContent());
+        // use the cached html when the post was already rendered at this width
+        String cachedHtml = mCache.getFromMemory(mCacheKey);
+        if (cachedHtml != null) {
+            renderHtmlContent(cachedHtml);
+            return;
+        }
 
-        new Thread() {
+        final Handler handler = new Handler();
+        ReaderRenderExecutor.getInstance().render("render post", new Runnable() {
             @Override
             public void run() {
-                final boolean hasTiledGallery = hasTiledGallery(mRenderBuilder.toString());
-                String content = mRenderBuilder.toString();
-
-                if (!(hasTiledGallery && mResourceVars.isWideDisplay)) {
-                    resizeImages(content);
+                String html = mCache.get(mCacheKey);
+                if (html == null) {
+                    html = renderHtml();
+                    mCache.put(mCacheKey, html);
                 }
-
-                resizeIframes(content);
-
-                // Get the set of JS scripts to inject in our Webview to support some specific Embeds.
-                Set<String> jsToInject = injectJSForSpecificEmbedSupport(content);
-
-                final String htmlContent = formatPostContentForWebView(content, jsToInject, hasTiledGallery, mResourceVars.isWideDisplay);
-                mRenderBuilder = null;
+                final String htmlContent = html;
                 handler.post(new Runnable() {
                     @Override
                     public void run() {
@@ -99,55 +113,57 @@ class ReaderPostRenderer {
                     }
                 });
             }
-        }.start();
-    }
-
-    public static boolean hasTiledGallery(String text) {
-        // determine whether a tiled-gallery exists in the content
-        return Pattern.compile("tiled-gallery[\\s\"']").matcher(text).find();
+        });
     }
 
     /*
-     * scan the content for images and make sure they're correctly sized for the device
+     * returns the full HTML for the post - performs all the work of rendering so it should be
+     * called from a background thread
      */
-    private void resizeImages(String content) {
-        ReaderHtmlUtils.HtmlScannerListener imageListener = new ReaderHtmlUtils.HtmlScannerListener() {
+    private String renderHtml() {
+        String content = getPostContent();
+
+        // find the images, iframes, embeds and gallery elements in a single pass
+        ReaderHtmlTagScanner scanner = new ReaderHtmlTagScanner(content);
+        final boolean renderAsTiledGallery = scanner.hasTiledGallery() && mResourceVars.isWideDisplay;
+
+        // unique CSS class assigned to the gallery elements for easy selection
+        final String galleryOnlyClass = renderAsTiledGallery
+                ? "gallery-only-class" + new Random().nextInt(1000) : null;
+
+        // then rewrite them in a single pass over the content
+        String rewrittenContent = scanner.rewrite(new ReaderHtmlTagScanner.TagRewriter() {
             @Override
-            public void onTagFound(String imageTag, String imageUrl) {
-                if (!imageUrl.contains("wpcom-smileys")) {
-                    replaceImageTag(imageTag, imageUrl);
+            public String rewriteTag(@NonNull HtmlTag tag) {
+                if (tag.getType() == TagType.IFRAME) {
+                    return makeIframeTag(tag);
+                }
+                if (renderAsTiledGallery) {
+                    // images in tiled galleries are left as is
+                    return addGalleryOnlyClass(tag, galleryOnlyClass);
                 }
+                if (tag.getType() == TagType.IMG && !tag.getSrc().contains("wpcom-smileys")) {
+                    return makeResizedImageTag(tag);
+                }
+                return null;
             }
-        };
-        ReaderImageScanner scanner = new ReaderImageScanner(content, mPost.isPrivate);
-        scanner.beginScan(imageListener);
+        });
+
+        return formatPostContentForWebView(rewrittenContent,
+                scanner.getEmbedScripts(), renderAsTiledGallery, galleryOnlyClass);
     }
 
     /*
-     * scan the content for iframes and make sure they're correctly sized for the device
+     * adds the custom CSS class to the passed tiled gallery element to make it easier to select
+     * for various rules
      */
-    private void resizeIframes(String content) {
-        ReaderHtmlUtils.HtmlScannerListener iframeListener = new ReaderHtmlUtils.HtmlScannerListener() {
-            @Override
-            public void onTagFound(String tag, String src) {
-                replaceIframeTag(tag, src);
-            }
-        };
-        ReaderIframeScanner scanner = new ReaderIframeScanner(content);
-        scanner.beginScan(iframeListener);
-    }
-
-    private Set<String> injectJSForSpecificEmbedSupport(String content) {
-        final Set<String> jsToInject = new HashSet<>();
-        ReaderHtmlUtils.HtmlScannerListener embedListener = new ReaderHtmlUtils.HtmlScannerListener() {
-            @Override
-            public void onTagFound(String tag, String src) {
-                jsToInject.add(src);
-            }
-        };
-        ReaderEmbedScanner scanner = new ReaderEmbedScanner(content);
-        scanner.beginScan(embedListener);
-        return jsToInject;
+    private static String addGalleryOnlyClass(HtmlTag tag, String galleryOnlyClass) {
+        String className = tag.getClassName();
+        if (className == null) {
+            return null;
+        }
+        return tag.replaceAttribute("class",
+                ReaderHtmlTagScanner.addClassToGalleryClasses(className, galleryOnlyClass));
     }
 
     /*
@@ -171,11 +187,12 @@ class ReaderPostRenderer {
     }
 
     /*
-     * called when image scanner finds an image, tries to replace the image tag with one that
-     * has height & width attributes set correctly for the current display, if that fails
-     * replaces it with one that has our 'size-none' class
+     * called for each image in the content, returns an image tag with height & width attributes
+     * set correctly for the current display, if that fails returns one that has our 'size-none'
+     * class
      */
-    private void replaceImageTag(final String imageTag, final String imageUrl) {
+    private String makeResizedImageTag(final HtmlTag imageTag) {
+        String imageUrl = imageTag.getSrc();
         ImageSize origSize = getImageSize(imageTag, imageUrl);
         boolean hasWidth = (origSize != null && origSize.width > 0);
         boolean isFullSize = hasWidth && (origSize.width >= mMinFullSizeWidthDp);
@@ -183,24 +200,15 @@ class ReaderPostRenderer {
                 && (origSize.width >= mMinMidSizeWidthDp)
                 && (origSize.width < mMinFullSizeWidthDp);
 
-        final String newImageTag;
         if (isFullSize) {
-            newImageTag = makeFullSizeImageTag(imageUrl, origSize.width, origSize.height);
+            return makeFullSizeImageTag(imageUrl, origSize.width, origSize.height);
         } else if (isMidSize) {
-            newImageTag = makeImageTag(imageUrl, origSize.width, origSize.height, "size-medium");
+            return makeImageTag(imageUrl, origSize.width, origSize.height, "size-medium");
         } else if (hasWidth) {
-            newImageTag = makeImageTag(imageUrl, origSize.width, origSize.height, "size-none");
+            return makeImageTag(imageUrl, origSize.width, origSize.height, "size-none");
         } else {
-            newImageTag = "<img class='size-none' src='" + imageUrl + "' />";
-        }
-
-        int start = mRenderBuilder.indexOf(imageTag);
-        if (start == -1) {
-            AppLog.w(AppLog.T.READER, "reader renderer > image not found in builder");
-            return;
+            return "<img class='size-none' src='" + imageUrl + "' />";
         }
-
-        mRenderBuilder.replace(start, start + imageTag.length(), newImageTag);
     }
 
     private String makeImageTag(final String imageUrl, int width, int height, final String imageClass) {
@@ -304,11 +312,11 @@ class ReaderPostRenderer {
     }
 
     /*
-     * replace the passed iframe tag with one that's correctly sized for the device
+     * returns an iframe tag to replace the passed one that's correctly sized for the device
      */
-    private void replaceIframeTag(final String tag, final String src) {
-        int width = ReaderHtmlUtils.getWidthAttrValue(tag);
-        int height = ReaderHtmlUtils.getHeightAttrValue(tag);
+    private String makeIframeTag(final HtmlTag tag) {
+        int width = tag.getIntAttribute("width");
+        int height = tag.getIntAttribute("height");
 
         int newHeight;
         int newWidth;
@@ -321,29 +329,18 @@ class ReaderPostRenderer {
             newHeight = mResourceVars.videoHeightPx;
         }
 
-        String newTag = "<iframe src='" + src + "'" +
+        return "<iframe src='" + tag.getSrc() + "'" +
                 " frameborder='0' allowfullscreen='true' allowtransparency='true'" +
                 " width='" + pxToDp(newWidth) + "'" +
                 " height='" + pxToDp(newHeight) + "' />";
-
-        int start = mRenderBuilder.indexOf(tag);
-        if (start == -1) {
-            AppLog.w(AppLog.T.READER, "reader renderer > iframe not found in builder");
-            return;
-        }
-
-        mRenderBuilder.replace(start, start + tag.length(), newTag);
     }
 
     /*
      * returns the full content, including CSS, that will be shown in the WebView for this post
      */
     private String formatPostContentForWebView(final String content, final Set<String> jsToInject,
-                                               boolean hasTiledGallery, boolean isWideDisplay) {
-        final boolean renderAsTiledGallery = hasTiledGallery && isWideDisplay;
-
-        // unique CSS class assigned to the gallery elements for easy selection
-        final String galleryOnlyClass = "gallery-only-class" + new Random().nextInt(1000);
+                                               boolean renderAsTiledGallery, String galleryOnlyClass) {
+        final boolean isWideDisplay = mResourceVars.isWideDisplay;
 
         @SuppressWarnings("StringBufferReplaceableByString")
         StringBuilder sbHtml = new StringBuilder("<!DOCTYPE html><html><head><meta charset='UTF-8' />");
@@ -523,38 +520,28 @@ class ReaderPostRenderer {
 
         .append("</style>");
 
-        // add a custom CSS class to (any) tiled gallery elements to make them easier selectable for various rules
-        final List<String> classAmendRegexes = Arrays.asList(
-                "(tiled-gallery)([\\s\"\'])",
-                "(gallery-row)([\\s\"'])",
-                "(gallery-group)([\\s\"'])",
-                "(tiled-gallery-item)([\\s\"'])");
-        String contentCustomised = content;
-        for (String classToAmend : classAmendRegexes) {
-            contentCustomised = contentCustomised.replaceAll(classToAmend, "$1 " + galleryOnlyClass + "$2");
-        }
-
+        // scripts required by specific embeds
         for (String jsUrl : jsToInject) {
             sbHtml.append("<script src=\"").append(jsUrl).append("\" type=\"text/javascript\" async></script>");
         }
 
         sbHtml.append("</head><body>")
-        .append(contentCustomised)
+        .append(content)
         .append("</body></html>");
 
         return sbHtml.toString();
     }
 
-    private ImageSize getImageSize(final String imageTag, final String imageUrl) {
+    private ImageSize getImageSize(final HtmlTag imageTag, final String imageUrl) {
         ImageSize size = getImageSizeFromAttachments(imageUrl);
-        if (size == null && imageTag.contains("data-orig-size=")) {
-            size = getImageOriginalSizeFromAttributes(imageTag);
+        if (size == null && imageTag.hasAttribute("data-orig-size")) {
+            size = new ImageSize(imageTag.getOriginalWidth(), imageTag.getOriginalHeight());
         }
         if (size == null && imageUrl.contains("?")) {
             size = getImageSizeFromQueryParams(imageUrl);
         }
-        if (size == null && imageTag.contains("width=")) {
-            size = getImageSizeFromAttributes(imageTag);
+        if (size == null && imageTag.hasAttribute("width")) {
+            size = new ImageSize(imageTag.getIntAttribute("width"), imageTag.getIntAttribute("height"));
         }
         return size;
     }
@@ -588,18 +575,6 @@ class ReaderPostRenderer {
         return null;
     }
 
-    private ImageSize getImageOriginalSizeFromAttributes(final String imageTag) {
-        return new ImageSize(
-                ReaderHtmlUtils.getOriginalWidthAttrValue(imageTag),
-                ReaderHtmlUtils.getOriginalHeightAttrValue(imageTag));
-    }
-
-    private ImageSize getImageSizeFromAttributes(final String imageTag) {
-        return new ImageSize(
-                ReaderHtmlUtils.getWidthAttrValue(imageTag),
-                ReaderHtmlUtils.getHeightAttrValue(imageTag));
-    }
-
     private int pxToDp(int px) {
         if (px == 0) {
             return 0;
@@ -0,0 +1,109 @@
+package org.wordpress.android.ui.reader;
+
+import android.os.Process;
+import android.support.annotation.NonNull;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.Tracer;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * small executor used to render post detail html - kept apart from ReaderSyncExecutor so
+ * rendering never waits behind (or holds up) the reader services, and so the post the user is
+ * looking at can be rendered before posts which are only being prerendered. tasks with the same
+ * priority run in the order they were queued
+ */
+class ReaderRenderExecutor {
+    private static final int NUM_THREADS = 2;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final int PRIORITY_VISIBLE = 0;
+    private static final int PRIORITY_PRERENDER = 1;
+
+    private static final ReaderRenderExecutor INSTANCE = new ReaderRenderExecutor(NUM_THREADS);
+
+    static ReaderRenderExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    private final ThreadPoolExecutor mExecutor;
+    private final AtomicLong mSequence = new AtomicLong();
+
+    ReaderRenderExecutor(int numThreads) {
+        mExecutor = new ThreadPoolExecutor(
+                numThreads,
+                numThreads,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger mCount = new AtomicInteger();
+                    @Override
+                    public Thread newThread(@NonNull final Runnable runnable) {
+                        return new Thread("reader-render-" + mCount.incrementAndGet()) {
+                            @Override
+                            public void run() {
+                                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                runnable.run();
+                            }
+                        };
+                    }
+                });
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /*
+     * renders the post which is being shown - runs ahead of any waiting prerenders
+     */
+    void render(@NonNull String name, @NonNull Runnable task) {
+        mExecutor.execute(new RenderTask(name, PRIORITY_VISIBLE, mSequence.getAndIncrement(), task));
+    }
+
+    /*
+     * renders a post which isn't shown yet - runs once no visible post is waiting to be rendered
+     */
+    void prerender(@NonNull String name, @NonNull Runnable task) {
+        mExecutor.execute(new RenderTask(name, PRIORITY_PRERENDER, mSequence.getAndIncrement(), task));
+    }
+
+    private static class RenderTask implements Runnable, Comparable<RenderTask> {
+        private final String mName;
+        private final int mPriority;
+        private final long mSequence;
+        private final Runnable mTask;
+
+        RenderTask(String name, int priority, long sequence, Runnable task) {
+            mName = name;
+            mPriority = priority;
+            mSequence = sequence;
+            mTask = task;
+        }
+
+        @Override
+        public int compareTo(@NonNull RenderTask another) {
+            if (mPriority != another.mPriority) {
+                return mPriority < another.mPriority ? -1 : 1;
+            }
+            return mSequence < another.mSequence ? -1 : (mSequence == another.mSequence ? 0 : 1);
+        }
+
+        @Override
+        public void run() {
+            Tracer.Span span = Tracer.begin(AppLog.T.READER, mName);
+            try {
+                mTask.run();
+            } catch (RuntimeException e) {
+                AppLog.e(AppLog.T.READER, "reader render > " + mName + " failed", e);
+                throw e;
+            } finally {
+                span.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package org.wordpress.android.ui.reader;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.v4.util.LruCache;
+
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.FileUtils;
+import org.wordpress.android.util.StringUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * size-bounded cache of the fully rendered HTML for post detail, so paging back and forth through
+ * posts (or prerendering the adjacent ones) doesn't pay the render cost again. recently used
+ * HTML is kept in a memory LRU, with an on-disk tier in the cache dir that survives the process
+ * being killed. entries are keyed by the post's pseudo ID, its content fingerprint and the width
+ * it was rendered for, so a changed post or a rotated/resized display results in a new render.
+ */
+public class ReaderRenderedHtmlCache {
+    // bump this whenever ReaderPostRenderer changes its output so stale renders aren't used
+    private static final int RENDER_VERSION = 1;
+
+    // sizes are in chars for the memory tier and bytes for the disk tier
+    static final int DEFAULT_MAX_MEMORY_CHARS = 1024 * 1024;
+    static final long DEFAULT_MAX_DISK_BYTES = 5 * 1024 * 1024;
+
+    private static final String CACHE_DIR_NAME = "reader_html";
+    private static final String FILE_EXTENSION = ".html";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final String CHARSET = "UTF-8";
+
+    private static ReaderRenderedHtmlCache sInstance;
+
+    public static synchronized ReaderRenderedHtmlCache getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            File dir = new File(context.getApplicationContext().getCacheDir(), CACHE_DIR_NAME);
+            sInstance = new ReaderRenderedHtmlCache(dir, DEFAULT_MAX_MEMORY_CHARS, DEFAULT_MAX_DISK_BYTES);
+        }
+        return sInstance;
+    }
+
+    private final LruCache<String, String> mMemoryCache;
+    private final File mDiskDir;
+    private final long mMaxDiskBytes;
+
+    // guards the disk tier - the memory tier is synchronized by LruCache
+    private final Object mDiskLock = new Object();
+
+    ReaderRenderedHtmlCache(@NonNull File diskDir, int maxMemoryChars, long maxDiskBytes) {
+        mDiskDir = diskDir;
+        mMaxDiskBytes = maxDiskBytes;
+        mMemoryCache = new LruCache<String, String>(maxMemoryChars) {
+            @Override
+            protected int sizeOf(String key, String html) {
+                return html.length();
+            }
+        };
+    }
+
+    /*
+     * returns the key for the passed post rendered at the passed width
+     */
+    static String makeKey(@NonNull ReaderPost post, int displayWidthPx) {
+        String postKey = post.getPseudoId();
+        if (postKey.isEmpty()) {
+            postKey = post.blogId + "-" + post.postId + "-" + post.feedId;
+        }
+        return String.format(Locale.US, "%d:%s:%x:%d",
+                RENDER_VERSION, postKey, post.getContentFingerprint(), displayWidthPx);
+    }
+
+    /*
+     * returns the HTML from the memory tier only, so it's safe to call from the main thread
+     */
+    String getFromMemory(@NonNull String key) {
+        return mMemoryCache.get(key);
+    }
+
+    /*
+     * returns the HTML from the memory tier, falling back to the disk tier - must be called from
+     * a background thread
+     */
+    String get(@NonNull String key) {
+        String html = mMemoryCache.get(key);
+        if (html != null) {
+            return html;
+        }
+
+        synchronized (mDiskLock) {
+            File file = getFileForKey(key);
+            if (!file.exists()) {
+                return null;
+            }
+            html = readFile(file);
+            if (html == null) {
+                // unreadable, so don't try it again
+                file.delete();
+                return null;
+            }
+            // refresh the modified time since FileUtils.trimDirectory() removes the oldest files first
+            file.setLastModified(System.currentTimeMillis());
+        }
+
+        mMemoryCache.put(key, html);
+        return html;
+    }
+
+    /*
+     * returns true if the passed key is in either tier without reading it - must be called from
+     * a background thread
+     */
+    boolean contains(@NonNull String key) {
+        if (mMemoryCache.get(key) != null) {
+            return true;
+        }
+        synchronized (mDiskLock) {
+            return getFileForKey(key).exists();
+        }
+    }
+
+    /*
+     * adds the HTML to both tiers - must be called from a background thread
+     */
+    void put(@NonNull String key, @NonNull String html) {
+        mMemoryCache.put(key, html);
+
+        synchronized (mDiskLock) {
+            if (!mDiskDir.exists() && !mDiskDir.mkdirs()) {
+                AppLog.w(AppLog.T.READER, "rendered html cache > unable to create " + mDiskDir);
+                return;
+            }
+            // write to a temp file then rename it so a partially written file is never read
+            File file = getFileForKey(key);
+            File tempFile = new File(mDiskDir, file.getName() + TEMP_EXTENSION);
+            if (writeFile(tempFile, html) && tempFile.renameTo(file)) {
+                FileUtils.trimDirectory(mDiskDir, mMaxDiskBytes, file);
+            } else {
+                tempFile.delete();
+            }
+        }
+    }
+
+    /*
+     * removes everything from both tiers - called when the reader data is reset
+     */
+    public void clear() {
+        mMemoryCache.evictAll();
+        synchronized (mDiskLock) {
+            File[] files = mDiskDir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    int getMemorySize() {
+        return mMemoryCache.size();
+    }
+
+    long getDiskSize() {
+        synchronized (mDiskLock) {
+            long size = 0;
+            File[] files = mDiskDir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    size += file.length();
+                }
+            }
+            return size;
+        }
+    }
+
+    /*
+     * keys contain characters which aren't safe in file names, so files are named by their hash
+     */
+    private File getFileForKey(String key) {
+        return new File(mDiskDir, StringUtils.getMd5Hash(key) + FILE_EXTENSION);
+    }
+
+    private static String readFile(File file) {
+        Reader reader = null;
+        try {
+            reader = new InputStreamReader(new FileInputStream(file), CHARSET);
+            StringBuilder sb = new StringBuilder((int) file.length());
+            char[] buffer = new char[8192];
+            int count;
+            while ((count = reader.read(buffer)) != -1) {
+                sb.append(buffer, 0, count);
+            }
+            return sb.toString();
+        } catch (IOException e) {
+            AppLog.e(AppLog.T.READER, e);
+            return null;
+        } finally {
+            FileUtils.closeQuietly(reader);
+        }
+    }
+
+    private static boolean writeFile(File file, String html) {
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(file), CHARSET);
+            writer.write(html);
+            writer.flush();
+            return true;
+        } catch (IOException e) {
+            AppLog.e(AppLog.T.READER, e);
+            return false;
+        } finally {
+            FileUtils.closeQuietly(writer);
+        }
+    }
+}
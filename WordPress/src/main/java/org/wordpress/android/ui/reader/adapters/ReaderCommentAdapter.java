@@ -428,12 +428,11 @@ public class ReaderCommentAdapter extends RecyclerView.Adapter<RecyclerView.View
             return;
         }
 
-        // if the comment doesn't have a parent we can just add it to the list of existing
-        // comments - but if it does have a parent, we need to reload the list so that it
-        // appears under its parent and is correctly indented
-        if (comment.parentId == 0) {
-            mComments.add(comment);
-            notifyDataSetChanged();
+        // insert the comment under its parent with the correct indentation - if the parent
+        // isn't in the list we need to reload the list
+        int index = ReaderCommentLeveler.insertComment(mComments, comment);
+        if (index > -1) {
+            notifyItemInserted(index + NUM_HEADERS);
         } else {
             refreshComments();
         }
@@ -522,8 +521,21 @@ public class ReaderCommentAdapter extends RecyclerView.Adapter<RecyclerView.View
             int numLocalComments = ReaderCommentTable.getNumCommentsForPost(mPost);
             tmpMoreCommentsExist = (numServerComments > numLocalComments);
 
-            tmpComments = ReaderCommentTable.getCommentsForPost(mPost);
-            return !mComments.isSameList(tmpComments);
+            ReaderCommentList comments = ReaderCommentTable.getCommentsForPost(mPost);
+            if (mComments.isSameList(comments)) {
+                return false;
+            }
+
+            // assign the comments with children sorted under their parents and indent levels
+            // applied - when comments have only been added (such as when a new page of comments
+            // is loaded), they're merged into the existing list rather than leveling them all
+            ReaderCommentList addedComments = mComments.size() > 0 ? mComments.getAddedComments(comments) : null;
+            if (addedComments != null) {
+                tmpComments = ReaderCommentLeveler.addComments(mComments, addedComments);
+            } else {
+                tmpComments = new ReaderCommentLeveler(comments).createLevelList();
+            }
+            return true;
         }
 
         @Override
@@ -531,8 +543,7 @@ public class ReaderCommentAdapter extends RecyclerView.Adapter<RecyclerView.View
             mMoreCommentsExist = tmpMoreCommentsExist;
 
             if (result) {
-                // assign the comments with children sorted under their parents and indent levels applied
-                mComments = new ReaderCommentLeveler(tmpComments).createLevelList();
+                mComments = tmpComments;
                 notifyDataSetChanged();
             }
             if (mDataLoadedListener != null) {
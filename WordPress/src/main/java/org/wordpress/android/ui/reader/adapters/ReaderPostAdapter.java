@@ -2,6 +2,7 @@ package org.wordpress.android.ui.reader.adapters;
 
 import android.content.Context;
 import android.os.AsyncTask;
+import android.support.v7.util.ListUpdateCallback;
 import android.support.v7.widget.CardView;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
@@ -20,7 +21,6 @@ import org.wordpress.android.fluxc.store.SiteStore;
 import org.wordpress.android.models.ReaderCardType;
 import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.models.ReaderPostDiscoverData;
-import org.wordpress.android.models.ReaderPostList;
 import org.wordpress.android.models.ReaderTag;
 import org.wordpress.android.ui.reader.ReaderActivityLauncher;
 import org.wordpress.android.ui.reader.ReaderAnim;
@@ -31,6 +31,9 @@ import org.wordpress.android.ui.reader.actions.ReaderActions;
 import org.wordpress.android.ui.reader.actions.ReaderBlogActions;
 import org.wordpress.android.ui.reader.actions.ReaderPostActions;
 import org.wordpress.android.ui.reader.models.ReaderBlogIdPostId;
+import org.wordpress.android.ui.reader.models.ReaderPostKeyList;
+import org.wordpress.android.ui.reader.models.ReaderPostListDiff;
+import org.wordpress.android.ui.reader.models.ReaderPostPagedList;
 import org.wordpress.android.ui.reader.utils.ReaderUtils;
 import org.wordpress.android.ui.reader.utils.ReaderXPostUtils;
 import org.wordpress.android.ui.reader.views.ReaderFollowButton;
@@ -49,6 +52,7 @@ import org.wordpress.android.util.ToastUtils;
 import org.wordpress.android.widgets.WPNetworkImageView;
 
 import java.util.HashSet;
+import java.util.List;
 
 import javax.inject.Inject;
 
@@ -68,7 +72,7 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     private final boolean mIsLoggedOutReader;
 
     private final ReaderTypes.ReaderPostListType mPostListType;
-    private final ReaderPostList mPosts = new ReaderPostList();
+    private ReaderPostPagedList mPosts = new ReaderPostPagedList();
     private final HashSet<String> mRenderedIds = new HashSet<>();
 
     private ReaderInterfaces.OnPostSelectedListener mPostSelectedListener;
@@ -77,8 +81,6 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     private ReaderActions.DataRequestedListener mDataRequestedListener;
     private ReaderSiteHeaderView.OnBlogInfoLoadedListener mBlogInfoLoadedListener;
 
-    // the large "tbl_posts.text" column is unused here, so skip it when querying
-    private static final boolean EXCLUDE_TEXT_COLUMN = true;
     private static final int MAX_ROWS = ReaderConstants.READER_MAX_POSTS_TO_DISPLAY;
 
     private static final int VIEW_TYPE_POST        = 0;
@@ -329,9 +331,14 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
 
     private void renderXPost(int position, ReaderXPostViewHolder holder) {
         final ReaderPost post = getItem(position);
+        loadPagesAround(position);
         if (post == null) {
+            // page hasn't been loaded yet, so show an empty card until it is
+            holder.cardView.setVisibility(View.INVISIBLE);
+            checkLoadMore(position);
             return;
         }
+        holder.cardView.setVisibility(View.VISIBLE);
 
         if (post.hasPostAvatar()) {
             holder.imgAvatar.setImageUrl(
@@ -358,9 +365,14 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     private void renderPost(int position, ReaderPostViewHolder holder) {
         final ReaderPost post = getItem(position);
         ReaderTypes.ReaderPostListType postListType = getPostListType();
+        loadPagesAround(position);
         if (post == null) {
+            // page hasn't been loaded yet, so show an empty card until it is
+            holder.cardView.setVisibility(View.INVISIBLE);
+            checkLoadMore(position);
             return;
         }
+        holder.cardView.setVisibility(View.VISIBLE);
 
         holder.txtDateline.setText(DateTimeUtils.javaDateToTimeSpan(post.getDisplayDate(), WordPress.getContext()));
 
@@ -667,7 +679,7 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
 
     public void clear() {
         if (!mPosts.isEmpty()) {
-            mPosts.clear();
+            mPosts = new ReaderPostPagedList();
             notifyDataSetChanged();
         }
     }
@@ -685,15 +697,7 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     }
 
     public void removePostsInBlog(long blogId) {
-        int numRemoved = 0;
-        ReaderPostList postsInBlog = mPosts.getPostsInBlog(blogId);
-        for (ReaderPost post : postsInBlog) {
-            int index = mPosts.indexOfPost(post);
-            if (index > -1) {
-                numRemoved++;
-                mPosts.remove(index);
-            }
-        }
+        int numRemoved = mPosts.removePostsInBlog(blogId);
         if (numRemoved > 0) {
             notifyDataSetChanged();
         }
@@ -707,12 +711,25 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         new LoadPostsTask().executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
     }
 
+    /*
+     * returns the post at the passed adapter position, or null if the position isn't a post or
+     * the page containing the post hasn't been loaded yet
+     */
     private ReaderPost getItem(int position) {
+        int index = getPostIndex(position);
+        return index > -1 ? mPosts.getIfLoaded(index) : null;
+    }
+
+    /*
+     * returns the index in mPosts of the post at the passed adapter position, or -1 if the
+     * position is the header or gap marker
+     */
+    private int getPostIndex(int position) {
         if (position == 0 && hasCustomFirstItem()) {
-            return null;
+            return -1;
         }
         if (position == mGapMarkerPosition) {
-            return null;
+            return -1;
         }
 
         int arrayPos = hasCustomFirstItem() ? position - 1 : position;
@@ -721,7 +738,46 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
             arrayPos--;
         }
 
-        return mPosts.get(arrayPos);
+        return arrayPos;
+    }
+
+    /*
+     * inverse of getPostIndex()
+     */
+    private int getAdapterPosition(int index) {
+        int position = hasCustomFirstItem() ? index + 1 : index;
+        if (mGapMarkerPosition > -1 && position >= mGapMarkerPosition) {
+            position++;
+        }
+        return position;
+    }
+
+    /*
+     * loads the pages of posts near the passed position in the background, so pages are
+     * usually loaded before they're scrolled into view
+     */
+    private void loadPagesAround(int position) {
+        int index = getPostIndex(position);
+        if (index < 0) {
+            return;
+        }
+        final ReaderPostPagedList posts = mPosts;
+        posts.loadPagesAround(index, new ReaderPostPagedList.OnPageLoadedListener() {
+            @Override
+            public void onPageLoaded(int fromIndex, int toIndex) {
+                if (posts != mPosts) {
+                    return;
+                }
+                int fromPosition = getAdapterPosition(fromIndex);
+                notifyItemRangeChanged(fromPosition, getAdapterPosition(toIndex) - fromPosition + 1);
+
+                // reload the list if the page no longer matches the db
+                if (mPosts.isStale() && !mIsTaskRunning) {
+                    AppLog.w(AppLog.T.READER, "reader post adapter > stale page, reloading");
+                    loadPosts();
+                }
+            }
+        });
     }
 
     @Override
@@ -745,8 +801,13 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
             case VIEW_TYPE_GAP_MARKER :
                 return ITEM_ID_GAP_MARKER;
             default:
-                ReaderPost post = getItem(position);
-                return post != null ? post.getStableId() : 0;
+                // ids come from the keys rather than the posts, since a post's page may not be
+                // loaded yet and the id mustn't change when it is
+                int index = getPostIndex(position);
+                if (index < 0 || index >= mPosts.size()) {
+                    return RecyclerView.NO_ID;
+                }
+                return mPosts.getKeys().get(index).getStableId();
         }
     }
 
@@ -832,10 +893,10 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         }
 
         // update post in array and on screen
-        int position = mPosts.indexOfPost(post);
+        int index = mPosts.indexOfPost(post);
         ReaderPost updatedPost = ReaderPostTable.getBlogPost(post.blogId, post.postId, true);
-        if (updatedPost != null && position > -1) {
-            mPosts.set(position, updatedPost);
+        if (updatedPost != null && index > -1) {
+            mPosts.set(index, updatedPost);
             showLikes(holder, updatedPost);
         }
     }
@@ -873,14 +934,9 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     }
 
     public void setFollowStatusForBlog(long blogId, boolean isFollowing) {
-        ReaderPost post;
-        for (int i = 0; i < mPosts.size(); i++) {
-            post = mPosts.get(i);
-            if (post.blogId == blogId && post.isFollowedByCurrentUser != isFollowing) {
-                post.isFollowedByCurrentUser = isFollowing;
-                mPosts.set(i, post);
-                notifyItemChanged(i);
-            }
+        // posts that aren't in memory will pick up the change from the db when they're loaded
+        for (int index : mPosts.setFollowStatusForBlog(blogId, isFollowing)) {
+            notifyItemChanged(getAdapterPosition(index));
         }
     }
 
@@ -900,11 +956,15 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     private boolean mIsTaskRunning = false;
 
     private class LoadPostsTask extends AsyncTask<Void, Void, Boolean> {
-        ReaderPostList allPosts;
+        ReaderPostPagedList allPosts;
+        ReaderPostPagedList currentPosts;
+        ReaderPostListDiff diff;
+        int gapMarkerPosition;
 
         @Override
         protected void onPreExecute() {
             mIsTaskRunning = true;
+            currentPosts = mPosts.snapshot();
         }
 
         @Override
@@ -914,20 +974,23 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
 
         @Override
         protected Boolean doInBackground(Void... params) {
+            // only the keys are loaded for the entire list - posts themselves are loaded a page at
+            // a time as they're displayed
+            ReaderPostKeyList keys;
             int numExisting;
             switch (getPostListType()) {
                 case TAG_PREVIEW:
                 case TAG_FOLLOWED:
                 case SEARCH_RESULTS:
-                    allPosts = ReaderPostTable.getPostsWithTag(mCurrentTag, MAX_ROWS, EXCLUDE_TEXT_COLUMN);
+                    keys = ReaderPostTable.getPostKeysWithTag(mCurrentTag, MAX_ROWS);
                     numExisting = ReaderPostTable.getNumPostsWithTag(mCurrentTag);
                     break;
                 case BLOG_PREVIEW:
                     if (mCurrentFeedId != 0) {
-                        allPosts = ReaderPostTable.getPostsInFeed(mCurrentFeedId, MAX_ROWS, EXCLUDE_TEXT_COLUMN);
+                        keys = ReaderPostTable.getPostKeysInFeed(mCurrentFeedId, MAX_ROWS);
                         numExisting = ReaderPostTable.getNumPostsInFeed(mCurrentFeedId);
                     } else {
-                        allPosts = ReaderPostTable.getPostsInBlog(mCurrentBlogId, MAX_ROWS, EXCLUDE_TEXT_COLUMN);
+                        keys = ReaderPostTable.getPostKeysInBlog(mCurrentBlogId, MAX_ROWS);
                         numExisting = ReaderPostTable.getNumPostsInBlog(mCurrentBlogId);
                     }
                     break;
@@ -935,7 +998,23 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
                     return false;
             }
 
-            if (mPosts.isSameList(allPosts)) {
+            // preload the pages currently in memory (or just the first page if none are) so the
+            // visible posts don't have to be loaded on the UI thread
+            allPosts = new ReaderPostPagedList(keys);
+            List<Integer> pages = currentPosts.getLoadedPages();
+            if (pages.isEmpty()) {
+                pages.add(0);
+            }
+            int numPages = (keys.size() + ReaderPostPagedList.PAGE_SIZE - 1) / ReaderPostPagedList.PAGE_SIZE;
+            for (int page : pages) {
+                if (page < numPages) {
+                    allPosts.loadPage(page);
+                }
+            }
+
+            // diff the lists here so the UI thread only has to dispatch the changes
+            diff = ReaderPostListDiff.calculate(currentPosts, allPosts);
+            if (diff != null && diff.isEmpty() && currentPosts.getKeys().isSameList(allPosts.getKeys())) {
                 return false;
             }
 
@@ -944,7 +1023,7 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
             mCanRequestMorePosts = (numExisting < ReaderConstants.READER_MAX_POSTS_TO_DISPLAY);
 
             // determine whether a gap marker exists - only applies to tagged posts
-            mGapMarkerPosition = getGapMarkerPosition();
+            gapMarkerPosition = getGapMarkerPosition();
 
             return true;
         }
@@ -984,9 +1063,45 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         @Override
         protected void onPostExecute(Boolean result) {
             if (result) {
-                mPosts.clear();
-                mPosts.addAll(allPosts);
-                notifyDataSetChanged();
+                // the changes can only be dispatched if the list hasn't changed since it was
+                // diffed, and the header and gap marker don't shift the posts around (the header
+                // is only added or removed when the list becomes empty or not)
+                boolean canDispatchChanges = diff != null
+                        && mGapMarkerPosition == -1
+                        && gapMarkerPosition == -1
+                        && !mPosts.isEmpty()
+                        && !allPosts.isEmpty()
+                        && mPosts.getKeys().isSameList(currentPosts.getKeys());
+                final int offset = hasCustomFirstItem() ? 1 : 0;
+
+                mPosts = allPosts;
+                mGapMarkerPosition = gapMarkerPosition;
+                if (canDispatchChanges) {
+                    AppLog.d(AppLog.T.READER, "reader post adapter > dispatching " + diff.size() + " changes");
+                    diff.dispatchUpdatesTo(new ListUpdateCallback() {
+                        @Override
+                        public void onInserted(int position, int count) {
+                            notifyItemRangeInserted(position + offset, count);
+                        }
+
+                        @Override
+                        public void onRemoved(int position, int count) {
+                            notifyItemRangeRemoved(position + offset, count);
+                        }
+
+                        @Override
+                        public void onMoved(int fromPosition, int toPosition) {
+                            notifyItemMoved(fromPosition + offset, toPosition + offset);
+                        }
+
+                        @Override
+                        public void onChanged(int position, int count, Object payload) {
+                            notifyItemRangeChanged(position + offset, count, payload);
+                        }
+                    });
+                } else {
+                    notifyDataSetChanged();
+                }
             }
 
             if (mDataLoadedListener != null) {
@@ -20,4 +20,21 @@ public class ReaderBlogIdPostId implements Serializable {
     public long getPostId() {
         return postId;
     }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ReaderBlogIdPostId)) {
+            return false;
+        }
+        ReaderBlogIdPostId ids = (ReaderBlogIdPostId) other;
+        return ids.blogId == this.blogId && ids.postId == this.postId;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (int) (blogId ^ (blogId >>> 32)) + (int) (postId ^ (postId >>> 32));
+    }
 }
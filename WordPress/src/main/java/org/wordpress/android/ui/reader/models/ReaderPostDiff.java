@@ -0,0 +1,81 @@
+package org.wordpress.android.ui.reader.models;
+
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.ui.reader.actions.ReaderActions.UpdateResult;
+
+import java.util.HashMap;
+
+/**
+ * result of comparing a list of server posts against existing local posts - built in a single
+ * pass by ReaderPostTable.diffPosts() and used after posts are retrieved to determine whether
+ * any are new or changed, and whether any of them already exist locally (overlap)
+ */
+public class ReaderPostDiff {
+    public enum PostState {
+        NEW,        // post doesn't exist locally
+        CHANGED,    // post exists locally but has changed
+        UNCHANGED   // post exists locally and hasn't changed
+    }
+
+    private final HashMap<ReaderBlogIdPostId, PostState> mStates = new HashMap<>();
+    private int mNumNew;
+    private int mNumChanged;
+
+    public void setState(long blogId, long postId, PostState state) {
+        PostState oldState = mStates.put(new ReaderBlogIdPostId(blogId, postId), state);
+        if (oldState == PostState.NEW) {
+            mNumNew--;
+        } else if (oldState == PostState.CHANGED) {
+            mNumChanged--;
+        }
+        if (state == PostState.NEW) {
+            mNumNew++;
+        } else if (state == PostState.CHANGED) {
+            mNumChanged++;
+        }
+    }
+
+    public PostState getState(ReaderPost post) {
+        if (post == null) {
+            return null;
+        }
+        return getState(post.blogId, post.postId);
+    }
+
+    public PostState getState(long blogId, long postId) {
+        return mStates.get(new ReaderBlogIdPostId(blogId, postId));
+    }
+
+    public int size() {
+        return mStates.size();
+    }
+
+    public int getNumNew() {
+        return mNumNew;
+    }
+
+    public int getNumChanged() {
+        return mNumChanged;
+    }
+
+    /*
+     * returns true if any of the compared posts already exist locally
+     */
+    public boolean hasOverlap() {
+        return mNumNew < mStates.size();
+    }
+
+    /*
+     * returns the same result ReaderPostTable.comparePosts() has always returned - HAS_NEW if
+     * any post is new, CHANGED if any existing post has changed, otherwise UNCHANGED
+     */
+    public UpdateResult getUpdateResult() {
+        if (mNumNew > 0) {
+            return UpdateResult.HAS_NEW;
+        } else if (mNumChanged > 0) {
+            return UpdateResult.CHANGED;
+        } else {
+            return UpdateResult.UNCHANGED;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.wordpress.android.ui.reader.models;
+
+/**
+ * identifies a post in a list of reader posts along with its position in the sort order - the
+ * sort value (the value of the tag's sort column) and pseudo_id together form the key used for
+ * keyset pagination in ReaderPostTable.getPostsInKeyRange(). the sort value keeps the type it
+ * has in the db (String, Long or Double) so it can be bound without losing precision
+ */
+public class ReaderPostKey {
+    private final long blogId;
+    private final long postId;
+    private final String pseudoId;
+    private final Object sortValue;
+
+    public ReaderPostKey(long blogId, long postId, String pseudoId, Object sortValue) {
+        this.blogId = blogId;
+        this.postId = postId;
+        this.pseudoId = pseudoId;
+        this.sortValue = sortValue;
+    }
+
+    public long getBlogId() {
+        return blogId;
+    }
+
+    public long getPostId() {
+        return postId;
+    }
+
+    public String getPseudoId() {
+        return pseudoId;
+    }
+
+    public Object getSortValue() {
+        return sortValue;
+    }
+
+    /*
+     * 64-bit hash of the pseudo_id, used as the post's RecyclerView item id since the key
+     * exists for every post in the list whether or not its page has been loaded
+     */
+    public long getStableId() {
+        long hash = 1125899906842597L;
+        for (int i = 0; i < pseudoId.length(); i++) {
+            hash = 31 * hash + pseudoId.charAt(i);
+        }
+        return hash;
+    }
+
+    public boolean isSameKey(ReaderPostKey key) {
+        return key != null
+                && key.blogId == this.blogId
+                && key.postId == this.postId
+                && key.pseudoId.equals(this.pseudoId)
+                && key.sortValue.equals(this.sortValue);
+    }
+}
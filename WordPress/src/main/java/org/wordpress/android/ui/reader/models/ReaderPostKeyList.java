@@ -0,0 +1,68 @@
+package org.wordpress.android.ui.reader.models;
+
+import org.wordpress.android.models.ReaderTag;
+
+import java.util.ArrayList;
+
+/**
+ * ordered keys of the posts with a specific tag or in a specific blog/feed - created by
+ * ReaderPostTable.getPostKeysWithTag(), getPostKeysInBlog() and getPostKeysInFeed(),
+ * which record the source of the keys so pages of posts can later be loaded from it
+ */
+public class ReaderPostKeyList extends ArrayList<ReaderPostKey> {
+    private final ReaderTag tag;
+    private final long blogId;
+    private final long feedId;
+
+    public ReaderPostKeyList() {
+        this(null, 0, 0);
+    }
+
+    public ReaderPostKeyList(ReaderTag tag, long blogId, long feedId) {
+        super();
+        this.tag = tag;
+        this.blogId = blogId;
+        this.feedId = feedId;
+    }
+
+    public ReaderPostKeyList(ReaderPostKeyList keys) {
+        this(keys.tag, keys.blogId, keys.feedId);
+        addAll(keys);
+    }
+
+    public ReaderTag getTag() {
+        return tag;
+    }
+
+    public long getBlogId() {
+        return blogId;
+    }
+
+    public long getFeedId() {
+        return feedId;
+    }
+
+    public int indexOf(long blogId, long postId) {
+        for (int i = 0; i < this.size(); i++) {
+            if (this.get(i).getBlogId() == blogId && this.get(i).getPostId() == postId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * does the passed list contain the same keys in the same order as this list?
+     */
+    public boolean isSameList(ReaderPostKeyList keys) {
+        if (keys == null || keys.size() != this.size()) {
+            return false;
+        }
+        for (int i = 0; i < this.size(); i++) {
+            if (!this.get(i).isSameKey(keys.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,329 @@
+package org.wordpress.android.ui.reader.models;
+
+import android.support.annotation.NonNull;
+import android.support.v7.util.ListUpdateCallback;
+
+import org.wordpress.android.models.ReaderPost;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * the changes between two lists of reader posts - used when the post adapter reloads so it can
+ * notify the RecyclerView of the posts which were inserted, removed, moved or changed rather
+ * than rebinding every post.
+ *
+ * posts are matched by pseudo_id using a hash map, so matching is linear in the size of the
+ * lists (rather than searching one list for each post in the other), and moves are kept to a
+ * minimum by leaving the longest run of posts which are still in the same order where they are.
+ * posts are only compared for changes when they're in memory in the old list, since those are
+ * the only ones which may be on screen.
+ */
+public class ReaderPostListDiff {
+    private static final int INSERT = 0;
+    private static final int REMOVE = 1;
+    private static final int MOVE   = 2;
+    private static final int CHANGE = 3;
+
+    private static class Update {
+        final int type;
+        final int position;
+        // item count for inserts, removals and changes, destination for moves
+        final int countOrTo;
+
+        Update(int type, int position, int countOrTo) {
+            this.type = type;
+            this.position = position;
+            this.countOrTo = countOrTo;
+        }
+    }
+
+    private final List<Update> mUpdates = new ArrayList<>();
+
+    private ReaderPostListDiff() {
+    }
+
+    /*
+     * returns the changes needed to turn the old list into the new one, or null if they can't
+     * be determined (ie: either list contains placeholders for deleted posts, or the same post
+     * more than once) - must be called on a background thread since pages of the new list which
+     * contain changed posts may be loaded from the db
+     */
+    public static ReaderPostListDiff calculate(@NonNull ReaderPostPagedList oldList,
+                                               @NonNull ReaderPostPagedList newList) {
+        if (oldList.isStale()) {
+            return null;
+        }
+
+        ReaderPostKeyList oldKeys = oldList.getKeys();
+        ReaderPostKeyList newKeys = newList.getKeys();
+
+        HashMap<String, Integer> newIndexes = new HashMap<>(newKeys.size() * 2);
+        for (int i = 0; i < newKeys.size(); i++) {
+            if (newIndexes.put(newKeys.get(i).getPseudoId(), i) != null) {
+                return null;
+            }
+        }
+
+        // new index of each old post, or -1 if it was removed
+        int[] oldToNew = new int[oldKeys.size()];
+        // old index of each new post, or -1 if it was inserted
+        int[] newToOld = new int[newKeys.size()];
+        Arrays.fill(newToOld, -1);
+        for (int i = 0; i < oldKeys.size(); i++) {
+            Integer newIndex = newIndexes.get(oldKeys.get(i).getPseudoId());
+            if (newIndex == null) {
+                oldToNew[i] = -1;
+            } else if (newToOld[newIndex] != -1) {
+                return null;
+            } else {
+                oldToNew[i] = newIndex;
+                newToOld[newIndex] = i;
+            }
+        }
+
+        ReaderPostListDiff diff = new ReaderPostListDiff();
+        diff.addRemovals(oldToNew);
+        diff.addMoves(oldToNew, newToOld);
+        diff.addInsertions(newToOld);
+        if (!diff.addChanges(oldList, newList, newToOld)) {
+            return null;
+        }
+        return diff;
+    }
+
+    /*
+     * removals are dispatched from the end of the list so earlier positions aren't affected
+     */
+    private void addRemovals(int[] oldToNew) {
+        int end = oldToNew.length - 1;
+        while (end >= 0) {
+            if (oldToNew[end] != -1) {
+                end--;
+                continue;
+            }
+            int start = end;
+            while (start > 0 && oldToNew[start - 1] == -1) {
+                start--;
+            }
+            mUpdates.add(new Update(REMOVE, start, end - start + 1));
+            end = start - 1;
+        }
+    }
+
+    /*
+     * after the removals the list contains the remaining posts in their old order - posts
+     * outside the longest increasing run of new positions are moved, in new order, to follow
+     * the post which precedes them in the new list. a moved post therefore ends up in a chain
+     * after the nearest preceding post which isn't moved (or at the start of the list), so every
+     * post's place can be given a slot up front, and the position of a slot is found by counting
+     * the occupied slots before it in a binary indexed tree - O(n log n) rather than searching
+     * and shifting a list for each move
+     */
+    private void addMoves(int[] oldToNew, int[] newToOld) {
+        // rank of each remaining post in the new list, in old order
+        int[] newRanks = new int[oldToNew.length];
+        int[] rankByNewIndex = new int[newToOld.length];
+        int numRemaining = 0;
+        for (int newIndex = 0; newIndex < newToOld.length; newIndex++) {
+            if (newToOld[newIndex] != -1) {
+                rankByNewIndex[newIndex] = numRemaining++;
+            }
+        }
+        int count = 0;
+        for (int newIndex : oldToNew) {
+            if (newIndex != -1) {
+                newRanks[count++] = rankByNewIndex[newIndex];
+            }
+        }
+
+        boolean[] isInPlace = getLongestIncreasingRun(newRanks, numRemaining);
+        int[] positionByRank = new int[numRemaining];
+        for (int i = 0; i < numRemaining; i++) {
+            positionByRank[newRanks[i]] = i;
+        }
+
+        // the post each moved rank is chained after (-1 for the start of the list), its offset
+        // in that chain, and the length of the chain after each post
+        int[] anchors = new int[numRemaining];
+        int[] offsets = new int[numRemaining];
+        int[] chainLengths = new int[numRemaining];
+        int numStartChain = 0;
+        int anchor = -1;
+        for (int rank = 0; rank < numRemaining; rank++) {
+            int position = positionByRank[rank];
+            if (isInPlace[position]) {
+                anchor = position;
+            } else {
+                anchors[rank] = anchor;
+                offsets[rank] = (anchor == -1) ? ++numStartChain : ++chainLengths[anchor];
+            }
+        }
+
+        // slots are the start chain, then each post's old place followed by its chain
+        int[] slots = new int[numRemaining];
+        int numSlots = numStartChain;
+        for (int i = 0; i < numRemaining; i++) {
+            slots[i] = numSlots;
+            numSlots += 1 + chainLengths[i];
+        }
+
+        int[] tree = new int[numSlots + 1];
+        for (int i = 0; i < numRemaining; i++) {
+            addToTree(tree, slots[i], 1);
+        }
+
+        for (int rank = 0; rank < numRemaining; rank++) {
+            int position = positionByRank[rank];
+            if (isInPlace[position]) {
+                continue;
+            }
+            int fromSlot = slots[position];
+            int toSlot = (anchors[rank] == -1)
+                    ? offsets[rank] - 1
+                    : slots[anchors[rank]] + offsets[rank];
+            addToTree(tree, fromSlot, -1);
+            int from = countInTree(tree, fromSlot);
+            int to = countInTree(tree, toSlot);
+            addToTree(tree, toSlot, 1);
+            if (from != to) {
+                mUpdates.add(new Update(MOVE, from, to));
+            }
+        }
+    }
+
+    private static void addToTree(int[] tree, int slot, int delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /*
+     * returns the number of occupied slots before the passed one
+     */
+    private static int countInTree(int[] tree, int slot) {
+        int count = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    /*
+     * returns which items in the passed sequence of distinct ranks form its longest increasing
+     * subsequence (patience sorting, O(n log n))
+     */
+    static boolean[] getLongestIncreasingRun(int[] ranks, int length) {
+        int[] tailIndexes = new int[length];
+        int[] previous = new int[length];
+        int numTails = 0;
+        for (int i = 0; i < length; i++) {
+            int low = 0;
+            int high = numTails;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ranks[tailIndexes[mid]] < ranks[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = (low > 0) ? tailIndexes[low - 1] : -1;
+            tailIndexes[low] = i;
+            if (low == numTails) {
+                numTails++;
+            }
+        }
+
+        boolean[] result = new boolean[length];
+        int index = (numTails > 0) ? tailIndexes[numTails - 1] : -1;
+        while (index != -1) {
+            result[index] = true;
+            index = previous[index];
+        }
+        return result;
+    }
+
+    /*
+     * after the moves the list contains the remaining posts in their new order, so insertions
+     * are dispatched in ascending order at their new positions
+     */
+    private void addInsertions(int[] newToOld) {
+        int start = 0;
+        while (start < newToOld.length) {
+            if (newToOld[start] != -1) {
+                start++;
+                continue;
+            }
+            int end = start;
+            while (end + 1 < newToOld.length && newToOld[end + 1] == -1) {
+                end++;
+            }
+            mUpdates.add(new Update(INSERT, start, end - start + 1));
+            start = end + 1;
+        }
+    }
+
+    /*
+     * the list now matches the new list, so changes are dispatched at their new positions -
+     * returns false if the new list turns out to contain placeholders for deleted posts
+     */
+    private boolean addChanges(ReaderPostPagedList oldList, ReaderPostPagedList newList, int[] newToOld) {
+        int runStart = -1;
+        for (int newIndex = 0; newIndex <= newToOld.length; newIndex++) {
+            boolean isChanged = false;
+            if (newIndex < newToOld.length && newToOld[newIndex] != -1) {
+                ReaderPost oldPost = oldList.getIfLoaded(newToOld[newIndex]);
+                if (oldPost != null) {
+                    int page = newIndex / ReaderPostPagedList.PAGE_SIZE;
+                    if (!newList.isPageLoaded(page)) {
+                        newList.loadPage(page);
+                    }
+                    if (newList.isStale()) {
+                        return false;
+                    }
+                    isChanged = !oldPost.isSamePost(newList.getIfLoaded(newIndex));
+                }
+            }
+            if (isChanged && runStart == -1) {
+                runStart = newIndex;
+            } else if (!isChanged && runStart != -1) {
+                mUpdates.add(new Update(CHANGE, runStart, newIndex - runStart));
+                runStart = -1;
+            }
+        }
+        return !newList.isStale();
+    }
+
+    public boolean isEmpty() {
+        return mUpdates.isEmpty();
+    }
+
+    public int size() {
+        return mUpdates.size();
+    }
+
+    /*
+     * dispatches the changes in the order they must be applied
+     */
+    public void dispatchUpdatesTo(@NonNull ListUpdateCallback callback) {
+        for (Update update : mUpdates) {
+            switch (update.type) {
+                case INSERT:
+                    callback.onInserted(update.position, update.countOrTo);
+                    break;
+                case REMOVE:
+                    callback.onRemoved(update.position, update.countOrTo);
+                    break;
+                case MOVE:
+                    callback.onMoved(update.position, update.countOrTo);
+                    break;
+                case CHANGE:
+                    callback.onChanged(update.position, update.countOrTo, null);
+                    break;
+            }
+        }
+    }
+}
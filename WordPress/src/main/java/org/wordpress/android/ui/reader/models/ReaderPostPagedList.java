@@ -0,0 +1,306 @@
+package org.wordpress.android.ui.reader.models;
+
+import android.os.AsyncTask;
+import android.support.annotation.NonNull;
+import android.util.SparseArray;
+
+import org.wordpress.android.datasets.ReaderPostTable;
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderPostList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * list of reader posts which only keeps a window of pages in memory - the ordered keys of
+ * every post in the list are loaded up front, but the posts themselves are loaded a page at a
+ * time in the background as the list is scrolled, and pages far from the most recently bound
+ * one are evicted. this keeps memory flat regardless of the size of the list, and means only
+ * the first page needs to be loaded before the list is first displayed.
+ *
+ * this isn't thread-safe - it's intended to be accessed from the UI thread once it's been
+ * passed to the adapter, use snapshot() to compare it with another list on a background thread
+ */
+public class ReaderPostPagedList {
+    public static final int PAGE_SIZE = 20;
+
+    // # pages on either side of the most recently bound page which are kept in memory
+    private static final int PAGE_WINDOW = 2;
+
+    // # pages on either side of the most recently bound page which are loaded ahead of time
+    private static final int PREFETCH_PAGES = 1;
+
+    public interface OnPageLoadedListener {
+        /*
+         * called on the UI thread when the posts at the passed indexes (inclusive) have been loaded
+         */
+        void onPageLoaded(int fromIndex, int toIndex);
+    }
+
+    private final ReaderPostKeyList mKeys;
+    private final SparseArray<ReaderPostList> mPages = new SparseArray<>();
+    private final HashSet<Integer> mLoadingPages = new HashSet<>();
+    private int mCurrentPage;
+    private boolean mIsStale;
+
+    // incremented when the keys change, so pages loaded for the previous keys are discarded
+    private int mGeneration;
+
+    public ReaderPostPagedList() {
+        this(new ReaderPostKeyList());
+    }
+
+    public ReaderPostPagedList(@NonNull ReaderPostKeyList keys) {
+        mKeys = keys;
+    }
+
+    public int size() {
+        return mKeys.size();
+    }
+
+    public boolean isEmpty() {
+        return mKeys.isEmpty();
+    }
+
+    public ReaderPostKeyList getKeys() {
+        return mKeys;
+    }
+
+    /*
+     * returns true if a page didn't match its keys when it was loaded, which means the posts
+     * changed after the keys were loaded and the list should be reloaded
+     */
+    public boolean isStale() {
+        return mIsStale;
+    }
+
+    /*
+     * returns the post at the passed index if its page is in memory, otherwise null - this never
+     * touches the db, use loadPagesAround() to load the page
+     */
+    public ReaderPost getIfLoaded(int index) {
+        int page = index / PAGE_SIZE;
+        ReaderPostList posts = mPages.get(page);
+        return posts != null ? posts.get(index - (page * PAGE_SIZE)) : null;
+    }
+
+    public boolean isPageLoaded(int page) {
+        return mPages.get(page) != null;
+    }
+
+    /*
+     * replaces the post at the passed index if its page is in memory - posts in pages that
+     * aren't in memory will be read from the db when their page is next loaded
+     */
+    public void set(int index, ReaderPost post) {
+        int page = index / PAGE_SIZE;
+        ReaderPostList posts = mPages.get(page);
+        if (posts != null) {
+            posts.set(index - (page * PAGE_SIZE), post);
+        }
+    }
+
+    public int indexOfPost(ReaderPost post) {
+        if (post == null) {
+            return -1;
+        }
+        return mKeys.indexOf(post.blogId, post.postId);
+    }
+
+    public int indexOfIds(ReaderBlogIdPostId ids) {
+        if (ids == null) {
+            return -1;
+        }
+        return mKeys.indexOf(ids.getBlogId(), ids.getPostId());
+    }
+
+    /*
+     * loads the page containing the passed index and the pages either side of it in the
+     * background if they're not already in memory, and evicts pages which are no longer near
+     * it - the listener is called as each page is loaded. must be called from the UI thread
+     */
+    public void loadPagesAround(int index, @NonNull OnPageLoadedListener listener) {
+        if (index < 0 || index >= mKeys.size()) {
+            return;
+        }
+
+        mCurrentPage = index / PAGE_SIZE;
+        evictDistantPages(mCurrentPage);
+
+        int lastPage = (mKeys.size() - 1) / PAGE_SIZE;
+        for (int page = Math.max(0, mCurrentPage - PREFETCH_PAGES);
+             page <= Math.min(lastPage, mCurrentPage + PREFETCH_PAGES);
+             page++) {
+            if (mPages.get(page) == null && !mLoadingPages.contains(page)) {
+                mLoadingPages.add(page);
+                new LoadPageTask(page, listener).executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+            }
+        }
+    }
+
+    private class LoadPageTask extends AsyncTask<Void, Void, ReaderPostList> {
+        private final int mPage;
+        private final int mTaskGeneration;
+        private final ReaderPostKeyList mPageKeys;
+        private final OnPageLoadedListener mListener;
+        private boolean mIsPageStale;
+
+        LoadPageTask(int page, @NonNull OnPageLoadedListener listener) {
+            mPage = page;
+            mTaskGeneration = mGeneration;
+            mListener = listener;
+            // the task reads a copy of the page's keys since the list's keys may change while
+            // it's running
+            int fromIndex = page * PAGE_SIZE;
+            int toIndex = Math.min(fromIndex + PAGE_SIZE, mKeys.size());
+            mPageKeys = new ReaderPostKeyList(mKeys.getTag(), mKeys.getBlogId(), mKeys.getFeedId());
+            mPageKeys.addAll(mKeys.subList(fromIndex, toIndex));
+        }
+
+        @Override
+        protected ReaderPostList doInBackground(Void... params) {
+            ReaderPostList posts = new ReaderPostList();
+            mIsPageStale = readPosts(mPageKeys, 0, mPageKeys.size() - 1, posts);
+            return posts;
+        }
+
+        @Override
+        protected void onPostExecute(ReaderPostList posts) {
+            mLoadingPages.remove(mPage);
+            if (mTaskGeneration != mGeneration
+                    || mPages.get(mPage) != null
+                    || Math.abs(mPage - mCurrentPage) > PAGE_WINDOW) {
+                return;
+            }
+            mPages.put(mPage, posts);
+            if (mIsPageStale) {
+                mIsStale = true;
+            }
+            int fromIndex = mPage * PAGE_SIZE;
+            mListener.onPageLoaded(fromIndex, fromIndex + posts.size() - 1);
+        }
+    }
+
+    /*
+     * loads the passed page of posts from the db on the calling thread - this is intended for
+     * lists that haven't been passed to the adapter yet (or snapshots of them), use
+     * loadPagesAround() for a list that's being displayed
+     */
+    public ReaderPostList loadPage(int page) {
+        int fromIndex = page * PAGE_SIZE;
+        int toIndex = Math.min(fromIndex + PAGE_SIZE, mKeys.size()) - 1;
+
+        ReaderPostList posts = new ReaderPostList();
+        if (readPosts(mKeys, fromIndex, toIndex, posts)) {
+            mIsStale = true;
+        }
+
+        mPages.put(page, posts);
+        return posts;
+    }
+
+    /*
+     * reads the posts for the keys between the passed indexes (inclusive) into the passed list,
+     * which will contain one post for each key in key order - returns true if any of the posts
+     * no longer exist
+     */
+    private static boolean readPosts(@NonNull ReaderPostKeyList keys,
+                                     int fromIndex,
+                                     int toIndex,
+                                     @NonNull ReaderPostList posts) {
+        HashMap<String, ReaderPost> postMap = new HashMap<>();
+        for (ReaderPost post : ReaderPostTable.getPostsInKeyRange(keys, fromIndex, toIndex)) {
+            postMap.put(post.getPseudoId(), post);
+        }
+
+        boolean isStale = false;
+        for (int i = fromIndex; i <= toIndex; i++) {
+            ReaderPostKey key = keys.get(i);
+            ReaderPost post = postMap.get(key.getPseudoId());
+            if (post == null) {
+                // post was removed after the keys were loaded, so use a placeholder until the
+                // list is reloaded
+                post = new ReaderPost();
+                post.blogId = key.getBlogId();
+                post.postId = key.getPostId();
+                post.setPseudoId(key.getPseudoId());
+                isStale = true;
+            }
+            posts.add(post);
+        }
+        return isStale;
+    }
+
+    private void evictDistantPages(int currentPage) {
+        for (int i = mPages.size() - 1; i >= 0; i--) {
+            if (Math.abs(mPages.keyAt(i) - currentPage) > PAGE_WINDOW) {
+                mPages.removeAt(i);
+            }
+        }
+    }
+
+    /*
+     * returns the page numbers currently in memory
+     */
+    public List<Integer> getLoadedPages() {
+        List<Integer> pages = new ArrayList<>(mPages.size());
+        for (int i = 0; i < mPages.size(); i++) {
+            pages.add(mPages.keyAt(i));
+        }
+        return pages;
+    }
+
+    /*
+     * returns a copy of this list which shares its in-memory pages, but which won't be affected
+     * by pages being loaded or evicted from this list, or by posts being removed from it
+     */
+    public ReaderPostPagedList snapshot() {
+        ReaderPostPagedList copy = new ReaderPostPagedList(new ReaderPostKeyList(mKeys));
+        for (int i = 0; i < mPages.size(); i++) {
+            copy.mPages.put(mPages.keyAt(i), mPages.valueAt(i));
+        }
+        copy.mIsStale = mIsStale;
+        return copy;
+    }
+
+    /*
+     * removes posts in the passed blog from this list and returns the number removed - the
+     * posts must already have been removed from the db since pages in memory are discarded
+     * and later reloaded
+     */
+    public int removePostsInBlog(long blogId) {
+        int numRemoved = 0;
+        for (int i = mKeys.size() - 1; i >= 0; i--) {
+            if (mKeys.get(i).getBlogId() == blogId) {
+                mKeys.remove(i);
+                numRemoved++;
+            }
+        }
+        if (numRemoved > 0) {
+            mPages.clear();
+            mGeneration++;
+        }
+        return numRemoved;
+    }
+
+    /*
+     * sets the follow status of in-memory posts in the passed blog and returns the indexes of
+     * the posts that changed
+     */
+    public List<Integer> setFollowStatusForBlog(long blogId, boolean isFollowing) {
+        List<Integer> changed = new ArrayList<>();
+        for (int i = 0; i < mKeys.size(); i++) {
+            if (mKeys.get(i).getBlogId() != blogId) {
+                continue;
+            }
+            ReaderPost post = getIfLoaded(i);
+            if (post != null && post.isFollowedByCurrentUser != isFollowing) {
+                post.isFollowedByCurrentUser = isFollowing;
+                changed.add(i);
+            }
+        }
+        return changed;
+    }
+}
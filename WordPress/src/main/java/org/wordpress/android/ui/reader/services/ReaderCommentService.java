@@ -14,6 +14,7 @@ import org.wordpress.android.WordPress;
 import org.wordpress.android.datasets.ReaderCommentTable;
 import org.wordpress.android.datasets.ReaderDatabase;
 import org.wordpress.android.datasets.ReaderLikeTable;
+import org.wordpress.android.datasets.ReaderSyncExecutor;
 import org.wordpress.android.datasets.ReaderUserTable;
 import org.wordpress.android.models.ReaderComment;
 import org.wordpress.android.models.ReaderCommentList;
@@ -162,7 +163,7 @@ public class ReaderCommentService extends Service {
             return;
         }
 
-        new Thread() {
+        ReaderSyncExecutor.getInstance().executeWrite("update comments", new Runnable() {
             @Override
             public void run() {
                 final boolean hasNewComments;
@@ -208,6 +209,6 @@ public class ReaderCommentService extends Service {
                         (hasNewComments ? ReaderActions.UpdateResult.HAS_NEW : ReaderActions.UpdateResult.UNCHANGED);
                 resultListener.onUpdateResult(result);
             }
-        }.start();
+        });
     }
 }
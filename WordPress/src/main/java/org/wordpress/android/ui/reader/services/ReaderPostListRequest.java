@@ -0,0 +1,97 @@
+package org.wordpress.android.ui.reader.services;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.google.gson.stream.JsonReader;
+import com.wordpress.rest.RestRequest;
+
+import org.json.JSONObject;
+import org.wordpress.android.WordPress;
+import org.wordpress.android.models.ReaderPostList;
+import org.wordpress.android.networking.RestClientUtils;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.FileUtils;
+import org.wordpress.android.util.Tracer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Map;
+
+/**
+ * GET request for a page of reader posts which streams the posts from the response body on the
+ * network thread, rather than parsing the whole response into a JSONObject and then converting
+ * that to posts - this avoids holding both the JSON tree and the posts for large pages
+ */
+class ReaderPostListRequest extends RestRequest {
+    interface PostListListener {
+        void onResponse(ReaderPostList posts);
+    }
+
+    private static final String DEFAULT_CHARSET = "UTF-8";
+
+    private final PostListListener mPostListListener;
+
+    // parsed on the network thread and delivered on the main thread
+    private volatile ReaderPostList mPosts;
+
+    private ReaderPostListRequest(String url, PostListListener listener, ErrorListener errorListener) {
+        super(Method.GET, url, null, null, errorListener);
+        mPostListListener = listener;
+    }
+
+    /*
+     * requests the passed path from the v1.2 endpoint
+     */
+    static void get(String path, PostListListener listener, ErrorListener errorListener) {
+        RestClientUtils restClientUtils = WordPress.getRestClientUtilsV1_2();
+        String url = restClientUtils.getAbsoluteUrlForGet(path, null);
+        restClientUtils.sendGet(new ReaderPostListRequest(url, listener, errorListener), null, errorListener);
+    }
+
+    @Override
+    protected Response<JSONObject> parseNetworkResponse(NetworkResponse response) {
+        Tracer.Span span = Tracer.begin(AppLog.T.READER, "parse posts");
+        JsonReader reader = null;
+        try {
+            reader = new JsonReader(new InputStreamReader(
+                    new ByteArrayInputStream(response.data), parseCharset(response.headers)));
+            mPosts = ReaderPostList.fromJsonReader(reader);
+            // the posts are delivered from mPosts rather than as the response's JSON
+            return Response.success(null, HttpHeaderParser.parseCacheHeaders(response));
+        } catch (IOException | IllegalStateException e) {
+            // IllegalStateException is thrown when the response isn't the expected structure
+            AppLog.e(AppLog.T.READER, e);
+            return Response.error(new ParseError(e));
+        } finally {
+            FileUtils.closeQuietly(reader);
+            span.end();
+        }
+    }
+
+    @Override
+    protected void deliverResponse(JSONObject response) {
+        if (mPostListListener != null) {
+            mPostListListener.onResponse(mPosts);
+        }
+    }
+
+    /*
+     * the REST API returns JSON which defaults to UTF-8, whereas HttpHeaderParser.parseCharset()
+     * defaults to ISO-8859-1
+     */
+    private static String parseCharset(Map<String, String> headers) {
+        String contentType = headers != null ? headers.get("Content-Type") : null;
+        if (contentType != null) {
+            for (String param : contentType.split(";")) {
+                String[] pair = param.trim().split("=");
+                if (pair.length == 2 && pair[0].equalsIgnoreCase("charset")) {
+                    return pair[1].trim();
+                }
+            }
+        }
+        return DEFAULT_CHARSET;
+    }
+}
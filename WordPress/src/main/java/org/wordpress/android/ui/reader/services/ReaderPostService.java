@@ -4,14 +4,14 @@ import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
 import android.os.IBinder;
+import android.support.annotation.NonNull;
 import android.text.TextUtils;
 
 import com.android.volley.VolleyError;
 import com.wordpress.rest.RestRequest;
 
-import org.json.JSONObject;
-import org.wordpress.android.WordPress;
 import org.wordpress.android.datasets.ReaderPostTable;
+import org.wordpress.android.datasets.ReaderSyncExecutor;
 import org.wordpress.android.datasets.ReaderTagTable;
 import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.models.ReaderPostList;
@@ -21,11 +21,15 @@ import org.wordpress.android.ui.reader.ReaderConstants;
 import org.wordpress.android.ui.reader.ReaderEvents;
 import org.wordpress.android.ui.reader.actions.ReaderActions.UpdateResult;
 import org.wordpress.android.ui.reader.actions.ReaderActions.UpdateResultListener;
+import org.wordpress.android.ui.reader.models.ReaderPostDiff;
 import org.wordpress.android.ui.reader.utils.ReaderUtils;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.StringUtils;
 import org.wordpress.android.util.UrlUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import de.greenrobot.event.EventBus;
 
 /**
@@ -90,6 +94,7 @@ public class ReaderPostService extends Service {
     @Override
     public void onDestroy() {
         AppLog.i(AppLog.T.READER, "reader post service > destroyed");
+        ReaderSyncExecutor.getInstance().logStats();
         super.onDestroy();
     }
 
@@ -194,14 +199,15 @@ public class ReaderPostService extends Service {
 
         sb.append("&meta=site,likes");
 
-        com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
+        ReaderPostListRequest.PostListListener listener = new ReaderPostListRequest.PostListListener() {
             @Override
-            public void onResponse(JSONObject jsonObject) {
+            public void onResponse(ReaderPostList serverPosts) {
                 // remember when this tag was updated if newer posts were requested
                 if (updateAction == UpdateAction.REQUEST_NEWER) {
                     ReaderTagTable.setTagLastUpdated(tag);
                 }
-                handleUpdatePostsResponse(tag, jsonObject, updateAction, resultListener);
+                String syncKey = "tag:" + tag.getTagSlug() + ":" + tag.tagType.toInt();
+                handleUpdatePostsResponse(tag, serverPosts, updateAction, syncKey, resultListener);
             }
         };
         RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
@@ -212,7 +218,7 @@ public class ReaderPostService extends Service {
             }
         };
 
-        WordPress.getRestClientUtilsV1_2().get(sb.toString(), null, null, listener, errorListener);
+        ReaderPostListRequest.get(sb.toString(), listener, errorListener);
     }
 
     private static void requestPostsForBlog(final long blogId,
@@ -228,10 +234,10 @@ public class ReaderPostService extends Service {
             }
         }
 
-        com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
+        ReaderPostListRequest.PostListListener listener = new ReaderPostListRequest.PostListListener() {
             @Override
-            public void onResponse(JSONObject jsonObject) {
-                handleUpdatePostsResponse(null, jsonObject, updateAction, resultListener);
+            public void onResponse(ReaderPostList serverPosts) {
+                handleUpdatePostsResponse(null, serverPosts, updateAction, "blog:" + blogId, resultListener);
             }
         };
         RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
@@ -242,7 +248,7 @@ public class ReaderPostService extends Service {
             }
         };
         AppLog.d(AppLog.T.READER, "updating posts in blog " + blogId);
-        WordPress.getRestClientUtilsV1_2().get(path, null, null, listener, errorListener);
+        ReaderPostListRequest.get(path, listener, errorListener);
     }
 
     private static void requestPostsForFeed(final long feedId,
@@ -256,10 +262,10 @@ public class ReaderPostService extends Service {
             }
         }
 
-        com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
+        ReaderPostListRequest.PostListListener listener = new ReaderPostListRequest.PostListListener() {
             @Override
-            public void onResponse(JSONObject jsonObject) {
-                handleUpdatePostsResponse(null, jsonObject, updateAction, resultListener);
+            public void onResponse(ReaderPostList serverPosts) {
+                handleUpdatePostsResponse(null, serverPosts, updateAction, "feed:" + feedId, resultListener);
             }
         };
         RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
@@ -271,72 +277,126 @@ public class ReaderPostService extends Service {
         };
 
         AppLog.d(AppLog.T.READER, "updating posts in feed " + feedId);
-        WordPress.getRestClientUtilsV1_2().get(path, null, null, listener, errorListener);
+        ReaderPostListRequest.get(path, listener, errorListener);
     }
 
     /*
-     * called after requesting posts with a specific tag or in a specific blog/feed
+     * called after requesting posts with a specific tag or in a specific blog/feed - the
+     * response has already been streamed into posts on the network thread, so they're saved
+     * on the reader sync pool's writer lane. the syncKey identifies the tag/blog/feed, and is
+     * used so that if another request for the newest posts in the same tag/blog/feed completes
+     * while this one is waiting to be saved, only the newer one is saved
      */
     private static void handleUpdatePostsResponse(final ReaderTag tag,
-                                                  final JSONObject jsonObject,
+                                                  final ReaderPostList serverPosts,
                                                   final UpdateAction updateAction,
+                                                  final String syncKey,
                                                   final UpdateResultListener resultListener) {
-        if (jsonObject == null) {
+        if (serverPosts == null) {
             resultListener.onUpdateResult(UpdateResult.FAILED);
             return;
         }
 
-        new Thread() {
-            @Override
-            public void run() {
-                ReaderPostList serverPosts = ReaderPostList.fromJson(jsonObject);
-                UpdateResult updateResult = ReaderPostTable.comparePosts(serverPosts);
-                if (updateResult.isNewOrChanged()) {
-                    // gap detection - only applies to posts with a specific tag
-                    ReaderPost postWithGap = null;
-                    if (tag != null) {
-                        switch (updateAction) {
-                            case REQUEST_NEWER:
-                                // if there's no overlap between server and local (ie: all server
-                                // posts are new), assume there's a gap between server and local
-                                // provided that local posts exist
-                                int numServerPosts = serverPosts.size();
-                                if (numServerPosts >= 2
-                                        && ReaderPostTable.getNumPostsWithTag(tag) > 0
-                                        && !ReaderPostTable.hasOverlap(serverPosts)) {
-                                    // treat the second to last server post as having a gap
-                                    postWithGap = serverPosts.get(numServerPosts - 2);
-                                    // remove the last server post to deal with the edge case of
-                                    // there actually not being a gap between local & server
-                                    serverPosts.remove(numServerPosts - 1);
-                                    AppLog.d(AppLog.T.READER, "added gap marker to tag " + tag.getTagNameForLog());
-                                }
-                                ReaderPostTable.removeGapMarkerForTag(tag);
-                                break;
-                            case REQUEST_OLDER_THAN_GAP:
-                                // if service was started as a request to fill a gap, delete existing posts
-                                // before the one with the gap marker, then remove the existing gap marker
-                                ReaderPostTable.deletePostsBeforeGapMarkerForTag(tag);
-                                ReaderPostTable.removeGapMarkerForTag(tag);
-                                break;
-                        }
-                    }
+        savePosts(tag, serverPosts, updateAction, syncKey, resultListener);
+    }
 
-                    ReaderPostTable.addOrUpdatePosts(tag, serverPosts);
+    private static void savePosts(final ReaderTag tag,
+                                  final ReaderPostList serverPosts,
+                                  final UpdateAction updateAction,
+                                  final String syncKey,
+                                  final UpdateResultListener resultListener) {
+        // only requests for the newest posts are coalesced, since a newer response replaces
+        // everything an older one returned - each request for older posts returns a different
+        // page, so all of them must be saved
+        String writeKey = updateAction == UpdateAction.REQUEST_NEWER
+                ? "posts:" + syncKey + ":" + updateAction.name()
+                : null;
+        ReaderSyncExecutor.getInstance().executeWrite("save posts", writeKey,
+                new SavePostsTask(tag, serverPosts, updateAction, resultListener));
+    }
+
+    /*
+     * saves a page of posts - if it's replaced by a newer response for the same tag/blog/feed
+     * before it runs, its listeners are passed to the newer response so they're told the result
+     * of the save which actually happens
+     */
+    private static class SavePostsTask extends ReaderSyncExecutor.SyncTask {
+        private final ReaderTag mTag;
+        private final ReaderPostList mServerPosts;
+        private final UpdateAction mUpdateAction;
+        private final List<UpdateResultListener> mResultListeners = new ArrayList<>();
+
+        SavePostsTask(ReaderTag tag,
+                      ReaderPostList serverPosts,
+                      UpdateAction updateAction,
+                      UpdateResultListener resultListener) {
+            mTag = tag;
+            mServerPosts = serverPosts;
+            mUpdateAction = updateAction;
+            mResultListeners.add(resultListener);
+        }
 
-                    // gap marker must be set after saving server posts
-                    if (postWithGap != null) {
-                        ReaderPostTable.setGapMarkerForTag(postWithGap.blogId, postWithGap.postId, tag);
+        @Override
+        public void onCoalesced(@NonNull Runnable replacement) {
+            // only posts are saved with a "posts:" key, so the replacement is always a SavePostsTask
+            if (replacement instanceof SavePostsTask) {
+                ((SavePostsTask) replacement).mResultListeners.addAll(mResultListeners);
+            }
+        }
+
+        @Override
+        public void run() {
+            // compare server posts with local ones in a single pass - this determines both
+            // whether any are new or changed and whether there's overlap with local posts
+            ReaderPostDiff diff = ReaderPostTable.diffPosts(mTag, mServerPosts);
+            UpdateResult updateResult = diff.getUpdateResult();
+            if (updateResult.isNewOrChanged()) {
+                // gap detection - only applies to posts with a specific tag
+                ReaderPost postWithGap = null;
+                if (mTag != null) {
+                    switch (mUpdateAction) {
+                        case REQUEST_NEWER:
+                            // if there's no overlap between server and local (ie: all server
+                            // posts are new), assume there's a gap between server and local
+                            // provided that local posts exist
+                            int numServerPosts = mServerPosts.size();
+                            if (numServerPosts >= 2
+                                    && ReaderPostTable.getNumPostsWithTag(mTag) > 0
+                                    && !diff.hasOverlap()) {
+                                // treat the second to last server post as having a gap
+                                postWithGap = mServerPosts.get(numServerPosts - 2);
+                                // remove the last server post to deal with the edge case of
+                                // there actually not being a gap between local & server
+                                mServerPosts.remove(numServerPosts - 1);
+                                AppLog.d(AppLog.T.READER, "added gap marker to tag " + mTag.getTagNameForLog());
+                            }
+                            ReaderPostTable.removeGapMarkerForTag(mTag);
+                            break;
+                        case REQUEST_OLDER_THAN_GAP:
+                            // if service was started as a request to fill a gap, delete existing posts
+                            // before the one with the gap marker, then remove the existing gap marker
+                            ReaderPostTable.deletePostsBeforeGapMarkerForTag(mTag);
+                            ReaderPostTable.removeGapMarkerForTag(mTag);
+                            break;
                     }
-                } else if (updateResult == UpdateResult.UNCHANGED && updateAction == UpdateAction.REQUEST_OLDER_THAN_GAP) {
-                    // edge case - request to fill gap returned nothing new, so remove the gap marker
-                    ReaderPostTable.removeGapMarkerForTag(tag);
-                    AppLog.w(AppLog.T.READER, "attempt to fill gap returned nothing new");
                 }
-                AppLog.d(AppLog.T.READER, "requested posts response = " + updateResult.toString());
-                resultListener.onUpdateResult(updateResult);
+
+                ReaderPostTable.addOrUpdatePosts(mTag, mServerPosts);
+
+                // gap marker must be set after saving server posts
+                if (postWithGap != null) {
+                    ReaderPostTable.setGapMarkerForTag(postWithGap.blogId, postWithGap.postId, mTag);
+                }
+            } else if (updateResult == UpdateResult.UNCHANGED && mUpdateAction == UpdateAction.REQUEST_OLDER_THAN_GAP) {
+                // edge case - request to fill gap returned nothing new, so remove the gap marker
+                ReaderPostTable.removeGapMarkerForTag(mTag);
+                AppLog.w(AppLog.T.READER, "attempt to fill gap returned nothing new");
             }
-        }.start();
+            AppLog.d(AppLog.T.READER, "requested posts response = " + updateResult.toString());
+            for (UpdateResultListener listener : mResultListeners) {
+                listener.onUpdateResult(updateResult);
+            }
+        }
     }
 
     /*
@@ -9,9 +9,8 @@ import android.support.annotation.NonNull;
 import com.android.volley.VolleyError;
 import com.wordpress.rest.RestRequest;
 
-import org.json.JSONObject;
-import org.wordpress.android.WordPress;
 import org.wordpress.android.datasets.ReaderPostTable;
+import org.wordpress.android.datasets.ReaderSyncExecutor;
 import org.wordpress.android.models.ReaderPostList;
 import org.wordpress.android.models.ReaderTag;
 import org.wordpress.android.models.ReaderTagType;
@@ -84,11 +83,11 @@ public class ReaderSearchService extends Service {
                 + "&offset=" + offset
                 + "&meta=site,likes";
 
-        RestRequest.Listener listener = new RestRequest.Listener() {
+        ReaderPostListRequest.PostListListener listener = new ReaderPostListRequest.PostListListener() {
             @Override
-            public void onResponse(JSONObject jsonObject) {
-                if (jsonObject != null) {
-                    handleSearchResponse(query, offset, jsonObject);
+            public void onResponse(ReaderPostList serverPosts) {
+                if (serverPosts != null) {
+                    handleSearchResponse(query, offset, serverPosts);
                 } else {
                     EventBus.getDefault().post(new ReaderEvents.SearchPostsEnded(query, offset, false));
                 }
@@ -104,18 +103,17 @@ public class ReaderSearchService extends Service {
 
         AppLog.d(AppLog.T.READER, "reader search service > starting search for " + query);
         EventBus.getDefault().post(new ReaderEvents.SearchPostsStarted(query, offset));
-        WordPress.getRestClientUtilsV1_2().get(path, null, null, listener, errorListener);
+        ReaderPostListRequest.get(path, listener, errorListener);
     }
 
-    private static void handleSearchResponse(final String query, final int offset, final JSONObject jsonObject) {
-        new Thread() {
+    private static void handleSearchResponse(final String query, final int offset, final ReaderPostList serverPosts) {
+        ReaderSyncExecutor.getInstance().executeWrite("save search results", new Runnable() {
             @Override
             public void run() {
-                ReaderPostList serverPosts = ReaderPostList.fromJson(jsonObject);
                 ReaderPostTable.addOrUpdatePosts(getTagForSearchQuery(query), serverPosts);
                 EventBus.getDefault().post(new ReaderEvents.SearchPostsEnded(query, offset, true));
             }
-        }.start();
+        });
     }
 
     /*
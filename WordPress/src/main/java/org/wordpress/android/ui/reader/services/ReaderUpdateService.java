@@ -14,6 +14,7 @@ import org.wordpress.android.WordPress;
 import org.wordpress.android.datasets.ReaderBlogTable;
 import org.wordpress.android.datasets.ReaderDatabase;
 import org.wordpress.android.datasets.ReaderPostTable;
+import org.wordpress.android.datasets.ReaderSyncExecutor;
 import org.wordpress.android.datasets.ReaderTagTable;
 import org.wordpress.android.fluxc.store.AccountStore;
 import org.wordpress.android.models.ReaderBlogList;
@@ -141,7 +142,7 @@ public class ReaderUpdateService extends Service {
     }
 
     private void handleUpdateTagsResponse(final JSONObject jsonObject) {
-        new Thread() {
+        ReaderSyncExecutor.getInstance().executeWrite("update tags", "tags", new Runnable() {
             @Override
             public void run() {
                 // get server topics, both default & followed - but use "recommended" for logged-out
@@ -184,7 +185,7 @@ public class ReaderUpdateService extends Service {
 
                 taskCompleted(UpdateTask.TAGS);
             }
-        }.start();
+        });
     }
 
     /*
@@ -268,7 +269,7 @@ public class ReaderUpdateService extends Service {
     }
 
     private void handleFollowedBlogsResponse(final JSONObject jsonObject) {
-        new Thread() {
+        ReaderSyncExecutor.getInstance().executeWrite("update followed blogs", "followed-blogs", new Runnable() {
             @Override
             public void run() {
                 ReaderBlogList serverBlogs = ReaderBlogList.fromJson(jsonObject);
@@ -290,7 +291,7 @@ public class ReaderUpdateService extends Service {
 
                 taskCompleted(UpdateTask.FOLLOWED_BLOGS);
             }
-        }.start();
+        });
     }
 
     /***
@@ -318,7 +319,7 @@ public class ReaderUpdateService extends Service {
         WordPress.getRestClientUtilsV1_1().get(path, listener, errorListener);
     }
     private void handleRecommendedBlogsResponse(final JSONObject jsonObject) {
-        new Thread() {
+        ReaderSyncExecutor.getInstance().executeWrite("update recommended blogs", "recommended-blogs", new Runnable() {
             @Override
             public void run() {
                 ReaderRecommendBlogList serverBlogs = ReaderRecommendBlogList.fromJson(jsonObject);
@@ -331,6 +332,6 @@ public class ReaderUpdateService extends Service {
 
                 taskCompleted(UpdateTask.RECOMMENDED_BLOGS);
             }
-        }.start();
+        });
     }
 }
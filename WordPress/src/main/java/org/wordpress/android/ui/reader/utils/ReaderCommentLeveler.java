@@ -6,9 +6,18 @@ import org.wordpress.android.models.ReaderComment;
 import org.wordpress.android.models.ReaderCommentList;
 import org.wordpress.android.util.AppLog;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+
 /*
  * utility class which accepts a list of comments and then creates a "level list" from it
- * which places child comments below their parents with indentation levels applied
+ * which places child comments below their parents with indentation levels applied - the
+ * passed comments are expected to be in the order they should appear among their siblings
+ * (ReaderCommentTable returns them ordered by timestamp)
  */
 
 public class ReaderCommentLeveler {
@@ -18,79 +27,291 @@ public class ReaderCommentLeveler {
         mComments = comments;
     }
 
+    /*
+     * builds a parent -> children index in a single pass, then walks it depth-first so the
+     * whole list is leveled in linear time
+     */
     public ReaderCommentList createLevelList() {
         ReaderCommentList result = new ReaderCommentList();
+        HashMap<Long, ReaderCommentList> children = buildChildIndex(mComments);
+
+        HashSet<Long> commentIds = getCommentIds(mComments);
 
-        // reset all levels, and add root comments to result
+        // root comments and their descendants
+        HashSet<Long> visited = new HashSet<>(mComments.size());
+        addSubtrees(children.get(0L), 0, children, visited, result);
+
+        // orphans (child comments whose parents aren't in the list) are added at the end along
+        // with their descendants, with a non-zero level so they're indented by ReaderCommentAdapter
         for (ReaderComment comment : mComments) {
-            comment.level = 0;
-            if (comment.parentId == 0) {
-                result.add(comment);
+            if (comment.parentId != 0
+                    && !commentIds.contains(comment.parentId)
+                    && !visited.contains(comment.commentId)) {
+                AppLog.d(AppLog.T.READER, "Orphan comment encountered");
+                addSubtree(comment, 1, children, visited, result);
             }
         }
 
-        // add children at each level
-        int level = 0;
-        while (walkCommentsAtLevel(result, level)) {
-            level++;
+        return result;
+    }
+
+    /*
+     * merges newly-arrived comments (such as a new page of comments) into an existing level list,
+     * returning a new level list - comments in the existing list keep their relative order and
+     * levels, and new comments are placed among their siblings by timestamp. the passed new
+     * comments are expected to be ordered by timestamp. the comments in the existing list are
+     * never changed, so it's safe to call this on a background thread while they're displayed
+     */
+    public static ReaderCommentList addComments(@NonNull ReaderCommentList levelList,
+                                                @NonNull ReaderCommentList newComments) {
+        if (newComments.size() == 0) {
+            return levelList;
         }
 
-        // check for orphans (child comments whose parents weren't found above) and give them
-        // a non-zero level so they're indented by ReaderCommentAdapter
-        for (ReaderComment comment : result) {
-            if (comment.level == 0 && comment.parentId != 0) {
-                comment.level = 1;
-                result.add(comment);
-                AppLog.d(AppLog.T.READER, "Orphan comment encountered");
+        HashSet<Long> existingIds = getCommentIds(levelList);
+        HashSet<Long> newIds = getCommentIds(newComments);
+        for (ReaderComment comment : newComments) {
+            // fall back to leveling the combined list if an existing comment has changed (so it
+            // may have moved) or if there are new orphans (whose order depends on other orphans)
+            if (existingIds.contains(comment.commentId)
+                    || (comment.parentId != 0
+                        && !existingIds.contains(comment.parentId)
+                        && !newIds.contains(comment.parentId))) {
+                return relevel(levelList, newComments);
+            }
+        }
+        for (ReaderComment comment : levelList) {
+            if (newIds.contains(comment.parentId)) {
+                // a new comment is the parent of an existing orphan
+                return relevel(levelList, newComments);
+            }
+        }
+
+        HashMap<Long, ReaderCommentList> children = buildChildIndex(newComments);
+        HashMap<Long, Integer> nextChild = new HashMap<>(children.size());
+        HashSet<Long> visited = new HashSet<>(newComments.size());
+        ArrayDeque<ReaderComment> openParents = new ArrayDeque<>();
+        ReaderCommentList result = new ReaderCommentList();
+        boolean hasAddedRoots = false;
+
+        for (ReaderComment comment : levelList) {
+            boolean isOrphan = comment.parentId != 0 && !existingIds.contains(comment.parentId);
+            int minOpenLevel = isOrphan ? 0 : comment.level;
+
+            // the subtrees of open parents at this level or deeper are complete, so add the
+            // remaining new children of each
+            while (!openParents.isEmpty() && openParents.peek().level >= minOpenLevel) {
+                ReaderComment parent = openParents.pop();
+                addNewChildren(parent.commentId, parent.level + 1, Long.MAX_VALUE,
+                        children, nextChild, visited, result);
             }
+
+            if (isOrphan) {
+                // existing orphans follow all root comments
+                if (!hasAddedRoots) {
+                    addNewChildren(0L, 0, Long.MAX_VALUE, children, nextChild, visited, result);
+                    hasAddedRoots = true;
+                }
+            } else {
+                // new siblings which precede this comment
+                addNewChildren(comment.parentId, comment.level, comment.timestamp,
+                        children, nextChild, visited, result);
+            }
+
+            result.add(comment);
+            openParents.push(comment);
+        }
+
+        while (!openParents.isEmpty()) {
+            ReaderComment parent = openParents.pop();
+            addNewChildren(parent.commentId, parent.level + 1, Long.MAX_VALUE,
+                    children, nextChild, visited, result);
+        }
+        if (!hasAddedRoots) {
+            addNewChildren(0L, 0, Long.MAX_VALUE, children, nextChild, visited, result);
         }
 
         return result;
     }
 
     /*
-     * walk comments in the passed list that have the passed level and add their children
-     * beneath them
+     * inserts a single comment (such as a reply the user just posted) into an existing level
+     * list below its parent, returning its index in the list or -1 if the parent isn't in the
+     * list - root comments are added after existing root comments
      */
-    private boolean walkCommentsAtLevel(@NonNull ReaderCommentList comments, int level) {
-        boolean hasChanges = false;
-        for (int index = 0; index < comments.size(); index++) {
-            ReaderComment parent = comments.get(index);
-            if (parent.level == level && hasChildren(parent.commentId)) {
-                // get children for this comment, set their level, then add them below the parent
-                ReaderCommentList children = getChildren(parent.commentId);
-                setLevel(children, level + 1);
-                comments.addAll(index + 1, children);
-                hasChanges = true;
-                // skip past the children we just added
-                index += children.size();
+    public static int insertComment(@NonNull ReaderCommentList levelList, @NonNull ReaderComment comment) {
+        // orphans are at the end of the list, so root comments and replies to comments which
+        // precede the orphans must be inserted before them
+        int orphanIndex = indexOfFirstOrphan(levelList);
+
+        int index;
+        int level;
+        int endIndex;
+        if (comment.parentId == 0) {
+            index = 0;
+            level = 0;
+            endIndex = orphanIndex;
+        } else {
+            int parentIndex = levelList.indexOfCommentId(comment.parentId);
+            if (parentIndex == -1) {
+                return -1;
+            }
+            index = parentIndex + 1;
+            level = levelList.get(parentIndex).level + 1;
+            endIndex = parentIndex < orphanIndex ? orphanIndex : levelList.size();
+        }
+
+        // skip past siblings (and their descendants) which precede the new comment
+        while (index < endIndex) {
+            ReaderComment existing = levelList.get(index);
+            if (existing.level < level
+                    || (existing.level == level && existing.timestamp > comment.timestamp)) {
+                break;
             }
+            index++;
         }
-        return hasChanges;
+
+        comment.level = level;
+        levelList.add(index, comment);
+        return index;
     }
 
-    private boolean hasChildren(long commentId) {
-        for (ReaderComment comment: mComments) {
-            if (comment.parentId == commentId) {
-                return true;
+    private static int indexOfFirstOrphan(@NonNull ReaderCommentList levelList) {
+        HashSet<Long> commentIds = getCommentIds(levelList);
+        for (int i = 0; i < levelList.size(); i++) {
+            long parentId = levelList.get(i).parentId;
+            if (parentId != 0 && !commentIds.contains(parentId)) {
+                return i;
             }
         }
-        return false;
+        return levelList.size();
     }
 
-    private ReaderCommentList getChildren(long commentId) {
-        ReaderCommentList children = new ReaderCommentList();
-        for (ReaderComment comment: mComments) {
-            if (comment.parentId == commentId) {
-                children.add(comment);
+    private static HashSet<Long> getCommentIds(@NonNull ReaderCommentList comments) {
+        HashSet<Long> commentIds = new HashSet<>(comments.size());
+        for (ReaderComment comment : comments) {
+            commentIds.add(comment.commentId);
+        }
+        return commentIds;
+    }
+
+    /*
+     * levels the existing and new comments together - leveling assigns the level of each comment,
+     * so the existing comments are copied rather than changed
+     */
+    private static ReaderCommentList relevel(@NonNull ReaderCommentList levelList,
+                                             @NonNull ReaderCommentList newComments) {
+        HashMap<Long, ReaderComment> comments = new HashMap<>(levelList.size() + newComments.size());
+        for (ReaderComment comment : levelList) {
+            comments.put(comment.commentId, comment.copy());
+        }
+        for (ReaderComment comment : newComments) {
+            comments.put(comment.commentId, comment);
+        }
+
+        ReaderCommentList combined = new ReaderCommentList();
+        combined.addAll(comments.values());
+        Collections.sort(combined, new Comparator<ReaderComment>() {
+            @Override
+            public int compare(ReaderComment comment1, ReaderComment comment2) {
+                if (comment1.timestamp != comment2.timestamp) {
+                    return comment1.timestamp < comment2.timestamp ? -1 : 1;
+                }
+                return comment1.commentId < comment2.commentId ? -1 : (comment1.commentId == comment2.commentId ? 0 : 1);
+            }
+        });
+
+        return new ReaderCommentLeveler(combined).createLevelList();
+    }
+
+    private static HashMap<Long, ReaderCommentList> buildChildIndex(@NonNull ReaderCommentList comments) {
+        HashMap<Long, ReaderCommentList> children = new HashMap<>();
+        for (ReaderComment comment : comments) {
+            ReaderCommentList siblings = children.get(comment.parentId);
+            if (siblings == null) {
+                siblings = new ReaderCommentList();
+                children.put(comment.parentId, siblings);
             }
+            siblings.add(comment);
         }
         return children;
     }
 
-    private void setLevel(@NonNull ReaderCommentList comments, int level) {
-        for (ReaderComment comment: comments) {
-            comment.level = level;
+    /*
+     * adds the new children of the passed parent which precede the passed timestamp and haven't
+     * already been added, along with their descendants
+     */
+    private static void addNewChildren(long parentId,
+                                       int level,
+                                       long beforeTimestamp,
+                                       @NonNull HashMap<Long, ReaderCommentList> children,
+                                       @NonNull HashMap<Long, Integer> nextChild,
+                                       @NonNull HashSet<Long> visited,
+                                       @NonNull ReaderCommentList result) {
+        ReaderCommentList siblings = children.get(parentId);
+        if (siblings == null) {
+            return;
+        }
+
+        Integer next = nextChild.get(parentId);
+        int index = next != null ? next : 0;
+        while (index < siblings.size() && siblings.get(index).timestamp < beforeTimestamp) {
+            addSubtree(siblings.get(index), level, children, visited, result);
+            index++;
+        }
+        nextChild.put(parentId, index);
+    }
+
+    private static void addSubtrees(ReaderCommentList comments,
+                                    int level,
+                                    @NonNull HashMap<Long, ReaderCommentList> children,
+                                    @NonNull HashSet<Long> visited,
+                                    @NonNull ReaderCommentList result) {
+        if (comments != null) {
+            for (ReaderComment comment : comments) {
+                addSubtree(comment, level, children, visited, result);
+            }
+        }
+    }
+
+    /*
+     * adds the passed comment and its descendants to the result in depth-first order - this is
+     * iterative so very deep threads can't overflow the stack, and comments which have already
+     * been added are skipped so a cycle in parent ids can't loop forever
+     */
+    private static void addSubtree(@NonNull ReaderComment root,
+                                   int rootLevel,
+                                   @NonNull HashMap<Long, ReaderCommentList> children,
+                                   @NonNull HashSet<Long> visited,
+                                   @NonNull ReaderCommentList result) {
+        if (!visited.add(root.commentId)) {
+            return;
+        }
+        root.level = rootLevel;
+        result.add(root);
+
+        ArrayDeque<Iterator<ReaderComment>> stack = new ArrayDeque<>();
+        ReaderCommentList rootChildren = children.get(root.commentId);
+        if (rootChildren != null) {
+            stack.push(rootChildren.iterator());
+        }
+
+        while (!stack.isEmpty()) {
+            Iterator<ReaderComment> iterator = stack.peek();
+            if (!iterator.hasNext()) {
+                stack.pop();
+                continue;
+            }
+            ReaderComment comment = iterator.next();
+            if (!visited.add(comment.commentId)) {
+                continue;
+            }
+            comment.level = rootLevel + stack.size();
+            result.add(comment);
+            ReaderCommentList commentChildren = children.get(comment.commentId);
+            if (commentChildren != null) {
+                stack.push(commentChildren.iterator());
+            }
         }
     }
 }
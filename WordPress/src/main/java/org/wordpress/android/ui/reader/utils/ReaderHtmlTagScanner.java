@@ -0,0 +1,435 @@
+package org.wordpress.android.ui.reader.utils;
+
+import android.support.annotation.NonNull;
+
+import org.wordpress.android.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Single-pass tokenizer for post content which finds the tags the reader's post renderer needs
+ * to rewrite, so the content doesn't have to be scanned separately for images, iframes and
+ * embeds and each found tag then re-matched against attribute regexes.
+ *
+ * The content is traversed once, and for each tag the attributes are located without copying
+ * them. Image and iframe tags with a src are returned along with their attributes, as are tags
+ * whose class marks them as part of a tiled gallery. Known embeds which need a script injected
+ * are noted. The rewritten content is then produced with rewrite(), which copies the content
+ * once and replaces each returned tag with the tag returned by the passed TagRewriter.
+ */
+public class ReaderHtmlTagScanner {
+    public enum TagType {
+        IMG,
+        IFRAME,
+        GALLERY    // any tag with one of the tiled gallery classes
+    }
+
+    public interface TagRewriter {
+        /*
+         * returns the replacement for the passed tag, or null to keep it unchanged
+         */
+        String rewriteTag(@NonNull HtmlTag tag);
+    }
+
+    public static final String INSTAGRAM_EMBED_SCRIPT = "https://platform.instagram.com/en_US/embeds.js";
+    public static final String FACEBOOK_EMBED_SCRIPT =
+            "https://connect.facebook.net/en_US/sdk.js#xfbml=1&amp;version=v2.8";
+
+    private static final String GALLERY = "gallery";
+    private static final String TILED_GALLERY_CLASS = "tiled-gallery";
+    private static final String[] GALLERY_CLASSES =
+            {TILED_GALLERY_CLASS, "gallery-row", "gallery-group", "tiled-gallery-item"};
+
+    // attribute spans of the tag being scanned: name start & end, value start & end
+    private static final int SPAN_SIZE = 4;
+
+    private final String mContent;
+    private final List<HtmlTag> mTags = new ArrayList<>();
+    private final Set<String> mEmbedScripts = new LinkedHashSet<>();
+    private boolean mHasTiledGallery;
+
+    private int[] mSpans = new int[SPAN_SIZE * 8];
+    private int mNumAttrs;
+
+    public static class HtmlTag {
+        private final TagType mType;
+        private final String mContent;
+        private final int mStart;
+        private final int mEnd;
+        private final int[] mSpans;
+
+        private HtmlTag(TagType type, String content, int start, int end, int[] spans) {
+            mType = type;
+            mContent = content;
+            mStart = start;
+            mEnd = end;
+            mSpans = spans;
+        }
+
+        public TagType getType() {
+            return mType;
+        }
+
+        public int getStart() {
+            return mStart;
+        }
+
+        public int getEnd() {
+            return mEnd;
+        }
+
+        public String getTagText() {
+            return mContent.substring(mStart, mEnd);
+        }
+
+        public boolean hasAttribute(@NonNull String name) {
+            return findSpan(mContent, mSpans, mSpans.length / SPAN_SIZE, name) != -1;
+        }
+
+        /*
+         * returns the value of the passed (lowercase) attribute, or null if the tag doesn't have it
+         */
+        public String getAttribute(@NonNull String name) {
+            int span = findSpan(mContent, mSpans, mSpans.length / SPAN_SIZE, name);
+            return span != -1 ? mContent.substring(mSpans[span + 2], mSpans[span + 3]) : null;
+        }
+
+        /*
+         * returns the integer value of the passed attribute, or zero if it's missing or isn't
+         * an integer (ex: "100%")
+         */
+        public int getIntAttribute(@NonNull String name) {
+            return StringUtils.stringToInt(getAttribute(name), 0);
+        }
+
+        public String getSrc() {
+            return getAttribute("src");
+        }
+
+        public String getClassName() {
+            return getAttribute("class");
+        }
+
+        /*
+         * returns the width or height from the data-orig-size attribute ("width,height")
+         */
+        public int getOriginalWidth() {
+            return getOriginalSize(0);
+        }
+
+        public int getOriginalHeight() {
+            return getOriginalSize(1);
+        }
+
+        private int getOriginalSize(int index) {
+            String size = getAttribute("data-orig-size");
+            if (size == null) {
+                return 0;
+            }
+            String[] sizes = size.split(",");
+            return sizes.length == 2 ? StringUtils.stringToInt(sizes[index].trim(), 0) : 0;
+        }
+
+        /*
+         * returns the text of this tag with the value of the passed attribute replaced
+         */
+        public String replaceAttribute(@NonNull String name, @NonNull String value) {
+            int span = findSpan(mContent, mSpans, mSpans.length / SPAN_SIZE, name);
+            if (span == -1) {
+                return getTagText();
+            }
+            return mContent.substring(mStart, mSpans[span + 2]) + value + mContent.substring(mSpans[span + 3], mEnd);
+        }
+    }
+
+    public ReaderHtmlTagScanner(String content) {
+        mContent = StringUtils.notNullStr(content);
+        scan();
+    }
+
+    /*
+     * returns the image, iframe and gallery tags in the order they appear in the content
+     */
+    public List<HtmlTag> getTags() {
+        return Collections.unmodifiableList(mTags);
+    }
+
+    /*
+     * returns the scripts required by embeds in the content (ex: Instagram, Facebook)
+     */
+    public Set<String> getEmbedScripts() {
+        return Collections.unmodifiableSet(mEmbedScripts);
+    }
+
+    public boolean hasTiledGallery() {
+        return mHasTiledGallery;
+    }
+
+    /*
+     * returns the content with each tag replaced by the one returned by the passed rewriter
+     */
+    public String rewrite(@NonNull TagRewriter rewriter) {
+        if (mTags.isEmpty()) {
+            return mContent;
+        }
+
+        StringBuilder sb = new StringBuilder(mContent.length() + mTags.size() * 64);
+        int pos = 0;
+        for (HtmlTag tag : mTags) {
+            sb.append(mContent, pos, tag.mStart);
+            String newTag = rewriter.rewriteTag(tag);
+            if (newTag != null) {
+                sb.append(newTag);
+            } else {
+                sb.append(mContent, tag.mStart, tag.mEnd);
+            }
+            pos = tag.mEnd;
+        }
+        sb.append(mContent, pos, mContent.length());
+        return sb.toString();
+    }
+
+    /*
+     * returns the class value with the passed class added after each tiled gallery class
+     */
+    public static String addClassToGalleryClasses(@NonNull String className, @NonNull String classToAdd) {
+        StringBuilder sb = new StringBuilder(className.length() + classToAdd.length() * 2);
+        for (String token : className.trim().split("\\s+")) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(token);
+            if (isGalleryClass(token)) {
+                sb.append(' ').append(classToAdd);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isGalleryClass(String token) {
+        for (String galleryClass : GALLERY_CLASSES) {
+            if (galleryClass.equals(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void scan() {
+        final String content = mContent;
+        final int length = content.length();
+        int pos = content.indexOf('<');
+        while (pos != -1 && pos < length - 1) {
+            char next = content.charAt(pos + 1);
+            int tagEnd;
+            if (next == '!' && content.startsWith("<!--", pos)) {
+                int commentEnd = content.indexOf("-->", pos + 4);
+                tagEnd = commentEnd == -1 ? length : commentEnd + 3;
+            } else if (Character.isLetter(next)) {
+                tagEnd = scanTag(pos);
+            } else {
+                tagEnd = pos + 1;
+            }
+            if (tagEnd >= length) {
+                break;
+            }
+            pos = content.indexOf('<', tagEnd);
+        }
+    }
+
+    /*
+     * scans the start tag beginning at the passed position, returns the position following it
+     */
+    private int scanTag(int tagStart) {
+        final String content = mContent;
+        final int length = content.length();
+
+        int nameStart = tagStart + 1;
+        int pos = nameStart;
+        while (pos < length && isTagNameChar(content.charAt(pos))) {
+            pos++;
+        }
+        int nameEnd = pos;
+
+        // locate the attributes without copying them
+        mNumAttrs = 0;
+        while (pos < length) {
+            char c = content.charAt(pos);
+            if (c == '>') {
+                break;
+            }
+            if (Character.isWhitespace(c) || c == '/') {
+                pos++;
+                continue;
+            }
+
+            int attrNameStart = pos;
+            while (pos < length && !isAttrNameEnd(content.charAt(pos))) {
+                pos++;
+            }
+            int attrNameEnd = pos;
+            while (pos < length && Character.isWhitespace(content.charAt(pos))) {
+                pos++;
+            }
+
+            int valueStart = pos;
+            int valueEnd = pos;
+            if (pos < length && content.charAt(pos) == '=') {
+                pos++;
+                while (pos < length && Character.isWhitespace(content.charAt(pos))) {
+                    pos++;
+                }
+                if (pos < length && (content.charAt(pos) == '"' || content.charAt(pos) == '\'')) {
+                    char quote = content.charAt(pos);
+                    valueStart = pos + 1;
+                    int closingQuote = content.indexOf(quote, valueStart);
+                    if (closingQuote == -1) {
+                        // unterminated value, so the tag is never closed
+                        return length;
+                    }
+                    valueEnd = closingQuote;
+                    pos = closingQuote + 1;
+                } else {
+                    valueStart = pos;
+                    while (pos < length && !Character.isWhitespace(content.charAt(pos)) && content.charAt(pos) != '>') {
+                        pos++;
+                    }
+                    valueEnd = pos;
+                }
+            }
+            if (attrNameEnd > attrNameStart) {
+                addSpan(attrNameStart, attrNameEnd, valueStart, valueEnd);
+            } else if (pos == attrNameStart) {
+                // stray character such as a quote, skip it
+                pos++;
+            }
+        }
+        if (pos >= length) {
+            // the tag is never closed
+            return length;
+        }
+
+        int tagEnd = pos + 1;
+        onTagScanned(tagStart, tagEnd, nameStart, nameEnd);
+        return tagEnd;
+    }
+
+    private void onTagScanned(int tagStart, int tagEnd, int nameStart, int nameEnd) {
+        int nameLength = nameEnd - nameStart;
+        if (isTagName(nameStart, nameLength, "img")) {
+            addTagWithSrc(TagType.IMG, tagStart, tagEnd);
+        } else if (isTagName(nameStart, nameLength, "iframe")) {
+            addTagWithSrc(TagType.IFRAME, tagStart, tagEnd);
+        } else if (isTagName(nameStart, nameLength, "fb:post")) {
+            mEmbedScripts.add(FACEBOOK_EMBED_SCRIPT);
+        } else if (isTagName(nameStart, nameLength, "blockquote")) {
+            int classSpan = findSpan("class");
+            if (classSpan != -1 && mContent.startsWith("instagram-", mSpans[classSpan + 2])) {
+                mEmbedScripts.add(INSTAGRAM_EMBED_SCRIPT);
+            }
+        }
+
+        if (hasGalleryClass()) {
+            mHasTiledGallery |= hasClass(TILED_GALLERY_CLASS);
+            // images & iframes are already added, and their class is available from them
+            if (!isTagName(nameStart, nameLength, "img") && !isTagName(nameStart, nameLength, "iframe")) {
+                mTags.add(new HtmlTag(TagType.GALLERY, mContent, tagStart, tagEnd, copySpans()));
+            }
+        }
+    }
+
+    private void addTagWithSrc(TagType type, int tagStart, int tagEnd) {
+        int srcSpan = findSpan("src");
+        if (srcSpan != -1 && mSpans[srcSpan + 3] > mSpans[srcSpan + 2]) {
+            mTags.add(new HtmlTag(type, mContent, tagStart, tagEnd, copySpans()));
+        }
+    }
+
+    private boolean hasGalleryClass() {
+        int classSpan = findSpan("class");
+        if (classSpan == -1) {
+            return false;
+        }
+        // search only within the class value rather than the rest of the content
+        int lastStart = mSpans[classSpan + 3] - GALLERY.length();
+        for (int i = mSpans[classSpan + 2]; i <= lastStart; i++) {
+            if (mContent.startsWith(GALLERY, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasClass(String className) {
+        int classSpan = findSpan("class");
+        if (classSpan == -1) {
+            return false;
+        }
+        String value = mContent.substring(mSpans[classSpan + 2], mSpans[classSpan + 3]);
+        for (String token : value.trim().split("\\s+")) {
+            if (token.equals(className)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * returns the attribute spans of the scanned tag, which are kept by the tag so its
+     * attributes can be read without having been copied
+     */
+    private int[] copySpans() {
+        int[] spans = new int[mNumAttrs * SPAN_SIZE];
+        System.arraycopy(mSpans, 0, spans, 0, spans.length);
+        return spans;
+    }
+
+    private int findSpan(String name) {
+        return findSpan(mContent, mSpans, mNumAttrs, name);
+    }
+
+    /*
+     * returns the offset in the passed spans of the first attribute with the passed lowercase
+     * name, or -1 - as with the regexes this replaces, the first occurrence of an attribute wins
+     */
+    private static int findSpan(String content, int[] spans, int numAttrs, String name) {
+        for (int i = 0; i < numAttrs; i++) {
+            int span = i * SPAN_SIZE;
+            if (spans[span + 1] - spans[span] == name.length()
+                    && content.regionMatches(true, spans[span], name, 0, name.length())) {
+                return span;
+            }
+        }
+        return -1;
+    }
+
+    private void addSpan(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+        int span = mNumAttrs * SPAN_SIZE;
+        if (span + SPAN_SIZE > mSpans.length) {
+            int[] spans = new int[mSpans.length * 2];
+            System.arraycopy(mSpans, 0, spans, 0, mSpans.length);
+            mSpans = spans;
+        }
+        mSpans[span] = nameStart;
+        mSpans[span + 1] = nameEnd;
+        mSpans[span + 2] = valueStart;
+        mSpans[span + 3] = valueEnd;
+        mNumAttrs++;
+    }
+
+    private boolean isTagName(int nameStart, int nameLength, String tagName) {
+        return nameLength == tagName.length() && mContent.regionMatches(true, nameStart, tagName, 0, nameLength);
+    }
+
+    private static boolean isTagNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == ':' || c == '-';
+    }
+
+    private static boolean isAttrNameEnd(char c) {
+        return Character.isWhitespace(c) || c == '=' || c == '>' || c == '/';
+    }
+}
@@ -9,10 +9,6 @@ import java.util.regex.Pattern;
 
 public class ReaderHtmlUtils {
 
-    public interface HtmlScannerListener {
-        void onTagFound(String tag, String src);
-    }
-
     // regex for matching oriwidth attributes in tags
     private static final Pattern ORIGINAL_WIDTH_ATTR_PATTERN = Pattern.compile(
             "data-orig-size\\s*=\\s*(?:'|\")(.*?),.*?(?:'|\")",
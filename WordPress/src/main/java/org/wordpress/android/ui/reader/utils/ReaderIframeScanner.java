@@ -17,21 +17,6 @@ public class ReaderIframeScanner {
         mContent = contentOfPost;
     }
 
-    public void beginScan(ReaderHtmlUtils.HtmlScannerListener listener) {
-        if (listener == null) {
-            throw new IllegalArgumentException("HtmlScannerListener is required");
-        }
-
-        Matcher matcher = IFRAME_TAG_PATTERN.matcher(mContent);
-        while (matcher.find()) {
-            String tag = mContent.substring(matcher.start(), matcher.end());
-            String src = ReaderHtmlUtils.getSrcAttrValue(tag);
-            if (!TextUtils.isEmpty(src)) {
-                listener.onTagFound(tag, src);
-            }
-        }
-    }
-
     /*
      * scans the post for iframes containing usable videos, returns the first one found
      */
@@ -1,7 +1,6 @@
 package org.wordpress.android.ui.reader.utils;
 
 import android.support.annotation.NonNull;
-import android.text.TextUtils;
 
 import org.wordpress.android.ui.reader.models.ReaderImageList;
 
@@ -23,28 +22,6 @@ public class ReaderImageScanner {
         mContentContainsImages = mContent != null && mContent.contains("<img");
     }
 
-    /*
-     * start scanning the content for images and notify the passed listener about each one
-     */
-    public void beginScan(ReaderHtmlUtils.HtmlScannerListener listener) {
-        if (listener == null) {
-            throw new IllegalArgumentException("HtmlScannerListener is required");
-        }
-
-        if (!mContentContainsImages) {
-            return;
-        }
-
-        Matcher imgMatcher = IMG_TAG_PATTERN.matcher(mContent);
-        while (imgMatcher.find()) {
-            String imageTag = mContent.substring(imgMatcher.start(), imgMatcher.end());
-            String imageUrl = ReaderHtmlUtils.getSrcAttrValue(imageTag);
-            if (!TextUtils.isEmpty(imageUrl)) {
-                listener.onTagFound(imageTag, imageUrl);
-            }
-        }
-    }
-
     /*
      * returns a list of image URLs in the content up to the max above a certain width - pass zero
      * to include all images regardless of size
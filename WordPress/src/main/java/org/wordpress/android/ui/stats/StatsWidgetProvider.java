@@ -24,6 +24,7 @@ import org.wordpress.android.fluxc.model.SiteModel;
 import org.wordpress.android.fluxc.store.SiteStore;
 import org.wordpress.android.ui.main.WPMainActivity;
 import org.wordpress.android.ui.prefs.AppPrefs;
+import org.wordpress.android.ui.stats.datasets.StatsTypedTable;
 import org.wordpress.android.ui.stats.exceptions.StatsError;
 import org.wordpress.android.ui.stats.models.VisitModel;
 import org.wordpress.android.ui.stats.service.StatsService;
@@ -34,6 +35,7 @@ import org.wordpress.android.util.NetworkUtils;
 import org.wordpress.android.util.SiteUtils;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import javax.inject.Inject;
 
@@ -144,7 +146,7 @@ public class StatsWidgetProvider extends AppWidgetProvider {
         String currentDate = StatsUtils.getCurrentDateTZ(site);
 
         // Show cached data if available
-        JSONObject cache = getCacheDataForBlog(site.getSiteId(), currentDate);
+        JSONObject cache = getCacheDataForBlog(context, site.getSiteId(), currentDate);
         if (cache != null) {
             showStatsData(context, widgetIDs, site, cache);
         } else {
@@ -211,13 +213,7 @@ public class StatsWidgetProvider extends AppWidgetProvider {
 
         try {
             String currentDate = StatsUtils.getCurrentDateTZ(site);
-            JSONObject newData = new JSONObject();
-            newData.put("blog_id", data.getBlogID());
-            newData.put("date", currentDate);
-            newData.put("views", data.getViews());
-            newData.put("visitors", data.getVisitors());
-            newData.put("comments", data.getComments());
-            newData.put("likes", data.getLikes());
+            JSONObject newData = toWidgetData(data, currentDate);
 
             // Store new data in cache
             String prevDataAsString = AppPrefs.getStatsWidgetsData();
@@ -299,7 +295,42 @@ public class StatsWidgetProvider extends AppWidgetProvider {
         context.startService(intent);
     }
 
-    private static synchronized JSONObject getCacheDataForBlog(long remoteBlogID, String date) {
+    private static JSONObject toWidgetData(VisitModel data, String date) throws JSONException {
+        JSONObject widgetData = new JSONObject();
+        widgetData.put("blog_id", data.getBlogID());
+        widgetData.put("date", date);
+        widgetData.put("views", data.getViews());
+        widgetData.put("visitors", data.getVisitors());
+        widgetData.put("comments", data.getComments());
+        widgetData.put("likes", data.getLikes());
+        return widgetData;
+    }
+
+    /*
+     * returns the data last shown in the widgets for the passed blog and date, falling back to the
+     * day's row in the stats db (ex: after the widgets' data was reset, or when the day's visits
+     * were last updated by the app rather than the widget)
+     */
+    private static synchronized JSONObject getCacheDataForBlog(Context context, long remoteBlogID, String date) {
+        JSONObject cache = getWidgetsDataForBlog(remoteBlogID, date);
+        if (cache != null) {
+            return cache;
+        }
+
+        List<VisitModel> visits = StatsTypedTable.getVisits(context, remoteBlogID, StatsTimeframe.DAY, date, date);
+        if (visits.isEmpty()) {
+            return null;
+        }
+        try {
+            AppLog.i(AppLog.T.STATS, "Stored visits found for the blog ID " + remoteBlogID);
+            return toWidgetData(visits.get(0), date);
+        } catch (JSONException e) {
+            AppLog.e(AppLog.T.STATS, e);
+            return null;
+        }
+    }
+
+    private static JSONObject getWidgetsDataForBlog(long remoteBlogID, String date) {
         String prevDataAsString = AppPrefs.getStatsWidgetsData();
         if (StringUtils.isEmpty(prevDataAsString)) {
             AppLog.i(AppLog.T.STATS, "No cache found for the widgets");
@@ -452,7 +483,7 @@ public class StatsWidgetProvider extends AppWidgetProvider {
         String currentDate = StatsUtils.getCurrentDateTZ(site);
 
         // Load cached data if available and show it immediately
-        JSONObject cache = getCacheDataForBlog(remoteBlogID, currentDate);
+        JSONObject cache = getCacheDataForBlog(context, remoteBlogID, currentDate);
         if (cache != null) {
             showStatsData(context, new int[] {widgetID}, site, cache);
             return;
@@ -506,7 +537,7 @@ public class StatsWidgetProvider extends AppWidgetProvider {
             String currentDate = StatsUtils.getCurrentDateTZ(site);
 
             // Load cached data if available and show it immediately
-            JSONObject cache = getCacheDataForBlog(remoteBlogID, currentDate);
+            JSONObject cache = getCacheDataForBlog(context, remoteBlogID, currentDate);
             if (cache != null) {
                 showStatsData(context, currentWidgets, site, cache);
             }
@@ -14,6 +14,8 @@ public class StatsTable {
 
     private static final String TABLE_NAME = "tbl_stats";
     public static final int CACHE_TTL_MINUTES = 10;
+    // Expired stats are kept this long so they can be shown while they're refreshed
+    public static final int CACHE_MAX_STALE_MINUTES = 24 * 60;
     private static final int MAX_RESPONSE_LEN = (int) (1024 * 1024 * 1.8); // 1.8 MB Approx
 
     static void createTables(SQLiteDatabase db) {
@@ -41,9 +43,35 @@ public class StatsTable {
     }
 
 
+    /*
+     * returns true if a response stored at the passed timestamp is no older than the passed age
+     */
+    static boolean isCacheFresh(long timestamp, int maxAgeMinutes) {
+        long currentTime = System.currentTimeMillis();
+        long deltaMS = currentTime - timestamp;
+        if (deltaMS < 0) {
+            // current date is in the past respect to stats date?? Uhhh!
+            return false;
+        }
+
+        deltaMS = deltaMS / 1000; // seconds
+        // check if the cache is fresh
+        return (deltaMS / 60) <= maxAgeMinutes;
+    }
+
     public static String getStats(final Context ctx, final long blogId, final StatsTimeframe timeframe,
                                   final String date, final StatsEndpointsEnum sectionToUpdate, final int
                                           maxResultsRequested, final int pageRequested) {
+        return getStats(ctx, blogId, timeframe, date, sectionToUpdate, maxResultsRequested, pageRequested,
+                CACHE_TTL_MINUTES);
+    }
+
+    /*
+     * same as above, but returns stats up to the passed age rather than only fresh stats
+     */
+    public static String getStats(final Context ctx, final long blogId, final StatsTimeframe timeframe,
+                                  final String date, final StatsEndpointsEnum sectionToUpdate, final int
+                                          maxResultsRequested, final int pageRequested, final int maxAgeMinutes) {
         if (ctx == null) {
             AppLog.e(AppLog.T.STATS, "Cannot insert a null stats since the passed context is null. Context is required " +
                     "to access the DB.");
@@ -73,19 +101,10 @@ public class StatsTable {
         try {
             if (cursor != null && cursor.moveToFirst()) {
                 long timestamp  = cursor.getLong(cursor.getColumnIndex("timestamp"));
-                long currentTime = System.currentTimeMillis();
-                long deltaMS = currentTime - timestamp;
-                if (deltaMS < 0) {
-                    // current date is in the past respect to stats date?? Uhhh!
+                if (!isCacheFresh(timestamp, maxAgeMinutes)) {
                     return null;
                 }
 
-                deltaMS = deltaMS / 1000; // seconds
-                // check if the cache is fresh
-                if ((deltaMS / 60) > CACHE_TTL_MINUTES) {
-                    return null; // cache is expired
-                }
-
                 return cursor.getString(cursor.getColumnIndex("jsonData"));
             } else {
                 return null;
@@ -161,6 +180,7 @@ public class StatsTable {
         try {
             db.beginTransaction();
             int rowDeleted = db.delete(TABLE_NAME, "timestamp <= ?", new String[] { Long.toString(timestamp) });
+            rowDeleted += StatsTypedTable.deleteOldStats(db, timestamp);
             db.setTransactionSuccessful();
             AppLog.d(AppLog.T.STATS, "Number of old stats deleted : " + rowDeleted);
             return rowDeleted > 1;
@@ -180,6 +200,7 @@ public class StatsTable {
         try {
             db.beginTransaction();
             int rowDeleted = db.delete(TABLE_NAME, "blogID=?", new String[] {Integer.toString(blogId)});
+            rowDeleted += StatsTypedTable.deleteStatsForBlog(db, blogId);
             db.setTransactionSuccessful();
             AppLog.d(AppLog.T.STATS, "Stats deleted for localBlogID " + blogId);
             return rowDeleted > 1;
@@ -202,6 +223,7 @@ public class StatsTable {
             int rowDeleted = db.delete(TABLE_NAME, "blogID=? AND type=?",
                     new String[] {Long.toString(blogId), Integer.toString(sectionToUpdate.ordinal())}
             );
+            rowDeleted += StatsTypedTable.deleteStatsForBlog(db, blogId, sectionToUpdate);
             db.setTransactionSuccessful();
             AppLog.d(AppLog.T.STATS, "Stats deleted for localBlogID " + blogId + " and type " + sectionToUpdate.getRestEndpointPath());
             return rowDeleted > 1;
@@ -221,6 +243,7 @@ public class StatsTable {
         db.beginTransaction();
         try {
             db.execSQL("DELETE FROM " + TABLE_NAME);
+            StatsTypedTable.purgeAll(db);
             db.setTransactionSuccessful();
         } finally {
             db.endTransaction();
@@ -0,0 +1,718 @@
+package org.wordpress.android.ui.stats.datasets;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import org.wordpress.android.ui.stats.StatsTimeframe;
+import org.wordpress.android.ui.stats.StatsUtils;
+import org.wordpress.android.ui.stats.models.BaseStatsModel;
+import org.wordpress.android.ui.stats.models.ClickGroupModel;
+import org.wordpress.android.ui.stats.models.ClicksModel;
+import org.wordpress.android.ui.stats.models.ReferrerGroupModel;
+import org.wordpress.android.ui.stats.models.ReferrerResultModel;
+import org.wordpress.android.ui.stats.models.ReferrersModel;
+import org.wordpress.android.ui.stats.models.SingleItemModel;
+import org.wordpress.android.ui.stats.models.StatsPostModel;
+import org.wordpress.android.ui.stats.models.TopPostsAndPagesModel;
+import org.wordpress.android.ui.stats.models.VisitModel;
+import org.wordpress.android.ui.stats.models.VisitsModel;
+import org.wordpress.android.ui.stats.service.StatsService.StatsEndpointsEnum;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.SqlUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Typed storage for the stats sections which are requested most often (visits, top posts, referrers
+ * and clicks). Rather than storing the JSON response and parsing it again every time it's read, each
+ * response is stored as rows which are turned straight back into models.
+ *
+ * - tbl_stats_sections has one row per response, with the request parameters used to check the cache
+ *   and the values of the model that aren't lists
+ * - tbl_stats_visits has one row per period (day, week, etc.) so a range of periods can be queried
+ *   directly, ex: for the visitors and views chart or the widgets
+ * - tbl_stats_top_posts has one row per post in a top posts response
+ * - tbl_stats_groups has the referrers and clicks trees flattened into rows in display order, with
+ *   the depth of each row used to rebuild the tree
+ */
+public class StatsTypedTable {
+    private static final String SECTIONS_TABLE = "tbl_stats_sections";
+    private static final String VISITS_TABLE = "tbl_stats_visits";
+    private static final String TOP_POSTS_TABLE = "tbl_stats_top_posts";
+    private static final String GROUPS_TABLE = "tbl_stats_groups";
+
+    // childCount of a group row which has no list of children (as opposed to an empty one)
+    private static final int NO_CHILDREN = -1;
+
+    static void createTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + SECTIONS_TABLE + " ("
+                + " blogID          INTEGER NOT NULL,"
+                + " type            INTEGER DEFAULT 0,"
+                + " timeframe       INTEGER DEFAULT 0,"
+                + " date            TEXT NOT NULL,"       // The date passed to the request
+                + " maxResult       INTEGER DEFAULT 0,"
+                + " page            INTEGER DEFAULT 0,"
+                + " responseDate    TEXT,"                // The date returned in the response
+                + " period          TEXT,"                // The period (or unit for visits) returned in the response
+                + " firstPeriod     TEXT,"                // Visits only: the range of periods in the response
+                + " lastPeriod      TEXT,"
+                + " numItems        INTEGER DEFAULT 0,"
+                + " otherCount      INTEGER DEFAULT 0,"
+                + " totalCount      INTEGER DEFAULT 0,"
+                + " timestamp       INTEGER NOT NULL,"
+                + " UNIQUE (blogID, type, timeframe, date) ON CONFLICT REPLACE"
+                + ")");
+
+        db.execSQL("CREATE TABLE " + VISITS_TABLE + " ("
+                + " blogID          INTEGER NOT NULL,"
+                + " timeframe       INTEGER DEFAULT 0,"
+                + " period          TEXT NOT NULL,"
+                + " views           INTEGER DEFAULT 0,"
+                + " visitors        INTEGER DEFAULT 0,"
+                + " likes           INTEGER DEFAULT 0,"
+                + " comments        INTEGER DEFAULT 0,"
+                + " timestamp       INTEGER NOT NULL,"
+                + " PRIMARY KEY (blogID, timeframe, period) ON CONFLICT REPLACE"
+                + ")");
+
+        db.execSQL("CREATE TABLE " + TOP_POSTS_TABLE + " ("
+                + " blogID          INTEGER NOT NULL,"
+                + " timeframe       INTEGER DEFAULT 0,"
+                + " date            TEXT NOT NULL,"
+                + " position        INTEGER NOT NULL,"
+                + " itemID          TEXT,"
+                + " title           TEXT,"
+                + " views           INTEGER DEFAULT 0,"
+                + " url             TEXT,"
+                + " postType        TEXT,"
+                + " itemDate        INTEGER DEFAULT 0,"
+                + " PRIMARY KEY (blogID, timeframe, date, position) ON CONFLICT REPLACE"
+                + ")");
+
+        db.execSQL("CREATE TABLE " + GROUPS_TABLE + " ("
+                + " blogID          INTEGER NOT NULL,"
+                + " type            INTEGER DEFAULT 0,"
+                + " timeframe       INTEGER DEFAULT 0,"
+                + " date            TEXT NOT NULL,"
+                + " position        INTEGER NOT NULL,"
+                + " depth           INTEGER DEFAULT 0,"   // 0 = group, 1 = child of group, 2 = child of child
+                + " childCount      INTEGER DEFAULT -1,"
+                + " groupID         TEXT,"
+                + " name            TEXT,"
+                + " icon            TEXT,"
+                + " views           INTEGER DEFAULT 0,"
+                + " url             TEXT,"
+                + " PRIMARY KEY (blogID, type, timeframe, date, position) ON CONFLICT REPLACE"
+                + ")");
+    }
+
+    static void dropTables(SQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS " + SECTIONS_TABLE);
+        db.execSQL("DROP TABLE IF EXISTS " + VISITS_TABLE);
+        db.execSQL("DROP TABLE IF EXISTS " + TOP_POSTS_TABLE);
+        db.execSQL("DROP TABLE IF EXISTS " + GROUPS_TABLE);
+    }
+
+    /*
+     * returns true if responses for the passed section are stored in these tables rather than as
+     * JSON in StatsTable
+     */
+    public static boolean isTypedSection(final StatsEndpointsEnum section) {
+        switch (section) {
+            case VISITS:
+            case TOP_POSTS:
+            case REFERRERS:
+            case CLICKS:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public static BaseStatsModel getModel(final Context ctx, final long blogId, final StatsTimeframe timeframe,
+                                          final String date, final StatsEndpointsEnum section,
+                                          final int maxResultsRequested, final int pageRequested,
+                                          final int maxAgeMinutes) {
+        if (ctx == null) {
+            AppLog.e(AppLog.T.STATS, "Cannot read stats since the passed context is null. Context is required " +
+                    "to access the DB.");
+            return null;
+        }
+        return getModel(StatsDatabaseHelper.getReadableDb(ctx), blogId, timeframe, date, section,
+                maxResultsRequested, pageRequested, maxAgeMinutes);
+    }
+
+    /*
+     * returns the cached model for the passed request, or null if there isn't one or it's older
+     * than the passed age
+     */
+    static BaseStatsModel getModel(SQLiteDatabase db, final long blogId, final StatsTimeframe timeframe,
+                                   final String date, final StatsEndpointsEnum section,
+                                   final int maxResultsRequested, final int pageRequested,
+                                   final int maxAgeMinutes) {
+        if (!isTypedSection(section)) {
+            return null;
+        }
+
+        String sql = "SELECT responseDate, period, firstPeriod, lastPeriod, numItems, otherCount, totalCount,"
+                + " timestamp FROM " + SECTIONS_TABLE
+                + " WHERE blogID=? AND type=? AND timeframe=? AND date=? AND page=? AND maxResult >=?";
+        String[] args = {
+                Long.toString(blogId),
+                Integer.toString(section.ordinal()),
+                Integer.toString(timeframe.ordinal()),
+                date,
+                Integer.toString(pageRequested),
+                Integer.toString(maxResultsRequested),
+        };
+
+        Cursor c = db.rawQuery(sql, args);
+        try {
+            if (!c.moveToFirst() || !StatsTable.isCacheFresh(c.getLong(7), maxAgeMinutes)) {
+                return null;
+            }
+            String responseDate = c.getString(0);
+            String period = c.getString(1);
+            int numItems = c.getInt(4);
+            switch (section) {
+                case VISITS:
+                    List<VisitModel> visits = getVisits(db, blogId, timeframe, c.getString(2), c.getString(3));
+                    // older periods may have been deleted since the response was stored
+                    if (visits.size() != numItems) {
+                        return null;
+                    }
+                    return new VisitsModel(blogId, responseDate, period, visits);
+                case TOP_POSTS:
+                    return new TopPostsAndPagesModel(blogId, period, responseDate,
+                            getTopPosts(db, blogId, timeframe, date, numItems));
+                case REFERRERS:
+                    return new ReferrersModel(blogId, period, responseDate, c.getInt(5), c.getInt(6),
+                            getReferrerGroups(db, blogId, timeframe, date, responseDate, numItems));
+                case CLICKS:
+                    return new ClicksModel(blogId, period, responseDate, c.getInt(5), c.getInt(6),
+                            getClickGroups(db, blogId, timeframe, date, responseDate, numItems));
+                default:
+                    return null;
+            }
+        } catch (IllegalStateException e) {
+            AppLog.e(AppLog.T.STATS, e);
+            return null;
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    public static List<VisitModel> getVisits(final Context ctx, final long blogId, final StatsTimeframe timeframe,
+                                             final String firstPeriod, final String lastPeriod) {
+        if (ctx == null) {
+            AppLog.e(AppLog.T.STATS, "Cannot read stats since the passed context is null. Context is required " +
+                    "to access the DB.");
+            return new ArrayList<>(0);
+        }
+        return getVisits(StatsDatabaseHelper.getReadableDb(ctx), blogId, timeframe, firstPeriod, lastPeriod);
+    }
+
+    /*
+     * returns the stored visits for the passed range of periods (inclusive) in chronological order -
+     * periods are returned by the server in a format which sorts chronologically as text for each
+     * timeframe (ex: "2016-12-31" for days, "2016-12" for months)
+     */
+    static List<VisitModel> getVisits(SQLiteDatabase db, final long blogId, final StatsTimeframe timeframe,
+                                      final String firstPeriod, final String lastPeriod) {
+        if (firstPeriod == null || lastPeriod == null) {
+            return new ArrayList<>(0);
+        }
+
+        String[] args = {Long.toString(blogId), Integer.toString(timeframe.ordinal()), firstPeriod, lastPeriod};
+        Cursor c = db.rawQuery("SELECT period, views, visitors, likes, comments FROM " + VISITS_TABLE
+                + " WHERE blogID=? AND timeframe=? AND period >=? AND period <=? ORDER BY period", args);
+        try {
+            List<VisitModel> visits = new ArrayList<>(c.getCount());
+            while (c.moveToNext()) {
+                VisitModel visit = new VisitModel();
+                visit.setBlogID(blogId);
+                visit.setPeriod(c.getString(0));
+                visit.setViews(c.getInt(1));
+                visit.setVisitors(c.getInt(2));
+                visit.setLikes(c.getInt(3));
+                visit.setComments(c.getInt(4));
+                visits.add(visit);
+            }
+            return visits;
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    private static List<StatsPostModel> getTopPosts(SQLiteDatabase db, long blogId, StatsTimeframe timeframe,
+                                                    String date, int numItems) {
+        String[] args = {Long.toString(blogId), Integer.toString(timeframe.ordinal()), date};
+        Cursor c = db.rawQuery("SELECT itemID, title, views, url, postType, itemDate FROM " + TOP_POSTS_TABLE
+                + " WHERE blogID=? AND timeframe=? AND date=? ORDER BY position", args);
+        try {
+            List<StatsPostModel> posts = new ArrayList<>(numItems);
+            while (c.moveToNext()) {
+                posts.add(new StatsPostModel(blogId, c.getLong(5), c.getString(0), c.getString(1),
+                        c.getInt(2), c.getString(3), c.getString(4)));
+            }
+            return posts;
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    private static Cursor queryGroups(SQLiteDatabase db, long blogId, StatsEndpointsEnum section,
+                                      StatsTimeframe timeframe, String date) {
+        String[] args = {
+                Long.toString(blogId),
+                Integer.toString(section.ordinal()),
+                Integer.toString(timeframe.ordinal()),
+                date
+        };
+        return db.rawQuery("SELECT depth, childCount, groupID, name, icon, views, url FROM " + GROUPS_TABLE
+                + " WHERE blogID=? AND type=? AND timeframe=? AND date=? ORDER BY position", args);
+    }
+
+    private static <T> List<T> newChildList(int childCount) {
+        return childCount == NO_CHILDREN ? null : new ArrayList<T>(childCount);
+    }
+
+    /*
+     * rebuilds the referrer groups from rows stored in display order, where each row is the child of
+     * the closest preceding row with a lower depth
+     */
+    private static List<ReferrerGroupModel> getReferrerGroups(SQLiteDatabase db, long blogId,
+                                                              StatsTimeframe timeframe, String date,
+                                                              String responseDate, int numItems) {
+        long dateMs = StatsUtils.toMs(responseDate);
+        List<ReferrerGroupModel> groups = newChildList(numItems);
+        List<ReferrerResultModel> results = null;
+        List<SingleItemModel> children = null;
+
+        Cursor c = queryGroups(db, blogId, StatsEndpointsEnum.REFERRERS, timeframe, date);
+        try {
+            while (c.moveToNext()) {
+                int depth = c.getInt(0);
+                int childCount = c.getInt(1);
+                if (depth == 0) {
+                    results = newChildList(childCount);
+                    groups.add(new ReferrerGroupModel(blogId, dateMs, c.getString(2), c.getString(3),
+                            c.getString(4), c.getInt(5), c.getString(6), results));
+                } else if (depth == 1 && results != null) {
+                    children = newChildList(childCount);
+                    results.add(new ReferrerResultModel(blogId, dateMs, c.getString(3), c.getString(4),
+                            c.getInt(5), c.getString(6), children));
+                } else if (depth == 2 && children != null) {
+                    children.add(new SingleItemModel(blogId, dateMs, null, c.getString(3), c.getInt(5),
+                            c.getString(6), c.getString(4)));
+                }
+            }
+            return groups;
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    private static List<ClickGroupModel> getClickGroups(SQLiteDatabase db, long blogId, StatsTimeframe timeframe,
+                                                        String date, String responseDate, int numItems) {
+        long dateMs = StatsUtils.toMs(responseDate);
+        List<ClickGroupModel> groups = newChildList(numItems);
+        List<SingleItemModel> clicks = null;
+
+        Cursor c = queryGroups(db, blogId, StatsEndpointsEnum.CLICKS, timeframe, date);
+        try {
+            while (c.moveToNext()) {
+                int depth = c.getInt(0);
+                if (depth == 0) {
+                    clicks = newChildList(c.getInt(1));
+                    groups.add(new ClickGroupModel(blogId, dateMs, c.getString(2), c.getString(3),
+                            c.getString(4), c.getInt(5), c.getString(6), clicks));
+                } else if (depth == 1 && clicks != null) {
+                    clicks.add(new SingleItemModel(blogId, dateMs, null, c.getString(3), c.getInt(5),
+                            c.getString(6), c.getString(4)));
+                }
+            }
+            return groups;
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    public static void insertModel(final Context ctx, final long blogId, final StatsTimeframe timeframe,
+                                   final String date, final StatsEndpointsEnum section,
+                                   final int maxResultsRequested, final int pageRequested,
+                                   final BaseStatsModel model, final long responseTimestamp) {
+        if (ctx == null) {
+            AppLog.e(AppLog.T.STATS,
+                    "Cannot insert a null stats since the passed context is null. Context is required " +
+                            "to access the DB.");
+            return;
+        }
+        insertModel(StatsDatabaseHelper.getWritableDb(ctx), blogId, timeframe, date, section,
+                maxResultsRequested, pageRequested, model, responseTimestamp);
+    }
+
+    /*
+     * replaces the stored response for the passed request with the passed (already parsed) model
+     */
+    static void insertModel(SQLiteDatabase db, final long blogId, final StatsTimeframe timeframe,
+                            final String date, final StatsEndpointsEnum section,
+                            final int maxResultsRequested, final int pageRequested,
+                            final BaseStatsModel model, final long responseTimestamp) {
+        if (model == null || !isTypedSection(section)) {
+            return;
+        }
+
+        SectionValues values = new SectionValues();
+        db.beginTransaction();
+        try {
+            deleteItems(db, blogId, timeframe, date, section);
+            switch (section) {
+                case VISITS:
+                    insertVisits(db, blogId, timeframe, (VisitsModel) model, responseTimestamp, values);
+                    break;
+                case TOP_POSTS:
+                    insertTopPosts(db, blogId, timeframe, date, (TopPostsAndPagesModel) model, values);
+                    break;
+                case REFERRERS:
+                    insertReferrers(db, blogId, timeframe, date, (ReferrersModel) model, values);
+                    break;
+                case CLICKS:
+                    insertClicks(db, blogId, timeframe, date, (ClicksModel) model, values);
+                    break;
+            }
+
+            SQLiteStatement stmt = db.compileStatement("INSERT INTO " + SECTIONS_TABLE
+                    + " (blogID, type, timeframe, date, maxResult, page, responseDate, period, firstPeriod,"
+                    + " lastPeriod, numItems, otherCount, totalCount, timestamp)"
+                    + " VALUES (?1,?2,?3,?4,?5,?6,?7,?8,?9,?10,?11,?12,?13,?14)");
+            try {
+                stmt.bindLong(1, blogId);
+                stmt.bindLong(2, section.ordinal());
+                stmt.bindLong(3, timeframe.ordinal());
+                stmt.bindString(4, date);
+                stmt.bindLong(5, maxResultsRequested);
+                stmt.bindLong(6, pageRequested);
+                bindStringOrNull(stmt, 7, values.responseDate);
+                bindStringOrNull(stmt, 8, values.period);
+                bindStringOrNull(stmt, 9, values.firstPeriod);
+                bindStringOrNull(stmt, 10, values.lastPeriod);
+                stmt.bindLong(11, values.numItems);
+                stmt.bindLong(12, values.otherCount);
+                stmt.bindLong(13, values.totalCount);
+                stmt.bindLong(14, responseTimestamp);
+                stmt.execute();
+            } finally {
+                SqlUtils.closeStatement(stmt);
+            }
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /*
+     * the non-list values of the model being inserted, stored in tbl_stats_sections
+     */
+    private static class SectionValues {
+        String responseDate;
+        String period;
+        String firstPeriod;
+        String lastPeriod;
+        int numItems;
+        int otherCount;
+        int totalCount;
+    }
+
+    private static void bindStringOrNull(SQLiteStatement stmt, int index, String value) {
+        if (value == null) {
+            stmt.bindNull(index);
+        } else {
+            stmt.bindString(index, value);
+        }
+    }
+
+    private static void insertVisits(SQLiteDatabase db, long blogId, StatsTimeframe timeframe, VisitsModel model,
+                                     long responseTimestamp, SectionValues values) {
+        values.responseDate = model.getDate();
+        values.period = model.getUnit();
+        List<VisitModel> visits = model.getVisits();
+        if (visits == null || visits.size() == 0) {
+            return;
+        }
+
+        SQLiteStatement stmt = db.compileStatement("INSERT INTO " + VISITS_TABLE
+                + " (blogID, timeframe, period, views, visitors, likes, comments, timestamp)"
+                + " VALUES (?1,?2,?3,?4,?5,?6,?7,?8)");
+        try {
+            String firstPeriod = null;
+            String lastPeriod = null;
+            for (VisitModel visit : visits) {
+                String period = visit.getPeriod();
+                if (period == null) {
+                    continue;
+                }
+                stmt.bindLong(1, blogId);
+                stmt.bindLong(2, timeframe.ordinal());
+                stmt.bindString(3, period);
+                stmt.bindLong(4, visit.getViews());
+                stmt.bindLong(5, visit.getVisitors());
+                stmt.bindLong(6, visit.getLikes());
+                stmt.bindLong(7, visit.getComments());
+                stmt.bindLong(8, responseTimestamp);
+                stmt.execute();
+
+                if (firstPeriod == null || period.compareTo(firstPeriod) < 0) {
+                    firstPeriod = period;
+                }
+                if (lastPeriod == null || period.compareTo(lastPeriod) > 0) {
+                    lastPeriod = period;
+                }
+                values.numItems++;
+            }
+            values.firstPeriod = firstPeriod;
+            values.lastPeriod = lastPeriod;
+        } finally {
+            SqlUtils.closeStatement(stmt);
+        }
+    }
+
+    private static void insertTopPosts(SQLiteDatabase db, long blogId, StatsTimeframe timeframe, String date,
+                                       TopPostsAndPagesModel model, SectionValues values) {
+        values.responseDate = model.getDate();
+        values.period = model.getPeriod();
+        List<StatsPostModel> posts = model.getTopPostsAndPages();
+        if (posts == null) {
+            return;
+        }
+
+        SQLiteStatement stmt = db.compileStatement("INSERT INTO " + TOP_POSTS_TABLE
+                + " (blogID, timeframe, date, position, itemID, title, views, url, postType, itemDate)"
+                + " VALUES (?1,?2,?3,?4,?5,?6,?7,?8,?9,?10)");
+        try {
+            for (StatsPostModel post : posts) {
+                stmt.bindLong(1, blogId);
+                stmt.bindLong(2, timeframe.ordinal());
+                stmt.bindString(3, date);
+                stmt.bindLong(4, values.numItems);
+                bindStringOrNull(stmt, 5, post.getItemID());
+                bindStringOrNull(stmt, 6, post.getTitle());
+                stmt.bindLong(7, post.getTotals());
+                bindStringOrNull(stmt, 8, post.getUrl());
+                bindStringOrNull(stmt, 9, post.getPostType());
+                stmt.bindLong(10, post.getDate());
+                stmt.execute();
+                values.numItems++;
+            }
+        } finally {
+            SqlUtils.closeStatement(stmt);
+        }
+    }
+
+    private static void insertReferrers(SQLiteDatabase db, long blogId, StatsTimeframe timeframe, String date,
+                                        ReferrersModel model, SectionValues values) {
+        values.responseDate = model.getDate();
+        values.period = model.getPeriod();
+        values.otherCount = model.getOtherViews();
+        values.totalCount = model.getTotalViews();
+        List<ReferrerGroupModel> groups = model.getGroups();
+        if (groups == null) {
+            values.numItems = NO_CHILDREN;
+            return;
+        }
+
+        GroupInserter inserter = new GroupInserter(db, blogId, StatsEndpointsEnum.REFERRERS, timeframe, date);
+        try {
+            for (ReferrerGroupModel group : groups) {
+                List<ReferrerResultModel> results = group.getResults();
+                inserter.insert(0, sizeOf(results), group.getGroupId(), group.getName(), group.getIcon(),
+                        group.getTotal(), group.getUrl());
+                if (results == null) {
+                    continue;
+                }
+                for (ReferrerResultModel result : results) {
+                    List<SingleItemModel> children = result.getChildren();
+                    inserter.insert(1, sizeOf(children), null, result.getName(), result.getIcon(),
+                            result.getViews(), result.getUrl());
+                    if (children == null) {
+                        continue;
+                    }
+                    for (SingleItemModel child : children) {
+                        inserter.insert(2, NO_CHILDREN, null, child.getTitle(), child.getIcon(),
+                                child.getTotals(), child.getUrl());
+                    }
+                }
+            }
+            values.numItems = groups.size();
+        } finally {
+            inserter.close();
+        }
+    }
+
+    private static void insertClicks(SQLiteDatabase db, long blogId, StatsTimeframe timeframe, String date,
+                                     ClicksModel model, SectionValues values) {
+        values.responseDate = model.getDate();
+        values.period = model.getPeriod();
+        values.otherCount = model.getOtherClicks();
+        values.totalCount = model.getTotalClicks();
+        List<ClickGroupModel> groups = model.getClickGroups();
+        if (groups == null) {
+            values.numItems = NO_CHILDREN;
+            return;
+        }
+
+        GroupInserter inserter = new GroupInserter(db, blogId, StatsEndpointsEnum.CLICKS, timeframe, date);
+        try {
+            for (ClickGroupModel group : groups) {
+                List<SingleItemModel> clicks = group.getClicks();
+                inserter.insert(0, sizeOf(clicks), group.getGroupId(), group.getName(), group.getIcon(),
+                        group.getViews(), group.getUrl());
+                if (clicks == null) {
+                    continue;
+                }
+                for (SingleItemModel click : clicks) {
+                    inserter.insert(1, NO_CHILDREN, null, click.getTitle(), click.getIcon(),
+                            click.getTotals(), click.getUrl());
+                }
+            }
+            values.numItems = groups.size();
+        } finally {
+            inserter.close();
+        }
+    }
+
+    private static int sizeOf(List<?> list) {
+        return list == null ? NO_CHILDREN : list.size();
+    }
+
+    /*
+     * inserts the rows of a referrers or clicks tree in display order
+     */
+    private static class GroupInserter {
+        private final SQLiteStatement mStmt;
+        private final long mBlogId;
+        private final StatsEndpointsEnum mSection;
+        private final StatsTimeframe mTimeframe;
+        private final String mDate;
+        private int mPosition;
+
+        GroupInserter(SQLiteDatabase db, long blogId, StatsEndpointsEnum section, StatsTimeframe timeframe,
+                      String date) {
+            mStmt = db.compileStatement("INSERT INTO " + GROUPS_TABLE
+                    + " (blogID, type, timeframe, date, position, depth, childCount, groupID, name, icon, views, url)"
+                    + " VALUES (?1,?2,?3,?4,?5,?6,?7,?8,?9,?10,?11,?12)");
+            mBlogId = blogId;
+            mSection = section;
+            mTimeframe = timeframe;
+            mDate = date;
+        }
+
+        void insert(int depth, int childCount, String groupId, String name, String icon, int views, String url) {
+            mStmt.bindLong(1, mBlogId);
+            mStmt.bindLong(2, mSection.ordinal());
+            mStmt.bindLong(3, mTimeframe.ordinal());
+            mStmt.bindString(4, mDate);
+            mStmt.bindLong(5, mPosition++);
+            mStmt.bindLong(6, depth);
+            mStmt.bindLong(7, childCount);
+            bindStringOrNull(mStmt, 8, groupId);
+            bindStringOrNull(mStmt, 9, name);
+            bindStringOrNull(mStmt, 10, icon);
+            mStmt.bindLong(11, views);
+            bindStringOrNull(mStmt, 12, url);
+            mStmt.execute();
+        }
+
+        void close() {
+            SqlUtils.closeStatement(mStmt);
+        }
+    }
+
+    /*
+     * deletes the list rows of a stored response - visits are stored per period rather than per
+     * response, so they're replaced when the new response is inserted
+     */
+    private static void deleteItems(SQLiteDatabase db, long blogId, StatsTimeframe timeframe, String date,
+                                    StatsEndpointsEnum section) {
+        switch (section) {
+            case TOP_POSTS:
+                db.delete(TOP_POSTS_TABLE, "blogID=? AND timeframe=? AND date=?",
+                        new String[]{Long.toString(blogId), Integer.toString(timeframe.ordinal()), date});
+                break;
+            case REFERRERS:
+            case CLICKS:
+                db.delete(GROUPS_TABLE, "blogID=? AND type=? AND timeframe=? AND date=?",
+                        new String[]{Long.toString(blogId), Integer.toString(section.ordinal()),
+                                Integer.toString(timeframe.ordinal()), date});
+                break;
+        }
+    }
+
+    /*
+     * deletes responses stored on or before the passed timestamp, along with their rows - returns
+     * the number of responses deleted. must be called inside a transaction
+     */
+    static int deleteOldStats(SQLiteDatabase db, final long timestamp) {
+        String[] args = {Long.toString(timestamp)};
+        int numDeleted = db.delete(SECTIONS_TABLE, "timestamp <= ?", args);
+        db.delete(VISITS_TABLE, "timestamp <= ?", args);
+        deleteOrphanedItems(db);
+        return numDeleted;
+    }
+
+    private static void deleteOrphanedItems(SQLiteDatabase db) {
+        db.delete(TOP_POSTS_TABLE, "NOT EXISTS (SELECT 1 FROM " + SECTIONS_TABLE + " s"
+                + " WHERE s.blogID=" + TOP_POSTS_TABLE + ".blogID"
+                + " AND s.type=" + StatsEndpointsEnum.TOP_POSTS.ordinal()
+                + " AND s.timeframe=" + TOP_POSTS_TABLE + ".timeframe"
+                + " AND s.date=" + TOP_POSTS_TABLE + ".date)", null);
+        db.delete(GROUPS_TABLE, "NOT EXISTS (SELECT 1 FROM " + SECTIONS_TABLE + " s"
+                + " WHERE s.blogID=" + GROUPS_TABLE + ".blogID"
+                + " AND s.type=" + GROUPS_TABLE + ".type"
+                + " AND s.timeframe=" + GROUPS_TABLE + ".timeframe"
+                + " AND s.date=" + GROUPS_TABLE + ".date)", null);
+    }
+
+    /*
+     * must be called inside a transaction
+     */
+    static int deleteStatsForBlog(SQLiteDatabase db, final long blogId) {
+        String[] args = {Long.toString(blogId)};
+        int numDeleted = db.delete(SECTIONS_TABLE, "blogID=?", args);
+        db.delete(VISITS_TABLE, "blogID=?", args);
+        db.delete(TOP_POSTS_TABLE, "blogID=?", args);
+        db.delete(GROUPS_TABLE, "blogID=?", args);
+        return numDeleted;
+    }
+
+    /*
+     * must be called inside a transaction
+     */
+    static int deleteStatsForBlog(SQLiteDatabase db, final long blogId, final StatsEndpointsEnum section) {
+        if (!isTypedSection(section)) {
+            return 0;
+        }
+        int numDeleted = db.delete(SECTIONS_TABLE, "blogID=? AND type=?",
+                new String[]{Long.toString(blogId), Integer.toString(section.ordinal())});
+        if (section == StatsEndpointsEnum.VISITS) {
+            db.delete(VISITS_TABLE, "blogID=?", new String[]{Long.toString(blogId)});
+        } else {
+            deleteOrphanedItems(db);
+        }
+        return numDeleted;
+    }
+
+    /*
+     * must be called inside a transaction
+     */
+    static void purgeAll(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + SECTIONS_TABLE);
+        db.execSQL("DELETE FROM " + VISITS_TABLE);
+        db.execSQL("DELETE FROM " + TOP_POSTS_TABLE);
+        db.execSQL("DELETE FROM " + GROUPS_TABLE);
+    }
+}
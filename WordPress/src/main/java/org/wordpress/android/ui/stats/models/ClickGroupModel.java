@@ -53,6 +53,18 @@ public class ClickGroupModel implements Serializable {
         }
     }
 
+    public ClickGroupModel(long blogId, long date, String groupId, String name, String icon, int views,
+                           String url, List<SingleItemModel> clicks) {
+        setBlogId(blogId);
+        setDate(date);
+        setGroupId(groupId);
+        setName(name);
+        setIcon(icon);
+        setViews(views);
+        setUrl(url);
+        mClicks = clicks;
+    }
+
     public long getBlogId() {
         return mBlogId;
     }
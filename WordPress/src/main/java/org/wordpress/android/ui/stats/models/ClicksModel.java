@@ -52,6 +52,16 @@ public class ClicksModel extends BaseStatsModel {
         }
     }
 
+    public ClicksModel(long blogID, String period, String date, int otherClicks, int totalClicks,
+                       List<ClickGroupModel> clickGroups) {
+        this.mBlogID = blogID;
+        this.mPeriod = period;
+        this.mDate = date;
+        this.mOtherClicks = otherClicks;
+        this.mTotalClicks = totalClicks;
+        this.mClickGroups = clickGroups;
+    }
+
     public long getBlogID() {
         return mBlogID;
     }
@@ -64,6 +64,18 @@ public class ReferrerGroupModel implements Serializable {
         }
     }
 
+    public ReferrerGroupModel(long blogId, long date, String groupId, String name, String icon, int total,
+                              String url, List<ReferrerResultModel> results) {
+        setBlogId(blogId);
+        setDate(date);
+        setGroupId(groupId);
+        setName(name);
+        setIcon(icon);
+        setTotal(total);
+        setUrl(url);
+        mResults = results;
+    }
+
     public long getBlogId() {
         return mBlogId;
     }
@@ -56,6 +56,17 @@ public class ReferrerResultModel implements Serializable {
         }
     }
 
+    public ReferrerResultModel(long blogId, long date, String name, String icon, int views, String url,
+                               List<SingleItemModel> children) {
+        setBlogId(blogId);
+        setDate(date);
+        setName(name);
+        setIcon(icon);
+        setViews(views);
+        setUrl(url);
+        mChildren = children;
+    }
+
     private SingleItemModel getChildren(long blogId, String date, JSONObject child) throws JSONException {
         String name = child.getString("name");
         int totals = child.getInt("views");
@@ -52,6 +52,16 @@ public class ReferrersModel extends BaseStatsModel {
         }
     }
 
+    public ReferrersModel(long blogID, String period, String date, int otherViews, int totalViews,
+                          List<ReferrerGroupModel> groups) {
+        this.mBlogID = blogID;
+        this.mPeriod = period;
+        this.mDate = date;
+        this.mOtherViews = otherViews;
+        this.mTotalViews = totalViews;
+        this.mGroups = groups;
+    }
+
     public long getBlogID() {
         return mBlogID;
     }
@@ -22,7 +22,7 @@ public class SingleItemModel implements Serializable {
        this(blogId, StatsUtils.toMs(date), itemID, title, totals, url, icon);
     }
 
-    SingleItemModel(long blogId, long date, String itemID, String title, int totals, String url, String icon) {
+    public SingleItemModel(long blogId, long date, String itemID, String title, int totals, String url, String icon) {
         this.mBlogID = blogId;
         this.mItemID = itemID;
         this.mTitle = title;
@@ -59,6 +59,13 @@ public class TopPostsAndPagesModel extends BaseStatsModel {
         this.mTopPostsAndPages = list;
     }
 
+    public TopPostsAndPagesModel(long blogID, String period, String date, List<StatsPostModel> topPostsAndPages) {
+        this.mBlogID = blogID;
+        this.mPeriod = period;
+        this.mDate = date;
+        this.mTopPostsAndPages = topPostsAndPages;
+    }
+
     public long getBlogID() {
         return mBlogID;
     }
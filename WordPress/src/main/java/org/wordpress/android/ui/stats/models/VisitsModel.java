@@ -82,6 +82,13 @@ public class VisitsModel extends BaseStatsModel {
         }
     }
 
+    public VisitsModel(long blogID, String date, String unit, List<VisitModel> visits) {
+        this.setBlogID(blogID);
+        this.setDate(date);
+        this.setUnit(unit);
+        this.mVisits = visits;
+    }
+
     public List<VisitModel> getVisits() {
         return mVisits;
     }
@@ -0,0 +1,218 @@
+package org.wordpress.android.ui.stats.service;
+
+import android.os.Process;
+import android.support.annotation.NonNull;
+
+import com.android.volley.Request;
+
+import org.json.JSONObject;
+import org.wordpress.android.ui.stats.StatsTimeframe;
+import org.wordpress.android.ui.stats.service.StatsService.StatsEndpointsEnum;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedules the work done by StatsService.
+ *
+ * - Cache lookups, parsing of responses and submission of network calls run on a small pool of
+ *   threads rather than a single thread, so a screen requesting a dozen sections isn't serialized.
+ * - Network requests are tracked by a key made of the request parameters, so a request is never
+ *   enqueued while an identical one is still in flight.
+ * - Tasks are counted from when they're submitted until they've run, and the listener is told
+ *   when each one finishes so the service can report whether it's still working.
+ * - The time spent waiting for the network and parsing responses is recorded for each endpoint.
+ */
+class StatsRequestScheduler {
+    private static final int MAX_POOL_THREADS = 3;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    interface OnTaskFinishedListener {
+        void onTaskFinished();
+    }
+
+    private final ThreadPoolExecutor mPool;
+    private final OnTaskFinishedListener mListener;
+
+    // tasks which are waiting to run or running
+    private final AtomicInteger mNumTasks = new AtomicInteger();
+
+    // in-flight requests by key - the request is null while it's being created
+    private final HashMap<String, Request<JSONObject>> mRequests = new HashMap<>();
+
+    private final Map<StatsEndpointsEnum, EndpointStats> mEndpointStats = new EnumMap<>(StatsEndpointsEnum.class);
+
+    StatsRequestScheduler() {
+        this(null);
+    }
+
+    StatsRequestScheduler(OnTaskFinishedListener listener) {
+        mListener = listener;
+        int numThreads = Math.max(1, Math.min(MAX_POOL_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+        mPool = new ThreadPoolExecutor(
+                numThreads,
+                numThreads,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger mCount = new AtomicInteger();
+                    @Override
+                    public Thread newThread(@NonNull final Runnable runnable) {
+                        return new Thread("stats-" + mCount.incrementAndGet()) {
+                            @Override
+                            public void run() {
+                                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                runnable.run();
+                            }
+                        };
+                    }
+                });
+        mPool.allowCoreThreadTimeOut(true);
+    }
+
+    static String getRequestKey(long blogId, StatsEndpointsEnum endpoint, StatsTimeframe timeframe, String date,
+                                int maxResultsRequested, int pageRequested) {
+        // the max # results is part of the key since a response is only reused for requests which
+        // ask for the same number of results or less
+        return blogId + "/" + endpoint.name() + "/" + timeframe.name() + "/" + date + "/" + maxResultsRequested
+                + "/" + pageRequested;
+    }
+
+    /*
+     * runs the passed task on the pool - the listener is called once the task has run and is no
+     * longer counted by isWorking()
+     */
+    void execute(final Runnable task) {
+        mNumTasks.incrementAndGet();
+        mPool.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } finally {
+                    mNumTasks.decrementAndGet();
+                    if (mListener != null) {
+                        mListener.onTaskFinished();
+                    }
+                }
+            }
+        });
+    }
+
+    /*
+     * reserves the passed key for a new network request - returns false if a request with the
+     * same key is already in flight, in which case no request should be made
+     */
+    boolean reserveRequest(String requestKey) {
+        synchronized (mRequests) {
+            if (mRequests.containsKey(requestKey)) {
+                return false;
+            }
+            mRequests.put(requestKey, null);
+            return true;
+        }
+    }
+
+    /*
+     * sets the request for a key reserved by reserveRequest() - the request is cancelled if the
+     * requests were cancelled while it was being created
+     */
+    void setRequest(String requestKey, Request<JSONObject> request) {
+        synchronized (mRequests) {
+            if (mRequests.containsKey(requestKey)) {
+                mRequests.put(requestKey, request);
+                return;
+            }
+        }
+        request.cancel();
+    }
+
+    void finishRequest(String requestKey) {
+        synchronized (mRequests) {
+            mRequests.remove(requestKey);
+        }
+    }
+
+    void cancelRequests() {
+        synchronized (mRequests) {
+            Iterator<Request<JSONObject>> it = mRequests.values().iterator();
+            while (it.hasNext()) {
+                Request<JSONObject> req = it.next();
+                if (req != null && !req.hasHadResponseDelivered() && !req.isCanceled()) {
+                    req.cancel();
+                }
+            }
+            mRequests.clear();
+        }
+    }
+
+    void clearRequests() {
+        synchronized (mRequests) {
+            mRequests.clear();
+        }
+    }
+
+    /*
+     * returns true if there are requests in flight or tasks waiting to run or running
+     */
+    boolean isWorking() {
+        synchronized (mRequests) {
+            return mRequests.size() > 0 || mNumTasks.get() > 0;
+        }
+    }
+
+    void onResponse(StatsEndpointsEnum endpoint, long networkMs, long parseMs) {
+        synchronized (mEndpointStats) {
+            EndpointStats stats = mEndpointStats.get(endpoint);
+            if (stats == null) {
+                stats = new EndpointStats();
+                mEndpointStats.put(endpoint, stats);
+            }
+            stats.add(networkMs, parseMs);
+        }
+    }
+
+    void logStats() {
+        synchronized (mEndpointStats) {
+            for (Map.Entry<StatsEndpointsEnum, EndpointStats> entry : mEndpointStats.entrySet()) {
+                AppLog.i(T.STATS, entry.getKey().name() + " > " + entry.getValue().toString());
+            }
+        }
+    }
+
+    private static class EndpointStats {
+        private int mNumResponses;
+        private long mTotalNetworkMs;
+        private long mMaxNetworkMs;
+        private long mTotalParseMs;
+        private long mMaxParseMs;
+
+        void add(long networkMs, long parseMs) {
+            mNumResponses++;
+            mTotalNetworkMs += networkMs;
+            mMaxNetworkMs = Math.max(mMaxNetworkMs, networkMs);
+            mTotalParseMs += parseMs;
+            mMaxParseMs = Math.max(mMaxParseMs, parseMs);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%d responses, network avg %d ms (max %d ms), parse avg %d ms (max %d ms)",
+                    mNumResponses,
+                    mTotalNetworkMs / mNumResponses, mMaxNetworkMs,
+                    mTotalParseMs / mNumResponses, mMaxParseMs);
+        }
+    }
+}
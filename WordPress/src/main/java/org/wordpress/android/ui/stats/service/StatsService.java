@@ -19,6 +19,7 @@ import org.wordpress.android.ui.stats.StatsTimeframe;
 import org.wordpress.android.ui.stats.StatsUtils;
 import org.wordpress.android.ui.stats.StatsWidgetProvider;
 import org.wordpress.android.ui.stats.datasets.StatsTable;
+import org.wordpress.android.ui.stats.datasets.StatsTypedTable;
 import org.wordpress.android.ui.stats.exceptions.StatsError;
 import org.wordpress.android.ui.stats.models.AuthorsModel;
 import org.wordpress.android.ui.stats.models.BaseStatsModel;
@@ -43,12 +44,8 @@ import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 
 import java.io.Serializable;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
 
 import javax.inject.Inject;
 
@@ -56,7 +53,11 @@ import de.greenrobot.event.EventBus;
 
 /**
  * Background service to retrieve Stats.
- * Parsing of response(s) and submission of new network calls are done by using a ThreadPoolExecutor with a single thread.
+ * Parsing of response(s) and submission of new network calls are done on a small pool of threads managed
+ * by StatsRequestScheduler, which also makes sure the same request isn't enqueued twice.
+ *
+ * Cached stats are returned without a network call while they're fresh. Expired stats which are still in
+ * the cache are returned right away, and then refreshed from the network.
  */
 
 public class StatsService extends Service {
@@ -211,8 +212,15 @@ public class StatsService extends Service {
     }
 
     private int mServiceStartId;
-    private final LinkedList<Request<JSONObject>> mStatsNetworkRequests = new LinkedList<>();
-    private final ThreadPoolExecutor singleThreadNetworkHandler = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+    // the update status is reported after each task rather than by the tasks themselves, since
+    // a task is still counted by isWorking() while it's running
+    private final StatsRequestScheduler mScheduler = new StatsRequestScheduler(
+            new StatsRequestScheduler.OnTaskFinishedListener() {
+                @Override
+                public void onTaskFinished() {
+                    postUpdateStatus();
+                }
+            });
 
     @Inject SiteStore mSiteStore;
 
@@ -226,6 +234,7 @@ public class StatsService extends Service {
     @Override
     public void onDestroy() {
         stopRefresh();
+        mScheduler.logStats();
         AppLog.i(T.STATS, "service destroyed");
         super.onDestroy();
     }
@@ -284,7 +293,7 @@ public class StatsService extends Service {
         this.mServiceStartId = startId;
         for (int i=0; i < sectionFromIntent.length; i++){
             final StatsEndpointsEnum currentSectionsToUpdate = StatsEndpointsEnum.values()[sectionFromIntent[i]];
-            singleThreadNetworkHandler.submit(new Thread() {
+            mScheduler.execute(new Runnable() {
                 @Override
                 public void run() {
                     startTasks(siteId, period, requestedDate, currentSectionsToUpdate, maxResultsRequested, pageRequested);
@@ -296,15 +305,8 @@ public class StatsService extends Service {
     }
 
     private void stopRefresh() {
-        synchronized (mStatsNetworkRequests) {
-            this.mServiceStartId = 0;
-            for (Request<JSONObject> req : mStatsNetworkRequests) {
-                if (req != null && !req.hasHadResponseDelivered() && !req.isCanceled()) {
-                    req.cancel();
-                }
-            }
-            mStatsNetworkRequests.clear();
-        }
+        this.mServiceStartId = 0;
+        mScheduler.cancelRequests();
     }
 
     // A fast way to disable caching during develop or when we want to disable it
@@ -313,14 +315,31 @@ public class StatsService extends Service {
         return true;
     }
 
-    // Check if we already have Stats
-    private String getCachedStats(final long siteId, final StatsTimeframe timeframe, final String date,
-                                  final StatsEndpointsEnum sectionToUpdate, final int maxResultsRequested,
-                                  final int pageRequested) {
+    // Check if we already have Stats no older than the passed age
+    private BaseStatsModel getCachedStats(final long siteId, final StatsTimeframe timeframe, final String date,
+                                          final StatsEndpointsEnum sectionToUpdate, final int maxResultsRequested,
+                                          final int pageRequested, final int maxAgeMinutes) {
         if (!isCacheEnabled()) {
             return null;
         }
-        return StatsTable.getStats(this, siteId, timeframe, date, sectionToUpdate, maxResultsRequested, pageRequested);
+
+        // the most requested sections are stored as rows rather than JSON, so they don't need to be parsed
+        if (StatsTypedTable.isTypedSection(sectionToUpdate)) {
+            return StatsTypedTable.getModel(this, siteId, timeframe, date, sectionToUpdate, maxResultsRequested,
+                    pageRequested, maxAgeMinutes);
+        }
+
+        String cachedStats = StatsTable.getStats(this, siteId, timeframe, date, sectionToUpdate, maxResultsRequested,
+                pageRequested, maxAgeMinutes);
+        if (cachedStats == null) {
+            return null;
+        }
+        try {
+            return StatsUtils.parseResponse(sectionToUpdate, siteId, new JSONObject(cachedStats));
+        } catch (JSONException e) {
+            AppLog.e(AppLog.T.STATS, e);
+            return null;
+        }
     }
 
     private void startTasks(final long blogId, final StatsTimeframe timeframe, final String date,
@@ -328,139 +347,116 @@ public class StatsService extends Service {
                             final int pageRequested) {
         EventBus.getDefault().post(new StatsEvents.UpdateStatusChanged(true));
 
-        String cachedStats = getCachedStats(blogId, timeframe, date, sectionToUpdate, maxResultsRequested, pageRequested);
-        if (cachedStats != null) {
-            BaseStatsModel mResponseObjectModel;
-                try {
-                    JSONObject response = new JSONObject(cachedStats);
-                    mResponseObjectModel = StatsUtils.parseResponse(sectionToUpdate, blogId, response);
+        BaseStatsModel cachedModel = getCachedStats(blogId, timeframe, date, sectionToUpdate, maxResultsRequested,
+                pageRequested, StatsTable.CACHE_TTL_MINUTES);
+        if (cachedModel != null) {
+            EventBus.getDefault().post(
+                    sectionToUpdate.getEndpointUpdateEvent(blogId, timeframe, date,
+                            maxResultsRequested, pageRequested, cachedModel)
+            );
 
-                    EventBus.getDefault().post(
-                            sectionToUpdate.getEndpointUpdateEvent(blogId, timeframe, date,
-                                    maxResultsRequested, pageRequested, mResponseObjectModel)
-                    );
+            updateWidgetsUI(blogId, sectionToUpdate, timeframe, date, pageRequested, cachedModel);
+            return;
+        }
 
-                    updateWidgetsUI(blogId, sectionToUpdate, timeframe, date, pageRequested, mResponseObjectModel);
-                    checkAllRequestsFinished(null);
-                    return;
-                } catch (JSONException e) {
-                    AppLog.e(AppLog.T.STATS, e);
-                }
+        // show expired stats (if any) while they're refreshed
+        BaseStatsModel staleModel = getCachedStats(blogId, timeframe, date, sectionToUpdate, maxResultsRequested,
+                pageRequested, StatsTable.CACHE_MAX_STALE_MINUTES);
+        if (staleModel != null) {
+            EventBus.getDefault().post(
+                    sectionToUpdate.getEndpointUpdateEvent(blogId, timeframe, date,
+                            maxResultsRequested, pageRequested, staleModel)
+            );
+            updateWidgetsUI(blogId, sectionToUpdate, timeframe, date, pageRequested, staleModel);
+        }
+
+        // We need to check if we already have the same request in the queue
+        final String requestKey = StatsRequestScheduler.getRequestKey(blogId, sectionToUpdate, timeframe, date,
+                maxResultsRequested, pageRequested);
+        if (!mScheduler.reserveRequest(requestKey)) {
+            AppLog.d(AppLog.T.STATS, "Stats request is already in the queue: " + requestKey);
+            return;
         }
 
         final RestClientUtils restClientUtils = WordPress.getRestClientUtilsV1_1();
 
         String period = timeframe.getLabelForRestCall();
 
-        RestListener vListener = new RestListener(sectionToUpdate, blogId, timeframe, date, maxResultsRequested, pageRequested);
+        RestListener vListener = new RestListener(sectionToUpdate, blogId, timeframe, date, maxResultsRequested,
+                pageRequested, requestKey);
 
         final String periodDateMaxPlaceholder =  "?period=%s&date=%s&max=%s";
 
         String path = String.format(Locale.US, "/sites/%s/stats/" + sectionToUpdate.getRestEndpointPath(), blogId);
-        synchronized (mStatsNetworkRequests) {
-            switch (sectionToUpdate) {
-                case VISITS:
-                    path = String.format(Locale.US, path + "?unit=%s&quantity=15&date=%s", period, date);
-                    break;
-                case TOP_POSTS:
-                case REFERRERS:
-                case CLICKS:
-                case GEO_VIEWS:
-                case AUTHORS:
-                case VIDEO_PLAYS:
-                case SEARCH_TERMS:
-                    path = String.format(Locale.US, path + periodDateMaxPlaceholder, period, date, maxResultsRequested);
-                    break;
-                case TAGS_AND_CATEGORIES:
-                case PUBLICIZE:
+        switch (sectionToUpdate) {
+            case VISITS:
+                path = String.format(Locale.US, path + "?unit=%s&quantity=15&date=%s", period, date);
+                break;
+            case TOP_POSTS:
+            case REFERRERS:
+            case CLICKS:
+            case GEO_VIEWS:
+            case AUTHORS:
+            case VIDEO_PLAYS:
+            case SEARCH_TERMS:
+                path = String.format(Locale.US, path + periodDateMaxPlaceholder, period, date, maxResultsRequested);
+                break;
+            case TAGS_AND_CATEGORIES:
+            case PUBLICIZE:
+                path = String.format(Locale.US, path + "?max=%s", maxResultsRequested);
+                break;
+            case COMMENTS:
+                // No parameters
+                break;
+            case FOLLOWERS_WPCOM:
+                if (pageRequested < 1) {
+                    path = String.format(Locale.US, path + "&max=%s", maxResultsRequested);
+                } else {
+                    path = String.format(Locale.US, path + "&period=%s&date=%s&max=%s&page=%s",
+                            period, date, maxResultsRequested, pageRequested);
+                }
+                break;
+            case FOLLOWERS_EMAIL:
+                if (pageRequested < 1) {
+                    path = String.format(Locale.US, path + "&max=%s", maxResultsRequested);
+                } else {
+                    path = String.format(Locale.US, path + "&period=%s&date=%s&max=%s&page=%s",
+                            period, date, maxResultsRequested, pageRequested);
+                }
+                break;
+            case COMMENT_FOLLOWERS:
+                if (pageRequested < 1) {
                     path = String.format(Locale.US, path + "?max=%s", maxResultsRequested);
-                    break;
-                case COMMENTS:
-                    // No parameters
-                    break;
-                case FOLLOWERS_WPCOM:
-                    if (pageRequested < 1) {
-                        path = String.format(Locale.US, path + "&max=%s", maxResultsRequested);
-                    } else {
-                        path = String.format(Locale.US, path + "&period=%s&date=%s&max=%s&page=%s",
-                                period, date, maxResultsRequested, pageRequested);
-                    }
-                    break;
-                case FOLLOWERS_EMAIL:
-                    if (pageRequested < 1) {
-                        path = String.format(Locale.US, path + "&max=%s", maxResultsRequested);
-                    } else {
-                        path = String.format(Locale.US, path + "&period=%s&date=%s&max=%s&page=%s",
-                                period, date, maxResultsRequested, pageRequested);
-                    }
-                    break;
-                case COMMENT_FOLLOWERS:
-                    if (pageRequested < 1) {
-                        path = String.format(Locale.US, path + "?max=%s", maxResultsRequested);
-                    } else {
-                        path = String.format(Locale.US, path + "?period=%s&date=%s&max=%s&page=%s", period,
-                                date, maxResultsRequested, pageRequested);
-                    }
-                    break;
-                case INSIGHTS_ALL_TIME:
-                case INSIGHTS_POPULAR:
-                    break;
-                case INSIGHTS_TODAY:
-                    path = String.format(Locale.US, path + "?period=day&date=%s", date);
-                    break;
-                case INSIGHTS_LATEST_POST_SUMMARY:
-                    // This is an edge cases since  we're not loading stats but posts
-                    path = String.format(Locale.US, "/sites/%s/%s", blogId, sectionToUpdate.getRestEndpointPath()
-                            + "?order_by=date&number=1&type=post&fields=ID,title,URL,discussion,like_count,date");
-                    break;
-                case INSIGHTS_LATEST_POST_VIEWS:
-                    // This is a kind of edge case, since we used the pageRequested parameter to request a single postID
-                    path = String.format(Locale.US, path + "/%s?fields=views", pageRequested);
-                    break;
-                default:
-                    AppLog.i(T.STATS, "Called an update of Stats of unknown section!?? " + sectionToUpdate.name());
-                    return;
-            }
-
-            // We need to check if we already have the same request in the queue
-            if (checkIfRequestShouldBeEnqueued(restClientUtils, path)) {
-                AppLog.d(AppLog.T.STATS, "Enqueuing the following Stats request " + path);
-                Request<JSONObject> currentRequest = restClientUtils.get(path, vListener, vListener);
-                vListener.currentRequest = currentRequest;
-                currentRequest.setTag("StatsCall");
-                mStatsNetworkRequests.add(currentRequest);
-            } else {
-                AppLog.d(AppLog.T.STATS, "Stats request is already in the queue:" + path);
-            }
-        }
-    }
-
-    /**
-     *  This method checks if we already have the same request in the Queue. No need to re-enqueue a new request
-     *  if one with the same parameters is there.
-     *
-     *  This method is a kind of tricky, since it does the comparison by checking the origin URL of requests.
-     *  To do that we had to get the fullURL of the new request by calling a method of the REST client `getAbsoluteURL`.
-     *  That's good for now, but could lead to errors if the RestClient changes the way the URL is constructed internally,
-     *  by calling `getAbsoluteURL`.
-     *
-     *  - Another approach would involve the get of the requests ErrorListener and the check Listener's parameters.
-     *  - Cleanest approach is for sure to create a new class that extends Request<JSONObject> and stores parameters for later comparison,
-     *  unfortunately we have to change the REST Client and RestClientUtils a lot if we want follow this way...
-     *
-     */
-    private boolean checkIfRequestShouldBeEnqueued(final RestClientUtils restClientUtils, String path) {
-        String absoluteRequestPath = restClientUtils.getRestClient().getAbsoluteURL(path);
-        Iterator<Request<JSONObject>> it = mStatsNetworkRequests.iterator();
-        while (it.hasNext()) {
-            Request<JSONObject> req = it.next();
-            if (!req.hasHadResponseDelivered() && !req.isCanceled() &&
-                    absoluteRequestPath.equals(req.getUrl())) {
-                return false;
-            }
+                } else {
+                    path = String.format(Locale.US, path + "?period=%s&date=%s&max=%s&page=%s", period,
+                            date, maxResultsRequested, pageRequested);
+                }
+                break;
+            case INSIGHTS_ALL_TIME:
+            case INSIGHTS_POPULAR:
+                break;
+            case INSIGHTS_TODAY:
+                path = String.format(Locale.US, path + "?period=day&date=%s", date);
+                break;
+            case INSIGHTS_LATEST_POST_SUMMARY:
+                // This is an edge cases since  we're not loading stats but posts
+                path = String.format(Locale.US, "/sites/%s/%s", blogId, sectionToUpdate.getRestEndpointPath()
+                        + "?order_by=date&number=1&type=post&fields=ID,title,URL,discussion,like_count,date");
+                break;
+            case INSIGHTS_LATEST_POST_VIEWS:
+                // This is a kind of edge case, since we used the pageRequested parameter to request a single postID
+                path = String.format(Locale.US, path + "/%s?fields=views", pageRequested);
+                break;
+            default:
+                AppLog.i(T.STATS, "Called an update of Stats of unknown section!?? " + sectionToUpdate.name());
+                mScheduler.finishRequest(requestKey);
+                return;
         }
 
-        return true;
+        AppLog.d(AppLog.T.STATS, "Enqueuing the following Stats request " + path);
+        Request<JSONObject> currentRequest = restClientUtils.get(path, vListener, vListener);
+        currentRequest.setTag("StatsCall");
+        mScheduler.setRequest(requestKey, currentRequest);
     }
 
     // Call an updates on the installed widgets if the blog is the primary, the endpoint is Visits
@@ -517,30 +513,37 @@ public class StatsService extends Service {
         private final StatsTimeframe mTimeframe;
         final StatsEndpointsEnum mEndpointName;
         private final String mDate;
-        private Request<JSONObject> currentRequest;
         private final int mMaxResultsRequested, mPageRequested;
+        private final String mRequestKey;
+        private final long mStartedAt = System.currentTimeMillis();
 
         public RestListener(StatsEndpointsEnum endpointName, long blogId, StatsTimeframe timeframe, String date,
-                            final int maxResultsRequested, final int pageRequested) {
+                            final int maxResultsRequested, final int pageRequested, final String requestKey) {
             mRequestBlogId = blogId;
             mTimeframe = timeframe;
             mEndpointName = endpointName;
             mDate = date;
             mMaxResultsRequested = maxResultsRequested;
             mPageRequested = pageRequested;
+            mRequestKey = requestKey;
         }
 
         @Override
         public void onResponse(final JSONObject response) {
-            singleThreadNetworkHandler.submit(new Thread() {
+            final long networkMs = System.currentTimeMillis() - mStartedAt;
+            mScheduler.execute(new Runnable() {
                 @Override
                 public void run() {
-                    // do other stuff here
+                    long parseStartedAt = System.currentTimeMillis();
                     BaseStatsModel mResponseObjectModel = null;
                     if (response != null) {
                         try {
                             mResponseObjectModel = StatsUtils.parseResponse(mEndpointName, mRequestBlogId, response);
-                            if (isCacheEnabled()) {
+                            if (isCacheEnabled() && StatsTypedTable.isTypedSection(mEndpointName)) {
+                                StatsTypedTable.insertModel(StatsService.this, mRequestBlogId, mTimeframe, mDate,
+                                        mEndpointName, mMaxResultsRequested, mPageRequested,
+                                        mResponseObjectModel, System.currentTimeMillis());
+                            } else if (isCacheEnabled()) {
                                 StatsTable.insertStats(StatsService.this, mRequestBlogId, mTimeframe, mDate, mEndpointName,
                                         mMaxResultsRequested, mPageRequested,
                                         response.toString(), System.currentTimeMillis());
@@ -549,6 +552,7 @@ public class StatsService extends Service {
                             AppLog.e(AppLog.T.STATS, e);
                         }
                     }
+                    mScheduler.onResponse(mEndpointName, networkMs, System.currentTimeMillis() - parseStartedAt);
 
                     EventBus.getDefault().post(
                             mEndpointName.getEndpointUpdateEvent(mRequestBlogId, mTimeframe, mDate,
@@ -556,14 +560,14 @@ public class StatsService extends Service {
                     );
 
                     updateWidgetsUI(mRequestBlogId, mEndpointName, mTimeframe, mDate, mPageRequested, mResponseObjectModel);
-                    checkAllRequestsFinished(currentRequest);
+                    mScheduler.finishRequest(mRequestKey);
                 }
             });
         }
 
         @Override
         public void onErrorResponse(final VolleyError volleyError) {
-            singleThreadNetworkHandler.submit(new Thread() {
+            mScheduler.execute(new Runnable() {
                 @Override
                 public void run() {
                     AppLog.e(T.STATS, "Error while loading Stats!");
@@ -572,7 +576,7 @@ public class StatsService extends Service {
                     EventBus.getDefault().post(new StatsEvents.SectionUpdateError(mEndpointName, mRequestBlogId, mTimeframe, mDate,
                             mMaxResultsRequested, mPageRequested, volleyError));
                     updateWidgetsUI(mRequestBlogId, mEndpointName, mTimeframe, mDate, mPageRequested, mResponseObjectModel);
-                    checkAllRequestsFinished(currentRequest);
+                    mScheduler.finishRequest(mRequestKey);
                 }
             });
         }
@@ -586,18 +590,14 @@ public class StatsService extends Service {
         }*/
         EventBus.getDefault().post(new StatsEvents.UpdateStatusChanged(false));
         stopSelf(mServiceStartId);
-        synchronized (mStatsNetworkRequests) {
-            mStatsNetworkRequests.clear();
-        }
+        mScheduler.clearRequests();
     }
 
-    private void checkAllRequestsFinished(Request<JSONObject> req) {
-        synchronized (mStatsNetworkRequests) {
-            if (req != null) {
-                mStatsNetworkRequests.remove(req);
-            }
-            boolean isStillWorking = mStatsNetworkRequests.size() > 0 || singleThreadNetworkHandler.getQueue().size() > 0;
-            EventBus.getDefault().post(new StatsEvents.UpdateStatusChanged(isStillWorking));
-        }
+    /*
+     * synchronized so the status from a task which finished earlier can't be posted after the
+     * status from one which finished later
+     */
+    private synchronized void postUpdateStatus() {
+        EventBus.getDefault().post(new StatsEvents.UpdateStatusChanged(mScheduler.isWorking()));
     }
 }
@@ -1,6 +1,8 @@
 package org.wordpress.android.ui.suggestion.adapters;
 
 import android.content.Context;
+import android.os.AsyncTask;
+import android.support.annotation.NonNull;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -10,27 +12,76 @@ import android.widget.Filterable;
 import android.widget.TextView;
 
 import org.wordpress.android.R;
+import org.wordpress.android.datasets.SuggestionTable;
 import org.wordpress.android.models.Suggestion;
+import org.wordpress.android.ui.suggestion.util.SuggestionIndex;
 import org.wordpress.android.util.GravatarUtils;
 import org.wordpress.android.widgets.WPNetworkImageView;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class SuggestionAdapter extends BaseAdapter implements Filterable {
     private final LayoutInflater mInflater;
     private Filter mSuggestionFilter;
     private List<Suggestion> mSuggestionList;
-    private List<Suggestion> mOrigSuggestionList;
+    private SuggestionIndex<Suggestion> mSuggestionIndex;
+    private LoadSuggestionIndexTask mLoadTask;
     private int mAvatarSz;
 
+    public interface OnSuggestionIndexLoadedListener {
+        void onSuggestionIndexLoaded(@NonNull SuggestionIndex<Suggestion> suggestionIndex);
+    }
+
     public SuggestionAdapter(Context context) {
         mAvatarSz = context.getResources().getDimensionPixelSize(R.dimen.avatar_sz_small);
         mInflater = LayoutInflater.from(context);
     }
 
-    public void setSuggestionList(List<Suggestion> suggestionList) {
-        mOrigSuggestionList = suggestionList;
+    public void setSuggestionIndex(SuggestionIndex<Suggestion> suggestionIndex) {
+        mSuggestionIndex = suggestionIndex;
+    }
+
+    public void loadSuggestionIndex(long siteId) {
+        loadSuggestionIndex(siteId, null);
+    }
+
+    /*
+     * reads the suggestions for the passed site and builds their index in the background, then
+     * sets the index and calls the listener (if any) - a load which is still running is cancelled
+     * so an older index can never replace a newer one
+     */
+    public void loadSuggestionIndex(long siteId, OnSuggestionIndexLoadedListener listener) {
+        if (mLoadTask != null) {
+            mLoadTask.cancel(false);
+        }
+        mLoadTask = new LoadSuggestionIndexTask(siteId, listener);
+        mLoadTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+    private class LoadSuggestionIndexTask extends AsyncTask<Void, Void, SuggestionIndex<Suggestion>> {
+        private final long mSiteId;
+        private final OnSuggestionIndexLoadedListener mListener;
+
+        LoadSuggestionIndexTask(long siteId, OnSuggestionIndexLoadedListener listener) {
+            mSiteId = siteId;
+            mListener = listener;
+        }
+
+        @Override
+        protected SuggestionIndex<Suggestion> doInBackground(Void... params) {
+            return SuggestionTable.getSuggestionIndexForSite(mSiteId);
+        }
+
+        @Override
+        protected void onPostExecute(SuggestionIndex<Suggestion> suggestionIndex) {
+            if (mLoadTask == this) {
+                mLoadTask = null;
+            }
+            setSuggestionIndex(suggestionIndex);
+            if (mListener != null) {
+                mListener.onSuggestionIndexLoaded(suggestionIndex);
+            }
+        }
     }
 
     @Override
@@ -104,25 +155,14 @@ public class SuggestionAdapter extends BaseAdapter implements Filterable {
         protected FilterResults performFiltering(CharSequence constraint) {
             FilterResults results = new FilterResults();
 
-            if (mOrigSuggestionList == null) {
+            // the index is immutable, so it's safe to use on the filter thread
+            SuggestionIndex<Suggestion> suggestionIndex = mSuggestionIndex;
+            if (suggestionIndex == null) {
                 results.values = null;
                 results.count = 0;
             }
-            else if (constraint == null || constraint.length() == 0) {
-                results.values = mOrigSuggestionList;
-                results.count = mOrigSuggestionList.size();
-            }
             else {
-                List<Suggestion> nSuggestionList = new ArrayList<Suggestion>();
-
-                for (Suggestion suggestion : mOrigSuggestionList) {
-                    String lowerCaseConstraint = constraint.toString().toLowerCase();
-                    if (suggestion.getUserLogin().toLowerCase().startsWith(lowerCaseConstraint)
-                            || suggestion.getDisplayName().toLowerCase().startsWith(lowerCaseConstraint)
-                            || suggestion.getDisplayName().toLowerCase().contains(" " + lowerCaseConstraint))
-                        nSuggestionList.add(suggestion);
-                }
-
+                List<Suggestion> nSuggestionList = suggestionIndex.find(constraint, SuggestionIndex.DEFAULT_MAX_RESULTS);
                 results.values = nSuggestionList;
                 results.count = nSuggestionList.size();
             }
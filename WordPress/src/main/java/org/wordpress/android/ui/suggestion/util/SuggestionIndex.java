@@ -0,0 +1,153 @@
+package org.wordpress.android.ui.suggestion.util;
+
+import android.support.annotation.NonNull;
+
+import org.wordpress.android.models.Suggestion;
+import org.wordpress.android.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable prefix index of mention suggestions, built once when the suggestions are loaded so
+ * filtering while the user types doesn't have to lowercase and scan every suggestion.
+ *
+ * Each suggestion is indexed under lowercased terms of different ranks - the user login, the
+ * display name, and each word boundary within the display name. The terms of each rank are kept
+ * in a sorted array, so the suggestions matching a prefix are found with a binary search. Matches are returned by rank, then alphabetically, up to a maximum count.
+ */
+public class SuggestionIndex<T> {
+    public static final int DEFAULT_MAX_RESULTS = 50;
+
+    private static final int RANK_LOGIN = 0;
+    private static final int RANK_NAME = 1;
+    private static final int RANK_WORD = 2;
+    private static final int NUM_RANKS = 3;
+
+    private final List<T> mItems;
+    private final Term[][] mTerms = new Term[NUM_RANKS][];
+
+    private static class Term implements Comparable<Term> {
+        private final String mText;
+        private final int mItemIndex;
+
+        Term(String text, int itemIndex) {
+            mText = text;
+            mItemIndex = itemIndex;
+        }
+
+        @Override
+        public int compareTo(@NonNull Term other) {
+            int result = mText.compareTo(other.mText);
+            if (result != 0) {
+                return result;
+            }
+            return mItemIndex < other.mItemIndex ? -1 : (mItemIndex == other.mItemIndex ? 0 : 1);
+        }
+    }
+
+    private SuggestionIndex(@NonNull List<T> items, @NonNull List<List<Term>> terms) {
+        mItems = Collections.unmodifiableList(new ArrayList<>(items));
+        for (int rank = 0; rank < NUM_RANKS; rank++) {
+            Term[] rankTerms = terms.get(rank).toArray(new Term[terms.get(rank).size()]);
+            Arrays.sort(rankTerms);
+            mTerms[rank] = rankTerms;
+        }
+    }
+
+    public static SuggestionIndex<Suggestion> forSuggestions(@NonNull List<Suggestion> suggestions) {
+        List<List<Term>> terms = createTermLists();
+        for (int i = 0; i < suggestions.size(); i++) {
+            Suggestion suggestion = suggestions.get(i);
+            terms.get(RANK_LOGIN).add(new Term(normalize(suggestion.getUserLogin()), i));
+            addNameTerms(terms, normalize(suggestion.getDisplayName()), i);
+        }
+        return new SuggestionIndex<>(suggestions, terms);
+    }
+
+    private static List<List<Term>> createTermLists() {
+        List<List<Term>> terms = new ArrayList<>(NUM_RANKS);
+        for (int rank = 0; rank < NUM_RANKS; rank++) {
+            terms.add(new ArrayList<Term>());
+        }
+        return terms;
+    }
+
+    /*
+     * indexes the whole name and the rest of the name following each space, so a prefix matches
+     * any word in the name (as well as the words which follow it)
+     */
+    private static void addNameTerms(List<List<Term>> terms, String name, int itemIndex) {
+        terms.get(RANK_NAME).add(new Term(name, itemIndex));
+        int index = name.indexOf(' ');
+        while (index > -1) {
+            terms.get(RANK_WORD).add(new Term(name.substring(index + 1), itemIndex));
+            index = name.indexOf(' ', index + 1);
+        }
+    }
+
+    private static String normalize(String text) {
+        return StringUtils.notNullStr(text).toLowerCase(Locale.getDefault());
+    }
+
+    public boolean isEmpty() {
+        return mItems.isEmpty();
+    }
+
+    public int size() {
+        return mItems.size();
+    }
+
+    /*
+     * returns all suggestions in the order they were passed
+     */
+    public List<T> getItems() {
+        return mItems;
+    }
+
+    /*
+     * returns up to maxResults suggestions with a term starting with the passed prefix - all
+     * suggestions (up to maxResults) are returned when the prefix is empty
+     */
+    public List<T> find(CharSequence prefix, int maxResults) {
+        if (prefix == null || prefix.length() == 0) {
+            return mItems.size() <= maxResults ? mItems : mItems.subList(0, maxResults);
+        }
+
+        String normalizedPrefix = normalize(prefix.toString());
+        List<T> results = new ArrayList<>();
+        HashSet<Integer> added = new HashSet<>();
+        for (int rank = 0; rank < NUM_RANKS && results.size() < maxResults; rank++) {
+            Term[] terms = mTerms[rank];
+            for (int i = lowerBound(terms, normalizedPrefix);
+                 i < terms.length && results.size() < maxResults && terms[i].mText.startsWith(normalizedPrefix);
+                 i++) {
+                if (added.add(terms[i].mItemIndex)) {
+                    results.add(mItems.get(terms[i].mItemIndex));
+                }
+            }
+        }
+        return results;
+    }
+
+    /*
+     * returns the index of the first term which isn't less than the passed text
+     */
+    private static int lowerBound(Term[] terms, String text) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[mid].mText.compareTo(text) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -1,15 +1,13 @@
 package org.wordpress.android.ui.suggestion.util;
 
 import android.content.Context;
+import android.support.annotation.NonNull;
 
-import org.wordpress.android.datasets.SuggestionTable;
 import org.wordpress.android.fluxc.model.SiteModel;
 import org.wordpress.android.models.Suggestion;
 import org.wordpress.android.ui.suggestion.adapters.SuggestionAdapter;
 import org.wordpress.android.util.SiteUtils;
 
-import java.util.List;
-
 public class SuggestionUtils {
 
     public static SuggestionAdapter setupSuggestions(SiteModel site, Context context,
@@ -19,7 +17,7 @@ public class SuggestionUtils {
     }
 
     public static SuggestionAdapter setupSuggestions(final long siteId, Context context,
-                                                     SuggestionServiceConnectionManager serviceConnectionManager,
+                                                     final SuggestionServiceConnectionManager serviceConnectionManager,
                                                      boolean isDotcomFlag) {
         if (!isDotcomFlag) {
             return null;
@@ -27,12 +25,15 @@ public class SuggestionUtils {
 
         SuggestionAdapter suggestionAdapter = new SuggestionAdapter(context);
 
-        List<Suggestion> suggestions = SuggestionTable.getSuggestionsForSite(siteId);
-        // if the suggestions are not stored yet, we want to trigger an update for it
-        if (suggestions.isEmpty()) {
-            serviceConnectionManager.bindToService();
-        }
-        suggestionAdapter.setSuggestionList(suggestions);
+        suggestionAdapter.loadSuggestionIndex(siteId, new SuggestionAdapter.OnSuggestionIndexLoadedListener() {
+            @Override
+            public void onSuggestionIndexLoaded(@NonNull SuggestionIndex<Suggestion> suggestionIndex) {
+                // if the suggestions are not stored yet, we want to trigger an update for it
+                if (suggestionIndex.isEmpty()) {
+                    serviceConnectionManager.bindToService();
+                }
+            }
+        });
         return suggestionAdapter;
     }
 }
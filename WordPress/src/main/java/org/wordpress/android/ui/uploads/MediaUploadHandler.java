@@ -18,10 +18,8 @@ import org.wordpress.android.fluxc.store.SiteStore;
 import org.wordpress.android.util.AnalyticsUtils;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
-import org.wordpress.android.util.StringUtils;
 import org.wordpress.android.util.WPMediaUtils;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -33,8 +31,15 @@ import javax.inject.Inject;
 import de.greenrobot.event.EventBus;
 
 public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptimizer.VideoOptimizationListener {
-    private static final List<MediaModel> sPendingUploads = new ArrayList<>();
-    private static final List<MediaModel> sInProgressUploads = new ArrayList<>();
+    // network uploads run in parallel, but only a few against the same site so a large batch
+    // for one site doesn't starve the others, and videos are optimized one at a time since
+    // encoding is CPU (and battery) intensive
+    private static final int MAX_CONCURRENT_UPLOADS = 4;
+    private static final int MAX_CONCURRENT_UPLOADS_PER_SITE = 3;
+    private static final int MAX_CONCURRENT_OPTIMIZATIONS = 1;
+
+    private static final MediaUploadScheduler sScheduler = new MediaUploadScheduler(
+            MAX_CONCURRENT_UPLOADS, MAX_CONCURRENT_UPLOADS_PER_SITE, MAX_CONCURRENT_OPTIMIZATIONS);
 
     private static final ConcurrentHashMap<Integer, Float> sOptimizationProgressByMediaId = new ConcurrentHashMap<>();
 
@@ -56,103 +61,57 @@ public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptim
 
     @Override
     public boolean hasInProgressUploads() {
-        return !sInProgressUploads.isEmpty() || !sPendingUploads.isEmpty();
+        return !sScheduler.isEmpty();
     }
 
     @Override
     public void cancelInProgressUploads() {
-        for (MediaModel oneUpload : sInProgressUploads) {
+        for (MediaModel oneUpload : sScheduler.getStartedMedia()) {
             cancelUpload(oneUpload, false);
         }
     }
 
     @Override
     public void upload(@NonNull MediaModel media) {
-        addUniqueMediaToQueue(media);
+        boolean needsOptimization = media.isVideo() && WPMediaUtils.isVideoOptimizationEnabled();
+        if (!sScheduler.add(media, needsOptimization)) {
+            AppLog.i(T.MEDIA, "MediaUploadHandler > Skipping media which is already queued or uploading: "
+                    + media.getId());
+            return;
+        }
         uploadNextInQueue();
     }
 
-    static boolean hasInProgressMediaUploadsForPost(PostModel postModel) {
-        if (postModel == null) {
-            return false;
-        }
-
-        synchronized (sInProgressUploads) {
-            for (MediaModel queuedMedia : sInProgressUploads) {
-                if (queuedMedia.getLocalPostId() == postModel.getId()) {
-                    return true;
-                }
-            }
-        }
+    /*
+     * starts the media for the passed post ahead of any other media - called when the post is
+     * waiting for its media to finish uploading before it can be uploaded
+     */
+    void prioritizeMediaForPost(@NonNull PostModel post) {
+        sScheduler.prioritizePost(post.getId());
+    }
 
-        return false;
+    static boolean hasInProgressMediaUploadsForPost(PostModel postModel) {
+        return postModel != null && sScheduler.hasStartedMediaForPost(postModel.getId());
     }
 
     static boolean hasPendingMediaUploadsForPost(PostModel postModel) {
-        if (postModel == null) {
-            return false;
-        }
-
-        synchronized (sPendingUploads) {
-            for (MediaModel queuedMedia : sPendingUploads) {
-                if (queuedMedia.getLocalPostId() == postModel.getId()) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return postModel != null && sScheduler.hasPendingMediaForPost(postModel.getId());
     }
 
     static boolean hasPendingOrInProgressMediaUploadsForPost(PostModel postModel) {
-        if (postModel == null) {
-            return false;
-        }
-
-        // Check if there are media in the in-progress or the pending queue attached to the given post
-        return hasInProgressMediaUploadsForPost(postModel) || hasPendingMediaUploadsForPost(postModel);
+        // Check if there is media in progress or pending that's attached to the given post
+        return postModel != null && sScheduler.hasMediaForPost(postModel.getId());
     }
 
     public static List<MediaModel> getPendingOrInProgressMediaUploadsForPost(PostModel postModel) {
         if (postModel == null) {
             return Collections.emptyList();
         }
-
-        List<MediaModel> mediaList = new ArrayList<>();
-        synchronized (sInProgressUploads) {
-            for (MediaModel queuedMedia : sInProgressUploads) {
-                if (queuedMedia.getLocalPostId() == postModel.getId()) {
-                    mediaList.add(queuedMedia);
-                }
-            }
-        }
-
-        synchronized (sPendingUploads) {
-            for (MediaModel queuedMedia : sPendingUploads) {
-                if (queuedMedia.getLocalPostId() == postModel.getId()) {
-                    mediaList.add(queuedMedia);
-                }
-            }
-        }
-        return mediaList;
+        return sScheduler.getMediaForPost(postModel.getId());
     }
 
     static boolean isPendingOrInProgressMediaUpload(@NonNull MediaModel media) {
-        synchronized (sInProgressUploads) {
-            for (MediaModel uploadingMedia : sInProgressUploads) {
-                if (uploadingMedia.getId() == media.getId()) {
-                    return true;
-                }
-            }
-        }
-
-        synchronized (sPendingUploads) {
-            for (MediaModel queuedMedia : sPendingUploads) {
-                if (queuedMedia.getId() == media.getId()) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return sScheduler.contains(media.getId());
     }
 
     /**
@@ -171,14 +130,14 @@ public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptim
         if (event.canceled) {
             AppLog.i(T.MEDIA, "MediaUploadHandler > Upload successfully canceled");
             trackUploadMediaEvents(AnalyticsTracker.Stat.MEDIA_UPLOAD_CANCELED,
-                    getMediaFromInProgressQueueById(event.media.getId()), null);
+                    sScheduler.get(event.media.getId()), null);
             completeUploadWithId(event.media.getId());
             uploadNextInQueue();
         } else if (event.completed) {
             AppLog.i(T.MEDIA, "MediaUploadHandler > Upload completed - localId=" + event.media.getId() + " title="
                     + event.media.getTitle());
             trackUploadMediaEvents(AnalyticsTracker.Stat.MEDIA_UPLOAD_SUCCESS,
-                    getMediaFromInProgressQueueById(event.media.getId()), null);
+                    sScheduler.get(event.media.getId()), null);
             completeUploadWithId(event.media.getId());
             uploadNextInQueue();
         } else {
@@ -188,7 +147,7 @@ public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptim
 
     private void handleOnMediaUploadedError(@NonNull OnMediaUploaded event) {
         AppLog.w(T.MEDIA, "MediaUploadHandler > Error uploading media: " + event.error.message);
-        MediaModel media = getMediaFromInProgressQueueById(event.media.getId());
+        MediaModel media = sScheduler.get(event.media.getId());
         if (media != null) {
             mDispatcher.dispatch(MediaActionBuilder.newUpdateMediaAction(media));
         }
@@ -201,60 +160,28 @@ public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptim
         uploadNextInQueue();
     }
 
-    private synchronized void uploadNextInQueue() {
-        MediaModel next = getNextMediaToUpload();
-
-        if (next == null) {
-            AppLog.w(T.MEDIA, "MediaUploadHandler > No more media items to upload. Skipping this request.");
+    /*
+     * starts as many queued media as the scheduler has free slots for
+     */
+    private void uploadNextInQueue() {
+        MediaUploadScheduler.Batch batch = sScheduler.nextBatch();
+        if (batch.isEmpty()) {
             checkIfUploadsComplete();
             return;
         }
 
-        prepareForUpload(next);
-    }
-
-    private synchronized void completeUploadWithId(int id) {
-        MediaModel media = getMediaFromInProgressQueueById(id);
-        if (media != null) {
-            sInProgressUploads.remove(media);
-            trackUploadMediaEvents(AnalyticsTracker.Stat.MEDIA_UPLOAD_STARTED, media, null);
-        }
-    }
-
-    private MediaModel getMediaFromInProgressQueueById(int id) {
-        for (MediaModel media : sInProgressUploads) {
-            if (media.getId() == id)
-                return media;
+        for (MediaModel media : batch.toOptimize) {
+            new VideoOptimizer(media, this).start();
         }
-        return null;
-    }
-
-    private MediaModel getNextMediaToUpload() {
-        if (!sPendingUploads.isEmpty()) {
-            return sPendingUploads.remove(0);
+        for (MediaModel media : batch.toUpload) {
+            dispatchUploadAction(media);
         }
-        return null;
     }
 
-    private void addUniqueMediaToQueue(MediaModel media) {
+    private void completeUploadWithId(int id) {
+        MediaModel media = sScheduler.remove(id);
         if (media != null) {
-            if (mediaAlreadyQueuedOrUploading(media)) {
-                return;
-            }
-
-            // no match found in queue
-            sPendingUploads.add(media);
-        }
-    }
-
-    private void addUniqueMediaToInProgressUploads(@NonNull MediaModel mediaToAdd) {
-        synchronized (sInProgressUploads) {
-            for (MediaModel media : sInProgressUploads) {
-                if (media.getId() == mediaToAdd.getId()) {
-                    return;
-                }
-            }
-            sInProgressUploads.add(mediaToAdd);
+            trackUploadMediaEvents(AnalyticsTracker.Stat.MEDIA_UPLOAD_STARTED, media, null);
         }
     }
 
@@ -270,28 +197,19 @@ public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptim
         }
     }
 
-    private void prepareForUpload(@NonNull MediaModel media) {
-        if (media.isVideo() && WPMediaUtils.isVideoOptimizationEnabled()) {
-            addUniqueMediaToInProgressUploads(media);
-            new VideoOptimizer(media, this).start();
-        } else {
-            dispatchUploadAction(media);
-        }
-    }
-
     private void dispatchUploadAction(@NonNull final MediaModel media) {
         SiteModel site = mSiteStore.getSiteByLocalId(media.getLocalSiteId());
 
         // somehow lost our reference to the site, complete this action
         if (site == null) {
             AppLog.w(T.MEDIA, "MediaUploadHandler > Unexpected state, site is null. Skipping this request.");
-            checkIfUploadsComplete();
+            sScheduler.remove(media.getId());
+            uploadNextInQueue();
             return;
         }
 
         AppLog.i(T.MEDIA, "MediaUploadHandler > Dispatching upload action for media with local id: "
                 + media.getId() + " and path: " + media.getFilePath());
-        addUniqueMediaToInProgressUploads(media);
 
         mDispatcher.dispatch(MediaActionBuilder.newUpdateMediaAction(media));
         MediaPayload payload = new MediaPayload(site, media);
@@ -306,7 +224,7 @@ public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptim
     }
 
     private boolean checkIfUploadsComplete() {
-        if (sPendingUploads.isEmpty() && sInProgressUploads.isEmpty()) {
+        if (sScheduler.isEmpty()) {
             AppLog.i(T.MEDIA, "MediaUploadHandler > Completed");
             return true;
         }
@@ -320,20 +238,15 @@ public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptim
         if (event.post == null) {
             return;
         }
-        synchronized (sInProgressUploads) {
-            for (MediaModel inProgressUpload : sInProgressUploads) {
-                if (inProgressUpload.getLocalPostId() == event.post.getId()) {
-                    cancelUpload(inProgressUpload, true);
-                }
-            }
-        }
-        synchronized (sPendingUploads) {
-            for (MediaModel pendingUpload : sPendingUploads) {
-                if (pendingUpload.getLocalPostId() == event.post.getId()) {
-                    cancelUpload(pendingUpload, true);
-                }
+        for (MediaModel media : sScheduler.getMediaForPost(event.post.getId())) {
+            // only media which is being uploaded will receive a canceled OnMediaUploaded event,
+            // so the rest is removed here (an optimization in progress is ignored when it completes)
+            if (sScheduler.getState(media.getId()) != MediaUploadScheduler.State.UPLOADING) {
+                sScheduler.remove(media.getId());
             }
+            cancelUpload(media, true);
         }
+        uploadNextInQueue();
     }
 
     // FluxC events
@@ -376,32 +289,6 @@ public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptim
         AnalyticsTracker.track(stat, mediaProperties);
     }
 
-    private boolean mediaAlreadyQueuedOrUploading(MediaModel mediaModel) {
-        for (MediaModel queuedMedia : sInProgressUploads) {
-            AppLog.i(T.MEDIA, "MediaUploadHandler > Attempting to add media with path " + mediaModel.getFilePath()
-                    + " and site id " + mediaModel.getLocalSiteId() + ". Comparing with " + queuedMedia.getFilePath()
-                    + ", " + queuedMedia.getLocalSiteId());
-            if (compareBySiteAndFilePath(queuedMedia, mediaModel)) {
-                return true;
-            }
-        }
-
-        for (MediaModel queuedMedia : sPendingUploads) {
-            AppLog.i(T.MEDIA, "MediaUploadHandler > Attempting to add media with path " + mediaModel.getFilePath()
-                    + " and site id " + mediaModel.getLocalSiteId() + ". Comparing with " + queuedMedia.getFilePath()
-                    + ", " + queuedMedia.getLocalSiteId());
-            if (compareBySiteAndFilePath(queuedMedia, mediaModel)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private boolean compareBySiteAndFilePath(MediaModel media1, MediaModel media2) {
-        return (media1.getLocalSiteId() == media2.getLocalSiteId() &&
-                StringUtils.equals(media1.getFilePath(), media2.getFilePath()));
-    }
-
     @Override
     public void onVideoOptimizationProgress(@NonNull MediaModel media, float progress) {
         sOptimizationProgressByMediaId.put(media.getId(), progress);
@@ -414,10 +301,10 @@ public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptim
     public void onVideoOptimizationCompleted(@NonNull MediaModel media) {
         sOptimizationProgressByMediaId.remove(media.getId());
         // make sure this media should still be uploaded (may have been cancelled during optimization)
-        if (sInProgressUploads.contains(media)) {
-            dispatchUploadAction(media);
-        } else {
+        if (!sScheduler.onOptimizationCompleted(media)) {
             AppLog.d(T.MEDIA, "MediaUploadHandler > skipping upload of optimized media");
         }
+        // the optimizer's slot is free, and the optimized media may be able to start uploading
+        uploadNextInQueue();
     }
 }
@@ -0,0 +1,346 @@
+package org.wordpress.android.ui.uploads;
+
+import android.support.annotation.NonNull;
+
+import org.wordpress.android.fluxc.model.MediaModel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tracks the media handled by MediaUploadHandler and decides which of them to start next. Media
+ * passes through two stages - optimization (only for media which needs it, ie: videos) and the
+ * network upload - each of which runs a bounded number of media at once, and the network stage
+ * also limits how many uploads run against a single site. Media attached to a post which is
+ * waiting to be published is started ahead of other media.
+ *
+ * All media is indexed by its id (and by its post), so the progress queries made while
+ * uploads are running don't scan the queues. This class doesn't start anything itself - callers
+ * add media, report when a stage completes, and then start whatever nextBatch() returns.
+ */
+class MediaUploadScheduler {
+    enum State {
+        // waiting to be optimized
+        PENDING_OPTIMIZATION,
+        OPTIMIZING,
+        // waiting for a network slot - either new media or media which has been optimized
+        PENDING_UPLOAD,
+        UPLOADING
+    }
+
+    /*
+     * the media to start after a change in the scheduler's state
+     */
+    static class Batch {
+        final List<MediaModel> toOptimize = new ArrayList<>();
+        final List<MediaModel> toUpload = new ArrayList<>();
+
+        boolean isEmpty() {
+            return toOptimize.isEmpty() && toUpload.isEmpty();
+        }
+    }
+
+    private static class Entry {
+        MediaModel media;
+        State state;
+        // true once the media has started any stage
+        boolean started;
+        final String dedupeKey;
+
+        Entry(MediaModel media, State state, String dedupeKey) {
+            this.media = media;
+            this.state = state;
+            this.dedupeKey = dedupeKey;
+        }
+    }
+
+    private final int mMaxUploads;
+    private final int mMaxUploadsPerSite;
+    private final int mMaxOptimizations;
+
+    private final HashMap<Integer, Entry> mEntriesByMediaId = new HashMap<>();
+    private final HashMap<String, Integer> mMediaIdsByDedupeKey = new HashMap<>();
+    private final HashMap<Integer, Set<Integer>> mMediaIdsByPostId = new HashMap<>();
+
+    // queues keyed by media id in the order the media was added (or finished optimizing)
+    private final LinkedHashMap<Integer, Entry> mOptimizationQueue = new LinkedHashMap<>();
+    private final LinkedHashMap<Integer, Entry> mUploadQueue = new LinkedHashMap<>();
+
+    private final HashMap<Integer, Integer> mUploadCountBySiteId = new HashMap<>();
+    private final Set<Integer> mPriorityPostIds = new HashSet<>();
+    private int mUploadCount;
+    private int mOptimizationCount;
+
+    MediaUploadScheduler(int maxUploads, int maxUploadsPerSite, int maxOptimizations) {
+        mMaxUploads = maxUploads;
+        mMaxUploadsPerSite = maxUploadsPerSite;
+        mMaxOptimizations = maxOptimizations;
+    }
+
+    /*
+     * adds the passed media - returns false if it's already being handled, either with the
+     * same id or the same file for the same site
+     */
+    synchronized boolean add(@NonNull MediaModel media, boolean needsOptimization) {
+        String dedupeKey = media.getLocalSiteId() + ":" + media.getFilePath();
+        if (mEntriesByMediaId.containsKey(media.getId()) || mMediaIdsByDedupeKey.containsKey(dedupeKey)) {
+            return false;
+        }
+
+        Entry entry = new Entry(media, needsOptimization ? State.PENDING_OPTIMIZATION : State.PENDING_UPLOAD,
+                dedupeKey);
+        mEntriesByMediaId.put(media.getId(), entry);
+        mMediaIdsByDedupeKey.put(dedupeKey, media.getId());
+
+        Set<Integer> postMediaIds = mMediaIdsByPostId.get(media.getLocalPostId());
+        if (postMediaIds == null) {
+            postMediaIds = new HashSet<>();
+            mMediaIdsByPostId.put(media.getLocalPostId(), postMediaIds);
+        }
+        postMediaIds.add(media.getId());
+
+        if (needsOptimization) {
+            mOptimizationQueue.put(media.getId(), entry);
+        } else {
+            mUploadQueue.put(media.getId(), entry);
+        }
+        return true;
+    }
+
+    /*
+     * starts the media for the passed post ahead of other media - used when the post is waiting
+     * for its media before it can be published
+     */
+    synchronized void prioritizePost(int localPostId) {
+        mPriorityPostIds.add(localPostId);
+    }
+
+    /*
+     * moves optimized media to the network stage - returns false if the media is no longer being
+     * handled (ie: it was cancelled while optimizing)
+     */
+    synchronized boolean onOptimizationCompleted(@NonNull MediaModel media) {
+        Entry entry = mEntriesByMediaId.get(media.getId());
+        if (entry == null || entry.state != State.OPTIMIZING) {
+            return false;
+        }
+        mOptimizationCount--;
+        // the optimizer may have pointed the media to the optimized file
+        entry.media = media;
+        entry.state = State.PENDING_UPLOAD;
+        mUploadQueue.put(media.getId(), entry);
+        return true;
+    }
+
+    /*
+     * removes the media once it has been uploaded, failed or been cancelled, freeing its slot -
+     * returns the media or null if it wasn't being handled
+     */
+    synchronized MediaModel remove(int mediaId) {
+        Entry entry = mEntriesByMediaId.remove(mediaId);
+        if (entry == null) {
+            return null;
+        }
+
+        switch (entry.state) {
+            case PENDING_OPTIMIZATION:
+                mOptimizationQueue.remove(mediaId);
+                break;
+            case OPTIMIZING:
+                mOptimizationCount--;
+                break;
+            case PENDING_UPLOAD:
+                mUploadQueue.remove(mediaId);
+                break;
+            case UPLOADING:
+                mUploadCount--;
+                int siteId = entry.media.getLocalSiteId();
+                Integer siteCount = mUploadCountBySiteId.get(siteId);
+                if (siteCount != null && siteCount > 1) {
+                    mUploadCountBySiteId.put(siteId, siteCount - 1);
+                } else {
+                    mUploadCountBySiteId.remove(siteId);
+                }
+                break;
+        }
+
+        mMediaIdsByDedupeKey.remove(entry.dedupeKey);
+        int postId = entry.media.getLocalPostId();
+        Set<Integer> postMediaIds = mMediaIdsByPostId.get(postId);
+        if (postMediaIds != null) {
+            postMediaIds.remove(mediaId);
+            if (postMediaIds.isEmpty()) {
+                mMediaIdsByPostId.remove(postId);
+                mPriorityPostIds.remove(postId);
+            }
+        }
+        return entry.media;
+    }
+
+    /*
+     * returns the media which can be started now that slots are free, marking them as started
+     */
+    synchronized Batch nextBatch() {
+        Batch batch = new Batch();
+
+        while (mOptimizationCount < mMaxOptimizations) {
+            Entry entry = takeNext(mOptimizationQueue, false);
+            if (entry == null) {
+                break;
+            }
+            entry.state = State.OPTIMIZING;
+            entry.started = true;
+            mOptimizationCount++;
+            batch.toOptimize.add(entry.media);
+        }
+
+        while (mUploadCount < mMaxUploads) {
+            Entry entry = takeNext(mUploadQueue, true);
+            if (entry == null) {
+                break;
+            }
+            entry.state = State.UPLOADING;
+            entry.started = true;
+            mUploadCount++;
+            int siteId = entry.media.getLocalSiteId();
+            Integer siteCount = mUploadCountBySiteId.get(siteId);
+            mUploadCountBySiteId.put(siteId, siteCount != null ? siteCount + 1 : 1);
+            batch.toUpload.add(entry.media);
+        }
+
+        return batch;
+    }
+
+    /*
+     * removes and returns the next entry to start from the passed queue - the first one for a
+     * prioritized post, otherwise the first one - skipping entries whose site is at its limit
+     * when checkSiteLimit is true
+     */
+    private Entry takeNext(LinkedHashMap<Integer, Entry> queue, boolean checkSiteLimit) {
+        Entry next = null;
+        for (Entry entry : queue.values()) {
+            if (checkSiteLimit && !hasSiteCapacity(entry.media.getLocalSiteId())) {
+                continue;
+            }
+            if (mPriorityPostIds.contains(entry.media.getLocalPostId())) {
+                next = entry;
+                break;
+            }
+            if (next == null) {
+                next = entry;
+                if (mPriorityPostIds.isEmpty()) {
+                    break;
+                }
+            }
+        }
+        if (next != null) {
+            queue.remove(next.media.getId());
+        }
+        return next;
+    }
+
+    private boolean hasSiteCapacity(int siteId) {
+        Integer siteCount = mUploadCountBySiteId.get(siteId);
+        return siteCount == null || siteCount < mMaxUploadsPerSite;
+    }
+
+    synchronized MediaModel get(int mediaId) {
+        Entry entry = mEntriesByMediaId.get(mediaId);
+        return entry != null ? entry.media : null;
+    }
+
+    synchronized boolean contains(int mediaId) {
+        return mEntriesByMediaId.containsKey(mediaId);
+    }
+
+    synchronized State getState(int mediaId) {
+        Entry entry = mEntriesByMediaId.get(mediaId);
+        return entry != null ? entry.state : null;
+    }
+
+    synchronized boolean isEmpty() {
+        return mEntriesByMediaId.isEmpty();
+    }
+
+    /*
+     * returns true if any media for the passed post has started
+     */
+    synchronized boolean hasStartedMediaForPost(int localPostId) {
+        for (Entry entry : getEntriesForPost(localPostId)) {
+            if (entry.started) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * returns true if any media for the passed post hasn't started
+     */
+    synchronized boolean hasPendingMediaForPost(int localPostId) {
+        for (Entry entry : getEntriesForPost(localPostId)) {
+            if (!entry.started) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized boolean hasMediaForPost(int localPostId) {
+        return mMediaIdsByPostId.containsKey(localPostId);
+    }
+
+    /*
+     * returns the media for the passed post, started media first
+     */
+    synchronized List<MediaModel> getMediaForPost(int localPostId) {
+        List<MediaModel> started = new ArrayList<>();
+        List<MediaModel> pending = new ArrayList<>();
+        for (Entry entry : getEntriesForPost(localPostId)) {
+            (entry.started ? started : pending).add(entry.media);
+        }
+        started.addAll(pending);
+        return started;
+    }
+
+    /*
+     * returns the media which has started
+     */
+    synchronized List<MediaModel> getStartedMedia() {
+        List<MediaModel> mediaList = new ArrayList<>();
+        for (Entry entry : mEntriesByMediaId.values()) {
+            if (entry.started) {
+                mediaList.add(entry.media);
+            }
+        }
+        return mediaList;
+    }
+
+    synchronized void clear() {
+        mEntriesByMediaId.clear();
+        mMediaIdsByDedupeKey.clear();
+        mMediaIdsByPostId.clear();
+        mOptimizationQueue.clear();
+        mUploadQueue.clear();
+        mUploadCountBySiteId.clear();
+        mPriorityPostIds.clear();
+        mUploadCount = 0;
+        mOptimizationCount = 0;
+    }
+
+    private List<Entry> getEntriesForPost(int localPostId) {
+        Set<Integer> mediaIds = mMediaIdsByPostId.get(localPostId);
+        if (mediaIds == null) {
+            return new ArrayList<>();
+        }
+        List<Entry> entries = new ArrayList<>(mediaIds.size());
+        for (Integer mediaId : mediaIds) {
+            entries.add(mEntriesByMediaId.get(mediaId));
+        }
+        return entries;
+    }
+}
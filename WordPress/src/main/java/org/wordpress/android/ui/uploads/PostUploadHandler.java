@@ -37,6 +37,7 @@ import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.FluxCUtils;
 import org.wordpress.android.util.MediaUtils;
 import org.wordpress.android.util.SqlUtils;
+import org.wordpress.android.util.Tracer;
 import org.wordpress.android.util.helpers.MediaFile;
 
 import java.io.File;
@@ -56,6 +57,8 @@ import javax.inject.Inject;
 import de.greenrobot.event.EventBus;
 
 public class PostUploadHandler implements UploadHandler<PostModel> {
+    private static final String UPLOAD_TRACE = "Post Upload";
+
     private static final ArrayList<PostModel> sQueuedPostsList = new ArrayList<>();
     private static final Set<Integer> sFirstPublishPosts = new HashSet<>();
     private static PostModel sCurrentUploadingPost = null;
@@ -162,6 +165,7 @@ public class PostUploadHandler implements UploadHandler<PostModel> {
                 sCurrentUploadingPostAnalyticsProperties = null;
                 if (sQueuedPostsList.size() > 0) {
                     sCurrentUploadingPost = sQueuedPostsList.remove(0);
+                    Tracer.startTrace(T.POSTS, UPLOAD_TRACE);
                     mCurrentTask = new UploadPostTask();
                     mCurrentTask.executeOnExecutor(AsyncTask.SERIAL_EXECUTOR, sCurrentUploadingPost);
                 } else {
@@ -173,6 +177,7 @@ public class PostUploadHandler implements UploadHandler<PostModel> {
 
     private void finishUpload() {
         synchronized (sQueuedPostsList) {
+            Tracer.endTrace(UPLOAD_TRACE).dumpToLog();
             mCurrentTask = null;
             sCurrentUploadingPost = null;
             sCurrentUploadingPostAnalyticsProperties = null;
@@ -229,6 +234,7 @@ public class PostUploadHandler implements UploadHandler<PostModel> {
             }
             content = processPostMedia(content);
             mPost.setContent(content);
+            Tracer.getTrace(UPLOAD_TRACE).split("post media processed");
 
             // If media file upload failed, let's stop here and prompt the user
             if (mIsMediaError) {
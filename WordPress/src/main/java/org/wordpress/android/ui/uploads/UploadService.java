@@ -258,6 +258,8 @@ public class UploadService extends Service {
                 // If the post is already registered, the new media will be added to its list
                 List<MediaModel> activeMedia = MediaUploadHandler.getPendingOrInProgressMediaUploadsForPost(post);
                 mUploadStore.registerPostModel(post, activeMedia);
+                // the post can't be uploaded until its media is, so upload its media first
+                mMediaUploadHandler.prioritizeMediaForPost(post);
             }
         }
     }
@@ -0,0 +1,315 @@
+package org.wordpress.android.util;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.v4.util.LruCache;
+
+import com.android.volley.toolbox.ImageLoader.ImageCache;
+
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * App-wide bitmap cache used by Volley's ImageLoader and by code which generates its own
+ * thumbnails:
+ *
+ *  - the memory tier is sized in bytes using the bitmap's actual allocation
+ *  - keys are indexed by url, so invalidating every size of an image is a lookup rather than a
+ *    scan of every key
+ *  - thumbnails which are expensive to generate (ex: video frames) can also be stored in a disk
+ *    tier so they survive the process being killed
+ *  - hits, misses and evictions are counted for both tiers
+ */
+public class BitmapCache implements ImageCache {
+    private static final String THUMBNAIL_EXTENSION = ".thumb";
+    private static final int JPEG_QUALITY = 90;
+
+    private final LruCache<String, Bitmap> mMemoryCache;
+
+    // maps the index url of each key (see BitmapCacheKey.getIndexUrl) to the keys in the memory tier
+    private final HashMap<String, Set<String>> mUrlIndex = new HashMap<>();
+
+    // disk tier - null when there isn't one
+    private final File mDiskDir;
+    private final long mMaxDiskBytes;
+    private final Executor mDiskWriteExecutor;
+    private final Object mDiskLock = new Object();
+
+    private final AtomicInteger mDiskHitCount = new AtomicInteger();
+    private final AtomicInteger mDiskMissCount = new AtomicInteger();
+    private final AtomicInteger mDiskEvictionCount = new AtomicInteger();
+
+    public BitmapCache(int maxMemoryBytes, File diskDir, long maxDiskBytes) {
+        this(maxMemoryBytes, diskDir, maxDiskBytes, Executors.newSingleThreadExecutor());
+    }
+
+    BitmapCache(int maxMemoryBytes, File diskDir, long maxDiskBytes, @NonNull Executor diskWriteExecutor) {
+        mDiskDir = diskDir;
+        mMaxDiskBytes = maxDiskBytes;
+        mDiskWriteExecutor = diskWriteExecutor;
+        mMemoryCache = new LruCache<String, Bitmap>(maxMemoryBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return getByteCount(bitmap);
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                // the key is removed from the index unless it was replaced by a new bitmap
+                if (newValue == null) {
+                    removeFromIndex(key);
+                }
+            }
+        };
+    }
+
+    /*
+     * returns the number of bytes used by the passed bitmap
+     */
+    public static int getByteCount(@NonNull Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            // may be larger than getByteCount() when the bitmap was reconfigured
+            return bitmap.getAllocationByteCount();
+        }
+        return bitmap.getByteCount();
+    }
+
+    /*
+     * ImageCache - called by Volley's ImageLoader
+     */
+    @Override
+    public Bitmap getBitmap(String key) {
+        return mMemoryCache.get(key);
+    }
+
+    @Override
+    public void putBitmap(String key, Bitmap bitmap) {
+        put(BitmapCacheKey.fromString(key), bitmap);
+    }
+
+    public Bitmap get(@NonNull BitmapCacheKey key) {
+        return mMemoryCache.get(key.toString());
+    }
+
+    public void put(@NonNull BitmapCacheKey key, Bitmap bitmap) {
+        if (bitmap == null) {
+            return;
+        }
+        String stringKey = key.toString();
+        synchronized (mUrlIndex) {
+            String indexUrl = key.getIndexUrl();
+            Set<String> keys = mUrlIndex.get(indexUrl);
+            if (keys == null) {
+                keys = new HashSet<>();
+                mUrlIndex.put(indexUrl, keys);
+            }
+            keys.add(stringKey);
+        }
+        mMemoryCache.put(stringKey, bitmap);
+    }
+
+    /*
+     * removes every size of the image at the passed url from both tiers - the url's query
+     * string is ignored, see BitmapCacheKey.getIndexUrl()
+     */
+    public void removeForUrl(@NonNull String url) {
+        List<String> keys;
+        synchronized (mUrlIndex) {
+            Set<String> indexedKeys = mUrlIndex.remove(BitmapCacheKey.getIndexUrl(url));
+            if (indexedKeys == null) {
+                keys = new ArrayList<>();
+            } else {
+                keys = new ArrayList<>(indexedKeys);
+            }
+        }
+        for (String key : keys) {
+            mMemoryCache.remove(key);
+        }
+
+        if (mDiskDir != null) {
+            synchronized (mDiskLock) {
+                File[] files = mDiskDir.listFiles();
+                if (files != null) {
+                    String prefix = getDiskFilePrefix(BitmapCacheKey.getIndexUrl(url));
+                    for (File file : files) {
+                        if (file.getName().startsWith(prefix)) {
+                            file.delete();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * returns the cached thumbnail from the memory tier, falling back to the disk tier - since
+     * this may read from disk it must be called from a background thread
+     */
+    public Bitmap getThumbnail(@NonNull BitmapCacheKey key) {
+        Bitmap bitmap = get(key);
+        if (bitmap != null || mDiskDir == null) {
+            return bitmap;
+        }
+
+        synchronized (mDiskLock) {
+            File file = getDiskFile(key);
+            if (file.exists()) {
+                bitmap = decodeFile(file);
+                if (bitmap != null) {
+                    // refresh the modified time since the oldest files are removed first
+                    file.setLastModified(System.currentTimeMillis());
+                } else {
+                    file.delete();
+                }
+            }
+        }
+
+        if (bitmap != null) {
+            mDiskHitCount.incrementAndGet();
+            put(key, bitmap);
+        } else {
+            mDiskMissCount.incrementAndGet();
+        }
+        return bitmap;
+    }
+
+    /*
+     * adds a generated thumbnail to the memory tier and (in the background) to the disk tier
+     */
+    public void putThumbnail(@NonNull final BitmapCacheKey key, final Bitmap bitmap) {
+        if (bitmap == null) {
+            return;
+        }
+        put(key, bitmap);
+
+        if (mDiskDir != null) {
+            mDiskWriteExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    writeToDisk(key, bitmap);
+                }
+            });
+        }
+    }
+
+    public void clearMemory() {
+        mMemoryCache.evictAll();
+    }
+
+    public int getMemorySize() {
+        return mMemoryCache.size();
+    }
+
+    public int getMaxMemorySize() {
+        return mMemoryCache.maxSize();
+    }
+
+    public int getHitCount() {
+        return mMemoryCache.hitCount();
+    }
+
+    public int getMissCount() {
+        return mMemoryCache.missCount();
+    }
+
+    public int getEvictionCount() {
+        return mMemoryCache.evictionCount();
+    }
+
+    public int getDiskHitCount() {
+        return mDiskHitCount.get();
+    }
+
+    public int getDiskMissCount() {
+        return mDiskMissCount.get();
+    }
+
+    public int getDiskEvictionCount() {
+        return mDiskEvictionCount.get();
+    }
+
+    public String getStats() {
+        return String.format(Locale.US,
+                "memory %d/%d KB, hits %d, misses %d, evictions %d; disk hits %d, misses %d, evictions %d",
+                getMemorySize() / 1024, getMaxMemorySize() / 1024, getHitCount(), getMissCount(),
+                getEvictionCount(), getDiskHitCount(), getDiskMissCount(), getDiskEvictionCount());
+    }
+
+    private void removeFromIndex(String key) {
+        synchronized (mUrlIndex) {
+            String indexUrl = BitmapCacheKey.fromString(key).getIndexUrl();
+            Set<String> keys = mUrlIndex.get(indexUrl);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                mUrlIndex.remove(indexUrl);
+            }
+        }
+    }
+
+    /*
+     * disk files are named by the hash of the index url followed by the hash of the full key,
+     * so removeForUrl() can find every size of an image by its prefix
+     */
+    private static String getDiskFilePrefix(String indexUrl) {
+        return StringUtils.getMd5Hash(indexUrl) + "-";
+    }
+
+    private File getDiskFile(BitmapCacheKey key) {
+        return new File(mDiskDir, getDiskFilePrefix(key.getIndexUrl())
+                + StringUtils.getMd5Hash(key.toString()) + THUMBNAIL_EXTENSION);
+    }
+
+    private static Bitmap decodeFile(File file) {
+        return BitmapFactory.decodeFile(file.getPath());
+    }
+
+    private void writeToDisk(BitmapCacheKey key, Bitmap bitmap) {
+        synchronized (mDiskLock) {
+            if (bitmap.isRecycled() || (!mDiskDir.exists() && !mDiskDir.mkdirs())) {
+                return;
+            }
+
+            // thumbnails with transparency are stored as PNG so they're not given a background
+            Bitmap.CompressFormat format = bitmap.hasAlpha() ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG;
+            File file = getDiskFile(key);
+            File tempFile = new File(mDiskDir, file.getName() + ".tmp");
+            OutputStream out = null;
+            boolean written = false;
+            try {
+                out = new BufferedOutputStream(new FileOutputStream(tempFile));
+                written = bitmap.compress(format, JPEG_QUALITY, out);
+            } catch (IOException e) {
+                AppLog.e(T.UTILS, e);
+            } finally {
+                if (out != null) {
+                    try {
+                        out.close();
+                    } catch (IOException e) {
+                        written = false;
+                    }
+                }
+            }
+
+            if (written && tempFile.renameTo(file)) {
+                mDiskEvictionCount.addAndGet(FileUtils.trimDirectory(mDiskDir, mMaxDiskBytes, file));
+            } else {
+                tempFile.delete();
+            }
+        }
+    }
+}
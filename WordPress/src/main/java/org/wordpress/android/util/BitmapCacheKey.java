@@ -0,0 +1,122 @@
+package org.wordpress.android.util;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Structured key for BitmapCache entries - the url (or local path) of the image plus the size it
+ * was decoded at. The string form matches the keys Volley's ImageLoader passes to its
+ * ImageCache ("#W<width>#H<height>#S<scaleType><url>") so keys from either source can be parsed
+ * back into their url, which is how the cache finds every size of an image when invalidating it.
+ * Keys for a transformed copy of an image (ex: a circular avatar) also include the variant
+ * ("#V<variant>#") so they're indexed with the original image.
+ */
+public class BitmapCacheKey {
+    private final String mUrl;
+    private final int mWidth;
+    private final int mHeight;
+    private final String mVariant;
+    private final String mKey;
+
+    public BitmapCacheKey(@NonNull String url, int width, int height) {
+        this(url, width, height, null, "#W" + width + "#H" + height + url);
+    }
+
+    /*
+     * key for a transformed copy of the image - the variant can't contain "#"
+     */
+    public BitmapCacheKey(@NonNull String url, int width, int height, @NonNull String variant) {
+        this(url, width, height, variant, "#W" + width + "#H" + height + "#V" + variant + "#" + url);
+    }
+
+    private BitmapCacheKey(@NonNull String url, int width, int height, String variant, @NonNull String key) {
+        mUrl = url;
+        mWidth = width;
+        mHeight = height;
+        mVariant = variant;
+        mKey = key;
+    }
+
+    /*
+     * parses a key passed by Volley's ImageLoader - keys which don't have the expected prefix
+     * (ex: those added directly with a path) are treated as a url at no particular size
+     */
+    public static BitmapCacheKey fromString(@NonNull String key) {
+        int pos = 0;
+        int width = 0;
+        int height = 0;
+        String variant = null;
+        if (key.startsWith("#W")) {
+            int heightStart = key.indexOf("#H", 2);
+            if (heightStart > 0) {
+                width = StringUtils.stringToInt(key.substring(2, heightStart));
+                pos = heightStart + 2;
+                while (pos < key.length() && Character.isDigit(key.charAt(pos))) {
+                    pos++;
+                }
+                height = StringUtils.stringToInt(key.substring(heightStart + 2, pos));
+                // later versions of Volley add the scale type
+                if (key.startsWith("#S", pos)) {
+                    pos += 2;
+                    while (pos < key.length() && Character.isDigit(key.charAt(pos))) {
+                        pos++;
+                    }
+                } else if (key.startsWith("#V", pos)) {
+                    int variantEnd = key.indexOf('#', pos + 2);
+                    if (variantEnd > 0) {
+                        variant = key.substring(pos + 2, variantEnd);
+                        pos = variantEnd + 1;
+                    }
+                }
+            }
+        }
+        return new BitmapCacheKey(key.substring(pos), width, height, variant, key);
+    }
+
+    public String getUrl() {
+        return mUrl;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /*
+     * the transformation applied to the image, or null for the image itself
+     */
+    public String getVariant() {
+        return mVariant;
+    }
+
+    /*
+     * the url without its query string, which is what the cache indexes keys by - the query
+     * usually only determines the size (ex: "?w=" for Photon, "?s=" for Gravatar) so every size
+     * of an image shares the same index entry
+     */
+    public String getIndexUrl() {
+        return getIndexUrl(mUrl);
+    }
+
+    static String getIndexUrl(@NonNull String url) {
+        int queryStart = url.indexOf('?');
+        return queryStart > -1 ? url.substring(0, queryStart) : url;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof BitmapCacheKey && mKey.equals(((BitmapCacheKey) other).mKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return mKey.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return mKey;
+    }
+}
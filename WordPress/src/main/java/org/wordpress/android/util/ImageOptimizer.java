@@ -0,0 +1,516 @@
+package org.wordpress.android.util;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Process;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+import android.webkit.MimeTypeMap;
+
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resizes and recompresses images before they're uploaded - replaces ImageUtils.optimizeImage(),
+ * which decoded each image in full, then created a scaled and a rotated copy of it on whatever
+ * thread called it.
+ *
+ * Images are decoded subsampled to roughly the target size, a horizontal strip at a time using
+ * BitmapRegionDecoder, and each strip is scaled and rotated straight into the output bitmap, so
+ * peak memory is the output bitmap plus one strip. Several images are optimized at once on a
+ * small pool sized to the device's cores and heap, and a shared memory budget stops the pool
+ * from decoding more images at once than the heap can hold.
+ *
+ * Output files are named after the source file, its size and modification time, and the
+ * optimization settings, so optimizing the same image with the same settings again (ex: when
+ * retrying an upload) returns the existing file rather than encoding it again.
+ */
+public class ImageOptimizer {
+    public static class Result {
+        public final String sourcePath;
+        // path to the optimized image, or to the source image if it wasn't optimized
+        public final String path;
+        public final boolean isOptimized;
+        // true if the image was optimized previously with the same settings
+        public final boolean isCached;
+        public final long waitMs;
+        public final long decodeMs;
+        public final long encodeMs;
+        public final long totalMs;
+
+        Result(String sourcePath, String path, boolean isOptimized, boolean isCached,
+               long waitMs, long decodeMs, long encodeMs, long totalMs) {
+            this.sourcePath = sourcePath;
+            this.path = path;
+            this.isOptimized = isOptimized;
+            this.isCached = isCached;
+            this.waitMs = waitMs;
+            this.decodeMs = decodeMs;
+            this.encodeMs = encodeMs;
+            this.totalMs = totalMs;
+        }
+
+        static Result notOptimized(String sourcePath, long totalMs) {
+            return new Result(sourcePath, sourcePath, false, false, 0, 0, 0, totalMs);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: %s, waited %d ms, decoded %d ms, encoded %d ms, total %d ms",
+                    sourcePath, isCached ? "cached" : (isOptimized ? "optimized" : "not optimized"),
+                    waitMs, decodeMs, encodeMs, totalMs);
+        }
+    }
+
+    private static final String CACHE_DIR_NAME = "optimized_images";
+    private static final String DEFAULT_FILE_NAME = "wp-image";
+
+    // the most the optimized images may take on disk before the least recently used are removed
+    private static final long MAX_CACHE_BYTES = 50L * 1024L * 1024L;
+
+    private static final int MAX_WORKERS = 4;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    // the memory a worker typically needs - the output bitmap for a 2048px image plus a strip
+    private static final long BYTES_PER_WORKER = 2048L * 2048L * 4L + 2L * 1024L * 1024L;
+
+    // the most memory a single decoded strip may take
+    static final long MAX_STRIP_BYTES = 2L * 1024L * 1024L;
+
+    private static ImageOptimizer sInstance;
+
+    public static synchronized ImageOptimizer getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            Context appContext = context.getApplicationContext();
+            File cacheDir = new File(appContext.getCacheDir(), CACHE_DIR_NAME);
+            long memoryBudget = Runtime.getRuntime().maxMemory() / 4;
+            sInstance = new ImageOptimizer(appContext, cacheDir, memoryBudget,
+                    getWorkerCount(Runtime.getRuntime().availableProcessors(), memoryBudget));
+        }
+        return sInstance;
+    }
+
+    private final Context mContext;
+    private final File mCacheDir;
+    private final ThreadPoolExecutor mExecutor;
+
+    // images which are being optimized, keyed by source and settings
+    private final HashMap<String, Future<Result>> mPending = new HashMap<>();
+
+    private final long mMemoryBudget;
+    private long mMemoryUsed; // guarded by mPending
+
+    ImageOptimizer(@NonNull Context context, @NonNull File cacheDir, long memoryBudget, int numWorkers) {
+        mContext = context;
+        mCacheDir = cacheDir;
+        mMemoryBudget = memoryBudget;
+        mExecutor = new ThreadPoolExecutor(
+                numWorkers,
+                numWorkers,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger mCount = new AtomicInteger();
+                    @Override
+                    public Thread newThread(@NonNull final Runnable runnable) {
+                        return new Thread("image-optimizer-" + mCount.incrementAndGet()) {
+                            @Override
+                            public void run() {
+                                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                runnable.run();
+                            }
+                        };
+                    }
+                });
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /*
+     * one worker per core, as long as the heap can hold what they decode at once
+     */
+    static int getWorkerCount(int numCores, long memoryBudget) {
+        long workersForMemory = memoryBudget / BYTES_PER_WORKER;
+        return (int) Math.max(1, Math.min(MAX_WORKERS, Math.min(numCores, workersForMemory)));
+    }
+
+    /*
+     * queues the passed image to be optimized - if the same image is already queued with the
+     * same settings, the existing request is returned
+     */
+    public Future<Result> submit(@NonNull final String path, final int maxSize, final int quality) {
+        final String key = path + ":" + maxSize + ":" + quality;
+        FutureTask<Result> task;
+        synchronized (mPending) {
+            Future<Result> pending = mPending.get(key);
+            if (pending != null) {
+                return pending;
+            }
+            task = new FutureTask<>(new Callable<Result>() {
+                @Override
+                public Result call() {
+                    try {
+                        Result result = optimizeImage(path, maxSize, quality);
+                        AppLog.d(T.MEDIA, "image optimizer > " + result.toString());
+                        return result;
+                    } finally {
+                        synchronized (mPending) {
+                            mPending.remove(key);
+                        }
+                    }
+                }
+            });
+            mPending.put(key, task);
+        }
+        mExecutor.execute(task);
+        return task;
+    }
+
+    /*
+     * optimizes the passed image and waits for the result - must not be called on the main thread
+     */
+    public Result optimize(@NonNull String path, int maxSize, int quality) {
+        return getResult(path, submit(path, maxSize, quality));
+    }
+
+    /*
+     * optimizes the passed images in parallel and waits for all of them - results are in the
+     * same order as the paths
+     */
+    public List<Result> optimizeAll(@NonNull List<String> paths, int maxSize, int quality) {
+        List<Future<Result>> futures = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            futures.add(submit(path, maxSize, quality));
+        }
+        List<Result> results = new ArrayList<>(paths.size());
+        for (int i = 0; i < paths.size(); i++) {
+            results.add(getResult(paths.get(i), futures.get(i)));
+        }
+        return results;
+    }
+
+    private static Result getResult(String path, Future<Result> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.notOptimized(path, 0);
+        } catch (ExecutionException e) {
+            AppLog.e(T.MEDIA, "Failed to optimize " + path, e.getCause());
+            return Result.notOptimized(path, 0);
+        }
+    }
+
+    private Result optimizeImage(String path, int maxSize, int quality) {
+        long startTime = SystemClock.elapsedRealtime();
+
+        File file = new File(path);
+        if (!file.exists()) {
+            return Result.notOptimized(path, 0);
+        }
+
+        String mimeType = MediaUtils.getMediaFileMimeType(file);
+        if (mimeType.equals("image/gif")) {
+            // Don't rescale gifs to maintain their quality
+            return Result.notOptimized(path, 0);
+        }
+
+        // do not optimize if original-size and 100% quality are set.
+        if (maxSize == Integer.MAX_VALUE && quality == 100) {
+            return Result.notOptimized(path, 0);
+        }
+
+        String fileName = MediaUtils.getMediaFileName(file, mimeType);
+        String fileExtension = MimeTypeMap.getFileExtensionFromUrl(fileName).toLowerCase(Locale.ROOT);
+        File outFile = getOutputFile(file, fileName, fileExtension, maxSize, quality);
+        if (outFile.exists() && outFile.length() > 0) {
+            // refresh the modified time since the oldest images are removed first (see trimCache)
+            outFile.getParentFile().setLastModified(System.currentTimeMillis());
+            return new Result(path, outFile.getPath(), true, true, 0, 0, 0,
+                    SystemClock.elapsedRealtime() - startTime);
+        }
+
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(path, bounds);
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            // Can't read the src dimensions.
+            return Result.notOptimized(path, SystemClock.elapsedRealtime() - startTime);
+        }
+
+        int orientation = ImageUtils.getImageOrientation(mContext, path);
+        int[] targetSize = getTargetSize(bounds.outWidth, bounds.outHeight, maxSize);
+        int sampleSize = getSampleSize(bounds, targetSize[0], targetSize[1]);
+
+        BitmapRegionDecoder regionDecoder = null;
+        try {
+            regionDecoder = BitmapRegionDecoder.newInstance(path, false);
+        } catch (IOException e) {
+            // formats the region decoder doesn't support are decoded in one go
+            AppLog.w(T.MEDIA, "Can't decode regions of " + path + ", decoding the whole image");
+        }
+
+        long sampledBytes = (long) (bounds.outWidth / sampleSize) * (bounds.outHeight / sampleSize) * 4;
+        long memoryNeeded = (long) targetSize[0] * targetSize[1] * 4
+                + (regionDecoder != null ? Math.min(sampledBytes, MAX_STRIP_BYTES) : sampledBytes);
+
+        long waitStart = SystemClock.elapsedRealtime();
+        try {
+            acquireMemory(memoryNeeded);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (regionDecoder != null) {
+                regionDecoder.recycle();
+            }
+            return Result.notOptimized(path, SystemClock.elapsedRealtime() - startTime);
+        }
+        long waitMs = SystemClock.elapsedRealtime() - waitStart;
+
+        Bitmap output = null;
+        try {
+            long decodeStart = SystemClock.elapsedRealtime();
+            output = decodeScaledAndRotated(path, regionDecoder, bounds.outWidth, bounds.outHeight,
+                    targetSize[0], targetSize[1], sampleSize, orientation);
+            long decodeMs = SystemClock.elapsedRealtime() - decodeStart;
+            if (output == null) {
+                AppLog.e(T.MEDIA, "Can't decode the picture. Use the original picture instead.");
+                return Result.notOptimized(path, SystemClock.elapsedRealtime() - startTime);
+            }
+
+            long encodeStart = SystemClock.elapsedRealtime();
+            Bitmap.CompressFormat format = fileExtension.equals("png")
+                    ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG;
+            if (!writeBitmap(output, format, quality, outFile)) {
+                AppLog.w(T.MEDIA, "Failed to compress the optimized image. Use the original picture instead.");
+                return Result.notOptimized(path, SystemClock.elapsedRealtime() - startTime);
+            }
+            long encodeMs = SystemClock.elapsedRealtime() - encodeStart;
+            trimCache(outFile.getParentFile());
+
+            return new Result(path, outFile.getPath(), true, false, waitMs, decodeMs, encodeMs,
+                    SystemClock.elapsedRealtime() - startTime);
+        } catch (OutOfMemoryError e) {
+            AppLog.e(T.MEDIA, "Can't optimize the picture due to low memory. Use the original picture instead.");
+            return Result.notOptimized(path, SystemClock.elapsedRealtime() - startTime);
+        } finally {
+            if (output != null) {
+                output.recycle();
+            }
+            if (regionDecoder != null) {
+                regionDecoder.recycle();
+            }
+            releaseMemory(memoryNeeded);
+        }
+    }
+
+    /*
+     * decodes the image a strip at a time, drawing each strip scaled and rotated into the
+     * returned bitmap - falls back to decoding the whole (subsampled) image when there's no
+     * region decoder
+     */
+    private static Bitmap decodeScaledAndRotated(String path, BitmapRegionDecoder regionDecoder,
+                                                 int width, int height, int targetWidth, int targetHeight,
+                                                 int sampleSize, int orientation) {
+        Matrix matrix = getOutputMatrix(targetWidth, targetHeight, orientation);
+        RectF outputRect = new RectF(0, 0, targetWidth, targetHeight);
+        matrix.mapRect(outputRect);
+
+        Bitmap output = Bitmap.createBitmap(Math.round(outputRect.width()), Math.round(outputRect.height()),
+                Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(output);
+        canvas.concat(matrix);
+        Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        float scale = (float) targetWidth / width;
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize;
+
+        if (regionDecoder == null) {
+            Bitmap bitmap = BitmapFactory.decodeFile(path, options);
+            if (bitmap == null) {
+                output.recycle();
+                return null;
+            }
+            canvas.drawBitmap(bitmap, null, new RectF(0, 0, targetWidth, targetHeight), paint);
+            bitmap.recycle();
+            return output;
+        }
+
+        int stripHeight = getStripHeight(width, sampleSize, MAX_STRIP_BYTES);
+        Rect region = new Rect();
+        RectF dest = new RectF();
+        for (int top = 0; top < height; top += stripHeight) {
+            region.set(0, top, width, Math.min(height, top + stripHeight));
+            Bitmap strip = regionDecoder.decodeRegion(region, options);
+            if (strip == null) {
+                output.recycle();
+                return null;
+            }
+            dest.set(0, region.top * scale, targetWidth, region.bottom * scale);
+            canvas.drawBitmap(strip, null, dest, paint);
+            strip.recycle();
+        }
+        return output;
+    }
+
+    /*
+     * returns the size of the optimized image, which is at most maxSize on its longest side
+     */
+    static int[] getTargetSize(int width, int height, int maxSize) {
+        int longestSide = Math.max(width, height);
+        if (maxSize <= 0 || longestSide <= maxSize) {
+            return new int[]{width, height};
+        }
+        float scale = (float) maxSize / longestSide;
+        return new int[]{Math.max(1, Math.round(width * scale)), Math.max(1, Math.round(height * scale))};
+    }
+
+    /*
+     * calculateInSampleSize() rounds the ratio between the image and the target, which can make
+     * the subsampled image smaller than the target - step down until it isn't, since scaling the
+     * image up again loses detail
+     */
+    static int getSampleSize(BitmapFactory.Options bounds, int targetWidth, int targetHeight) {
+        int sampleSize = Math.max(1, ImageUtils.calculateInSampleSize(bounds, targetWidth, targetHeight));
+        while (sampleSize > 1
+                && (bounds.outWidth / sampleSize < targetWidth || bounds.outHeight / sampleSize < targetHeight)) {
+            sampleSize--;
+        }
+        return sampleSize;
+    }
+
+    /*
+     * returns the height in source pixels of a strip which decodes to at most maxStripBytes -
+     * always a multiple of the sample size so every strip is sampled on the same grid
+     */
+    static int getStripHeight(int width, int sampleSize, long maxStripBytes) {
+        long sampledRowBytes = Math.max(1, width / sampleSize) * 4L;
+        long sampledRows = Math.max(1, maxStripBytes / sampledRowBytes);
+        return (int) Math.min(Integer.MAX_VALUE / 2, sampledRows * sampleSize);
+    }
+
+    /*
+     * returns the matrix which rotates the target-sized image by the passed orientation and
+     * moves it back to the origin
+     */
+    private static Matrix getOutputMatrix(int targetWidth, int targetHeight, int orientation) {
+        Matrix matrix = new Matrix();
+        if (orientation != 0) {
+            matrix.setRotate(orientation);
+            RectF rotated = new RectF(0, 0, targetWidth, targetHeight);
+            matrix.mapRect(rotated);
+            matrix.postTranslate(-rotated.left, -rotated.top);
+        }
+        return matrix;
+    }
+
+    private File getOutputFile(File source, String fileName, String fileExtension, int maxSize, int quality) {
+        String key = source.getPath() + ":" + source.length() + ":" + source.lastModified()
+                + ":" + maxSize + ":" + quality;
+        // try to re-use the same name for the optimized file
+        String name = FileUtils.getFileNameFromPath(fileName);
+        if (TextUtils.isEmpty(name)) {
+            name = DEFAULT_FILE_NAME;
+        }
+        File dir = new File(mCacheDir, StringUtils.getMd5Hash(key));
+        return new File(dir, name + "." + fileExtension);
+    }
+
+    /*
+     * removes the least recently used optimized images once the cache is over MAX_CACHE_BYTES -
+     * each image has its own directory, which is removed as a whole. synchronized so workers
+     * which finish at the same time don't trim over each other
+     */
+    private void trimCache(File keepDir) {
+        synchronized (mCacheDir) {
+            int numDeleted = FileUtils.trimDirectory(mCacheDir, MAX_CACHE_BYTES, keepDir);
+            if (numDeleted > 0) {
+                AppLog.d(T.MEDIA, "Removed " + numDeleted + " optimized images from the cache");
+            }
+        }
+    }
+
+    /*
+     * writes to a temp file first so a partially written image is never returned from the cache
+     */
+    private static boolean writeBitmap(Bitmap bitmap, Bitmap.CompressFormat format, int quality, File outFile) {
+        File dir = outFile.getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            AppLog.e(T.MEDIA, "Failed to create the directory for the optimized image.");
+            return false;
+        }
+
+        File tempFile = new File(dir, outFile.getName() + ".tmp");
+        FileOutputStream out = null;
+        boolean result = false;
+        try {
+            out = new FileOutputStream(tempFile);
+            result = bitmap.compress(format, quality, out);
+            out.flush();
+        } catch (IOException e) {
+            AppLog.e(T.MEDIA, "Failed to write the optimized image.", e);
+            result = false;
+        } catch (SecurityException e) {
+            AppLog.e(T.MEDIA, "Can't write the optimized image due to security restrictions.");
+            result = false;
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // nope
+                }
+            }
+        }
+
+        if (!result || !tempFile.renameTo(outFile)) {
+            tempFile.delete();
+            return false;
+        }
+        return true;
+    }
+
+    /*
+     * waits until the passed amount of memory fits in the budget - an image which needs more
+     * than the whole budget is optimized once nothing else is
+     */
+    private void acquireMemory(long bytes) throws InterruptedException {
+        synchronized (mPending) {
+            while (mMemoryUsed > 0 && mMemoryUsed + bytes > mMemoryBudget) {
+                mPending.wait();
+            }
+            mMemoryUsed += bytes;
+        }
+    }
+
+    private void releaseMemory(long bytes) {
+        synchronized (mPending) {
+            mMemoryUsed -= bytes;
+            mPending.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.wordpress.android.util;
+
+import android.text.TextUtils;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import org.apache.commons.text.StringEscapeUtils;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * Counterparts of the JSONUtils getters for values read from a streaming JsonReader, so code
+ * which streams a response treats each value the same way as code which parses it into a
+ * JSONObject first. Each method consumes the next value in the reader.
+ */
+public class JsonReaderUtils {
+    private static final String JSON_NULL_STR = "null";
+
+    /*
+     * same as JSONUtils.getString() - numbers and booleans are returned as strings, objects
+     * and arrays as JSON, and null as an empty string
+     */
+    public static String nextString(JsonReader reader) throws IOException {
+        String value;
+        switch (reader.peek()) {
+            case STRING:
+            case NUMBER:
+                value = reader.nextString();
+                break;
+            case BOOLEAN:
+                value = Boolean.toString(reader.nextBoolean());
+                break;
+            case NULL:
+                reader.nextNull();
+                return "";
+            default:
+                value = nextJson(reader);
+                break;
+        }
+        return JSON_NULL_STR.equals(value) ? "" : value;
+    }
+
+    /*
+     * same as JSONUtils.getStringDecoded()
+     */
+    public static String nextStringDecoded(JsonReader reader) throws IOException {
+        return StringEscapeUtils.unescapeHtml4(nextString(reader));
+    }
+
+    /*
+     * same as JSONUtils.getBool() - "0", "false" and "no" are all false
+     */
+    public static boolean nextBool(JsonReader reader) throws IOException {
+        String value = nextString(reader);
+        return !TextUtils.isEmpty(value)
+                && !value.equals("0")
+                && !value.equalsIgnoreCase("false")
+                && !value.equalsIgnoreCase("no");
+    }
+
+    /*
+     * same as JSONObject.optBoolean() - only true or "true" are true
+     */
+    public static boolean nextOptBoolean(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.BOOLEAN) {
+            return reader.nextBoolean();
+        }
+        return nextString(reader).equalsIgnoreCase("true");
+    }
+
+    /*
+     * same as JSONObject.optLong() - numeric strings are converted, anything else is zero
+     */
+    public static long nextLong(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            reader.skipValue();
+            return 0;
+        }
+        String value = reader.nextString();
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            try {
+                return (long) Double.parseDouble(value);
+            } catch (NumberFormatException e2) {
+                return 0;
+            }
+        }
+    }
+
+    /*
+     * same as JSONObject.optInt()
+     */
+    public static int nextInt(JsonReader reader) throws IOException {
+        return (int) nextLong(reader);
+    }
+
+    /*
+     * same as JSONObject.optDouble() - returns NaN if the value isn't a number
+     */
+    public static double nextDouble(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            reader.skipValue();
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(reader.nextString());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /*
+     * copies the next value to a JSON string without building an intermediate JSONObject
+     */
+    public static String nextJson(JsonReader reader) throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        JsonWriter writer = new JsonWriter(stringWriter);
+        writer.setLenient(true);
+        copyValue(reader, writer);
+        writer.flush();
+        return stringWriter.toString();
+    }
+
+    private static void copyValue(JsonReader reader, JsonWriter writer) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                writer.beginObject();
+                while (reader.hasNext()) {
+                    writer.name(reader.nextName());
+                    copyValue(reader, writer);
+                }
+                reader.endObject();
+                writer.endObject();
+                break;
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                writer.beginArray();
+                while (reader.hasNext()) {
+                    copyValue(reader, writer);
+                }
+                reader.endArray();
+                writer.endArray();
+                break;
+            case STRING:
+                writer.value(reader.nextString());
+                break;
+            case NUMBER:
+                // copy the number as written rather than converting it
+                writer.jsonValue(reader.nextString());
+                break;
+            case BOOLEAN:
+                writer.value(reader.nextBoolean());
+                break;
+            case NULL:
+                reader.nextNull();
+                writer.nullValue();
+                break;
+            default:
+                reader.skipValue();
+                break;
+        }
+    }
+
+    /*
+     * returns true if the passed value from nextJson() is an object or array with no entries
+     */
+    public static boolean isEmptyJson(String json) {
+        return json == null || json.equals("{}") || json.equals("[]");
+    }
+}
@@ -31,6 +31,7 @@ import org.wordpress.passcodelock.AppLockManager;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 public class WPMediaUtils {
 
@@ -52,14 +53,15 @@ public class WPMediaUtils {
             return null;
         }
         
-        int resizeDimension = AppPrefs.getImageOptimizeMaxSize() > 1 ? AppPrefs.getImageOptimizeMaxSize() : Integer.MAX_VALUE;
+        int resizeDimension = getImageOptimizeMaxSize();
         int quality = AppPrefs.getImageOptimizeQuality();
         // do not optimize if original-size and 100% quality are set.
         if (resizeDimension == Integer.MAX_VALUE && quality == 100) {
             return null;
         }
 
-        String optimizedPath = ImageUtils.optimizeImage(activity, path, resizeDimension, quality);
+        String optimizedPath = path != null
+                ? ImageOptimizer.getInstance(activity).optimize(path, resizeDimension, quality).path : null;
         if (optimizedPath == null) {
             AppLog.e(AppLog.T.EDITOR, "Optimized picture was null!");
             AnalyticsTracker.track(AnalyticsTracker.Stat.MEDIA_PHOTO_OPTIMIZE_ERROR);
@@ -70,6 +72,28 @@ public class WPMediaUtils {
         return null;
     }
 
+    /*
+     * optimizes the passed images in parallel ahead of calls to getOptimizedMedia() for each of
+     * them, which then return the already optimized images - must not be called on the main thread
+     */
+    public static void optimizeImages(Context context, List<String> imagePaths) {
+        if (!AppPrefs.isImageOptimize() || imagePaths.size() < 2) {
+            return;
+        }
+
+        int resizeDimension = getImageOptimizeMaxSize();
+        int quality = AppPrefs.getImageOptimizeQuality();
+        if (resizeDimension == Integer.MAX_VALUE && quality == 100) {
+            return;
+        }
+
+        ImageOptimizer.getInstance(context).optimizeAll(imagePaths, resizeDimension, quality);
+    }
+
+    private static int getImageOptimizeMaxSize() {
+        return AppPrefs.getImageOptimizeMaxSize() > 1 ? AppPrefs.getImageOptimizeMaxSize() : Integer.MAX_VALUE;
+    }
+
     public static Uri fixOrientationIssue(Activity activity, String path, boolean isVideo) {
         if (isVideo) {
             return null;
@@ -2,16 +2,23 @@ package org.wordpress.android.widgets;
 
 import android.animation.ObjectAnimator;
 import android.content.Context;
+import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Color;
 import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
 import android.media.ThumbnailUtils;
-import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
 import android.support.annotation.ColorRes;
 import android.support.annotation.DrawableRes;
+import android.support.annotation.NonNull;
 import android.support.v4.content.ContextCompat;
+import android.support.v4.graphics.drawable.RoundedBitmapDrawable;
+import android.support.v4.graphics.drawable.RoundedBitmapDrawableFactory;
 import android.support.v7.widget.AppCompatImageView;
 import android.text.TextUtils;
 import android.util.AttributeSet;
@@ -26,13 +33,24 @@ import org.wordpress.android.WordPress;
 import org.wordpress.android.datasets.ReaderThumbnailTable;
 import org.wordpress.android.ui.reader.utils.ReaderVideoUtils;
 import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.BitmapCacheKey;
 import org.wordpress.android.util.DisplayUtils;
 import org.wordpress.android.util.ImageUtils;
 import org.wordpress.android.util.MediaUtils;
 import org.wordpress.android.util.VolleyUtils;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.concurrent.RejectedExecutionException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * most of the code below is from Volley's NetworkImageView, but it's modified to support:
@@ -67,6 +85,8 @@ public class WPNetworkImageView extends AppCompatImageView {
     private int mCropWidth;
     private int mCropHeight;
 
+    private boolean mShapeOnDraw;
+
     private static final HashSet<String> mUrlSkipList = new HashSet<>();
 
     public WPNetworkImageView(Context context) {
@@ -88,6 +108,7 @@ public class WPNetworkImageView extends AppCompatImageView {
                 if (a.hasValue(R.styleable.wpNetworkImageView_wpErrorImageDrawable)) {
                     mErrorImageResId = a.getResourceId(R.styleable.wpNetworkImageView_wpErrorImageDrawable, 0);
                 }
+                mShapeOnDraw = a.getBoolean(R.styleable.wpNetworkImageView_wpShapeOnDraw, false);
             } finally {
                 a.recycle();
             }
@@ -322,24 +343,39 @@ public class WPNetworkImageView extends AppCompatImageView {
                 setVisibility(View.VISIBLE);
             }
             
+            // shape avatars and rounded photos, using a cached copy when it was already shaped at
+            // this size (ex: the same avatar in the previous row)
+            ShapeType shapeType = getShapeType(mImageType);
+            if (shapeType != null && !mShapeOnDraw) {
+                boolean isCropped = mCropWidth > 0 && mCropHeight > 0;
+                BitmapCacheKey key = getShapedBitmapKey(mUrl, shapeType,
+                        isCropped ? mCropWidth : bitmap.getWidth(),
+                        isCropped ? mCropHeight : bitmap.getHeight());
+                Bitmap shaped = WordPress.getBitmapCache().get(key);
+                if (shaped != null) {
+                    setImageBitmap(shaped);
+                    if (imageLoadListener != null) {
+                        imageLoadListener.onLoaded();
+                    }
+                    return;
+                }
+                if (isCropped) {
+                    bitmap = ThumbnailUtils.extractThumbnail(bitmap, mCropWidth, mCropHeight);
+                }
+                shapeBitmap(key, shapeType, bitmap, 0, imageLoadListener);
+                return;
+            }
+
             // if cropping is requested, do it before further manipulation
             if (mCropWidth > 0 && mCropHeight > 0) {
                 bitmap = ThumbnailUtils.extractThumbnail(bitmap, mCropWidth, mCropHeight);
             }
 
-            try {
-                // Apply circular rounding to avatars in a background task
-                if (mImageType == ImageType.AVATAR) {
-                    new ShapeBitmapTask(ShapeType.CIRCLE, imageLoadListener).executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, bitmap);
-                    return;
-                } else if (mImageType == ImageType.PHOTO_ROUNDED) {
-                    new ShapeBitmapTask(ShapeType.ROUNDED, imageLoadListener).executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, bitmap);
-                    return;
+            if (shapeType != null) {
+                setImageDrawable(createShapedDrawable(bitmap, shapeType));
+                if (imageLoadListener != null) {
+                    imageLoadListener.onLoaded();
                 }
-            } catch (RejectedExecutionException e) {
-                AppLog.w(AppLog.T.UTILS, "Too many tasks already available in the default AsyncTask.THREAD_POOL_EXECUTOR queue. " +
-                        "The current ShapeBitmapTask was rejected");
-                showDefaultImage();
                 return;
             }
 
@@ -474,14 +510,27 @@ public class WPNetworkImageView extends AppCompatImageView {
 
     private void showDefaultGravatarImage() {
         if (getContext() == null) return;
-        try {
-            new ShapeBitmapTask(ShapeType.CIRCLE, null).executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, BitmapFactory.decodeResource(
-                    getContext().getResources(),
-                    R.drawable.ic_placeholder_gravatar_grey_lighten_20_100dp
-            ));
-        } catch (RejectedExecutionException e) {
-            AppLog.w(AppLog.T.UTILS, "Too many tasks already available in the default AsyncTask.THREAD_POOL_EXECUTOR queue. " +
-                    "The current DefaultGravatarImage was rejected");
+        @DrawableRes int resId = R.drawable.ic_placeholder_gravatar_grey_lighten_20_100dp;
+        String resUrl = "android.resource://" + getContext().getPackageName() + "/" + resId;
+        if (mShapeOnDraw) {
+            BitmapCacheKey key = new BitmapCacheKey(resUrl, 0, 0);
+            Bitmap bitmap = WordPress.getBitmapCache().get(key);
+            if (bitmap == null) {
+                bitmap = BitmapFactory.decodeResource(getContext().getResources(), resId);
+                WordPress.getBitmapCache().put(key, bitmap);
+            }
+            if (bitmap != null) {
+                setImageDrawable(createShapedDrawable(bitmap, ShapeType.CIRCLE));
+            }
+            return;
+        }
+
+        BitmapCacheKey key = getShapedBitmapKey(resUrl, ShapeType.CIRCLE, 0, 0);
+        Bitmap shaped = WordPress.getBitmapCache().get(key);
+        if (shaped != null) {
+            setImageBitmap(shaped);
+        } else {
+            shapeBitmap(key, ShapeType.CIRCLE, null, resId, null);
         }
     }
 
@@ -509,50 +558,251 @@ public class WPNetworkImageView extends AppCompatImageView {
         alpha.start();
     }
 
-    // Circularizes or rounds the corners of a bitmap in a background thread
+    // Circularizes or rounds the corners of a bitmap
     private enum ShapeType { CIRCLE, ROUNDED }
-    private class ShapeBitmapTask extends AsyncTask<Bitmap, Void, Bitmap> {
+    private static final int ROUNDED_CORNER_RADIUS_DP = 2;
+
+    private static ShapeType getShapeType(ImageType imageType) {
+        switch (imageType) {
+            case AVATAR:
+                return ShapeType.CIRCLE;
+            case PHOTO_ROUNDED:
+                return ShapeType.ROUNDED;
+            default:
+                return null;
+        }
+    }
+
+    /*
+     * shaped bitmaps are cached with the image they were shaped from, so they're invalidated
+     * along with it (ex: when the user changes their avatar)
+     */
+    private static BitmapCacheKey getShapedBitmapKey(String url, ShapeType shapeType, int width, int height) {
+        return new BitmapCacheKey(url, width, height, shapeType.name().toLowerCase(Locale.ROOT));
+    }
+
+    /*
+     * applies the shape when the bitmap is drawn rather than allocating a shaped copy
+     */
+    private Drawable createShapedDrawable(Bitmap bitmap, ShapeType shapeType) {
+        RoundedBitmapDrawable drawable = RoundedBitmapDrawableFactory.create(getResources(), bitmap);
+        if (shapeType == ShapeType.CIRCLE) {
+            drawable.setCircular(true);
+        } else {
+            drawable.setCornerRadius(DisplayUtils.dpToPx(getContext(), ROUNDED_CORNER_RADIUS_DP));
+        }
+        return drawable;
+    }
+
+    /*
+     * when true, avatars and rounded photos are shaped as they're drawn instead of being copied
+     * into a shaped bitmap - this avoids allocating (and caching) the copy, at the cost of a
+     * little more work each time the view is drawn
+     */
+    public void setShapeOnDraw(boolean shapeOnDraw) {
+        mShapeOnDraw = shapeOnDraw;
+    }
+
+    /*
+     * bitmaps are shaped on a small dedicated pool rather than AsyncTask.THREAD_POOL_EXECUTOR,
+     * which is shared with the rest of the app and used to reject shapes when its queue was full.
+     * when too many shapes are waiting the oldest is dropped, since its view has most likely been
+     * recycled, and views which need the same shape wait for the same task
+     */
+    private static final int SHAPE_THREADS = 2;
+    private static final int SHAPE_QUEUE_SIZE = 32;
+    private static final long SHAPE_THREAD_KEEP_ALIVE_SECONDS = 30;
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    // shapes which are waiting or running, only accessed on the main thread
+    private static final HashMap<BitmapCacheKey, ShapeBitmapTask> SHAPE_TASKS = new HashMap<>();
+
+    private static final ThreadPoolExecutor SHAPE_EXECUTOR = new ThreadPoolExecutor(
+            SHAPE_THREADS,
+            SHAPE_THREADS,
+            SHAPE_THREAD_KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(SHAPE_QUEUE_SIZE),
+            new ThreadFactory() {
+                private final AtomicInteger mCount = new AtomicInteger();
+                @Override
+                public Thread newThread(@NonNull final Runnable runnable) {
+                    return new Thread("WPNetworkImageView-shape-" + mCount.incrementAndGet()) {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    };
+                }
+            },
+            new RejectedExecutionHandler() {
+                @Override
+                public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+                    if (executor.isShutdown()) {
+                        return;
+                    }
+                    Runnable oldest = executor.getQueue().poll();
+                    if (oldest instanceof ShapeBitmapTask) {
+                        ((ShapeBitmapTask) oldest).onDropped();
+                    }
+                    executor.execute(runnable);
+                }
+            });
+
+    static {
+        SHAPE_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    /*
+     * shapes the passed bitmap (or drawable resource when the bitmap is null) in the background,
+     * caches it and shows it if this view is still showing the same image
+     */
+    private void shapeBitmap(BitmapCacheKey key,
+                             ShapeType shapeType,
+                             Bitmap source,
+                             @DrawableRes int sourceResId,
+                             ImageLoadListener imageLoadListener) {
+        ShapeBitmapTask task = SHAPE_TASKS.get(key);
+        boolean isNewTask = task == null;
+        if (isNewTask) {
+            int radiusPx = shapeType == ShapeType.ROUNDED
+                    ? DisplayUtils.dpToPx(getContext(), ROUNDED_CORNER_RADIUS_DP) : 0;
+            task = new ShapeBitmapTask(key, shapeType, radiusPx, source, getResources(), sourceResId);
+            SHAPE_TASKS.put(key, task);
+        }
+        task.mRequests.add(new ShapeRequest(this, imageLoadListener));
+        if (isNewTask) {
+            SHAPE_EXECUTOR.execute(task);
+        }
+    }
+
+    /*
+     * a view waiting for a shaped bitmap, which is only shown if the view is still showing the
+     * image it was requested for
+     */
+    private static class ShapeRequest {
+        private final WeakReference<WPNetworkImageView> mWeakView;
+        private final String mUrl;
+        private final ImageType mImageType;
         private final ImageLoadListener mImageLoadListener;
-        private final ShapeType mShapeType;
-        private int mRoundedCornerRadiusPx;
-        private static final int ROUNDED_CORNER_RADIUS_DP = 2;
 
-        public ShapeBitmapTask(ShapeType shapeType, ImageLoadListener imageLoadListener) {
+        ShapeRequest(WPNetworkImageView view, ImageLoadListener imageLoadListener) {
+            mWeakView = new WeakReference<>(view);
+            mUrl = view.mUrl;
+            mImageType = view.mImageType;
             mImageLoadListener = imageLoadListener;
+        }
+
+        void onShaped(Bitmap bitmap) {
+            WPNetworkImageView view = mWeakView.get();
+            if (!isViewShowingRequest(view)) {
+                return;
+            }
+            if (bitmap != null) {
+                view.setImageBitmap(bitmap);
+                if (mImageLoadListener != null) {
+                    mImageLoadListener.onLoaded();
+                    view.fadeIn();
+                }
+            } else if (mImageLoadListener != null) {
+                mImageLoadListener.onError();
+            }
+        }
+
+        /*
+         * the shape was dropped before it ran, so show the default image rather than leaving the
+         * view waiting for a bitmap which will never arrive
+         */
+        void onDropped() {
+            WPNetworkImageView view = mWeakView.get();
+            if (!isViewShowingRequest(view)) {
+                return;
+            }
+            view.showDefaultImage();
+            if (mImageLoadListener != null) {
+                mImageLoadListener.onError();
+            }
+        }
+
+        private boolean isViewShowingRequest(WPNetworkImageView view) {
+            return view != null && view.mImageType == mImageType && TextUtils.equals(view.mUrl, mUrl);
+        }
+    }
+
+    private static class ShapeBitmapTask implements Runnable {
+        private final BitmapCacheKey mKey;
+        private final ShapeType mShapeType;
+        private final int mRoundedCornerRadiusPx;
+        private final Bitmap mSource;
+        private final Resources mResources;
+        private final int mSourceResId;
+        private final List<ShapeRequest> mRequests = new ArrayList<>();
+
+        ShapeBitmapTask(BitmapCacheKey key,
+                        ShapeType shapeType,
+                        int roundedCornerRadiusPx,
+                        Bitmap source,
+                        Resources resources,
+                        @DrawableRes int sourceResId) {
+            mKey = key;
             mShapeType = shapeType;
-            if (mShapeType == ShapeType.ROUNDED) {
-                mRoundedCornerRadiusPx = DisplayUtils.dpToPx(getContext(), ROUNDED_CORNER_RADIUS_DP);
+            mRoundedCornerRadiusPx = roundedCornerRadiusPx;
+            mSource = source;
+            mResources = resources;
+            mSourceResId = sourceResId;
+        }
+
+        /*
+         * called when the task is dropped from the queue, which happens on the main thread since
+         * that's where shapes are queued - the task is forgotten right away so later views start
+         * a new one, and its requests are notified once the current frame is done
+         */
+        void onDropped() {
+            if (SHAPE_TASKS.get(mKey) == this) {
+                SHAPE_TASKS.remove(mKey);
             }
+            MAIN_HANDLER.post(new Runnable() {
+                @Override
+                public void run() {
+                    for (ShapeRequest request : mRequests) {
+                        request.onDropped();
+                    }
+                }
+            });
         }
 
         @Override
-        protected Bitmap doInBackground(Bitmap... params) {
-            if (params == null || params.length == 0) return null;
-
-            Bitmap bitmap = params[0];
+        public void run() {
+            Bitmap source = mSource != null ? mSource : BitmapFactory.decodeResource(mResources, mSourceResId);
+            final Bitmap shaped;
             switch (mShapeType) {
                 case CIRCLE:
-                    return ImageUtils.getCircularBitmap(bitmap);
+                    shaped = ImageUtils.getCircularBitmap(source);
+                    break;
                 case ROUNDED:
-                    return ImageUtils.getRoundedEdgeBitmap(bitmap, mRoundedCornerRadiusPx, Color.TRANSPARENT);
+                    shaped = ImageUtils.getRoundedEdgeBitmap(source, mRoundedCornerRadiusPx, Color.TRANSPARENT);
+                    break;
                 default:
-                    return bitmap;
+                    shaped = source;
+                    break;
+            }
+            if (shaped != null) {
+                WordPress.getBitmapCache().put(mKey, shaped);
             }
-        }
 
-        @Override
-        protected void onPostExecute(Bitmap bitmap) {
-            if (bitmap != null) {
-                setImageBitmap(bitmap);
-                if (mImageLoadListener != null) {
-                    mImageLoadListener.onLoaded();
-                    fadeIn();
-                }
-            } else {
-                if (mImageLoadListener != null) {
-                    mImageLoadListener.onError();
+            MAIN_HANDLER.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (SHAPE_TASKS.get(mKey) == ShapeBitmapTask.this) {
+                        SHAPE_TASKS.remove(mKey);
+                    }
+                    for (ShapeRequest request : mRequests) {
+                        request.onShaped(shaped);
+                    }
                 }
-            }
+            });
         }
     }
 }
@@ -0,0 +1,74 @@
+package org.wordpress.android.datasets;
+
+import android.os.Build;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.datasets.ReaderBlogTable.FollowedIndex;
+import org.wordpress.android.datasets.ReaderBlogTable.FollowedRow;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class ReaderBlogFollowedIndexTest {
+    @Test
+    public void testPutAndRemove() {
+        FollowedIndex index = new FollowedIndex();
+        assertTrue(index.isEmpty());
+
+        index.put(new FollowedRow(1, 0, "http://blog.example.com", null));
+        index.put(new FollowedRow(2, 2, "http://feed.example.com", "http://feed.example.com/feed"));
+        assertTrue(index.mRows.containsKey(1L));
+        assertTrue(index.mFeedIds.containsKey(2L));
+        assertTrue(index.mFeedUrls.containsKey("http://feed.example.com/feed"));
+
+        index.remove(2);
+        assertFalse(index.mRows.containsKey(2L));
+        assertFalse(index.mFeedIds.containsKey(2L));
+        assertFalse(index.mFeedUrls.containsKey("http://feed.example.com/feed"));
+        assertTrue(index.mRows.containsKey(1L));
+    }
+
+    @Test
+    public void testBlogUrlsIgnoreCase() {
+        // blog_url is COLLATE NOCASE
+        FollowedIndex index = new FollowedIndex();
+        index.put(new FollowedRow(1, 0, "http://Blog.Example.com", null));
+        assertTrue(index.mBlogUrls.containsKey(FollowedIndex.getBlogUrlKey("http://blog.example.com")));
+    }
+
+    @Test
+    public void testSharedValuesAreCounted() {
+        FollowedIndex index = new FollowedIndex();
+        index.put(new FollowedRow(1, 5, "http://example.com", null));
+        index.put(new FollowedRow(2, 5, "http://example.com", null));
+
+        // the url and feed are still followed through the other row
+        index.remove(1);
+        assertTrue(index.mFeedIds.containsKey(5L));
+        assertTrue(index.mBlogUrls.containsKey("http://example.com"));
+
+        index.remove(2);
+        assertFalse(index.mFeedIds.containsKey(5L));
+        assertFalse(index.mBlogUrls.containsKey("http://example.com"));
+    }
+
+    @Test
+    public void testPutReplacesRow() {
+        // putting a row which is already indexed (ex: after the index was reloaded) doesn't
+        // count its values twice
+        FollowedIndex index = new FollowedIndex();
+        index.put(new FollowedRow(1, 0, "http://old.example.com", null));
+        index.put(new FollowedRow(1, 0, "http://new.example.com", null));
+        assertFalse(index.mBlogUrls.containsKey("http://old.example.com"));
+
+        index.remove(1);
+        assertTrue(index.isEmpty());
+        assertFalse(index.mBlogUrls.containsKey("http://new.example.com"));
+    }
+}
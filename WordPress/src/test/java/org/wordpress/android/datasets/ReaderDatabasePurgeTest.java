@@ -0,0 +1,98 @@
+package org.wordpress.android.datasets;
+
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.models.ReaderTag;
+import org.wordpress.android.ui.reader.ReaderConstants;
+import org.wordpress.android.util.SqlUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class ReaderDatabasePurgeTest {
+    private static final int NUM_POSTS = 1000;
+    private static final int MAX_POSTS = ReaderConstants.READER_MAX_POSTS_TO_DISPLAY;
+
+    private SQLiteDatabase mDb;
+
+    @Before
+    public void init() {
+        mDb = ReaderTestData.createDatabase();
+        ReaderTagTable.createTables(mDb);
+        ReaderCommentTable.createTables(mDb);
+        ReaderLikeTable.createTables(mDb);
+        ReaderThumbnailTable.createTables(mDb);
+
+        ReaderTag tag = ReaderTestData.createTag("purge");
+        ContentValues values = new ContentValues();
+        values.put("tag_slug", tag.getTagSlug());
+        values.put("tag_type", tag.tagType.toInt());
+        values.put("endpoint", "");
+        mDb.insert("tbl_tags", null, values);
+
+        ReaderPostTable.addOrUpdatePosts(mDb, tag, ReaderTestData.createPosts(1, 1, NUM_POSTS, 256));
+    }
+
+    @After
+    public void teardown() {
+        mDb.close();
+    }
+
+    @Test
+    public void testPurgeInChunks() {
+        ReaderDatabasePurge purge = new ReaderDatabasePurge(mDb, Long.MAX_VALUE);
+        int numSlices = 0;
+        while (purge.runSlice(Long.MAX_VALUE)) {
+            numSlices++;
+        }
+
+        ReaderDatabasePurge.Stats stats = purge.getStats();
+        assertEquals(0, numSlices);
+        assertTrue(stats.isComplete());
+        assertEquals(MAX_POSTS, countRows("tbl_posts"));
+        assertEquals(MAX_POSTS, countRows("tbl_post_text"));
+
+        // excess posts and their text
+        int numExcess = NUM_POSTS - MAX_POSTS;
+        assertEquals(numExcess * 2, stats.getNumRowsDeleted());
+        assertTrue(stats.getNumChunks() > 2);
+    }
+
+    @Test
+    public void testPurgeStopsWhenOutOfTime() {
+        ReaderDatabasePurge purge = new ReaderDatabasePurge(mDb, 0);
+        assertFalse(purge.runSlice(Long.MAX_VALUE));
+        assertFalse(purge.getStats().isComplete());
+        assertEquals(NUM_POSTS, countRows("tbl_posts"));
+    }
+
+    @Test
+    public void testPurgeResumesAfterSlice() {
+        ReaderDatabasePurge purge = new ReaderDatabasePurge(mDb, Long.MAX_VALUE);
+        // a zero slice budget means each call returns before deleting anything
+        assertTrue(purge.runSlice(0));
+        assertEquals(NUM_POSTS, countRows("tbl_posts"));
+
+        while (purge.runSlice(Long.MAX_VALUE)) {
+            // keep going
+        }
+        assertTrue(purge.getStats().isComplete());
+        assertEquals(MAX_POSTS, countRows("tbl_posts"));
+    }
+
+    private int countRows(String table) {
+        return SqlUtils.intForQuery(mDb, "SELECT count(*) FROM " + table, null);
+    }
+}
@@ -0,0 +1,117 @@
+package org.wordpress.android.datasets;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderPostList;
+import org.wordpress.android.util.SqlUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * compares hydrating posts with column indexes resolved once per cursor against resolving
+ * them for every row
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class ReaderPostCursorBenchmarkTest {
+    private static final int NUM_POSTS = 5000;
+    private static final int NUM_ITERATIONS = 5;
+
+    private SQLiteDatabase mDb;
+
+    @Before
+    public void init() {
+        mDb = ReaderTestData.createDatabase();
+        ReaderPostTable.addOrUpdatePosts(mDb, ReaderTestData.createTag("benchmark"),
+                ReaderTestData.createPosts(1, 1, NUM_POSTS, 512));
+    }
+
+    @After
+    public void teardown() {
+        mDb.close();
+    }
+
+    @Test
+    public void testCachedIndexesMatchPerRowIndexes() {
+        ReaderPostList cached = hydrateCached("*");
+        ReaderPostList perRow = hydratePerRow("*");
+        assertEquals(NUM_POSTS, cached.size());
+        assertTrue(cached.isSameList(perRow));
+        assertTrue(cached.get(0).getText().length() >= 512);
+
+        ReaderPostList noText = hydrateCached(ReaderPostTable.COLUMN_NAMES_NO_TEXT);
+        assertEquals(NUM_POSTS, noText.size());
+        assertEquals("", noText.get(0).getText());
+        assertEquals(perRow.get(0).getTitle(), noText.get(0).getTitle());
+    }
+
+    @Ignore("benchmark - timings vary with the machine, so run manually when changing getPostListFromCursor()")
+    @Test
+    public void benchmarkHydration() {
+        benchmark(ReaderPostTable.COLUMN_NAMES_NO_TEXT);
+        benchmark("*");
+    }
+
+    private void benchmark(String columns) {
+        // warm up
+        hydrateCached(columns);
+        hydratePerRow(columns);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_ITERATIONS; i++) {
+            hydratePerRow(columns);
+        }
+        long perRowNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < NUM_ITERATIONS; i++) {
+            hydrateCached(columns);
+        }
+        long cachedNanos = System.nanoTime() - start;
+
+        assertTrue(cachedNanos < perRowNanos);
+    }
+
+    private Cursor query(String columns) {
+        return mDb.rawQuery("SELECT " + columns + " FROM tbl_posts LEFT JOIN tbl_post_text USING (pseudo_id)"
+                + " ORDER BY date_published DESC", null);
+    }
+
+    private ReaderPostList hydrateCached(String columns) {
+        Cursor c = query(columns);
+        try {
+            return ReaderPostTable.getPostListFromCursor(c);
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    /*
+     * the previous approach - column indexes are looked up again for every row
+     */
+    private ReaderPostList hydratePerRow(String columns) {
+        ReaderPostList posts = new ReaderPostList();
+        Cursor c = query(columns);
+        try {
+            while (c.moveToNext()) {
+                ReaderPost post = ReaderPostTable.getPostFromCursor(c);
+                posts.add(post);
+            }
+            return posts;
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+}
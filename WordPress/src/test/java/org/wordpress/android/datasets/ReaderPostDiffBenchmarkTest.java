@@ -0,0 +1,168 @@
+package org.wordpress.android.datasets;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderPostList;
+import org.wordpress.android.models.ReaderTag;
+import org.wordpress.android.ui.reader.actions.ReaderActions.UpdateResult;
+import org.wordpress.android.ui.reader.models.ReaderPostDiff;
+import org.wordpress.android.ui.reader.models.ReaderPostDiff.PostState;
+import org.wordpress.android.util.SqlUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * compares the batched ReaderPostTable.diffPosts() with the previous approach of querying
+ * each post separately
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class ReaderPostDiffBenchmarkTest {
+    private static final int NUM_LOCAL_POSTS = 2000;
+    private static final int PAGE_SIZE = 40;
+    private static final int NUM_ITERATIONS = 200;
+    private static final long BLOG_ID = 1234;
+
+    private SQLiteDatabase mDb;
+    private ReaderTag mTag;
+
+    @Before
+    public void init() {
+        mDb = ReaderTestData.createDatabase();
+        mTag = ReaderTestData.createTag("benchmark");
+        ReaderPostTable.addOrUpdatePosts(mDb, mTag,
+                ReaderTestData.createPosts(BLOG_ID, 1, NUM_LOCAL_POSTS, 2048));
+    }
+
+    @After
+    public void teardown() {
+        mDb.close();
+    }
+
+    /*
+     * server page with the last 20 local posts (the first five of which have changed) and 20 new posts
+     */
+    private ReaderPostList createServerPage() {
+        ReaderPostList posts = ReaderTestData.createPosts(BLOG_ID, NUM_LOCAL_POSTS - 19, PAGE_SIZE, 2048);
+        for (int i = 0; i < 5; i++) {
+            posts.get(i).numLikes++;
+        }
+        return posts;
+    }
+
+    @Test
+    public void testDiffStates() {
+        ReaderPostList serverPosts = createServerPage();
+        ReaderPostDiff diff = ReaderPostTable.diffPosts(mDb, mTag, serverPosts);
+
+        assertEquals(PAGE_SIZE, diff.size());
+        assertEquals(20, diff.getNumNew());
+        assertEquals(5, diff.getNumChanged());
+        assertTrue(diff.hasOverlap());
+        assertEquals(UpdateResult.HAS_NEW, diff.getUpdateResult());
+
+        for (ReaderPost post : serverPosts) {
+            assertEquals(comparePostPerRow(post), diff.getState(post));
+        }
+    }
+
+    @Test
+    public void testDiffUnchangedAndNoOverlap() {
+        ReaderPostList unchanged = ReaderTestData.createPosts(BLOG_ID, 1, PAGE_SIZE, 2048);
+        ReaderPostDiff diff = ReaderPostTable.diffPosts(mDb, mTag, unchanged);
+        assertEquals(UpdateResult.UNCHANGED, diff.getUpdateResult());
+        assertTrue(diff.hasOverlap());
+
+        // same post ids in a different blog should all be new
+        ReaderPostList otherBlog = ReaderTestData.createPosts(BLOG_ID + 1, 1, PAGE_SIZE, 2048);
+        diff = ReaderPostTable.diffPosts(mDb, mTag, otherBlog);
+        assertEquals(PAGE_SIZE, diff.getNumNew());
+        assertFalse(diff.hasOverlap());
+    }
+
+    @Test
+    public void testStreamFieldsDontAffectDiff() {
+        // the same posts in another stream with a different score
+        ReaderTag otherTag = ReaderTestData.createTag("other");
+        ReaderPostList otherPosts = ReaderTestData.createPosts(BLOG_ID, 1, PAGE_SIZE, 2048);
+        for (ReaderPost post : otherPosts) {
+            post.score = 5;
+        }
+        ReaderPostTable.addOrUpdatePosts(mDb, otherTag, otherPosts);
+
+        ReaderPostList unchanged = ReaderTestData.createPosts(BLOG_ID, 1, PAGE_SIZE, 2048);
+        assertEquals(UpdateResult.UNCHANGED, ReaderPostTable.diffPosts(mDb, mTag, unchanged).getUpdateResult());
+        assertEquals(UpdateResult.UNCHANGED, ReaderPostTable.diffPosts(mDb, otherTag, unchanged).getUpdateResult());
+    }
+
+    @Ignore("benchmark - timings vary with the machine, so run manually when changing diffPosts()")
+    @Test
+    public void benchmarkDiffVersusPerRow() {
+        ReaderPostList serverPosts = createServerPage();
+
+        // warm up both paths
+        for (int i = 0; i < 10; i++) {
+            ReaderPostTable.diffPosts(mDb, mTag, serverPosts);
+            comparePostsPerRow(serverPosts);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_ITERATIONS; i++) {
+            comparePostsPerRow(serverPosts);
+        }
+        long perRowNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < NUM_ITERATIONS; i++) {
+            ReaderPostTable.diffPosts(mDb, mTag, serverPosts);
+        }
+        long batchedNanos = System.nanoTime() - start;
+
+        assertTrue(batchedNanos < perRowNanos);
+    }
+
+    /*
+     * the previous comparePosts()/hasOverlap() approach - one existence query plus one post
+     * query for every server post
+     */
+    private void comparePostsPerRow(ReaderPostList posts) {
+        for (ReaderPost post : posts) {
+            SqlUtils.boolForQuery(mDb, "SELECT 1 FROM tbl_posts WHERE blog_id=? AND post_id=?",
+                    new String[]{Long.toString(post.blogId), Long.toString(post.postId)});
+            comparePostPerRow(post);
+        }
+    }
+
+    private PostState comparePostPerRow(ReaderPost post) {
+        String[] args = {Long.toString(post.blogId), Long.toString(post.postId)};
+        Cursor c = mDb.rawQuery("SELECT num_likes, num_replies, title, excerpt, text, text_compressed"
+                + " FROM tbl_posts LEFT JOIN tbl_post_text USING (pseudo_id)"
+                + " WHERE blog_id=? AND post_id=? LIMIT 1", args);
+        try {
+            if (!c.moveToFirst()) {
+                return PostState.NEW;
+            }
+            boolean isSame = post.numLikes == c.getInt(0)
+                    && post.numReplies == c.getInt(1)
+                    && post.getTitle().equals(c.getString(2))
+                    && post.getExcerpt().equals(c.getString(3))
+                    && post.getText().equals(ReaderPostTable.getTextFromCursor(c, 4, 5));
+            return isSame ? PostState.UNCHANGED : PostState.CHANGED;
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.wordpress.android.datasets;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import org.junit.After;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderPostList;
+import org.wordpress.android.util.SqlUtils;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * compares storing post text inline in tbl_posts (db version 134 and earlier) with storing it
+ * in tbl_post_text, both uncompressed and compressed
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class ReaderPostTextStorageBenchmarkTest {
+    private static final int NUM_POSTS = 2000;
+    private static final int TEXT_LENGTH = 8192;
+    private static final int PAGE_SIZE = 20;
+    private static final int NUM_ITERATIONS = 20;
+
+    @After
+    public void teardown() {
+        ReaderPostTable.sCompressText = true;
+    }
+
+    @Test
+    public void testMigrationPreservesText() {
+        SQLiteDatabase db = ReaderTestData.createDatabase();
+        try {
+            ReaderPostList posts = ReaderTestData.createPosts(1, 1, 100, TEXT_LENGTH);
+            seed(db, posts, false);
+            convertToLegacySchema(db);
+
+            // same steps as ReaderDatabase.onUpgrade() from version 133
+            ReaderPostTable.addFingerprintColumn(db);
+            ReaderPostTable.moveTextToTextTable(db);
+
+            assertEquals(posts.size(), SqlUtils.intForQuery(db, "SELECT COUNT(*) FROM tbl_posts", null));
+            assertEquals(posts.size(), SqlUtils.intForQuery(db, "SELECT COUNT(*) FROM tbl_post_text", null));
+            for (ReaderPost post : posts) {
+                assertEquals(post.getText(), getText(db, post));
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test
+    public void testCompressedTextRoundTrip() {
+        SQLiteDatabase db = ReaderTestData.createDatabase();
+        try {
+            ReaderPostList posts = ReaderTestData.createPosts(1, 1, 10, TEXT_LENGTH);
+            seed(db, posts, true);
+            assertEquals(posts.size(), SqlUtils.intForQuery(db,
+                    "SELECT COUNT(*) FROM tbl_post_text WHERE text_compressed IS NOT NULL", null));
+            for (ReaderPost post : posts) {
+                assertEquals(post.getText(), getText(db, post));
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    private static class StorageResult {
+        long dbSize;
+        long listNanos;
+    }
+
+    @Ignore("benchmark - timings vary with the machine, so run manually when changing how post text is stored")
+    @Test
+    public void benchmarkStorage() throws IOException {
+        ReaderPostList posts = ReaderTestData.createPosts(1, 1, NUM_POSTS, TEXT_LENGTH);
+        StorageResult inline = benchmark(posts, false, true);
+        StorageResult separate = benchmark(posts, false, false);
+        StorageResult compressed = benchmark(posts, true, false);
+
+        // lists no longer read the text, and compression shrinks the db
+        assertTrue(separate.listNanos < inline.listNanos);
+        assertTrue(compressed.dbSize < separate.dbSize);
+    }
+
+    private StorageResult benchmark(ReaderPostList posts, boolean compress, boolean legacy) throws IOException {
+        File file = File.createTempFile("reader-benchmark", ".db");
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(file, null);
+        try {
+            ReaderPostTable.createTables(db);
+            seed(db, posts, compress);
+            if (legacy) {
+                convertToLegacySchema(db);
+            }
+            db.execSQL("VACUUM");
+
+            // warm up
+            queryPages(db);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < NUM_ITERATIONS; i++) {
+                queryPages(db);
+            }
+            StorageResult result = new StorageResult();
+            result.listNanos = System.nanoTime() - start;
+            result.dbSize = file.length();
+            return result;
+        } finally {
+            db.close();
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    private static void seed(SQLiteDatabase db, ReaderPostList posts, boolean compress) {
+        ReaderPostTable.sCompressText = compress;
+        ReaderPostTable.addOrUpdatePosts(db, ReaderTestData.createTag("benchmark"), posts);
+    }
+
+    /*
+     * pages through every post the way the post list does, skipping the text
+     */
+    private static void queryPages(SQLiteDatabase db) {
+        for (int offset = 0; offset < NUM_POSTS; offset += PAGE_SIZE) {
+            Cursor c = db.rawQuery("SELECT " + ReaderPostTable.COLUMN_NAMES_NO_TEXT + " FROM tbl_posts"
+                    + " ORDER BY date_published DESC LIMIT " + PAGE_SIZE + " OFFSET " + offset, null);
+            try {
+                ReaderPostTable.getPostListFromCursor(c);
+            } finally {
+                SqlUtils.closeCursor(c);
+            }
+        }
+    }
+
+    private static String getText(SQLiteDatabase db, ReaderPost post) {
+        Cursor c = db.rawQuery("SELECT text, text_compressed FROM tbl_post_text WHERE pseudo_id=?",
+                new String[]{post.getPseudoId()});
+        try {
+            c.moveToFirst();
+            return ReaderPostTable.getTextFromCursor(c, 0, 1);
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    /*
+     * recreates tbl_posts the way it was stored in db version 133, with the text inline after the
+     * title and without the fingerprint - requires the text to have been stored uncompressed
+     */
+    private static void convertToLegacySchema(SQLiteDatabase db) {
+        String columns = ReaderPostTable.COLUMN_NAMES_NO_TEXT.replace("title,", "title,text,");
+        db.execSQL("ALTER TABLE tbl_posts RENAME TO tbl_posts_without_text");
+        db.execSQL("CREATE TABLE tbl_posts AS SELECT " + columns
+                + " FROM tbl_posts_without_text LEFT JOIN tbl_post_text USING (pseudo_id)");
+        db.execSQL("DROP TABLE tbl_posts_without_text");
+        db.execSQL("DROP TABLE tbl_post_text");
+        db.execSQL("CREATE INDEX idx_posts_date_published ON tbl_posts(date_published)");
+        db.execSQL("CREATE INDEX idx_posts_pseudo_id ON tbl_posts(pseudo_id)");
+    }
+}
@@ -0,0 +1,114 @@
+package org.wordpress.android.datasets;
+
+import android.os.Build;
+import android.support.annotation.NonNull;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class ReaderSyncExecutorTest {
+    private static final long TIMEOUT_SECONDS = 5;
+
+    @Test
+    public void testWritesAreSerializedInOrder() throws InterruptedException {
+        ReaderSyncExecutor executor = new ReaderSyncExecutor();
+        final List<Integer> order = new CopyOnWriteArrayList<>();
+        final AtomicInteger numRunning = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(20);
+
+        for (int i = 0; i < 20; i++) {
+            final int index = i;
+            executor.executeWrite("write " + i, new Runnable() {
+                @Override
+                public void run() {
+                    maxRunning.set(Math.max(maxRunning.get(), numRunning.incrementAndGet()));
+                    order.add(index);
+                    numRunning.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, maxRunning.get());
+        for (int i = 0; i < order.size(); i++) {
+            assertEquals(i, (int) order.get(i));
+        }
+    }
+
+    @Test
+    public void testPendingWriteWithSameKeyIsCoalesced() throws InterruptedException {
+        ReaderSyncExecutor executor = new ReaderSyncExecutor();
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        final List<String> ran = Collections.synchronizedList(new ArrayList<String>());
+        final AtomicInteger numCoalesced = new AtomicInteger();
+        final List<Runnable> replacements = new CopyOnWriteArrayList<>();
+
+        // block the writer lane so the keyed writes below are still pending
+        executor.executeWrite("blocker", new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blocker.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        executor.executeWrite("first", "key", new ReaderSyncExecutor.SyncTask() {
+            @Override
+            public void run() {
+                ran.add("first");
+            }
+
+            @Override
+            public void onCoalesced(@NonNull Runnable replacement) {
+                numCoalesced.incrementAndGet();
+                replacements.add(replacement);
+            }
+        });
+        Runnable second = new Runnable() {
+            @Override
+            public void run() {
+                ran.add("second");
+            }
+        };
+        executor.executeWrite("second", "key", second);
+        executor.executeWrite("other", "other key", new Runnable() {
+            @Override
+            public void run() {
+                ran.add("other");
+                done.countDown();
+            }
+        });
+
+        blocker.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertEquals(1, numCoalesced.get());
+        assertSame(second, replacements.get(0));
+        assertEquals(2, ran.size());
+        assertEquals("second", ran.get(0));
+        assertEquals("other", ran.get(1));
+    }
+}
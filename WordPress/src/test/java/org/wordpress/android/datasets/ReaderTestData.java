@@ -0,0 +1,66 @@
+package org.wordpress.android.datasets;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderPostList;
+import org.wordpress.android.models.ReaderTag;
+import org.wordpress.android.models.ReaderTagType;
+
+import java.util.Locale;
+
+/**
+ * helpers for creating an in-memory reader database seeded with synthetic posts
+ */
+class ReaderTestData {
+    private ReaderTestData() {
+        throw new AssertionError();
+    }
+
+    static SQLiteDatabase createDatabase() {
+        SQLiteDatabase db = SQLiteDatabase.create(null);
+        ReaderPostTable.createTables(db);
+        return db;
+    }
+
+    static ReaderTag createTag(String slug) {
+        return new ReaderTag(slug, slug, slug, null, ReaderTagType.FOLLOWED);
+    }
+
+    static ReaderPost createPost(long blogId, long postId, int textLength) {
+        ReaderPost post = new ReaderPost();
+        post.blogId = blogId;
+        post.postId = postId;
+        post.setPseudoId(String.format(Locale.US, "pseudo-%d-%d", blogId, postId));
+        post.setTitle("Title of post " + postId);
+        post.setExcerpt("Excerpt of post " + postId + " in blog " + blogId);
+        post.setText(createText(postId, textLength));
+        post.setAuthorName("Author " + blogId);
+        post.setBlogName("Blog " + blogId);
+        post.setBlogUrl("http://blog" + blogId + ".example.com");
+        post.setUrl("http://blog" + blogId + ".example.com/" + postId);
+        post.setDatePublished(String.format(Locale.US, "2017-01-01T00:%02d:%02d+00:00",
+                (postId / 60) % 60, postId % 60));
+        post.numLikes = (int) (postId % 17);
+        post.numReplies = (int) (postId % 5);
+        post.isCommentsOpen = true;
+        return post;
+    }
+
+    static ReaderPostList createPosts(long blogId, int firstPostId, int numPosts, int textLength) {
+        ReaderPostList posts = new ReaderPostList();
+        for (int i = 0; i < numPosts; i++) {
+            posts.add(createPost(blogId, firstPostId + i, textLength));
+        }
+        return posts;
+    }
+
+    private static String createText(long postId, int length) {
+        StringBuilder sb = new StringBuilder(length + 64);
+        sb.append("<p>post ").append(postId).append("</p>");
+        while (sb.length() < length) {
+            sb.append("<p>Lorem ipsum dolor sit amet, consectetur adipiscing elit.</p>");
+        }
+        return sb.toString();
+    }
+}
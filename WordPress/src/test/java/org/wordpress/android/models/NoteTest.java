@@ -0,0 +1,89 @@
+package org.wordpress.android.models;
+
+import android.os.Build;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.fluxc.model.CommentStatus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class NoteTest {
+    private static final String COMMENT_NOTE = "{"
+            + "\"id\":1234,"
+            + "\"type\":\"comment\","
+            + "\"read\":0,"
+            + "\"noticon\":\"\\uf300\","
+            + "\"timestamp\":\"2017-03-20T10:15:00+00:00\","
+            + "\"icon\":\"https://gravatar.com/avatar/abc\","
+            + "\"url\":\"https://example.com/post/#comment-55\","
+            + "\"title\":\"Post title\","
+            + "\"subject\":["
+            + "  {\"text\":\"Someone commented on Post title\",\"ranges\":[{\"type\":\"noticon\",\"value\":\"\\uf467\"}]},"
+            + "  {\"text\":\"Great post!\"}"
+            + "],"
+            + "\"body\":["
+            + "  {\"type\":\"user\",\"text\":\"Someone\",\"meta\":{\"links\":{\"home\":\"https://someone.example.com\"}}},"
+            + "  {\"type\":\"comment\",\"text\":\"Great post!\",\"meta\":{\"ids\":{\"comment\":55}},"
+            + "   \"actions\":{\"replyto-comment\":true,\"approve-comment\":false,\"spam-comment\":false}}"
+            + "],"
+            + "\"meta\":{\"ids\":{\"site\":10,\"post\":20,\"comment\":55}}"
+            + "}";
+
+    @Test
+    public void testFieldsAreReadOnce() throws JSONException {
+        Note note = new Note(new JSONObject(COMMENT_NOTE));
+
+        assertEquals("1234", note.getId());
+        assertEquals(Note.NOTE_COMMENT_TYPE, note.getType());
+        assertTrue(note.isCommentType());
+        assertTrue(note.isUnread());
+        assertEquals("Great post!", note.getCommentSubject());
+        assertEquals("\uf467", note.getCommentSubjectNoticon());
+        assertEquals(CommentStatus.UNAPPROVED, note.getCommentStatus());
+        assertTrue(note.canReply());
+        assertEquals("Someone", note.getCommentAuthorName());
+        assertEquals(10, note.getSiteId());
+        assertEquals(20, note.getPostId());
+        assertEquals(55, note.getCommentId());
+    }
+
+    @Test
+    public void testNoteFromColumnsMatchesNoteFromJSON() throws JSONException {
+        Note parsed = new Note(new JSONObject(COMMENT_NOTE));
+        Note stored = new Note(parsed.getId(), COMMENT_NOTE, parsed.getType(), parsed.getTimestamp(),
+                !parsed.isUnread(), parsed.isCommentType(), parsed.getSubjectString(), parsed.getCommentSubject(),
+                parsed.getCommentSubjectNoticon(), parsed.getIconURL(), parsed.getNoticonCharacter(),
+                parsed.getCommentStatus());
+
+        assertEquals(parsed.getTimestamp(), stored.getTimestamp());
+        assertEquals(parsed.isCommentType(), stored.isCommentType());
+        assertEquals(parsed.getCommentStatus(), stored.getCommentStatus());
+        assertEquals(parsed.getSubject().toString(), stored.getSubject().toString());
+
+        // detail fields come from the raw JSON, which is parsed on demand
+        assertEquals(parsed.getTitle(), stored.getTitle());
+        assertEquals(parsed.getCommentAuthorName(), stored.getCommentAuthorName());
+        assertEquals(parsed.getEnabledActions(), stored.getEnabledActions());
+        assertEquals(parsed.getBody().length(), stored.getBody().length());
+    }
+
+    @Test
+    public void testSetRead() throws JSONException {
+        Note note = new Note("1234", COMMENT_NOTE, Note.NOTE_COMMENT_TYPE, 0, false, true, null, "", "", "", "",
+                CommentStatus.UNAPPROVED);
+        assertTrue(note.isUnread());
+        note.setRead();
+        assertFalse(note.isUnread());
+        assertEquals(1, note.getJSON().getInt("read"));
+    }
+}
@@ -0,0 +1,315 @@
+package org.wordpress.android.models;
+
+import android.os.Build;
+
+import com.google.gson.stream.JsonReader;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * compares parsing a page of reader posts into a JSONObject tree and then converting it to
+ * posts (the previous approach) with streaming the posts straight from the response body
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class ReaderPostListParseBenchmarkTest {
+    private static final int NUM_POSTS = 40;
+    private static final int TEXT_LENGTH = 16384;
+    private static final int NUM_ITERATIONS = 20;
+
+    @Test
+    public void testStreamedPostsMatchTreePosts() throws JSONException, IOException {
+        String response = createResponse(NUM_POSTS, 2048);
+
+        ReaderPostList treePosts = ReaderPostList.fromJson(new JSONObject(response));
+        ReaderPostList streamedPosts = ReaderPostList.fromJsonReader(new JsonReader(new StringReader(response)));
+
+        assertEquals(NUM_POSTS, treePosts.size());
+        assertEquals(treePosts.size(), streamedPosts.size());
+        for (int i = 0; i < treePosts.size(); i++) {
+            assertSamePost(treePosts.get(i), streamedPosts.get(i));
+        }
+    }
+
+    /*
+     * fields which override each other must be applied the same way regardless of the order
+     * they appear in the response
+     */
+    @Test
+    public void testFieldOrderDoesNotMatter() throws JSONException, IOException {
+        String response = "{\"posts\":[{"
+                + "\"meta\":{\"links\":{},\"data\":{\"site\":{\"ID\":99,\"name\":\"Meta Name\","
+                + "\"URL\":\"http://meta.example.com\",\"is_private\":\"1\",\"icon\":{\"ico\":\"x\"}}}},"
+                + "\"author\":{\"name\":\"A &amp; B\",\"has_avatar\":false,\"avatar_URL\":\"http://avatar\","
+                + "\"URL\":\"http://author.example.com\"},"
+                + "\"discussion\":{\"comments_open\":true,\"comment_count\":3},"
+                + "\"comments_open\":false,\"comment_count\":7,"
+                + "\"global_ID\":\"global\",\"pseudo_ID\":\"pseudo\","
+                + "\"site_ID\":\"12\",\"ID\":5,\"score\":\"1.5\","
+                + "\"title\":null,\"excerpt\":\"<p>An excerpt which becomes the title</p>\","
+                + "\"attachments\":{},\"discover_metadata\":false,"
+                + "\"metadata\":[{\"key\":\"other\"},{\"key\":\"xpost_origin\",\"value\":\"11:22\"},"
+                + "{\"key\":\"xpost_origin\",\"value\":\"33:44\"}],"
+                + "\"unknown\":{\"nested\":[1,2,{\"deep\":null}]}"
+                + "}]}";
+
+        ReaderPost treePost = ReaderPostList.fromJson(new JSONObject(response)).get(0);
+        ReaderPost streamedPost = ReaderPostList.fromJsonReader(new JsonReader(new StringReader(response))).get(0);
+
+        assertSamePost(treePost, streamedPost);
+        assertEquals("pseudo", streamedPost.getPseudoId());
+        assertEquals(99, streamedPost.blogId);
+        assertEquals("http://meta.example.com", streamedPost.getBlogUrl());
+        assertEquals("", streamedPost.getBlogImageUrl());
+        assertEquals("", streamedPost.getPostAvatar());
+        assertEquals(3, streamedPost.numReplies);
+        assertEquals(11, streamedPost.xpostBlogId);
+        assertEquals("An excerpt which becomes the title", streamedPost.getTitle());
+    }
+
+    @Test
+    public void testMissingPosts() throws IOException {
+        String response = "{\"found\":0,\"posts\":[]}";
+        assertEquals(0, ReaderPostList.fromJsonReader(new JsonReader(new StringReader(response))).size());
+        response = "{\"found\":0}";
+        assertEquals(0, ReaderPostList.fromJsonReader(new JsonReader(new StringReader(response))).size());
+    }
+
+    @Ignore("benchmark - timings vary with the machine, so run manually when changing the post parser")
+    @Test
+    public void benchmarkParse() throws JSONException, IOException {
+        byte[] response = createResponse(NUM_POSTS, TEXT_LENGTH).getBytes("UTF-8");
+
+        // warm up both paths
+        parseTree(response);
+        parseStream(response);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_ITERATIONS; i++) {
+            parseTree(response);
+        }
+        long treeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < NUM_ITERATIONS; i++) {
+            parseStream(response);
+        }
+        long streamNanos = System.nanoTime() - start;
+
+        assertTrue(streamNanos < treeNanos);
+    }
+
+    /*
+     * the previous path - RestRequest decodes the body into a string and parses it into a
+     * JSONObject, which is then converted to posts
+     */
+    private static ReaderPostList parseTree(byte[] response) throws JSONException, IOException {
+        return ReaderPostList.fromJson(new JSONObject(new String(response, "UTF-8")));
+    }
+
+    private static ReaderPostList parseStream(byte[] response) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(response), "UTF-8"));
+        try {
+            return ReaderPostList.fromJsonReader(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void assertSamePost(ReaderPost expected, ReaderPost actual) throws JSONException {
+        String id = expected.getPseudoId();
+        assertEquals(id, expected.getPseudoId(), actual.getPseudoId());
+        assertEquals(id, expected.postId, actual.postId);
+        assertEquals(id, expected.blogId, actual.blogId);
+        assertEquals(id, expected.feedId, actual.feedId);
+        assertEquals(id, expected.feedItemId, actual.feedItemId);
+        assertEquals(id, expected.authorId, actual.authorId);
+        assertEquals(id, expected.getTitle(), actual.getTitle());
+        assertEquals(id, expected.getText(), actual.getText());
+        assertEquals(id, expected.getExcerpt(), actual.getExcerpt());
+        assertEquals(id, expected.getAuthorName(), actual.getAuthorName());
+        assertEquals(id, expected.getAuthorFirstName(), actual.getAuthorFirstName());
+        assertEquals(id, expected.getBlogName(), actual.getBlogName());
+        assertEquals(id, expected.getBlogUrl(), actual.getBlogUrl());
+        assertEquals(id, expected.getBlogImageUrl(), actual.getBlogImageUrl());
+        assertEquals(id, expected.getPostAvatar(), actual.getPostAvatar());
+        assertEquals(id, expected.getPrimaryTag(), actual.getPrimaryTag());
+        assertEquals(id, expected.getSecondaryTag(), actual.getSecondaryTag());
+        assertEquals(id, expected.getDatePublished(), actual.getDatePublished());
+        assertEquals(id, expected.getDateLiked(), actual.getDateLiked());
+        assertEquals(id, expected.getDateTagged(), actual.getDateTagged());
+        assertEquals(id, expected.score, actual.score, 0);
+        assertEquals(id, expected.getUrl(), actual.getUrl());
+        assertEquals(id, expected.getShortUrl(), actual.getShortUrl());
+        assertEquals(id, expected.getFeaturedImage(), actual.getFeaturedImage());
+        assertEquals(id, expected.getFeaturedVideo(), actual.getFeaturedVideo());
+        assertEquals(id, expected.getFormat(), actual.getFormat());
+        assertEquals(id, expected.numReplies, actual.numReplies);
+        assertEquals(id, expected.numLikes, actual.numLikes);
+        assertEquals(id, expected.isLikedByCurrentUser, actual.isLikedByCurrentUser);
+        assertEquals(id, expected.isFollowedByCurrentUser, actual.isFollowedByCurrentUser);
+        assertEquals(id, expected.isCommentsOpen, actual.isCommentsOpen);
+        assertEquals(id, expected.isExternal, actual.isExternal);
+        assertEquals(id, expected.isPrivate, actual.isPrivate);
+        assertEquals(id, expected.isJetpack, actual.isJetpack);
+        assertEquals(id, expected.xpostBlogId, actual.xpostBlogId);
+        assertEquals(id, expected.xpostPostId, actual.xpostPostId);
+        assertEquals(id, expected.getCardType(), actual.getCardType());
+        // the JSON columns may escape characters differently, so compare them as parsed JSON
+        assertSameJson(id, expected.getAttachmentsJson(), actual.getAttachmentsJson());
+        assertSameJson(id, expected.getDiscoverJson(), actual.getDiscoverJson());
+        assertSameJson(id, expected.getRailcarJson(), actual.getRailcarJson());
+    }
+
+    private static void assertSameJson(String id, String expected, String actual) throws JSONException {
+        if (expected.isEmpty()) {
+            assertEquals(id, expected, actual);
+        } else {
+            assertTrue(id, !actual.isEmpty());
+            assertEquals(id, new JSONObject(expected).toString(), new JSONObject(actual).toString());
+        }
+    }
+
+    /*
+     * a page of posts shaped like the v1.2 read/ endpoints' response with ?meta=site,likes
+     */
+    private static String createResponse(int numPosts, int textLength) throws JSONException {
+        JSONArray jsonPosts = new JSONArray();
+        for (int i = 0; i < numPosts; i++) {
+            jsonPosts.put(createPost(i, textLength));
+        }
+        JSONObject json = new JSONObject();
+        json.put("found", numPosts * 10);
+        json.put("posts", jsonPosts);
+        json.put("date_range", new JSONObject().put("before", "2017-01-01T00:00:00+00:00"));
+        return json.toString();
+    }
+
+    private static JSONObject createPost(int index, int textLength) throws JSONException {
+        long blogId = 1000 + (index % 7);
+        JSONObject json = new JSONObject();
+        json.put("ID", 5000 + index);
+        json.put("site_ID", blogId);
+        json.put("feed_ID", 300 + index % 7);
+        json.put("feed_item_ID", 9000 + index);
+        json.put("pseudo_ID", "pseudo-" + index);
+        json.put("global_ID", "global-" + index);
+        json.put("author", new JSONObject()
+                .put("ID", 42 + index % 3)
+                .put("login", "author" + index)
+                .put("name", "Author &amp; Co " + index)
+                .put("first_name", "First")
+                .put("has_avatar", index % 4 != 0)
+                .put("avatar_URL", "https://gravatar.example.com/avatar/" + index)
+                .put("URL", "http://author" + index + ".example.com"));
+        json.put("date", String.format(Locale.US, "2017-01-%02dT10:00:00+00:00", 1 + index % 28));
+        json.put("modified", "2017-02-01T10:00:00+00:00");
+        json.put("title", index % 5 == 0 ? "" : "Title &#8220;" + index + "&#8221; <b>bold</b>");
+        json.put("URL", "http://blog" + blogId + ".example.com/" + index);
+        json.put("short_URL", "http://wp.me/p" + index);
+        json.put("content", createText(index, textLength));
+        json.put("excerpt", "<p>Excerpt of post " + index + " which is long enough to need a word break</p>\n");
+        json.put("site_URL", index % 6 == 0 ? "" : "http://blog" + blogId + ".example.com");
+        json.put("site_name", "Blog &amp; " + blogId);
+        json.put("format", index % 3 == 0 ? "image" : "standard");
+        json.put("like_count", index % 11);
+        json.put("i_like", index % 2 == 0 ? "1" : "0");
+        json.put("is_following", index % 3 == 0);
+        json.put("is_external", false);
+        json.put("site_is_private", "no");
+        json.put("is_jetpack", index % 9 == 0);
+        json.put("featured_image", index % 3 == 0 ? "https://images.example.com/featured" + index + ".jpg" : "");
+        json.put("discussion", new JSONObject()
+                .put("comments_open", index % 2 == 0)
+                .put("comment_status", "open")
+                .put("comment_count", index % 13));
+        json.put("score", index * 0.5);
+        json.put("date_liked", JSONObject.NULL);
+        json.put("tagged_on", "2017-01-01T00:00:00+00:00");
+
+        JSONObject jsonTags = new JSONObject();
+        for (int t = 0; t < 4; t++) {
+            jsonTags.put("tag-" + t, new JSONObject()
+                    .put("ID", t)
+                    .put("name", "Tag " + t)
+                    .put("slug", "tag%20" + t)
+                    .put("post_count", (index + t * 7) % 10));
+        }
+        json.put("tags", jsonTags);
+
+        JSONObject jsonAttachments = new JSONObject();
+        if (index % 2 == 0) {
+            jsonAttachments.put("123", new JSONObject()
+                    .put("ID", 123)
+                    .put("URL", "https://images.example.com/attachment/" + index + ".jpg")
+                    .put("mime_type", "image/jpeg")
+                    .put("width", 1024)
+                    .put("height", 768.5));
+        }
+        json.put("attachments", jsonAttachments);
+
+        if (index % 5 == 1) {
+            json.put("discover_metadata", new JSONObject()
+                    .put("permalink", "http://discover.example.com/" + index)
+                    .put("attribution", new JSONObject().put("author_name", "Someone")));
+        }
+        if (index % 4 == 1) {
+            json.put("metadata", new JSONArray()
+                    .put(new JSONObject().put("id", "1").put("key", "xpost_origin").put("value", "11:" + index)));
+        }
+        if (index % 3 == 1) {
+            json.put("railcar", new JSONObject().put("railcar", "abc" + index).put("fetch_position", index));
+        }
+
+        JSONObject jsonSite = new JSONObject()
+                .put("ID", blogId)
+                .put("name", "Meta Blog " + blogId)
+                .put("URL", "http://meta" + blogId + ".example.com")
+                .put("is_private", index % 8 == 0)
+                .put("jetpack", false)
+                .put("description", "A blog used for testing");
+        if (index % 2 == 1) {
+            jsonSite.put("icon", new JSONObject().put("img", "https://icons.example.com/" + blogId + ".png"));
+        }
+        json.put("meta", new JSONObject()
+                .put("links", new JSONObject().put("site", "https://public-api.example.com/sites/" + blogId))
+                .put("data", new JSONObject()
+                        .put("site", jsonSite)
+                        .put("likes", new JSONObject().put("found", index % 11).put("likes", new JSONArray()))));
+        return json;
+    }
+
+    private static String createText(int index, int length) {
+        StringBuilder sb = new StringBuilder(length + 256);
+        sb.append("<p>post ").append(index).append("</p>");
+        if (index % 3 == 1) {
+            sb.append("<img src=\"https://images.example.com/content").append(index)
+              .append(".jpg\" width=\"800\" height=\"600\" />");
+        }
+        if (index % 7 == 2) {
+            sb.append("<iframe src=\"https://www.youtube.com/embed/video").append(index)
+              .append("\" width=\"640\" height=\"360\"></iframe>");
+        }
+        while (sb.length() < length) {
+            sb.append("<p>Lorem ipsum dolor sit amet, consectetur adipiscing elit, “sed” do eiusmod.</p>");
+        }
+        return sb.toString();
+    }
+}
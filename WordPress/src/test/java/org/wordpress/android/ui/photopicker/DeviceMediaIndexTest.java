@@ -0,0 +1,203 @@
+package org.wordpress.android.ui.photopicker;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.database.MatrixCursor;
+import android.os.Build;
+import android.support.annotation.NonNull;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.ui.photopicker.DeviceMediaIndex.Item;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class DeviceMediaIndexTest {
+    /*
+     * media store with separate image and video ids, which counts the rows it returns
+     */
+    private static class FakeMediaQuery implements DeviceMediaIndex.MediaQuery {
+        final TreeSet<Long> images = new TreeSet<>();
+        final TreeSet<Long> videos = new TreeSet<>();
+        int numRowsRead;
+
+        @Override
+        public Cursor query(boolean isVideo, long minId, long maxId) {
+            NavigableSet<Long> ids = (isVideo ? videos : images).subSet(minId, true, maxId, true);
+            MatrixCursor cursor = new MatrixCursor(new String[]{"_id"});
+            for (long id : ids.descendingSet()) {
+                cursor.addRow(new Object[]{id});
+            }
+            return new CountingCursor(cursor);
+        }
+
+        private class CountingCursor extends CursorWrapper {
+            CountingCursor(Cursor cursor) {
+                super(cursor);
+            }
+
+            @Override
+            public boolean moveToNext() {
+                boolean result = super.moveToNext();
+                if (result) {
+                    numRowsRead++;
+                }
+                return result;
+            }
+
+            @Override
+            public boolean moveToFirst() {
+                boolean result = super.moveToFirst();
+                if (result) {
+                    numRowsRead++;
+                }
+                return result;
+            }
+        }
+    }
+
+    @Test
+    public void testLoadMergesImagesAndVideos() {
+        FakeMediaQuery query = new FakeMediaQuery();
+        addIds(query.images, 1, 3, 4, 8);
+        addIds(query.videos, 2, 5, 9);
+
+        DeviceMediaIndex index = new DeviceMediaIndex();
+        index.update(query, "1", null);
+        assertEquals(ids(9, 8, 5, 4, 3, 2, 1), getIds(index.getItems(true)));
+        assertEquals(ids(8, 4, 3, 1), getIds(index.getItems(false)));
+    }
+
+    @Test
+    public void testFirstPage() {
+        FakeMediaQuery query = new FakeMediaQuery();
+        for (long id = 1; id <= DeviceMediaIndex.FIRST_PAGE_SIZE * 2; id++) {
+            query.images.add(id);
+        }
+
+        final List<List<Item>> pages = new ArrayList<>();
+        new DeviceMediaIndex().update(query, "1", new DeviceMediaIndex.FirstPageListener() {
+            @Override
+            public void onFirstPage(@NonNull List<Item> items) {
+                pages.add(items);
+            }
+        });
+        assertEquals(1, pages.size());
+        assertEquals(DeviceMediaIndex.FIRST_PAGE_SIZE, pages.get(0).size());
+        assertEquals(DeviceMediaIndex.FIRST_PAGE_SIZE * 2, pages.get(0).get(0).id);
+    }
+
+    @Test
+    public void testUnchangedMediaIsntRead() {
+        FakeMediaQuery query = createLargeMediaQuery();
+        DeviceMediaIndex index = new DeviceMediaIndex();
+        index.update(query, "1", null);
+        int generation = index.getGeneration();
+
+        query.numRowsRead = 0;
+        index.update(query, "1", null);
+        assertEquals(generation, index.getGeneration());
+        assertEquals(0, query.numRowsRead);
+    }
+
+    @Test
+    public void testNewAndDeletedMedia() {
+        FakeMediaQuery query = createLargeMediaQuery();
+        DeviceMediaIndex index = new DeviceMediaIndex();
+        index.update(query, "1", null);
+        int generation = index.getGeneration();
+
+        query.images.remove(1234L);
+        query.videos.remove(10L);
+        query.images.add(20001L);
+        query.videos.add(20002L);
+
+        query.numRowsRead = 0;
+        index.update(query, "1", null);
+        assertTrue(index.getGeneration() > generation);
+        // only the new rows and the ranges containing deleted rows are read
+        assertTrue(query.numRowsRead < DeviceMediaIndex.MAX_RANGE_SIZE * 4);
+
+        List<Long> expected = new ArrayList<>();
+        for (long id : query.images) {
+            expected.add(id);
+        }
+        for (long id : query.videos) {
+            expected.add(id);
+        }
+        Collections.sort(expected, Collections.<Long>reverseOrder());
+        assertEquals(expected, getIds(index.getItems(true)));
+    }
+
+    @Test
+    public void testVersionChangeReloads() {
+        FakeMediaQuery query = new FakeMediaQuery();
+        addIds(query.images, 1, 2, 3);
+        DeviceMediaIndex index = new DeviceMediaIndex();
+        index.update(query, "1", null);
+
+        // ids may be reused when the media store is recreated
+        query.images.clear();
+        addIds(query.images, 1, 2);
+        index.update(query, "2", null);
+        assertEquals(ids(2, 1), getIds(index.getItems(true)));
+    }
+
+    @Test
+    public void testMerge() {
+        List<Item> list1 = new ArrayList<>();
+        list1.add(new Item(9, false));
+        list1.add(new Item(4, false));
+        List<Item> list2 = new ArrayList<>();
+        list2.add(new Item(7, true));
+        list2.add(new Item(5, true));
+        list2.add(new Item(1, true));
+        assertEquals(ids(9, 7, 5, 4, 1), getIds(DeviceMediaIndex.merge(list1, list2)));
+    }
+
+    private static FakeMediaQuery createLargeMediaQuery() {
+        FakeMediaQuery query = new FakeMediaQuery();
+        for (long id = 1; id <= 20000; id++) {
+            if (id % 10 == 0) {
+                query.videos.add(id);
+            } else {
+                query.images.add(id);
+            }
+        }
+        return query;
+    }
+
+    private static void addIds(TreeSet<Long> set, long... ids) {
+        for (long id : ids) {
+            set.add(id);
+        }
+    }
+
+    private static List<Long> ids(long... ids) {
+        List<Long> list = new ArrayList<>();
+        for (long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private static List<Long> getIds(List<Item> items) {
+        List<Long> ids = new ArrayList<>();
+        for (Item item : items) {
+            ids.add(item.id);
+        }
+        return ids;
+    }
+}
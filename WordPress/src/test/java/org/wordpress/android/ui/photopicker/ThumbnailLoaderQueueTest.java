@@ -0,0 +1,104 @@
+package org.wordpress.android.ui.photopicker;
+
+import android.os.Build;
+import android.widget.ImageView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.ui.photopicker.ThumbnailLoader.Request;
+import org.wordpress.android.ui.photopicker.ThumbnailLoader.RequestQueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class ThumbnailLoaderQueueTest {
+    @Test
+    public void testRequestsAreTakenNewestFirst() {
+        RequestQueue queue = new RequestQueue();
+        queue.add(createRequest(1));
+        queue.add(createRequest(2));
+        queue.add(createRequest(3));
+
+        assertEquals(3, queue.take().imageId);
+        assertEquals(2, queue.take().imageId);
+        assertEquals(1, queue.take().imageId);
+        assertNull(queue.take());
+    }
+
+    @Test
+    public void testRequestsTakePriorityOverPrefetches() {
+        RequestQueue queue = new RequestQueue();
+        assertTrue(queue.addPrefetch(createPrefetch(10)));
+        assertTrue(queue.addPrefetch(createPrefetch(11)));
+        queue.add(createRequest(1));
+
+        // prefetches are taken nearest first, after the visible request
+        assertEquals(1, queue.take().imageId);
+        assertEquals(10, queue.take().imageId);
+        assertEquals(11, queue.take().imageId);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testRequestReplacesPrefetch() {
+        RequestQueue queue = new RequestQueue();
+        queue.addPrefetch(createPrefetch(1));
+        queue.add(createRequest(1));
+        assertFalse(queue.addPrefetch(createPrefetch(1)));
+
+        Request request = queue.take();
+        assertFalse(request.isPrefetch());
+        assertNull(queue.take());
+    }
+
+    @Test
+    public void testOldestRequestIsDropped() {
+        RequestQueue queue = new RequestQueue();
+        for (int i = 0; i < ThumbnailLoader.MAX_PENDING_REQUESTS; i++) {
+            assertNull(queue.add(createRequest(i)));
+        }
+        Request dropped = queue.add(createRequest(1000));
+        assertEquals(0, dropped.imageId);
+        assertEquals(ThumbnailLoader.MAX_PENDING_REQUESTS, queue.mRequests.size());
+    }
+
+    @Test
+    public void testPrefetchesAreBounded() {
+        RequestQueue queue = new RequestQueue();
+        for (int i = 0; i < ThumbnailLoader.MAX_PENDING_PREFETCHES; i++) {
+            assertTrue(queue.addPrefetch(createPrefetch(i)));
+        }
+        assertFalse(queue.addPrefetch(createPrefetch(1000)));
+    }
+
+    @Test
+    public void testRemoveOnlyCancelsRequestForSameView() {
+        RequestQueue queue = new RequestQueue();
+        ImageView recycledView = new ImageView(RuntimeEnvironment.application);
+        ImageView otherView = new ImageView(RuntimeEnvironment.application);
+
+        // the image was rebound to another view before the first view was recycled
+        queue.add(new Request(otherView, 1, false, false, 100));
+        queue.remove(1, recycledView);
+        assertEquals(1, queue.mRequests.size());
+
+        queue.remove(1, otherView);
+        assertTrue(queue.isEmpty());
+    }
+
+    private static Request createRequest(long imageId) {
+        return new Request(new ImageView(RuntimeEnvironment.application), imageId, false, false, 100);
+    }
+
+    private static Request createPrefetch(long imageId) {
+        return new Request(null, imageId, false, false, 100);
+    }
+}
@@ -0,0 +1,63 @@
+package org.wordpress.android.ui.reader;
+
+import android.os.Build;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class ReaderRenderExecutorTest {
+    private static final long TIMEOUT_SECONDS = 5;
+
+    @Test
+    public void testVisibleRenderRunsBeforeWaitingPrerenders() throws InterruptedException {
+        ReaderRenderExecutor executor = new ReaderRenderExecutor(1);
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(4);
+        final List<String> order = new CopyOnWriteArrayList<>();
+
+        // block the only thread so the tasks below are all waiting
+        executor.prerender("blocker", new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blocker.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        for (final String name : new String[]{"prerender 1", "prerender 2", "render 1", "render 2"}) {
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    order.add(name);
+                    done.countDown();
+                }
+            };
+            if (name.startsWith("render")) {
+                executor.render(name, task);
+            } else {
+                executor.prerender(name, task);
+            }
+        }
+
+        blocker.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("render 1", "render 2", "prerender 1", "prerender 2"), order);
+    }
+}
@@ -0,0 +1,125 @@
+package org.wordpress.android.ui.reader;
+
+import android.os.Build;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.models.ReaderPost;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class ReaderRenderedHtmlCacheTest {
+    private static final int HTML_LENGTH = 1000;
+
+    private File mDiskDir;
+
+    @Before
+    public void setUp() {
+        mDiskDir = new File(RuntimeEnvironment.application.getCacheDir(), "reader_html_test");
+    }
+
+    @After
+    public void tearDown() {
+        new ReaderRenderedHtmlCache(mDiskDir, 1, 0).clear();
+    }
+
+    @Test
+    public void testKeys() {
+        ReaderPost post = createPost("pseudo-1", "<p>text</p>");
+        String key = ReaderRenderedHtmlCache.makeKey(post, 1080);
+
+        assertEquals(key, ReaderRenderedHtmlCache.makeKey(createPost("pseudo-1", "<p>text</p>"), 1080));
+        assertNotEquals(key, ReaderRenderedHtmlCache.makeKey(post, 720));
+        assertNotEquals(key, ReaderRenderedHtmlCache.makeKey(createPost("pseudo-2", "<p>text</p>"), 1080));
+        assertNotEquals(key, ReaderRenderedHtmlCache.makeKey(createPost("pseudo-1", "<p>edited</p>"), 1080));
+    }
+
+    @Test
+    public void testMemoryTierIsBounded() {
+        ReaderRenderedHtmlCache cache = new ReaderRenderedHtmlCache(mDiskDir, HTML_LENGTH * 3, HTML_LENGTH * 10);
+        for (int i = 0; i < 5; i++) {
+            cache.put("key" + i, createHtml(i));
+        }
+
+        assertEquals(HTML_LENGTH * 3, cache.getMemorySize());
+        assertNull(cache.getFromMemory("key0"));
+        assertNull(cache.getFromMemory("key1"));
+        assertEquals(createHtml(4), cache.getFromMemory("key4"));
+    }
+
+    @Test
+    public void testDiskTier() {
+        ReaderRenderedHtmlCache cache = new ReaderRenderedHtmlCache(mDiskDir, HTML_LENGTH, HTML_LENGTH * 10);
+        cache.put("key0", createHtml(0));
+        cache.put("key1", createHtml(1));
+
+        // key0 was evicted from memory but is still on disk, and reading it brings it back into memory
+        assertNull(cache.getFromMemory("key0"));
+        assertTrue(cache.contains("key0"));
+        assertEquals(createHtml(0), cache.get("key0"));
+        assertEquals(createHtml(0), cache.getFromMemory("key0"));
+
+        // a new instance (ex: after the process is killed) still has both on disk
+        ReaderRenderedHtmlCache newCache = new ReaderRenderedHtmlCache(mDiskDir, HTML_LENGTH, HTML_LENGTH * 10);
+        assertEquals(createHtml(1), newCache.get("key1"));
+        assertNull(newCache.get("missing"));
+    }
+
+    @Test
+    public void testDiskTierIsBounded() {
+        ReaderRenderedHtmlCache cache = new ReaderRenderedHtmlCache(mDiskDir, 1, HTML_LENGTH * 3);
+        Set<String> writtenFiles = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            cache.put("key" + i, createHtml(i));
+            // the files are trimmed by modified time, which may only have one second resolution,
+            // so give each new file a distinct time
+            for (File file : mDiskDir.listFiles()) {
+                if (writtenFiles.add(file.getName())) {
+                    file.setLastModified((i + 1) * 1000L);
+                }
+            }
+        }
+
+        assertTrue(cache.getDiskSize() <= HTML_LENGTH * 3);
+        assertTrue(cache.contains("key4"));
+        assertFalse(cache.contains("key0"));
+
+        cache.clear();
+        assertEquals(0, cache.getDiskSize());
+        assertFalse(cache.contains("key4"));
+    }
+
+    private static ReaderPost createPost(String pseudoId, String text) {
+        ReaderPost post = new ReaderPost();
+        post.blogId = 1;
+        post.postId = 2;
+        post.setPseudoId(pseudoId);
+        post.setText(text);
+        return post;
+    }
+
+    private static String createHtml(int index) {
+        StringBuilder sb = new StringBuilder(HTML_LENGTH);
+        sb.append("<p>").append(index).append("</p>");
+        while (sb.length() < HTML_LENGTH) {
+            sb.append('x');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,157 @@
+package org.wordpress.android.ui.reader.models;
+
+import android.os.Build;
+import android.support.v7.util.ListUpdateCallback;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class ReaderPostListDiffTest {
+    @Test
+    public void testSameList() {
+        ReaderPostListDiff diff = calculate(ids(1, 2, 3), ids(1, 2, 3));
+        assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    public void testNewPostsAtTop() {
+        ReaderPostListDiff diff = calculate(ids(1, 2, 3), ids(5, 4, 1, 2, 3));
+        List<String> updates = new ArrayList<>();
+        assertEquals(ids(-1, -1, 1, 2, 3), apply(diff, ids(1, 2, 3), updates));
+        assertEquals(Collections.singletonList("insert 0 2"), updates);
+    }
+
+    @Test
+    public void testRemovals() {
+        ReaderPostListDiff diff = calculate(ids(1, 2, 3, 4, 5, 6), ids(1, 4, 6));
+        List<String> updates = new ArrayList<>();
+        assertEquals(ids(1, 4, 6), apply(diff, ids(1, 2, 3, 4, 5, 6), updates));
+        assertEquals(2, updates.size());
+        assertEquals("remove 4 1", updates.get(0));
+        assertEquals("remove 1 2", updates.get(1));
+    }
+
+    @Test
+    public void testMovesAreMinimal() {
+        // only the post which changed position is moved
+        ReaderPostListDiff diff = calculate(ids(1, 2, 3, 4, 5), ids(1, 2, 5, 3, 4));
+        List<String> updates = new ArrayList<>();
+        assertEquals(ids(1, 2, 5, 3, 4), apply(diff, ids(1, 2, 3, 4, 5), updates));
+        assertEquals(Collections.singletonList("move 4 2"), updates);
+    }
+
+    @Test
+    public void testDuplicatePostsCantBeDiffed() {
+        assertNull(calculate(ids(1, 2, 3), ids(1, 2, 2)));
+    }
+
+    @Test
+    public void testRandomChanges() {
+        Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            List<Integer> oldIds = new ArrayList<>();
+            int numOld = random.nextInt(60);
+            for (int i = 0; i < numOld; i++) {
+                oldIds.add(i);
+            }
+
+            List<Integer> newIds = new ArrayList<>(oldIds);
+            for (int i = newIds.size() - 1; i >= 0; i--) {
+                if (random.nextInt(5) == 0) {
+                    newIds.remove(i);
+                }
+            }
+            int numMoved = newIds.isEmpty() ? 0 : random.nextInt(5);
+            for (int i = 0; i < numMoved; i++) {
+                int from = random.nextInt(newIds.size());
+                newIds.add(random.nextInt(newIds.size()), newIds.remove(from));
+            }
+            int numInserted = random.nextInt(10);
+            List<Integer> expectedIds = new ArrayList<>(newIds);
+            for (int i = 0; i < numInserted; i++) {
+                int position = random.nextInt(newIds.size() + 1);
+                newIds.add(position, 1000 + i);
+                expectedIds.add(position, -1);
+            }
+
+            ReaderPostListDiff diff = calculate(oldIds, newIds);
+            assertEquals(expectedIds, apply(diff, oldIds, new ArrayList<String>()));
+        }
+    }
+
+    @Test
+    public void testLongestIncreasingRun() {
+        boolean[] inPlace = ReaderPostListDiff.getLongestIncreasingRun(new int[]{2, 0, 1, 4, 3}, 5);
+        assertArrayEquals(new boolean[]{false, true, true, false, true}, inPlace);
+    }
+
+    private static ReaderPostListDiff calculate(List<Integer> oldIds, List<Integer> newIds) {
+        return ReaderPostListDiff.calculate(createList(oldIds), createList(newIds));
+    }
+
+    /*
+     * applies the diff to the passed ids the same way RecyclerView applies adapter notifications,
+     * with inserted posts added as -1
+     */
+    private static List<Integer> apply(ReaderPostListDiff diff, List<Integer> ids, final List<String> updates) {
+        final List<Integer> result = new ArrayList<>(ids);
+        diff.dispatchUpdatesTo(new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                updates.add("insert " + position + " " + count);
+                for (int i = 0; i < count; i++) {
+                    result.add(position + i, -1);
+                }
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                updates.add("remove " + position + " " + count);
+                for (int i = 0; i < count; i++) {
+                    result.remove(position);
+                }
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                updates.add("move " + fromPosition + " " + toPosition);
+                result.add(toPosition, result.remove(fromPosition));
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                updates.add("change " + position + " " + count);
+            }
+        });
+        return result;
+    }
+
+    private static ReaderPostPagedList createList(List<Integer> ids) {
+        ReaderPostKeyList keys = new ReaderPostKeyList();
+        for (int id : ids) {
+            keys.add(new ReaderPostKey(1, id, "pseudo-" + id, "0"));
+        }
+        return new ReaderPostPagedList(keys);
+    }
+
+    private static List<Integer> ids(Integer... ids) {
+        List<Integer> list = new ArrayList<>();
+        Collections.addAll(list, ids);
+        return list;
+    }
+}
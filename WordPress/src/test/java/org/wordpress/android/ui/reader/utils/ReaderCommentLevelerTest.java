@@ -0,0 +1,263 @@
+package org.wordpress.android.ui.reader.utils;
+
+import android.os.Build;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.models.ReaderComment;
+import org.wordpress.android.models.ReaderCommentList;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class ReaderCommentLevelerTest {
+    private static final int NUM_BENCHMARK_COMMENTS = 5000;
+    private static final int NUM_ITERATIONS = 20;
+
+    @Test
+    public void testLevelList() {
+        ReaderCommentList comments = new ReaderCommentList();
+        comments.add(createComment(1, 0));
+        comments.add(createComment(2, 1));
+        comments.add(createComment(3, 0));
+        comments.add(createComment(4, 2));
+        comments.add(createComment(5, 1));
+        comments.add(createComment(6, 3));
+
+        ReaderCommentList levelList = new ReaderCommentLeveler(comments).createLevelList();
+        assertLevelList(levelList, new long[]{1, 2, 4, 5, 3, 6}, new int[]{0, 1, 2, 1, 0, 1});
+    }
+
+    @Test
+    public void testOrphansAreAddedAtEnd() {
+        ReaderCommentList comments = new ReaderCommentList();
+        comments.add(createComment(1, 0));
+        comments.add(createComment(2, 99));
+        comments.add(createComment(3, 1));
+        comments.add(createComment(4, 2));
+
+        ReaderCommentList levelList = new ReaderCommentLeveler(comments).createLevelList();
+        assertLevelList(levelList, new long[]{1, 3, 2, 4}, new int[]{0, 1, 1, 2});
+    }
+
+    @Test
+    public void testCycleIsIgnored() {
+        ReaderCommentList comments = new ReaderCommentList();
+        comments.add(createComment(1, 2));
+        comments.add(createComment(2, 1));
+
+        // neither comment is a root or an orphan, so neither is reachable
+        ReaderCommentList levelList = new ReaderCommentLeveler(comments).createLevelList();
+        assertEquals(0, levelList.size());
+    }
+
+    @Test
+    public void testInsertComment() {
+        ReaderCommentList comments = new ReaderCommentList();
+        comments.add(createComment(1, 0));
+        comments.add(createComment(2, 1));
+        comments.add(createComment(3, 2));
+        comments.add(createComment(4, 0));
+        comments.add(createComment(5, 99));
+        ReaderCommentList levelList = new ReaderCommentLeveler(comments).createLevelList();
+
+        // reply to the first comment goes after its existing subtree
+        assertEquals(3, ReaderCommentLeveler.insertComment(levelList, createComment(6, 1)));
+        // new root comment goes before the orphan
+        assertEquals(5, ReaderCommentLeveler.insertComment(levelList, createComment(7, 0)));
+        // reply to a comment that isn't in the list
+        assertEquals(-1, ReaderCommentLeveler.insertComment(levelList, createComment(8, 100)));
+
+        assertLevelList(levelList, new long[]{1, 2, 3, 6, 4, 7, 5}, new int[]{0, 1, 2, 1, 0, 0, 1});
+    }
+
+    @Test
+    public void testAddCommentsDoesNotChangeExistingLevels() {
+        ReaderCommentList comments = new ReaderCommentList();
+        comments.add(createComment(1, 0));
+        comments.add(createComment(3, 2));
+        comments.add(createComment(4, 3));
+        ReaderCommentList levelList = new ReaderCommentLeveler(comments).createLevelList();
+        assertLevelList(levelList, new long[]{1, 3, 4}, new int[]{0, 1, 2});
+
+        // the new comment is the parent of the existing orphan, so the comments are re-leveled
+        ReaderCommentList newComments = new ReaderCommentList();
+        newComments.add(createComment(2, 1));
+        ReaderCommentList merged = ReaderCommentLeveler.addComments(levelList, newComments);
+
+        assertLevelList(merged, new long[]{1, 2, 3, 4}, new int[]{0, 1, 2, 3});
+        assertLevelList(levelList, new long[]{1, 3, 4}, new int[]{0, 1, 2});
+    }
+
+    @Test
+    public void testAddCommentsMatchesLevelList() {
+        ReaderCommentList comments = createThread(NUM_BENCHMARK_COMMENTS, new Random(1));
+
+        // existing comments are the older comments in two thirds of the threads, and a "page"
+        // adds the rest - so new root comments are interleaved with existing ones
+        HashMap<Long, Long> rootIds = new HashMap<>();
+        ReaderCommentList existing = new ReaderCommentList();
+        ReaderCommentList added = new ReaderCommentList();
+        for (ReaderComment comment : comments) {
+            long rootId = comment.parentId == 0 ? comment.commentId : rootIds.get(comment.parentId);
+            rootIds.put(comment.commentId, rootId);
+            if (rootId % 3 != 0 && comment.commentId <= NUM_BENCHMARK_COMMENTS * 0.8) {
+                existing.add(comment);
+            } else {
+                added.add(comment);
+            }
+        }
+
+        ReaderCommentList merged = ReaderCommentLeveler.addComments(
+                new ReaderCommentLeveler(existing).createLevelList(), added);
+        long[] mergedIds = getCommentIds(merged);
+        int[] mergedLevels = getLevels(merged);
+
+        ReaderCommentList expected = new ReaderCommentLeveler(comments).createLevelList();
+        assertLevelList(expected, mergedIds, mergedLevels);
+    }
+
+    @Test
+    public void testMatchesLevelByLevelApproach() {
+        ReaderCommentList comments = createThread(1000, new Random(2));
+        ReaderCommentList levelList = new ReaderCommentLeveler(comments).createLevelList();
+        long[] ids = getCommentIds(levelList);
+        int[] levels = getLevels(levelList);
+
+        assertLevelList(levelByLevel(comments), ids, levels);
+    }
+
+    /*
+     * compares leveling a synthetic 5k-comment thread with the previous level-by-level approach,
+     * and with merging a new page of comments into an existing level list
+     */
+    @Ignore("benchmark - timings vary with the machine, so run manually when changing ReaderCommentLeveler")
+    @Test
+    public void benchmarkLevelList() {
+        ReaderCommentList comments = createThread(NUM_BENCHMARK_COMMENTS, new Random(3));
+        ReaderCommentList firstPages = new ReaderCommentList();
+        firstPages.addAll(comments.subList(0, NUM_BENCHMARK_COMMENTS - 50));
+        ReaderCommentList lastPage = new ReaderCommentList();
+        lastPage.addAll(comments.subList(NUM_BENCHMARK_COMMENTS - 50, NUM_BENCHMARK_COMMENTS));
+
+        // warm up
+        levelByLevel(comments);
+        new ReaderCommentLeveler(comments).createLevelList();
+
+        long start = System.nanoTime();
+        levelByLevel(comments);
+        long levelByLevelNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < NUM_ITERATIONS; i++) {
+            new ReaderCommentLeveler(comments).createLevelList();
+        }
+        long levelListNanos = (System.nanoTime() - start) / NUM_ITERATIONS;
+
+        ReaderCommentList levelList = new ReaderCommentLeveler(firstPages).createLevelList();
+        start = System.nanoTime();
+        for (int i = 0; i < NUM_ITERATIONS; i++) {
+            ReaderCommentLeveler.addComments(levelList, lastPage);
+        }
+        long addCommentsNanos = (System.nanoTime() - start) / NUM_ITERATIONS;
+
+        assertTrue(levelListNanos < levelByLevelNanos);
+        assertTrue(addCommentsNanos < levelListNanos);
+    }
+
+    /*
+     * thread where roughly a third of the comments are root comments and the rest reply to a
+     * random earlier comment, ordered by timestamp as ReaderCommentTable returns them
+     */
+    private static ReaderCommentList createThread(int numComments, Random random) {
+        ReaderCommentList comments = new ReaderCommentList();
+        for (int i = 1; i <= numComments; i++) {
+            long parentId = (i == 1 || random.nextInt(3) == 0) ? 0 : 1 + random.nextInt(i - 1);
+            comments.add(createComment(i, parentId));
+        }
+        return comments;
+    }
+
+    private static ReaderComment createComment(long commentId, long parentId) {
+        ReaderComment comment = new ReaderComment();
+        comment.commentId = commentId;
+        comment.parentId = parentId;
+        comment.blogId = 1;
+        comment.postId = 1;
+        comment.timestamp = commentId;
+        return comment;
+    }
+
+    private static void assertLevelList(ReaderCommentList levelList, long[] commentIds, int[] levels) {
+        assertEquals(commentIds.length, levelList.size());
+        for (int i = 0; i < commentIds.length; i++) {
+            assertEquals(commentIds[i], levelList.get(i).commentId);
+            assertEquals(levels[i], levelList.get(i).level);
+        }
+    }
+
+    private static long[] getCommentIds(ReaderCommentList comments) {
+        long[] ids = new long[comments.size()];
+        for (int i = 0; i < comments.size(); i++) {
+            ids[i] = comments.get(i).commentId;
+        }
+        return ids;
+    }
+
+    private static int[] getLevels(ReaderCommentList comments) {
+        int[] levels = new int[comments.size()];
+        for (int i = 0; i < comments.size(); i++) {
+            levels[i] = comments.get(i).level;
+        }
+        return levels;
+    }
+
+    /*
+     * the previous approach, which walked the list once per level and scanned every comment to
+     * find the children of each parent
+     */
+    private static ReaderCommentList levelByLevel(ReaderCommentList comments) {
+        ReaderCommentList result = new ReaderCommentList();
+        for (ReaderComment comment : comments) {
+            comment.level = 0;
+            if (comment.parentId == 0) {
+                result.add(comment);
+            }
+        }
+
+        int level = 0;
+        boolean hasChanges = true;
+        while (hasChanges) {
+            hasChanges = false;
+            for (int index = 0; index < result.size(); index++) {
+                ReaderComment parent = result.get(index);
+                if (parent.level != level) {
+                    continue;
+                }
+                ReaderCommentList children = new ReaderCommentList();
+                for (ReaderComment comment : comments) {
+                    if (comment.parentId == parent.commentId) {
+                        comment.level = level + 1;
+                        children.add(comment);
+                    }
+                }
+                if (children.size() > 0) {
+                    result.addAll(index + 1, children);
+                    index += children.size();
+                    hasChanges = true;
+                }
+            }
+            level++;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,213 @@
+package org.wordpress.android.ui.reader.utils;
+
+import android.os.Build;
+import android.support.annotation.NonNull;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.ui.reader.utils.ReaderHtmlTagScanner.HtmlTag;
+import org.wordpress.android.ui.reader.utils.ReaderHtmlTagScanner.TagType;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class ReaderHtmlTagScannerTest {
+    private static final int NUM_SECTIONS = 200;
+    private static final int NUM_ITERATIONS = 50;
+
+    // the patterns used by the image & iframe scanners before the single-pass scanner
+    private static final Pattern IMG_TAG_PATTERN = Pattern.compile(
+            "<img(\\s+.*?)(?:src\\s*=\\s*(?:'|\")(.*?)(?:'|\"))(.*?)>",
+            Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+    private static final Pattern IFRAME_TAG_PATTERN = Pattern.compile(
+            "<iframe(\\s+.*?)(?:src\\s*=\\s*(?:'|\")(.*?)(?:'|\"))(.*?)>",
+            Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+
+    private static final ReaderHtmlTagScanner.TagRewriter REWRITER = new ReaderHtmlTagScanner.TagRewriter() {
+        @Override
+        public String rewriteTag(@NonNull HtmlTag tag) {
+            if (tag.getType() == TagType.GALLERY) {
+                return null;
+            }
+            return makeTag(tag.getType() == TagType.IMG ? "img" : "iframe",
+                    tag.getSrc(), tag.getIntAttribute("width"), tag.getIntAttribute("height"));
+        }
+    };
+
+    @Test
+    public void testAttributes() {
+        String content = "<p>text</p><IMG class=\"size-full wp-image-1\" SRC='http://example.com/a.jpg?w=640'"
+                + " width=\"640\" height=480 data-orig-size=\"1280,960\" alt=\"a > b\" />"
+                + "<img alt='no source'>"
+                + "<iframe src=\"https://www.youtube.com/embed/abc\" width=\"100%\" allowfullscreen></iframe>";
+        List<HtmlTag> tags = new ReaderHtmlTagScanner(content).getTags();
+
+        assertEquals(2, tags.size());
+        HtmlTag image = tags.get(0);
+        assertEquals(TagType.IMG, image.getType());
+        assertEquals("http://example.com/a.jpg?w=640", image.getSrc());
+        assertEquals("size-full wp-image-1", image.getClassName());
+        assertEquals(640, image.getIntAttribute("width"));
+        assertEquals(480, image.getIntAttribute("height"));
+        assertEquals(1280, image.getOriginalWidth());
+        assertEquals(960, image.getOriginalHeight());
+        assertTrue(image.getTagText().endsWith("alt=\"a > b\" />"));
+
+        HtmlTag iframe = tags.get(1);
+        assertEquals(TagType.IFRAME, iframe.getType());
+        assertEquals(0, iframe.getIntAttribute("width"));
+        assertTrue(iframe.hasAttribute("allowfullscreen"));
+        assertNull(iframe.getAttribute("height"));
+    }
+
+    @Test
+    public void testCommentsAndMalformedTags() {
+        String content = "<!-- <img src='http://example.com/commented.jpg'> --> a < b "
+                + "<img src='http://example.com/a.jpg'> <img src='http://example.com/unterminated.jpg";
+        List<HtmlTag> tags = new ReaderHtmlTagScanner(content).getTags();
+        assertEquals(1, tags.size());
+        assertEquals("http://example.com/a.jpg", tags.get(0).getSrc());
+    }
+
+    @Test
+    public void testEmbedsAndGalleries() {
+        String content = "<blockquote class=\"instagram-media\">x</blockquote><fb:post href='x'></fb:post>"
+                + "<div class=\"tiled-gallery type-rectangular\"><div class='gallery-row'>"
+                + "<div class=\"tiled-gallery-item tiled-gallery-item-large\"><img src='http://example.com/g.jpg'>"
+                + "</div></div></div>";
+        ReaderHtmlTagScanner scanner = new ReaderHtmlTagScanner(content);
+
+        assertTrue(scanner.hasTiledGallery());
+        assertEquals(2, scanner.getEmbedScripts().size());
+        assertTrue(scanner.getEmbedScripts().contains(ReaderHtmlTagScanner.INSTAGRAM_EMBED_SCRIPT));
+        assertTrue(scanner.getEmbedScripts().contains(ReaderHtmlTagScanner.FACEBOOK_EMBED_SCRIPT));
+
+        String rewritten = scanner.rewrite(new ReaderHtmlTagScanner.TagRewriter() {
+            @Override
+            public String rewriteTag(@NonNull HtmlTag tag) {
+                if (tag.getType() != TagType.GALLERY) {
+                    return null;
+                }
+                return tag.replaceAttribute("class",
+                        ReaderHtmlTagScanner.addClassToGalleryClasses(tag.getClassName(), "only"));
+            }
+        });
+        assertTrue(rewritten.contains("<div class=\"tiled-gallery only type-rectangular\">"));
+        assertTrue(rewritten.contains("<div class='gallery-row only'>"));
+        assertTrue(rewritten.contains("class=\"tiled-gallery-item only tiled-gallery-item-large\""));
+
+        assertFalse(new ReaderHtmlTagScanner("<p>tiled-gallery </p>").hasTiledGallery());
+    }
+
+    /*
+     * on well-formed content the single pass must rewrite the same tags as the regex scanners
+     */
+    @Test
+    public void testRewriteMatchesRegexScanners() {
+        String content = createPostContent(20);
+        assertEquals(rewriteWithRegexes(content), new ReaderHtmlTagScanner(content).rewrite(REWRITER));
+    }
+
+    @Ignore("benchmark - timings vary with the machine, so run manually when changing ReaderHtmlTagScanner")
+    @Test
+    public void benchmarkRewrite() {
+        String content = createPostContent(NUM_SECTIONS);
+
+        // warm up both paths
+        rewriteWithRegexes(content);
+        new ReaderHtmlTagScanner(content).rewrite(REWRITER);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_ITERATIONS; i++) {
+            rewriteWithRegexes(content);
+        }
+        long regexNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < NUM_ITERATIONS; i++) {
+            new ReaderHtmlTagScanner(content).rewrite(REWRITER);
+        }
+        long scannerNanos = System.nanoTime() - start;
+
+        assertTrue(scannerNanos < regexNanos);
+    }
+
+    /*
+     * the previous rendering approach - scan for images then iframes with the regexes, re-match
+     * the attributes of each found tag, and replace each one in a StringBuilder
+     */
+    private static String rewriteWithRegexes(String content) {
+        StringBuilder builder = new StringBuilder(content);
+        replaceWithRegex(builder, content, IMG_TAG_PATTERN, "img");
+        replaceWithRegex(builder, content, IFRAME_TAG_PATTERN, "iframe");
+        hasTiledGalleryWithRegex(content);
+        return builder.toString();
+    }
+
+    private static void replaceWithRegex(StringBuilder builder, String content, Pattern pattern, String tagName) {
+        Matcher matcher = pattern.matcher(content);
+        while (matcher.find()) {
+            String tag = content.substring(matcher.start(), matcher.end());
+            String src = ReaderHtmlUtils.getSrcAttrValue(tag);
+            if (src == null || src.isEmpty()) {
+                continue;
+            }
+            String newTag = makeTag(tagName, src,
+                    ReaderHtmlUtils.getWidthAttrValue(tag), ReaderHtmlUtils.getHeightAttrValue(tag));
+            int index = builder.indexOf(tag);
+            builder.replace(index, index + tag.length(), newTag);
+        }
+    }
+
+    private static boolean hasTiledGalleryWithRegex(String content) {
+        return Pattern.compile("tiled-gallery[\\s\"']").matcher(content).find();
+    }
+
+    private static String makeTag(String tagName, String src, int width, int height) {
+        return "<" + tagName + " src='" + src + "' width='" + (width / 2) + "' height='" + (height / 2) + "' />";
+    }
+
+    /*
+     * long post content with the markup typically found in WordPress posts
+     */
+    private static String createPostContent(int numSections) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < numSections; i++) {
+            sb.append("<h2 id=\"section-").append(i).append("\">Section ").append(i).append("</h2>\n")
+              .append("<p>Lorem ipsum dolor sit amet, <a href=\"https://example.com/").append(i)
+              .append("\" title=\"link\">consectetur</a> adipiscing elit, <strong>sed do</strong> eiusmod tempor")
+              .append(" incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud.</p>\n")
+              .append("<figure class=\"wp-caption aligncenter\" style=\"width: 1024px\">")
+              .append("<img data-attachment-id=\"").append(i).append("\" data-orig-size=\"2048,1536\"")
+              .append(" class=\"size-large wp-image-").append(i).append("\" src=\"https://example.files.wordpress.com/")
+              .append(i).append(".jpg?w=1024&#038;h=768\" alt=\"\" width=\"1024\" height=\"768\"")
+              .append(" srcset=\"https://example.files.wordpress.com/").append(i).append(".jpg?w=1024 1024w\" />")
+              .append("<figcaption class=\"wp-caption-text\">Caption ").append(i).append("</figcaption></figure>\n")
+              .append("<ul><li>First item</li><li>Second item with <em>emphasis</em></li></ul>\n")
+              .append("<p><img class=\"wp-smiley\" src=\"https://s0.wp.com/wp-content/mu-plugins/wpcom-smileys/")
+              .append("simple-smile.svg\" alt=\":)\" style=\"height: 1em;max-height: 1em\" /> and more text.</p>\n");
+            if (i % 10 == 0) {
+                sb.append("<p><iframe class=\"youtube-player\" type=\"text/html\" width=\"640\" height=\"390\"")
+                  .append(" src=\"https://www.youtube.com/embed/video").append(i)
+                  .append("?version=3&#038;rel=1\" allowfullscreen=\"true\" style=\"border:0;\"></iframe></p>\n");
+            }
+            if (i % 25 == 0) {
+                sb.append("<div class=\"sharedaddy sd-sharing-enabled\"><div class=\"robots-nocontent\">")
+                  .append("<h3 class=\"sd-title\">Share this:</h3></div></div>\n");
+            }
+        }
+        return sb.toString();
+    }
+}
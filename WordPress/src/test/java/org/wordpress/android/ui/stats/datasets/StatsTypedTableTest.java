@@ -0,0 +1,256 @@
+package org.wordpress.android.ui.stats.datasets;
+
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.ui.stats.StatsTimeframe;
+import org.wordpress.android.ui.stats.StatsUtils;
+import org.wordpress.android.ui.stats.models.BaseStatsModel;
+import org.wordpress.android.ui.stats.models.ReferrerGroupModel;
+import org.wordpress.android.ui.stats.models.ReferrerResultModel;
+import org.wordpress.android.ui.stats.models.ReferrersModel;
+import org.wordpress.android.ui.stats.models.VisitModel;
+import org.wordpress.android.ui.stats.models.VisitsModel;
+import org.wordpress.android.ui.stats.service.StatsService.StatsEndpointsEnum;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class StatsTypedTableTest {
+    private static final long BLOG_ID = 1;
+    private static final String DATE = "2017-03-20";
+    private static final int MAX_RESULTS = 10;
+    private static final int NUM_ITERATIONS = 200;
+
+    private SQLiteDatabase mDb;
+
+    @Before
+    public void init() {
+        mDb = SQLiteDatabase.create(null);
+        StatsTypedTable.createTables(mDb);
+    }
+
+    @After
+    public void teardown() {
+        mDb.close();
+    }
+
+    @Test
+    public void testVisitsRoundTrip() throws JSONException {
+        VisitsModel parsed = (VisitsModel) StatsUtils.parseResponse(StatsEndpointsEnum.VISITS, BLOG_ID,
+                createVisitsResponse(15));
+        insert(StatsEndpointsEnum.VISITS, parsed, System.currentTimeMillis());
+
+        VisitsModel stored = (VisitsModel) read(StatsEndpointsEnum.VISITS);
+        assertNotNull(stored);
+        assertEquals(parsed.getDate(), stored.getDate());
+        assertEquals(parsed.getUnit(), stored.getUnit());
+        assertEquals(parsed.getVisits().size(), stored.getVisits().size());
+        for (int i = 0; i < parsed.getVisits().size(); i++) {
+            VisitModel expected = parsed.getVisits().get(i);
+            VisitModel actual = stored.getVisits().get(i);
+            assertEquals(expected.getPeriod(), actual.getPeriod());
+            assertEquals(expected.getViews(), actual.getViews());
+            assertEquals(expected.getVisitors(), actual.getVisitors());
+            assertEquals(expected.getLikes(), actual.getLikes());
+            assertEquals(expected.getComments(), actual.getComments());
+        }
+    }
+
+    @Test
+    public void testVisitsRangeQuery() throws JSONException {
+        insert(StatsEndpointsEnum.VISITS, StatsUtils.parseResponse(StatsEndpointsEnum.VISITS, BLOG_ID,
+                createVisitsResponse(15)), System.currentTimeMillis());
+
+        List<VisitModel> visits = StatsTypedTable.getVisits(mDb, BLOG_ID, StatsTimeframe.DAY,
+                "2017-03-18", "2017-03-20");
+        assertEquals(3, visits.size());
+        assertEquals("2017-03-18", visits.get(0).getPeriod());
+        assertEquals("2017-03-20", visits.get(2).getPeriod());
+    }
+
+    @Test
+    public void testReferrersRoundTrip() throws JSONException {
+        ReferrersModel parsed = (ReferrersModel) StatsUtils.parseResponse(StatsEndpointsEnum.REFERRERS, BLOG_ID,
+                createReferrersResponse(MAX_RESULTS));
+        insert(StatsEndpointsEnum.REFERRERS, parsed, System.currentTimeMillis());
+
+        ReferrersModel stored = (ReferrersModel) read(StatsEndpointsEnum.REFERRERS);
+        assertNotNull(stored);
+        assertEquals(parsed.getPeriod(), stored.getPeriod());
+        assertEquals(parsed.getTotalViews(), stored.getTotalViews());
+        assertEquals(parsed.getOtherViews(), stored.getOtherViews());
+        assertEquals(parsed.getGroups().size(), stored.getGroups().size());
+        for (int i = 0; i < parsed.getGroups().size(); i++) {
+            ReferrerGroupModel expected = parsed.getGroups().get(i);
+            ReferrerGroupModel actual = stored.getGroups().get(i);
+            assertEquals(expected.getGroupId(), actual.getGroupId());
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getTotal(), actual.getTotal());
+            assertEquals(expected.getDate(), actual.getDate());
+            if (expected.getResults() == null) {
+                assertNull(actual.getResults());
+                continue;
+            }
+            assertEquals(expected.getResults().size(), actual.getResults().size());
+            for (int j = 0; j < expected.getResults().size(); j++) {
+                ReferrerResultModel expectedResult = expected.getResults().get(j);
+                ReferrerResultModel actualResult = actual.getResults().get(j);
+                assertEquals(expectedResult.getName(), actualResult.getName());
+                assertEquals(expectedResult.getViews(), actualResult.getViews());
+                assertEquals(expectedResult.getUrl(), actualResult.getUrl());
+                assertEquals(expectedResult.getChildren().size(), actualResult.getChildren().size());
+            }
+        }
+    }
+
+    @Test
+    public void testExpiredResponseIsIgnored() throws JSONException {
+        long expired = System.currentTimeMillis() - (StatsTable.CACHE_TTL_MINUTES + 1) * 60 * 1000;
+        insert(StatsEndpointsEnum.REFERRERS, StatsUtils.parseResponse(StatsEndpointsEnum.REFERRERS, BLOG_ID,
+                createReferrersResponse(MAX_RESULTS)), expired);
+        assertNull(read(StatsEndpointsEnum.REFERRERS));
+
+        mDb.beginTransaction();
+        try {
+            StatsTypedTable.deleteOldStats(mDb, expired);
+            mDb.setTransactionSuccessful();
+        } finally {
+            mDb.endTransaction();
+        }
+        assertEquals(0, DatabaseUtils.queryNumEntries(mDb, "tbl_stats_groups"));
+    }
+
+    /*
+     * compares parsing the stored JSON with reading the stored rows, which is what happens each time
+     * a stats screen is shown while the cache is fresh
+     */
+    @Ignore("benchmark - timings vary with the machine, so run manually when changing StatsTypedTable")
+    @Test
+    public void benchmarkParseVersusRows() throws JSONException {
+        benchmark(StatsEndpointsEnum.VISITS, createVisitsResponse(15));
+        benchmark(StatsEndpointsEnum.REFERRERS, createReferrersResponse(MAX_RESULTS));
+    }
+
+    private void benchmark(StatsEndpointsEnum section, JSONObject response) throws JSONException {
+        String json = response.toString();
+        insert(section, StatsUtils.parseResponse(section, BLOG_ID, response), System.currentTimeMillis());
+
+        // warm up
+        StatsUtils.parseResponse(section, BLOG_ID, new JSONObject(json));
+        read(section);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_ITERATIONS; i++) {
+            StatsUtils.parseResponse(section, BLOG_ID, new JSONObject(json));
+        }
+        long parseNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < NUM_ITERATIONS; i++) {
+            assertNotNull(read(section));
+        }
+        long rowsNanos = System.nanoTime() - start;
+
+        assertTrue(section.name(), rowsNanos < parseNanos);
+    }
+
+    private void insert(StatsEndpointsEnum section, BaseStatsModel model, long timestamp) {
+        StatsTypedTable.insertModel(mDb, BLOG_ID, StatsTimeframe.DAY, DATE, section, MAX_RESULTS, -1, model, timestamp);
+    }
+
+    private BaseStatsModel read(StatsEndpointsEnum section) {
+        return StatsTypedTable.getModel(mDb, BLOG_ID, StatsTimeframe.DAY, DATE, section, MAX_RESULTS, -1,
+                StatsTable.CACHE_TTL_MINUTES);
+    }
+
+    private static JSONObject createVisitsResponse(int numPeriods) throws JSONException {
+        JSONArray data = new JSONArray();
+        for (int i = numPeriods - 1; i >= 0; i--) {
+            JSONArray row = new JSONArray();
+            row.put(String.format(Locale.US, "2017-03-%02d", 20 - i));
+            row.put(100 + i);
+            row.put(50 + i);
+            row.put(i);
+            row.put(0);
+            row.put(i * 2);
+            row.put(0);
+            data.put(row);
+        }
+
+        JSONObject response = new JSONObject();
+        response.put("date", DATE);
+        response.put("unit", "day");
+        response.put("fields", new JSONArray("[\"period\",\"views\",\"visitors\",\"likes\",\"reblogs\","
+                + "\"comments\",\"posts\"]"));
+        response.put("data", data);
+        return response;
+    }
+
+    private static JSONObject createReferrersResponse(int numGroups) throws JSONException {
+        JSONArray groups = new JSONArray();
+        for (int i = 0; i < numGroups; i++) {
+            JSONObject group = new JSONObject();
+            group.put("group", "group" + i);
+            group.put("name", "Group " + i);
+            group.put("icon", "https://example.com/icon" + i + ".png");
+            group.put("total", 1000 - i);
+            if (i % 3 == 0) {
+                group.put("url", "https://example.com/group" + i);
+            } else {
+                JSONArray results = new JSONArray();
+                for (int j = 0; j < 10; j++) {
+                    JSONObject result = new JSONObject();
+                    result.put("name", "Result " + i + "-" + j);
+                    result.put("views", 100 - j);
+                    result.put("icon", "");
+                    result.put("url", "https://example.com/result" + i + "-" + j);
+                    JSONArray children = new JSONArray();
+                    for (int k = 0; k < 5; k++) {
+                        JSONObject child = new JSONObject();
+                        child.put("name", "Child " + k);
+                        child.put("views", 10 - k);
+                        child.put("url", "https://example.com/child" + k);
+                        children.put(child);
+                    }
+                    result.put("children", children);
+                    results.put(result);
+                }
+                group.put("results", results);
+            }
+            groups.put(group);
+        }
+
+        JSONObject day = new JSONObject();
+        day.put("groups", groups);
+        day.put("other_views", 12);
+        day.put("total_views", 5000);
+        JSONObject days = new JSONObject();
+        days.put(DATE, day);
+
+        JSONObject response = new JSONObject();
+        response.put("date", DATE);
+        response.put("period", "day");
+        response.put("days", days);
+        return response;
+    }
+}
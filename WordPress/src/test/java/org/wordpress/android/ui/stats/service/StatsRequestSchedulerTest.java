@@ -0,0 +1,101 @@
+package org.wordpress.android.ui.stats.service;
+
+import android.os.Build;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.ui.stats.StatsTimeframe;
+import org.wordpress.android.ui.stats.service.StatsService.StatsEndpointsEnum;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class StatsRequestSchedulerTest {
+    private static final String DATE = "2017-03-20";
+
+    @Test
+    public void testDuplicateRequestIsNotReserved() {
+        StatsRequestScheduler scheduler = new StatsRequestScheduler();
+        String key = StatsRequestScheduler.getRequestKey(1, StatsEndpointsEnum.VISITS, StatsTimeframe.DAY, DATE, 10, -1);
+
+        assertTrue(scheduler.reserveRequest(key));
+        assertFalse(scheduler.reserveRequest(key));
+        assertTrue(scheduler.isWorking());
+
+        scheduler.finishRequest(key);
+        assertFalse(scheduler.isWorking());
+        assertTrue(scheduler.reserveRequest(key));
+    }
+
+    @Test
+    public void testCancelReleasesRequests() {
+        StatsRequestScheduler scheduler = new StatsRequestScheduler();
+        String key = StatsRequestScheduler.getRequestKey(1, StatsEndpointsEnum.CLICKS, StatsTimeframe.WEEK, DATE, 10, -1);
+
+        assertTrue(scheduler.reserveRequest(key));
+        scheduler.cancelRequests();
+        assertFalse(scheduler.isWorking());
+        assertTrue(scheduler.reserveRequest(key));
+    }
+
+    @Test
+    public void testRunningTaskIsWorking() throws InterruptedException {
+        final CountDownLatch taskStarted = new CountDownLatch(1);
+        final CountDownLatch finishTask = new CountDownLatch(1);
+        final CountDownLatch taskFinished = new CountDownLatch(1);
+        final StatsRequestScheduler[] scheduler = new StatsRequestScheduler[1];
+        final boolean[] isWorkingWhenFinished = new boolean[1];
+        scheduler[0] = new StatsRequestScheduler(new StatsRequestScheduler.OnTaskFinishedListener() {
+            @Override
+            public void onTaskFinished() {
+                isWorkingWhenFinished[0] = scheduler[0].isWorking();
+                taskFinished.countDown();
+            }
+        });
+
+        scheduler[0].execute(new Runnable() {
+            @Override
+            public void run() {
+                taskStarted.countDown();
+                try {
+                    finishTask.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        // the task has left the queue but is still running
+        assertTrue(taskStarted.await(5, TimeUnit.SECONDS));
+        assertTrue(scheduler[0].isWorking());
+
+        finishTask.countDown();
+        assertTrue(taskFinished.await(5, TimeUnit.SECONDS));
+        assertFalse(isWorkingWhenFinished[0]);
+        assertFalse(scheduler[0].isWorking());
+    }
+
+    @Test
+    public void testKeyIncludesRequestParameters() {
+        String key = StatsRequestScheduler.getRequestKey(1, StatsEndpointsEnum.REFERRERS, StatsTimeframe.DAY, DATE, 10, -1);
+        assertNotEquals(key, StatsRequestScheduler.getRequestKey(2, StatsEndpointsEnum.REFERRERS, StatsTimeframe.DAY,
+                DATE, 10, -1));
+        assertNotEquals(key, StatsRequestScheduler.getRequestKey(1, StatsEndpointsEnum.CLICKS, StatsTimeframe.DAY,
+                DATE, 10, -1));
+        assertNotEquals(key, StatsRequestScheduler.getRequestKey(1, StatsEndpointsEnum.REFERRERS, StatsTimeframe.MONTH,
+                DATE, 10, -1));
+        assertNotEquals(key, StatsRequestScheduler.getRequestKey(1, StatsEndpointsEnum.REFERRERS, StatsTimeframe.DAY,
+                "2017-03-21", 10, -1));
+        assertNotEquals(key, StatsRequestScheduler.getRequestKey(1, StatsEndpointsEnum.REFERRERS, StatsTimeframe.DAY,
+                DATE, 10, 2));
+    }
+}
@@ -0,0 +1,98 @@
+package org.wordpress.android.ui.suggestion.util;
+
+import android.os.Build;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.models.Suggestion;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class SuggestionIndexTest {
+    private static final String[] WORDS = {"ann", "bob", "carol", "dave", "eve", "frank", "grace", "heidi", "ivan",
+            "judy", "mallory", "oscar", "peggy", "trent", "victor", "walter"};
+
+    @Test
+    public void testRanking() {
+        List<Suggestion> suggestions = new ArrayList<>();
+        suggestions.add(createSuggestion("zed", "Mary Ann Smith"));
+        suggestions.add(createSuggestion("annie", "Annie Jones"));
+        suggestions.add(createSuggestion("bob", "Anna Brown"));
+        suggestions.add(createSuggestion("carl", "Carl Anderson"));
+
+        List<Suggestion> results = SuggestionIndex.forSuggestions(suggestions).find("An", 10);
+
+        // login match, then display name matches, then word matches - alphabetically within each
+        assertEquals(4, results.size());
+        assertEquals("annie", results.get(0).getUserLogin());
+        assertEquals("bob", results.get(1).getUserLogin());
+        assertEquals("carl", results.get(2).getUserLogin());
+        assertEquals("zed", results.get(3).getUserLogin());
+    }
+
+    @Test
+    public void testResultsAreBounded() {
+        List<Suggestion> suggestions = createSuggestions(500, new Random(1));
+        SuggestionIndex<Suggestion> index = SuggestionIndex.forSuggestions(suggestions);
+
+        assertEquals(10, index.find("a", 10).size());
+        assertEquals(10, index.find("", 10).size());
+        assertEquals(0, index.find("xyz", 10).size());
+    }
+
+    @Test
+    public void testMatchesLinearFilter() {
+        List<Suggestion> suggestions = createSuggestions(2000, new Random(2));
+        SuggestionIndex<Suggestion> index = SuggestionIndex.forSuggestions(suggestions);
+
+        for (String constraint : new String[]{"a", "Gr", "eve", "frank p", "ivan0", "z"}) {
+            HashSet<Suggestion> expected = new HashSet<>(linearFilter(suggestions, constraint));
+            List<Suggestion> results = index.find(constraint, Integer.MAX_VALUE);
+            assertEquals(constraint, expected.size(), results.size());
+            assertTrue(constraint, expected.containsAll(results));
+        }
+    }
+
+    /*
+     * the filter SuggestionAdapter used before the index
+     */
+    private static List<Suggestion> linearFilter(List<Suggestion> suggestions, String constraint) {
+        List<Suggestion> results = new ArrayList<>();
+        for (Suggestion suggestion : suggestions) {
+            String lowerCaseConstraint = constraint.toLowerCase();
+            if (suggestion.getUserLogin().toLowerCase().startsWith(lowerCaseConstraint)
+                    || suggestion.getDisplayName().toLowerCase().startsWith(lowerCaseConstraint)
+                    || suggestion.getDisplayName().toLowerCase().contains(" " + lowerCaseConstraint)) {
+                results.add(suggestion);
+            }
+        }
+        return results;
+    }
+
+    private static List<Suggestion> createSuggestions(int numSuggestions, Random random) {
+        List<Suggestion> suggestions = new ArrayList<>(numSuggestions);
+        for (int i = 0; i < numSuggestions; i++) {
+            String first = WORDS[random.nextInt(WORDS.length)];
+            String last = WORDS[random.nextInt(WORDS.length)];
+            String displayName = Character.toUpperCase(first.charAt(0)) + first.substring(1) + " "
+                    + Character.toUpperCase(last.charAt(0)) + last.substring(1);
+            suggestions.add(createSuggestion(first + i, displayName));
+        }
+        return suggestions;
+    }
+
+    private static Suggestion createSuggestion(String userLogin, String displayName) {
+        return new Suggestion(1, userLogin, displayName, "", "mention");
+    }
+}
@@ -0,0 +1,139 @@
+package org.wordpress.android.ui.uploads;
+
+import android.os.Build;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.fluxc.model.MediaModel;
+import org.wordpress.android.ui.uploads.MediaUploadScheduler.Batch;
+import org.wordpress.android.ui.uploads.MediaUploadScheduler.State;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class MediaUploadSchedulerTest {
+    private static final int SITE_1 = 1;
+    private static final int SITE_2 = 2;
+    private static final int POST_1 = 10;
+    private static final int POST_2 = 20;
+
+    @Test
+    public void testDuplicatesAreNotAdded() {
+        MediaUploadScheduler scheduler = new MediaUploadScheduler(4, 2, 1);
+        assertTrue(scheduler.add(createMedia(1, SITE_1, POST_1), false));
+        assertFalse(scheduler.add(createMedia(1, SITE_1, POST_1), false));
+
+        // same file for the same site
+        MediaModel sameFile = createMedia(2, SITE_1, POST_1);
+        sameFile.setFilePath(createMedia(1, SITE_1, POST_1).getFilePath());
+        assertFalse(scheduler.add(sameFile, false));
+
+        // same file for another site
+        sameFile.setLocalSiteId(SITE_2);
+        assertTrue(scheduler.add(sameFile, false));
+    }
+
+    @Test
+    public void testUploadsAreBounded() {
+        MediaUploadScheduler scheduler = new MediaUploadScheduler(4, 2, 1);
+        for (int i = 1; i <= 6; i++) {
+            scheduler.add(createMedia(i, i <= 4 ? SITE_1 : SITE_2, POST_1), false);
+        }
+
+        // only two uploads for the first site, so the second site's uploads start as well
+        Batch batch = scheduler.nextBatch();
+        assertEquals(4, batch.toUpload.size());
+        assertEquals(1, batch.toUpload.get(0).getId());
+        assertEquals(2, batch.toUpload.get(1).getId());
+        assertEquals(5, batch.toUpload.get(2).getId());
+        assertEquals(6, batch.toUpload.get(3).getId());
+        assertTrue(scheduler.nextBatch().isEmpty());
+
+        // completing an upload frees a slot for its site
+        assertEquals(1, scheduler.remove(1).getId());
+        batch = scheduler.nextBatch();
+        assertEquals(1, batch.toUpload.size());
+        assertEquals(3, batch.toUpload.get(0).getId());
+        assertEquals(State.PENDING_UPLOAD, scheduler.getState(4));
+    }
+
+    @Test
+    public void testOptimizationStage() {
+        MediaUploadScheduler scheduler = new MediaUploadScheduler(4, 2, 1);
+        MediaModel video1 = createMedia(1, SITE_1, POST_1);
+        MediaModel video2 = createMedia(2, SITE_1, POST_1);
+        scheduler.add(video1, true);
+        scheduler.add(video2, true);
+        scheduler.add(createMedia(3, SITE_1, POST_1), false);
+
+        // one optimization at a time, while other media uploads
+        Batch batch = scheduler.nextBatch();
+        assertEquals(1, batch.toOptimize.size());
+        assertEquals(1, batch.toUpload.size());
+        assertEquals(State.OPTIMIZING, scheduler.getState(1));
+        assertEquals(State.PENDING_OPTIMIZATION, scheduler.getState(2));
+        assertTrue(scheduler.hasPendingMediaForPost(POST_1));
+
+        video1.setFilePath("/optimized.mp4");
+        assertTrue(scheduler.onOptimizationCompleted(video1));
+        batch = scheduler.nextBatch();
+        assertEquals(video2, batch.toOptimize.get(0));
+        assertEquals("/optimized.mp4", batch.toUpload.get(0).getFilePath());
+
+        // media removed while optimizing isn't uploaded
+        scheduler.remove(2);
+        assertFalse(scheduler.onOptimizationCompleted(video2));
+        assertNull(scheduler.get(2));
+        assertFalse(scheduler.hasPendingMediaForPost(POST_1));
+    }
+
+    @Test
+    public void testPrioritizedPost() {
+        MediaUploadScheduler scheduler = new MediaUploadScheduler(1, 1, 1);
+        scheduler.add(createMedia(1, SITE_1, POST_1), false);
+        scheduler.add(createMedia(2, SITE_1, POST_1), false);
+        scheduler.add(createMedia(3, SITE_1, POST_2), false);
+        scheduler.prioritizePost(POST_2);
+
+        assertEquals(3, scheduler.nextBatch().toUpload.get(0).getId());
+        scheduler.remove(3);
+        assertEquals(1, scheduler.nextBatch().toUpload.get(0).getId());
+    }
+
+    @Test
+    public void testPostQueries() {
+        MediaUploadScheduler scheduler = new MediaUploadScheduler(1, 1, 1);
+        scheduler.add(createMedia(1, SITE_1, POST_1), false);
+        scheduler.add(createMedia(2, SITE_1, POST_1), false);
+        assertFalse(scheduler.hasStartedMediaForPost(POST_1));
+        assertTrue(scheduler.hasPendingMediaForPost(POST_1));
+        assertFalse(scheduler.hasMediaForPost(POST_2));
+
+        scheduler.nextBatch();
+        assertTrue(scheduler.hasStartedMediaForPost(POST_1));
+        assertEquals(2, scheduler.getMediaForPost(POST_1).size());
+        assertEquals(1, scheduler.getMediaForPost(POST_1).get(0).getId());
+        assertEquals(1, scheduler.getStartedMedia().size());
+
+        scheduler.remove(1);
+        scheduler.remove(2);
+        assertFalse(scheduler.hasMediaForPost(POST_1));
+        assertTrue(scheduler.isEmpty());
+    }
+
+    private static MediaModel createMedia(int id, int siteId, int postId) {
+        MediaModel media = new MediaModel();
+        media.setId(id);
+        media.setLocalSiteId(siteId);
+        media.setLocalPostId(postId);
+        media.setFilePath("/sdcard/DCIM/" + id + ".jpg");
+        return media;
+    }
+}
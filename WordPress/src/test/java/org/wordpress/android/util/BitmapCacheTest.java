@@ -0,0 +1,150 @@
+package org.wordpress.android.util;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.support.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class BitmapCacheTest {
+    private static final int BITMAP_SIZE = 100;
+    // ARGB_8888 bitmaps are four bytes per pixel
+    private static final int BITMAP_BYTES = BITMAP_SIZE * BITMAP_SIZE * 4;
+
+    // runs disk writes immediately so the tests don't have to wait for them
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable runnable) {
+            runnable.run();
+        }
+    };
+
+    private File mDiskDir;
+
+    @Before
+    public void setUp() {
+        mDiskDir = new File(RuntimeEnvironment.application.getCacheDir(), "bitmap_cache_test");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = mDiskDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    @Test
+    public void testKeys() {
+        BitmapCacheKey key = BitmapCacheKey.fromString("#W200#H100#S3https://example.com/image.jpg?w=200");
+        assertEquals("https://example.com/image.jpg?w=200", key.getUrl());
+        assertEquals("https://example.com/image.jpg", key.getIndexUrl());
+        assertEquals(200, key.getWidth());
+        assertEquals(100, key.getHeight());
+
+        // older Volley keys have no scale type, and keys added directly have no size
+        assertEquals("https://example.com/a.jpg", BitmapCacheKey.fromString("#W0#H0https://example.com/a.jpg").getUrl());
+        assertEquals("/sdcard/video.mp4", BitmapCacheKey.fromString("/sdcard/video.mp4").getUrl());
+
+        BitmapCacheKey typedKey = new BitmapCacheKey("https://example.com/a.jpg", 10, 20);
+        assertEquals(typedKey, BitmapCacheKey.fromString(typedKey.toString()));
+    }
+
+    @Test
+    public void testVariantKeys() {
+        BitmapCacheKey key = new BitmapCacheKey("https://example.com/avatar.jpg?s=96", 96, 96, "circle");
+        BitmapCacheKey parsedKey = BitmapCacheKey.fromString(key.toString());
+        assertEquals(key, parsedKey);
+        assertEquals("circle", parsedKey.getVariant());
+        assertEquals("https://example.com/avatar.jpg?s=96", parsedKey.getUrl());
+        assertEquals(96, parsedKey.getWidth());
+        assertNull(BitmapCacheKey.fromString("#W96#H96https://example.com/avatar.jpg").getVariant());
+
+        // shaped copies are removed along with the image they were shaped from
+        BitmapCache cache = createCache(BITMAP_BYTES * 4);
+        cache.put(new BitmapCacheKey("https://example.com/avatar.jpg?s=96", 96, 96), createBitmap());
+        cache.put(key, createBitmap());
+        cache.removeForUrl("https://example.com/avatar.jpg");
+        assertNull(cache.get(key));
+        assertEquals(0, cache.getMemorySize());
+    }
+
+    @Test
+    public void testMemoryTierIsSizedInBytes() {
+        BitmapCache cache = createCache(BITMAP_BYTES * 2);
+        cache.put(new BitmapCacheKey("https://example.com/1.jpg", 0, 0), createBitmap());
+        cache.put(new BitmapCacheKey("https://example.com/2.jpg", 0, 0), createBitmap());
+        assertEquals(BITMAP_BYTES * 2, cache.getMemorySize());
+
+        cache.put(new BitmapCacheKey("https://example.com/3.jpg", 0, 0), createBitmap());
+        assertEquals(BITMAP_BYTES * 2, cache.getMemorySize());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get(new BitmapCacheKey("https://example.com/1.jpg", 0, 0)));
+        assertNotNull(cache.get(new BitmapCacheKey("https://example.com/3.jpg", 0, 0)));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testRemoveForUrl() {
+        BitmapCache cache = createCache(BITMAP_BYTES * 10);
+        String avatarUrl = "https://gravatar.com/avatar/abc?s=200";
+        cache.putBitmap("#W0#H0#S7" + avatarUrl, createBitmap());
+        cache.putBitmap("#W100#H100#S7https://gravatar.com/avatar/abc?s=100", createBitmap());
+        cache.putBitmap("#W0#H0#S7https://gravatar.com/avatar/def?s=200", createBitmap());
+
+        cache.removeForUrl(avatarUrl);
+
+        assertNull(cache.getBitmap("#W0#H0#S7" + avatarUrl));
+        assertNull(cache.getBitmap("#W100#H100#S7https://gravatar.com/avatar/abc?s=100"));
+        assertNotNull(cache.getBitmap("#W0#H0#S7https://gravatar.com/avatar/def?s=200"));
+    }
+
+    @Test
+    public void testDiskTier() {
+        BitmapCache cache = createCache(BITMAP_BYTES * 10);
+        BitmapCacheKey key = new BitmapCacheKey("/sdcard/video.mp4", BITMAP_SIZE, 0);
+        cache.putThumbnail(key, createBitmap());
+        assertTrue(mDiskDir.listFiles().length > 0);
+
+        // a new cache (ex: after the process is killed) only has the thumbnail on disk
+        BitmapCache newCache = createCache(BITMAP_BYTES * 10);
+        assertNull(newCache.get(key));
+        assertNotNull(newCache.getThumbnail(key));
+        assertEquals(1, newCache.getDiskHitCount());
+        assertNotNull(newCache.get(key));
+
+        assertNull(newCache.getThumbnail(new BitmapCacheKey("/sdcard/other.mp4", BITMAP_SIZE, 0)));
+        assertEquals(1, newCache.getDiskMissCount());
+
+        newCache.removeForUrl("/sdcard/video.mp4");
+        assertEquals(0, mDiskDir.listFiles().length);
+    }
+
+    private BitmapCache createCache(int maxMemoryBytes) {
+        return new BitmapCache(maxMemoryBytes, mDiskDir, BITMAP_BYTES * 10, DIRECT_EXECUTOR);
+    }
+
+    private static Bitmap createBitmap() {
+        return Bitmap.createBitmap(BITMAP_SIZE, BITMAP_SIZE, Bitmap.Config.ARGB_8888);
+    }
+}
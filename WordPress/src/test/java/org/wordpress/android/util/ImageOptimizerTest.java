@@ -0,0 +1,74 @@
+package org.wordpress.android.util;
+
+import android.graphics.BitmapFactory;
+import android.os.Build;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class ImageOptimizerTest {
+    private static final long MB = 1024L * 1024L;
+
+    @Test
+    public void testTargetSize() {
+        assertArrayEquals(new int[]{2000, 1500}, ImageOptimizer.getTargetSize(4000, 3000, 2000));
+        assertArrayEquals(new int[]{1500, 2000}, ImageOptimizer.getTargetSize(3000, 4000, 2000));
+
+        // smaller images and "original size" aren't resized
+        assertArrayEquals(new int[]{800, 600}, ImageOptimizer.getTargetSize(800, 600, 2000));
+        assertArrayEquals(new int[]{4000, 3000}, ImageOptimizer.getTargetSize(4000, 3000, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testSampledImageIsNeverSmallerThanTarget() {
+        // a ratio of 1.6 is rounded to 2 by calculateInSampleSize(), which would be too small
+        assertEquals(1, ImageOptimizer.getSampleSize(createBounds(3200, 2400), 2000, 1500));
+        assertEquals(2, ImageOptimizer.getSampleSize(createBounds(4000, 3000), 2000, 1500));
+        assertEquals(4, ImageOptimizer.getSampleSize(createBounds(8000, 6000), 2000, 1500));
+        assertEquals(1, ImageOptimizer.getSampleSize(createBounds(800, 600), 2000, 1500));
+
+        for (int width = 1000; width <= 10000; width += 250) {
+            BitmapFactory.Options bounds = createBounds(width, width * 3 / 4);
+            int[] target = ImageOptimizer.getTargetSize(bounds.outWidth, bounds.outHeight, 1024);
+            int sampleSize = ImageOptimizer.getSampleSize(bounds, target[0], target[1]);
+            assertTrue(bounds.outWidth / sampleSize >= target[0]);
+            assertTrue(bounds.outHeight / sampleSize >= target[1]);
+        }
+    }
+
+    @Test
+    public void testStripHeight() {
+        // a 4000px wide image sampled by 2 is 8000 bytes per row, so 262 rows fit in 2 MB
+        int stripHeight = ImageOptimizer.getStripHeight(4000, 2, 2 * MB);
+        assertEquals(262 * 2, stripHeight);
+        assertEquals(0, stripHeight % 2);
+
+        // a strip is never less than one sampled row
+        assertEquals(4, ImageOptimizer.getStripHeight(100000, 4, 1));
+    }
+
+    @Test
+    public void testWorkerCount() {
+        assertEquals(1, ImageOptimizer.getWorkerCount(8, 16 * MB));
+        assertEquals(2, ImageOptimizer.getWorkerCount(2, 512 * MB));
+        assertEquals(3, ImageOptimizer.getWorkerCount(8, 64 * MB));
+        assertEquals(4, ImageOptimizer.getWorkerCount(8, 512 * MB));
+        assertEquals(1, ImageOptimizer.getWorkerCount(1, 512 * MB));
+    }
+
+    private static BitmapFactory.Options createBounds(int width, int height) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.outWidth = width;
+        options.outHeight = height;
+        return options;
+    }
+}
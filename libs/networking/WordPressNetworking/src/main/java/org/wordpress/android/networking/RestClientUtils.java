@@ -283,6 +283,17 @@ public class RestClientUtils {
      */
     public Request<JSONObject> get(String path, Map<String, String> params, RetryPolicy retryPolicy, Listener listener,
                     ErrorListener errorListener) {
+        RestRequest request = mRestClient.makeRequest(Method.GET, getAbsoluteUrlForGet(path, params), null, listener,
+                errorListener);
+        sendGet(request, retryPolicy, errorListener);
+        return request;
+    }
+
+    /**
+     * Returns the absolute URL used to make a GET request to the passed path with the passed
+     * params, for callers which create their own request
+     */
+    public String getAbsoluteUrlForGet(String path, Map<String, String> params) {
         // turn params into query string
         HashMap<String, String> paramsWithLocale = getRestLocaleParams(mContext);
         if (params != null) {
@@ -295,16 +306,22 @@ public class RestClientUtils {
         }
         paramsWithLocale.putAll(getSanitizedParameters(path));
 
-        RestRequest request = mRestClient.makeRequest(Method.GET, mRestClient
-                        .getAbsoluteURL(realPath, paramsWithLocale), null, listener, errorListener);
+        return mRestClient.getAbsoluteURL(realPath, paramsWithLocale);
+    }
 
+    /**
+     * Sends a GET request created by the caller - used by requests which parse the response
+     * themselves rather than as a JSONObject
+     */
+    public void sendGet(RestRequest request, RetryPolicy retryPolicy, ErrorListener errorListener) {
+        // requests created by the caller don't get the user agent from makeRequest()
+        request.setUserAgent(sUserAgent);
         if (retryPolicy == null) {
             retryPolicy = new DefaultRetryPolicy(REST_TIMEOUT_MS, REST_MAX_RETRIES_GET, REST_BACKOFF_MULT);
         }
         request.setRetryPolicy(retryPolicy);
         AuthenticatorRequest authCheck = new AuthenticatorRequest(request, errorListener, mRestClient, mAuthenticator);
         authCheck.send();
-        return request;
     }
 
     /**
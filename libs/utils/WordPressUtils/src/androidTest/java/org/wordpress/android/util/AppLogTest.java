@@ -0,0 +1,118 @@
+package org.wordpress.android.util;
+
+import android.content.Context;
+import android.test.InstrumentationTestCase;
+
+import org.wordpress.android.util.AppLog.LogLevel;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AppLogTest extends InstrumentationTestCase {
+    private static final int MAX_ENTRIES = 20;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        AppLog.enableRecording(true);
+        AppLog.setMinLogLevel(LogLevel.v);
+        AppLog.setMaxEntries(MAX_ENTRIES);
+        AppLog.clearEntries();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        AppLog.setMinLogLevel(LogLevel.v);
+        AppLog.removeListeners();
+        super.tearDown();
+    }
+
+    public void testOldestEntriesAreOverwritten() {
+        for (int i = 0; i < MAX_ENTRIES * 2; i++) {
+            AppLog.i(T.TESTS, "entry " + i);
+        }
+
+        List<String> entries = getEntries();
+        assertEquals(MAX_ENTRIES, entries.size());
+        assertTrue(entries.get(0).endsWith("entry " + MAX_ENTRIES));
+        assertTrue(entries.get(MAX_ENTRIES - 1).endsWith("entry " + (MAX_ENTRIES * 2 - 1)));
+    }
+
+    public void testPlainTextMatchesHtmlList() {
+        AppLog.d(T.TESTS, "first");
+        AppLog.w(T.TESTS, "second %d", 2);
+
+        String text = AppLog.toPlainText(getContext());
+        assertTrue(text.contains("01 - ["));
+        assertTrue(text.contains("TESTS] second 2\n"));
+        assertEquals(2 + AppLog.HEADER_LINE_COUNT, AppLog.toHtmlList(getContext()).size());
+    }
+
+    public void testDisabledLevelsAreSkipped() {
+        final List<String> messages = new ArrayList<>();
+        AppLog.addListener(new AppLog.AppLogListener() {
+            @Override
+            public void onLog(T tag, LogLevel logLevel, String message) {
+                messages.add(message);
+            }
+        });
+        AppLog.setMinLogLevel(T.TESTS, LogLevel.w);
+
+        AppLog.d(T.TESTS, "skipped");
+        AppLog.d(T.TESTS, "skipped %s", new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("disabled messages shouldn't be formatted");
+            }
+        });
+        AppLog.w(T.TESTS, "logged");
+        AppLog.d(T.UTILS, "other tag");
+
+        assertFalse(AppLog.isLoggable(T.TESTS, LogLevel.i));
+        assertTrue(AppLog.isLoggable(T.UTILS, LogLevel.v));
+        assertEquals(2, messages.size());
+        assertEquals(2, getEntries().size());
+    }
+
+    public void testConcurrentWriters() throws InterruptedException {
+        final int numThreads = 4;
+        final int numEntries = 1000;
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            final int threadNum = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < numEntries; j++) {
+                        AppLog.v(T.TESTS, "thread " + threadNum + " entry " + j);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(MAX_ENTRIES, getEntries().size());
+    }
+
+    private Context getContext() {
+        return getInstrumentation().getTargetContext();
+    }
+
+    /*
+     * recorded entries without the header lines
+     */
+    private List<String> getEntries() {
+        List<String> entries = new ArrayList<>();
+        String[] lines = AppLog.toPlainText(getContext()).split("\n");
+        for (String line : lines) {
+            if (line.matches("^\\d+ - \\[.*")) {
+                entries.add(line);
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,47 @@
+package org.wordpress.android.util;
+
+import android.test.InstrumentationTestCase;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class RingBufferTest extends InstrumentationTestCase {
+    public void testOldestItemsAreOverwritten() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        assertTrue(buffer.getItems().isEmpty());
+
+        buffer.add(1);
+        buffer.add(2);
+        assertEquals(Arrays.asList(1, 2), buffer.getItems());
+
+        buffer.add(3);
+        buffer.add(4);
+        buffer.add(5);
+        assertEquals(Arrays.asList(3, 4, 5), buffer.getItems());
+    }
+
+    public void testConcurrentAdds() throws InterruptedException {
+        final int numThreads = 4;
+        final int numItemsPerThread = 1000;
+        final RingBuffer<Integer> buffer = new RingBuffer<>(numThreads * numItemsPerThread);
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int item = 0; item < numItemsPerThread; item++) {
+                        buffer.add(item);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // no item is lost when the buffer is large enough for all of them
+        List<Integer> items = buffer.getItems();
+        assertEquals(numThreads * numItemsPerThread, items.size());
+    }
+}
@@ -0,0 +1,104 @@
+package org.wordpress.android.util;
+
+import android.test.InstrumentationTestCase;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TracerTest extends InstrumentationTestCase {
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Tracer.setEnabled(true);
+        Tracer.setMaxEvents(Tracer.DEFAULT_MAX_EVENTS);
+    }
+
+    public void testNestedSpansAreExported() throws JSONException {
+        Tracer.Span outer = Tracer.begin(T.TESTS, "outer");
+        Tracer.Span inner = Tracer.begin(T.TESTS, "inner");
+        Tracer.mark(T.TESTS, "mark");
+        inner.end();
+        outer.end();
+
+        List<JSONObject> events = getEvents("X");
+        assertEquals(2, events.size());
+        // spans are recorded when they end, so the inner span comes first
+        JSONObject innerEvent = events.get(0);
+        JSONObject outerEvent = events.get(1);
+        assertEquals("inner", innerEvent.getString("name"));
+        assertEquals("TESTS", innerEvent.getString("cat"));
+        assertEquals(outerEvent.getLong("tid"), innerEvent.getLong("tid"));
+        assertTrue(innerEvent.getLong("ts") >= outerEvent.getLong("ts"));
+        assertTrue(innerEvent.getLong("ts") + innerEvent.getLong("dur")
+                <= outerEvent.getLong("ts") + outerEvent.getLong("dur"));
+        assertEquals(1, getEvents("i").size());
+        assertEquals(1, getEvents("M").size());
+    }
+
+    public void testTracesDontAffectEachOther() {
+        Tracer.startTrace(T.TESTS, "first");
+        Tracer.startTrace(T.TESTS, "second");
+        Tracer.getTrace("first").split("first split");
+        Tracer.endTrace("second");
+
+        assertEquals("first", Tracer.getTrace("first").getName());
+        assertNull(Tracer.getTrace("second").getName());
+        assertEquals("first", Tracer.endTrace("first").getName());
+    }
+
+    public void testSpansFromOtherThreads() throws InterruptedException, JSONException {
+        Thread thread = new Thread("tracer-test") {
+            @Override
+            public void run() {
+                Tracer.begin(T.TESTS, "background").end();
+            }
+        };
+        thread.start();
+        thread.join();
+        Tracer.begin(T.TESTS, "foreground").end();
+
+        List<JSONObject> events = getEvents("X");
+        assertEquals(2, events.size());
+        assertTrue(events.get(0).getLong("tid") != events.get(1).getLong("tid"));
+        assertEquals(2, getEvents("M").size());
+    }
+
+    public void testDisabledSpansAreNotRecorded() throws JSONException {
+        Tracer.setEnabled(false);
+        Tracer.begin(T.TESTS, "disabled").end();
+        Tracer.mark(T.TESTS, "disabled");
+        Tracer.setEnabled(true);
+
+        assertEquals(0, getEvents("X").size());
+        assertEquals(0, getEvents("i").size());
+    }
+
+    public void testOldestEventsAreOverwritten() throws JSONException {
+        Tracer.setMaxEvents(10);
+        for (int i = 0; i < 25; i++) {
+            Tracer.mark(T.TESTS, "mark " + i);
+        }
+
+        List<JSONObject> events = getEvents("i");
+        assertEquals(10, events.size());
+        assertEquals("mark 15", events.get(0).getString("name"));
+        assertEquals("mark 24", events.get(9).getString("name"));
+    }
+
+    private static List<JSONObject> getEvents(String phase) throws JSONException {
+        JSONArray events = new JSONObject(Tracer.toChromeTraceJson(60 * 1000)).getJSONArray("traceEvents");
+        List<JSONObject> result = new ArrayList<>();
+        for (int i = 0; i < events.length(); i++) {
+            JSONObject event = events.getJSONObject(i);
+            if (event.getString("ph").equals(phase)) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+}
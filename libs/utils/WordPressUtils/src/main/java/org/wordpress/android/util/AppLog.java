@@ -12,10 +12,10 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static java.lang.String.format;
 
@@ -29,8 +29,19 @@ public class AppLog {
 
     public static final String TAG = "WordPress";
     public static final int HEADER_LINE_COUNT = 2;
-    private static boolean mEnableRecording = false;
-    private static List<AppLogListener> mListeners = new ArrayList<>(0);
+    private static volatile boolean mEnableRecording = false;
+    private static final List<AppLogListener> mListeners = new CopyOnWriteArrayList<>();
+
+    // logcat tag for each T, so it isn't built on every call
+    private static final String[] LOGCAT_TAGS = new String[T.values().length];
+    static {
+        for (T tag : T.values()) {
+            LOGCAT_TAGS[tag.ordinal()] = TAG + "-" + tag.toString();
+        }
+    }
+
+    // minimum level logged for each T - replaced rather than modified so it can be read without locking
+    private static volatile LogLevel[] mMinLevels = createMinLevels(LogLevel.v);
 
     private AppLog() {
         throw new AssertionError();
@@ -52,6 +63,66 @@ public class AppLog {
         mListeners.clear();
     }
 
+    /**
+     * Sets the maximum number of entries recorded for display by AppLogViewerActivity, keeping
+     * the most recent entries already recorded
+     * @param maxEntries The maximum number of entries, default is 99
+     */
+    public static void setMaxEntries(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        RingBuffer<LogEntry> buffer = new RingBuffer<>(maxEntries);
+        for (LogEntry entry : mLogEntries.getItems()) {
+            buffer.add(entry);
+        }
+        mLogEntries = buffer;
+    }
+
+    /*
+     * discards all recorded entries - used by tests
+     */
+    static void clearEntries() {
+        mLogEntries = new RingBuffer<>(mLogEntries.getCapacity());
+    }
+
+    /**
+     * Sets the minimum level of messages that are logged for all tags - messages below this
+     * level aren't sent to logcat, listeners or the recorded log
+     */
+    public static void setMinLogLevel(@NonNull LogLevel level) {
+        mMinLevels = createMinLevels(level);
+    }
+
+    /**
+     * Sets the minimum level of messages that are logged for the passed tag
+     */
+    public static synchronized void setMinLogLevel(@NonNull T tag, @NonNull LogLevel level) {
+        LogLevel[] minLevels = mMinLevels.clone();
+        minLevels[tag.ordinal()] = level;
+        mMinLevels = minLevels;
+    }
+
+    /**
+     * Returns true if messages with the passed tag and level are logged, so callers can avoid
+     * building expensive messages that would be discarded
+     */
+    public static boolean isLoggable(@NonNull T tag, @NonNull LogLevel level) {
+        return level.ordinal() >= mMinLevels[tag.ordinal()].ordinal();
+    }
+
+    private static LogLevel[] createMinLevels(LogLevel level) {
+        LogLevel[] minLevels = new LogLevel[T.values().length];
+        for (int i = 0; i < minLevels.length; i++) {
+            minLevels[i] = level;
+        }
+        return minLevels;
+    }
+
+    private static String getLogcatTag(T tag) {
+        return LOGCAT_TAGS[tag.ordinal()];
+    }
+
     public interface AppLogListener {
         void onLog(T tag, LogLevel logLevel, String message);
     }
@@ -63,9 +134,25 @@ public class AppLog {
      * @param message The message you would like logged.
      */
     public static void v(T tag, String message) {
+        if (!isLoggable(tag, LogLevel.v)) {
+            return;
+        }
         message = StringUtils.notNullStr(message);
-        Log.v(TAG + "-" + tag.toString(), message);
-        addEntry(tag, LogLevel.v, message);
+        Log.v(getLogcatTag(tag), message);
+        addEntry(tag, LogLevel.v, message, null);
+    }
+
+    /**
+     * Sends a VERBOSE log message which is only formatted if VERBOSE messages are logged for the tag
+     * @param tag Used to identify the source of a log message.
+     *            It usually identifies the class or activity where the log call occurs.
+     * @param format The format string of the message you would like logged.
+     * @param args The arguments referenced by the format string.
+     */
+    public static void v(T tag, String format, Object... args) {
+        if (isLoggable(tag, LogLevel.v)) {
+            v(tag, format(Locale.US, StringUtils.notNullStr(format), args));
+        }
     }
 
     /**
@@ -75,9 +162,25 @@ public class AppLog {
      * @param message The message you would like logged.
      */
     public static void d(T tag, String message) {
+        if (!isLoggable(tag, LogLevel.d)) {
+            return;
+        }
         message = StringUtils.notNullStr(message);
-        Log.d(TAG + "-" + tag.toString(), message);
-        addEntry(tag, LogLevel.d, message);
+        Log.d(getLogcatTag(tag), message);
+        addEntry(tag, LogLevel.d, message, null);
+    }
+
+    /**
+     * Sends a DEBUG log message which is only formatted if DEBUG messages are logged for the tag
+     * @param tag Used to identify the source of a log message.
+     *            It usually identifies the class or activity where the log call occurs.
+     * @param format The format string of the message you would like logged.
+     * @param args The arguments referenced by the format string.
+     */
+    public static void d(T tag, String format, Object... args) {
+        if (isLoggable(tag, LogLevel.d)) {
+            d(tag, format(Locale.US, StringUtils.notNullStr(format), args));
+        }
     }
 
     /**
@@ -87,9 +190,25 @@ public class AppLog {
      * @param message The message you would like logged.
      */
     public static void i(T tag, String message) {
+        if (!isLoggable(tag, LogLevel.i)) {
+            return;
+        }
         message = StringUtils.notNullStr(message);
-        Log.i(TAG + "-" + tag.toString(), message);
-        addEntry(tag, LogLevel.i, message);
+        Log.i(getLogcatTag(tag), message);
+        addEntry(tag, LogLevel.i, message, null);
+    }
+
+    /**
+     * Sends a INFO log message which is only formatted if INFO messages are logged for the tag
+     * @param tag Used to identify the source of a log message.
+     *            It usually identifies the class or activity where the log call occurs.
+     * @param format The format string of the message you would like logged.
+     * @param args The arguments referenced by the format string.
+     */
+    public static void i(T tag, String format, Object... args) {
+        if (isLoggable(tag, LogLevel.i)) {
+            i(tag, format(Locale.US, StringUtils.notNullStr(format), args));
+        }
     }
 
     /**
@@ -99,9 +218,25 @@ public class AppLog {
      * @param message The message you would like logged.
      */
     public static void w(T tag, String message) {
+        if (!isLoggable(tag, LogLevel.w)) {
+            return;
+        }
         message = StringUtils.notNullStr(message);
-        Log.w(TAG + "-" + tag.toString(), message);
-        addEntry(tag, LogLevel.w, message);
+        Log.w(getLogcatTag(tag), message);
+        addEntry(tag, LogLevel.w, message, null);
+    }
+
+    /**
+     * Sends a WARN log message which is only formatted if WARN messages are logged for the tag
+     * @param tag Used to identify the source of a log message.
+     *            It usually identifies the class or activity where the log call occurs.
+     * @param format The format string of the message you would like logged.
+     * @param args The arguments referenced by the format string.
+     */
+    public static void w(T tag, String format, Object... args) {
+        if (isLoggable(tag, LogLevel.w)) {
+            w(tag, format(Locale.US, StringUtils.notNullStr(format), args));
+        }
     }
 
     /**
@@ -111,9 +246,12 @@ public class AppLog {
      * @param message The message you would like logged.
      */
     public static void e(T tag, String message) {
+        if (!isLoggable(tag, LogLevel.e)) {
+            return;
+        }
         message = StringUtils.notNullStr(message);
-        Log.e(TAG + "-" + tag.toString(), message);
-        addEntry(tag, LogLevel.e, message);
+        Log.e(getLogcatTag(tag), message);
+        addEntry(tag, LogLevel.e, message, null);
     }
 
     /**
@@ -124,10 +262,13 @@ public class AppLog {
      * @param tr An exception to log
      */
     public static void e(T tag, String message, Throwable tr) {
+        if (!isLoggable(tag, LogLevel.e)) {
+            return;
+        }
         message = StringUtils.notNullStr(message);
-        Log.e(TAG + "-" + tag.toString(), message, tr);
-        addEntry(tag, LogLevel.e, message + " - exception: " + tr.getMessage());
-        addEntry(tag, LogLevel.e, "StackTrace: " + getStringStackTrace(tr));
+        Log.e(getLogcatTag(tag), message, tr);
+        addEntry(tag, LogLevel.e, message + " - exception: " + tr.getMessage(), null);
+        addEntry(tag, LogLevel.e, null, tr);
     }
 
     /**
@@ -136,9 +277,12 @@ public class AppLog {
      * @param tr An exception to log to get StackTrace
      */
     public static void e(T tag, Throwable tr) {
-        Log.e(TAG + "-" + tag.toString(), tr.getMessage(), tr);
-        addEntry(tag, LogLevel.e, tr.getMessage());
-        addEntry(tag, LogLevel.e, "StackTrace: " + getStringStackTrace(tr));
+        if (!isLoggable(tag, LogLevel.e)) {
+            return;
+        }
+        Log.e(getLogcatTag(tag), tr.getMessage(), tr);
+        addEntry(tag, LogLevel.e, tr.getMessage(), null);
+        addEntry(tag, LogLevel.e, null, tr);
     }
 
     /**
@@ -148,7 +292,7 @@ public class AppLog {
      * @param statusCode
      */
     public static void e(T tag, String volleyErrorMsg, int statusCode) {
-        if (TextUtils.isEmpty(volleyErrorMsg)) {
+        if (TextUtils.isEmpty(volleyErrorMsg) || !isLoggable(tag, LogLevel.e)) {
             return;
         }
         String logText;
@@ -157,8 +301,8 @@ public class AppLog {
         } else {
             logText = volleyErrorMsg + ", status " + statusCode;
         }
-        Log.e(TAG + "-" + tag.toString(), logText);
-        addEntry(tag, LogLevel.w, logText);
+        Log.e(getLogcatTag(tag), logText);
+        addEntry(tag, LogLevel.w, logText, null);
     }
 
     // --------------------------------------------------------------------------------------------------------
@@ -187,69 +331,61 @@ public class AppLog {
     private static class LogEntry {
         final LogLevel mLogLevel;
         final String mLogText;
-        final java.util.Date mDate;
+        final Throwable mThrowable;
+        final long mTimestamp;
         final T mLogTag;
 
-        public LogEntry(LogLevel logLevel, String logText, T logTag) {
+        // the text of entries which log a throwable is its stack trace, which is only built
+        // when the log is displayed
+        LogEntry(LogLevel logLevel, String logText, Throwable throwable, T logTag, long timestamp) {
             mLogLevel = logLevel;
-            mDate = DateTimeUtils.nowUTC();
-            if (logText == null) {
-                mLogText = "null";
-            } else {
-                mLogText = logText;
-            }
+            mLogText = logText;
+            mThrowable = throwable;
             mLogTag = logTag;
+            mTimestamp = timestamp;
         }
 
-        private String formatLogDate() {
-            return new SimpleDateFormat("MMM-dd kk:mm", Locale.US).format(mDate);
+        private String getLogText() {
+            if (mThrowable != null) {
+                return "StackTrace: " + getStringStackTrace(mThrowable);
+            }
+            return mLogText != null ? mLogText : "null";
         }
 
-        private String toHtml() {
+        private String formatLogDate(SimpleDateFormat dateFormat) {
+            return dateFormat.format(DateTimeUtils.localDateToUTC(new Date(mTimestamp)));
+        }
+
+        private String toHtml(SimpleDateFormat dateFormat) {
             StringBuilder sb = new StringBuilder();
             sb.append("<font color=\"");
             sb.append(mLogLevel.toHtmlColor());
             sb.append("\">");
             sb.append("[");
-            sb.append(formatLogDate()).append(" ");
+            sb.append(formatLogDate(dateFormat)).append(" ");
             sb.append(mLogTag.name()).append(" ");
             sb.append(mLogLevel.name());
             sb.append("] ");
-            sb.append(TextUtils.htmlEncode(mLogText).replace("\n", "<br />"));
+            sb.append(TextUtils.htmlEncode(getLogText()).replace("\n", "<br />"));
             sb.append("</font>");
             return sb.toString();
         }
     }
 
-    private static class LogEntryList extends ArrayList<LogEntry> {
-        private synchronized boolean addEntry(LogEntry entry) {
-            if (size() >= MAX_ENTRIES)
-                removeFirstEntry();
-            return add(entry);
-        }
-        private void removeFirstEntry() {
-            Iterator<LogEntry> it = iterator();
-            if (!it.hasNext())
-                return;
-            try {
-                remove(it.next());
-            } catch (NoSuchElementException e) {
-                // ignore
-            }
-        }
-    }
-
-    private static LogEntryList mLogEntries = new LogEntryList();
+    // recorded entries, which can be added to from any thread without locking
+    private static volatile RingBuffer<LogEntry> mLogEntries = new RingBuffer<>(MAX_ENTRIES);
 
-    private static void addEntry(T tag, LogLevel level, String text) {
+    private static void addEntry(T tag, LogLevel level, String text, Throwable throwable) {
         // Call our listeners if any
-        for (AppLogListener listener : mListeners) {
-            listener.onLog(tag, level, text);
+        if (!mListeners.isEmpty()) {
+            String listenerText = throwable != null ? "StackTrace: " + getStringStackTrace(throwable) : text;
+            for (AppLogListener listener : mListeners) {
+                listener.onLog(tag, level, listenerText);
+            }
         }
         // Record entry if enabled
         if (mEnableRecording) {
-            LogEntry entry = new LogEntry(level, text, tag);
-            mLogEntries.addEntry(entry);
+            mLogEntries.add(new LogEntry(level, text, throwable, tag, System.currentTimeMillis()));
         }
     }
 
@@ -293,9 +429,9 @@ public class AppLog {
         items.add("<strong>" + getAppInfoHeaderText(context) + "</strong>");
         items.add("<strong>" + getDeviceInfoHeaderText(context) + "</strong>");
 
-        Iterator<LogEntry> it = mLogEntries.iterator();
-        while (it.hasNext()) {
-            items.add(it.next().toHtml());
+        SimpleDateFormat dateFormat = new SimpleDateFormat("MMM-dd kk:mm", Locale.US);
+        for (LogEntry entry : mLogEntries.getItems()) {
+            items.add(entry.toHtml(dateFormat));
         }
         return items;
     }
@@ -312,16 +448,15 @@ public class AppLog {
         sb.append(getAppInfoHeaderText(context)).append("\n")
                 .append(getDeviceInfoHeaderText(context)).append("\n\n");
 
-        Iterator<LogEntry> it = mLogEntries.iterator();
+        SimpleDateFormat dateFormat = new SimpleDateFormat("MMM-dd kk:mm", Locale.US);
         int lineNum = 1;
-        while (it.hasNext()) {
-            LogEntry entry = it.next();
+        for (LogEntry entry : mLogEntries.getItems()) {
             sb.append(format(Locale.US, "%02d - ", lineNum))
                 .append("[")
-                .append(entry.formatLogDate()).append(" ")
+                .append(entry.formatLogDate(dateFormat)).append(" ")
                 .append(entry.mLogTag.name())
                 .append("] ")
-                .append(entry.mLogText)
+                .append(entry.getLogText())
                 .append("\n");
             lineNum++;
         }
@@ -2,7 +2,11 @@ package org.wordpress.android.util;
 
 import android.text.TextUtils;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
 
 public class FileUtils {
     /**
@@ -57,4 +61,110 @@ public class FileUtils {
         }
         return filename;
     }
+
+    /**
+     * Deletes the least recently modified files in the passed directory until the total size of
+     * the files in it is at most maxBytes. Used by disk caches which refresh a file's modified
+     * time when it's read, so the oldest files are the least recently used. A subdirectory is
+     * treated as a single entry the size of all the files in it, and is deleted along with them.
+     *
+     * @param dir The directory to trim
+     * @param maxBytes The maximum total size of the files in the directory
+     * @param keepFile A file or subdirectory which is never deleted (ex: the one which was just
+     *                 written), or null
+     * @return The number of files and subdirectories which were deleted
+     */
+    public static int trimDirectory(File dir, long maxBytes, File keepFile) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return 0;
+        }
+
+        final long[] sizes = new long[files.length];
+        long size = 0;
+        for (int i = 0; i < files.length; i++) {
+            sizes[i] = getSize(files[i]);
+            size += sizes[i];
+        }
+        if (size <= maxBytes) {
+            return 0;
+        }
+
+        // cache the modified times since they may change while sorting
+        final long[] modified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            modified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer index1, Integer index2) {
+                long modified1 = modified[index1];
+                long modified2 = modified[index2];
+                return modified1 < modified2 ? -1 : (modified1 == modified2 ? 0 : 1);
+            }
+        });
+
+        int numDeleted = 0;
+        for (int index : order) {
+            if (size <= maxBytes) {
+                break;
+            }
+            File file = files[index];
+            if (file.equals(keepFile)) {
+                continue;
+            }
+            if (delete(file)) {
+                size -= sizes[index];
+                numDeleted++;
+            }
+        }
+        return numDeleted;
+    }
+
+    /*
+     * returns the size of the passed file, or the total size of the files in it for a directory
+     */
+    private static long getSize(File file) {
+        if (!file.isDirectory()) {
+            return file.length();
+        }
+        long size = 0;
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                size += getSize(child);
+            }
+        }
+        return size;
+    }
+
+    /*
+     * deletes the passed file, or the passed directory along with everything in it
+     */
+    private static boolean delete(File file) {
+        if (file.isDirectory()) {
+            File[] files = file.listFiles();
+            if (files != null) {
+                for (File child : files) {
+                    delete(child);
+                }
+            }
+        }
+        return file.delete();
+    }
+
+    /**
+     * Closes the passed stream, reader or writer, ignoring any errors. Does nothing if it's null.
+     */
+    public static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // nothing to do
+            }
+        }
+    }
 }
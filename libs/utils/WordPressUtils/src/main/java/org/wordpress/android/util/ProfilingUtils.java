@@ -1,87 +1,43 @@
 package org.wordpress.android.util;
 
-import android.os.SystemClock;
-
 import org.wordpress.android.util.AppLog.T;
 
-import java.util.ArrayList;
-
 /**
- * forked from android.util.TimingLogger to use AppLog instead of Log + new static interface.
+ * Single-trace profiling interface kept for existing callers - the splits are recorded by
+ * Tracer, so they also appear in its exported traces. Use Tracer directly for new code, since
+ * it supports nested spans and multiple concurrent traces.
  */
+@Deprecated
 public class ProfilingUtils {
-    private static ProfilingUtils sInstance;
-
-    private String mLabel;
-    private ArrayList<Long> mSplits;
-    private ArrayList<String> mSplitLabels;
-
-    public static void start(String label) {
-        getInstance().reset(label);
-    }
-
-    public static void split(String splitLabel) {
-        getInstance().addSplit(splitLabel);
-    }
-
-    public static void dump() {
-        getInstance().dumpToLog();
-    }
+    private static String sLabel;
 
-    public static void stop() {
-        getInstance().reset(null);
+    private ProfilingUtils() {
+        throw new AssertionError();
     }
 
-    private static ProfilingUtils getInstance() {
-        if (sInstance == null) {
-            sInstance = new ProfilingUtils();
+    public static synchronized void start(String label) {
+        if (sLabel != null) {
+            Tracer.endTrace(sLabel);
+        }
+        sLabel = label;
+        if (label != null) {
+            Tracer.startTrace(T.PROFILING, label);
         }
-        return sInstance;
-    }
-
-    public ProfilingUtils() {
-        reset("init");
-    }
-
-    public void reset(String label) {
-        mLabel = label;
-        reset();
     }
 
-    public void reset() {
-        if (mSplits == null) {
-            mSplits = new ArrayList<Long>();
-            mSplitLabels = new ArrayList<String>();
-        } else {
-            mSplits.clear();
-            mSplitLabels.clear();
+    public static synchronized void split(String splitLabel) {
+        if (sLabel != null) {
+            Tracer.getTrace(sLabel).split(StringUtils.notNullStr(splitLabel));
         }
-        addSplit(null);
     }
 
-    public void addSplit(String splitLabel) {
-        if (mLabel == null) {
-            return;
+    public static synchronized void dump() {
+        if (sLabel != null) {
+            Tracer.getTrace(sLabel).dumpToLog();
         }
-        long now = SystemClock.elapsedRealtime();
-        mSplits.add(now);
-        mSplitLabels.add(splitLabel);
     }
 
-    public void dumpToLog() {
-        if (mLabel == null) {
-            return;
-        }
-        AppLog.d(T.PROFILING, mLabel + ": begin");
-        final long first = mSplits.get(0);
-        long now = first;
-        for (int i = 1; i < mSplits.size(); i++) {
-            now = mSplits.get(i);
-            final String splitLabel = mSplitLabels.get(i);
-            final long prev = mSplits.get(i - 1);
-            AppLog.d(T.PROFILING, mLabel + ":      " + (now - prev) + " ms, " + splitLabel);
-        }
-        AppLog.d(T.PROFILING, mLabel + ": end, " + (now - first) + " ms");
+    public static synchronized void stop() {
+        start(null);
     }
 }
-
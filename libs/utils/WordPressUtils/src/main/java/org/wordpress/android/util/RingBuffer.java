@@ -0,0 +1,62 @@
+package org.wordpress.android.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size ring buffer which can be added to from any thread without locking, used to keep
+ * the most recent log entries and trace events.
+ *
+ * Each writer claims a sequence number and stores its item in the slot for that number,
+ * overwriting the oldest item once the buffer is full. Readers skip slots which haven't been
+ * written yet or have already been overwritten, so a read while items are being added may miss
+ * the items being added but never returns an item twice or out of order.
+ */
+public class RingBuffer<E> {
+    private static class Slot<E> {
+        final long mSequence;
+        final E mItem;
+
+        Slot(long sequence, E item) {
+            mSequence = sequence;
+            mItem = item;
+        }
+    }
+
+    private final AtomicReferenceArray<Slot<E>> mSlots;
+    private final AtomicLong mNextSequence = new AtomicLong();
+
+    public RingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        mSlots = new AtomicReferenceArray<>(capacity);
+    }
+
+    public int getCapacity() {
+        return mSlots.length();
+    }
+
+    public void add(E item) {
+        long sequence = mNextSequence.getAndIncrement();
+        mSlots.set((int) (sequence % mSlots.length()), new Slot<>(sequence, item));
+    }
+
+    /**
+     * Returns the items in the buffer, oldest first
+     */
+    public List<E> getItems() {
+        long end = mNextSequence.get();
+        long start = Math.max(0, end - mSlots.length());
+        List<E> items = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            Slot<E> slot = mSlots.get((int) (sequence % mSlots.length()));
+            if (slot != null && slot.mSequence == sequence) {
+                items.add(slot.mItem);
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,311 @@
+package org.wordpress.android.util;
+
+import android.support.annotation.NonNull;
+
+import org.json.JSONObject;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread-safe tracing of where time goes, replacing ProfilingUtils.
+ *
+ * - Spans are started with begin() and finished with Span.end(). Each thread has its own current
+ *   span, so spans started while another is open on the same thread are nested beneath it.
+ * - Traces are named spans which aren't tied to a thread, so they can be split and ended by
+ *   other components (ex: "App Startup" is started in the application and ended by an activity).
+ *   Traces with different names don't affect each other.
+ * - Finished spans and marks are recorded in a fixed-size ring buffer without locking, and the
+ *   most recent can be exported as Chrome trace JSON (chrome://tracing or ui.perfetto.dev).
+ *
+ * Timestamps use System.nanoTime(), which is monotonic and cheap to read.
+ */
+public class Tracer {
+    public static final int DEFAULT_MAX_EVENTS = 2000;
+
+    private static final char PHASE_COMPLETE = 'X';
+    private static final char PHASE_INSTANT = 'i';
+
+    private static final long BASE_NANOS = System.nanoTime();
+    private static final Span NO_OP_SPAN = new Span(null, null, null, false);
+
+    private static volatile boolean sEnabled = true;
+    private static volatile RingBuffer<TraceEvent> sEvents = new RingBuffer<>(DEFAULT_MAX_EVENTS);
+
+    private static final ThreadLocal<Span> sCurrentSpan = new ThreadLocal<>();
+    private static final Map<String, Span> sTraces = new ConcurrentHashMap<>();
+
+    private Tracer() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Enables or disables tracing - while disabled, begin() returns a span which does nothing
+     * @param enable A boolean flag to enable tracing. Default is true
+     */
+    public static void setEnabled(boolean enable) {
+        sEnabled = enable;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Sets the maximum number of events kept for export, discarding those already recorded
+     */
+    public static void setMaxEvents(int maxEvents) {
+        if (maxEvents < 1) {
+            throw new IllegalArgumentException("maxEvents must be positive");
+        }
+        sEvents = new RingBuffer<>(maxEvents);
+    }
+
+    /**
+     * Starts a span nested beneath the current span on this thread - the span must be ended on
+     * the same thread, typically in a finally block
+     */
+    public static Span begin(@NonNull T tag, @NonNull String name) {
+        if (!sEnabled) {
+            return NO_OP_SPAN;
+        }
+        Span span = new Span(tag, name, sCurrentSpan.get(), true);
+        sCurrentSpan.set(span);
+        return span;
+    }
+
+    /**
+     * Records an instant event on this thread
+     */
+    public static void mark(@NonNull T tag, @NonNull String name) {
+        if (sEnabled) {
+            Thread thread = Thread.currentThread();
+            sEvents.add(new TraceEvent(PHASE_INSTANT, tag, name, thread.getId(), thread.getName(),
+                    System.nanoTime(), 0, null));
+        }
+    }
+
+    /**
+     * Starts a named trace which isn't tied to this thread, replacing any active trace with the
+     * same name
+     */
+    public static Span startTrace(@NonNull T tag, @NonNull String name) {
+        if (!sEnabled) {
+            return NO_OP_SPAN;
+        }
+        Span span = new Span(tag, name, null, false);
+        sTraces.put(name, span);
+        return span;
+    }
+
+    /**
+     * Returns the active trace with the passed name - if there isn't one, the returned span
+     * does nothing
+     */
+    public static @NonNull Span getTrace(@NonNull String name) {
+        Span span = sTraces.get(name);
+        return span != null ? span : NO_OP_SPAN;
+    }
+
+    /**
+     * Ends the active trace with the passed name and returns it
+     */
+    public static @NonNull Span endTrace(@NonNull String name) {
+        Span span = sTraces.remove(name);
+        if (span == null) {
+            return NO_OP_SPAN;
+        }
+        span.end();
+        return span;
+    }
+
+    /**
+     * Exports the events which finished in the last lastMillis milliseconds as Chrome trace JSON
+     */
+    public static String toChromeTraceJson(long lastMillis) {
+        long sinceNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(lastMillis);
+        int pid = android.os.Process.myPid();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        boolean isFirst = true;
+        HashSet<Long> threadIds = new HashSet<>();
+        for (TraceEvent event : sEvents.getItems()) {
+            if (event.mStartNanos + event.mDurationNanos < sinceNanos) {
+                continue;
+            }
+            if (!isFirst) {
+                sb.append(',');
+            }
+            isFirst = false;
+
+            // name each thread the first time it appears
+            if (threadIds.add(event.mThreadId)) {
+                sb.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":").append(pid)
+                  .append(",\"tid\":").append(event.mThreadId)
+                  .append(",\"args\":{\"name\":").append(JSONObject.quote(event.mThreadName)).append("}},");
+            }
+
+            sb.append("{\"name\":").append(JSONObject.quote(event.mName))
+              .append(",\"cat\":\"").append(event.mTag.name())
+              .append("\",\"ph\":\"").append(event.mPhase)
+              .append("\",\"ts\":").append(toMicros(event.mStartNanos - BASE_NANOS))
+              .append(",\"pid\":").append(pid)
+              .append(",\"tid\":").append(event.mThreadId);
+            if (event.mPhase == PHASE_COMPLETE) {
+                sb.append(",\"dur\":").append(toMicros(event.mDurationNanos));
+            } else {
+                sb.append(",\"s\":\"t\"");
+            }
+            if (event.mTraceName != null) {
+                sb.append(",\"args\":{\"trace\":").append(JSONObject.quote(event.mTraceName)).append('}');
+            }
+            sb.append('}');
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    public static class Span {
+        private final T mTag;
+        private final String mName;
+        private final Span mParent;
+        private final boolean mIsThreadSpan;
+        private final long mThreadId;
+        private final String mThreadName;
+        private final long mStartNanos;
+        private volatile long mEndNanos;
+
+        // created on the first split, guarded by this span
+        private List<String> mSplitNames;
+        private List<Long> mSplitNanos;
+
+        private Span(T tag, String name, Span parent, boolean isThreadSpan) {
+            Thread thread = Thread.currentThread();
+            mTag = tag;
+            mName = name;
+            mParent = parent;
+            mIsThreadSpan = isThreadSpan;
+            mThreadId = thread.getId();
+            mThreadName = thread.getName();
+            mStartNanos = System.nanoTime();
+        }
+
+        private boolean isNoOp() {
+            return mName == null;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        /**
+         * Records a split in this span, which is also recorded as an instant event on this thread
+         */
+        public void split(@NonNull String splitName) {
+            if (isNoOp() || mEndNanos != 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            synchronized (this) {
+                if (mSplitNames == null) {
+                    mSplitNames = new ArrayList<>();
+                    mSplitNanos = new ArrayList<>();
+                }
+                mSplitNames.add(splitName);
+                mSplitNanos.add(now);
+            }
+            Thread thread = Thread.currentThread();
+            sEvents.add(new TraceEvent(PHASE_INSTANT, mTag, splitName, thread.getId(), thread.getName(),
+                    now, 0, mName));
+        }
+
+        public void end() {
+            if (isNoOp()) {
+                return;
+            }
+            synchronized (this) {
+                if (mEndNanos != 0) {
+                    return;
+                }
+                mEndNanos = System.nanoTime();
+            }
+            sEvents.add(new TraceEvent(PHASE_COMPLETE, mTag, mName, mThreadId, mThreadName,
+                    mStartNanos, mEndNanos - mStartNanos, mIsThreadSpan ? null : mName));
+
+            // restore the parent as the current span if this span is current on this thread
+            if (mIsThreadSpan && sCurrentSpan.get() == this) {
+                if (mParent != null) {
+                    sCurrentSpan.set(mParent);
+                } else {
+                    sCurrentSpan.remove();
+                }
+            }
+        }
+
+        /**
+         * Returns the duration of this span in milliseconds, or the time since it started if it
+         * hasn't ended
+         */
+        public long getDurationMs() {
+            if (isNoOp()) {
+                return 0;
+            }
+            long endNanos = mEndNanos != 0 ? mEndNanos : System.nanoTime();
+            return TimeUnit.NANOSECONDS.toMillis(endNanos - mStartNanos);
+        }
+
+        /**
+         * Logs the splits of this span and its duration
+         */
+        public void dumpToLog() {
+            if (isNoOp()) {
+                return;
+            }
+            AppLog.d(T.PROFILING, mName + ": begin");
+            synchronized (this) {
+                long prev = mStartNanos;
+                int numSplits = mSplitNames != null ? mSplitNames.size() : 0;
+                for (int i = 0; i < numSplits; i++) {
+                    long now = mSplitNanos.get(i);
+                    AppLog.d(T.PROFILING, mName + ":      " + TimeUnit.NANOSECONDS.toMillis(now - prev) + " ms, "
+                            + mSplitNames.get(i));
+                    prev = now;
+                }
+            }
+            AppLog.d(T.PROFILING, mName + ": end, " + getDurationMs() + " ms");
+        }
+    }
+
+    private static class TraceEvent {
+        final char mPhase;
+        final T mTag;
+        final String mName;
+        final long mThreadId;
+        final String mThreadName;
+        final long mStartNanos;
+        final long mDurationNanos;
+        final String mTraceName;
+
+        TraceEvent(char phase, T tag, String name, long threadId, String threadName,
+                   long startNanos, long durationNanos, String traceName) {
+            mPhase = phase;
+            mTag = tag;
+            mName = name;
+            mThreadId = threadId;
+            mThreadName = threadName;
+            mStartNanos = startNanos;
+            mDurationNanos = durationNanos;
+            mTraceName = traceName;
+        }
+    }
+}